@@ -0,0 +1,104 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.VersioningScheme;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.IsolationLevel;
+
+import javax.transaction.TransactionManager;
+
+/**
+ * Creates the caches used by the benchmarks. The clustered caches have a single member, bound to the loopback
+ * interface, so the benchmarks measure the local code path of the clustered components.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public final class BenchmarkCaches {
+
+   private BenchmarkCaches() {
+   }
+
+   public static EmbeddedCacheManager localCacheManager(boolean transactional) {
+      return TestCacheManagerFactory.createCacheManager(TestCacheManagerFactory.getDefaultCacheConfiguration(transactional));
+   }
+
+   /**
+    * @return a single member cache manager whose default cache is a distributed GMU cache. The version garbage
+    *         collector is disabled, so the old versions are kept for the snapshot reads.
+    */
+   public static EmbeddedCacheManager gmuCacheManager() {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(true);
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC).l1().disable()
+            .stateTransfer().fetchInMemoryState(false);
+      builder.transaction().syncCommitPhase(true).syncRollbackPhase(true);
+      builder.locking().isolationLevel(IsolationLevel.SERIALIZABLE);
+      builder.versioning().enable().scheme(VersioningScheme.GMU);
+      builder.garbageCollector().enabled(false);
+      return TestCacheManagerFactory.createClusteredCacheManager(builder);
+   }
+
+   public static <T> T component(Cache<?, ?> cache, Class<T> componentType) {
+      return cache.getAdvancedCache().getComponentRegistry().getComponent(componentType);
+   }
+
+   /**
+    * writes all the keys in a single transaction.
+    */
+   public static void writeAll(Cache<Object, Object> cache, Object[] keys, Object value) throws Exception {
+      TransactionManager transactionManager = cache.getAdvancedCache().getTransactionManager();
+      transactionManager.begin();
+      boolean success = false;
+      try {
+         for (Object key : keys) {
+            cache.put(key, value);
+         }
+         success = true;
+      } finally {
+         if (success) {
+            transactionManager.commit();
+         } else {
+            transactionManager.rollback();
+         }
+      }
+   }
+
+   public static Object[] keys(int numberOfKeys) {
+      Object[] keys = new Object[numberOfKeys];
+      for (int i = 0; i < numberOfKeys; ++i) {
+         keys[i] = "key-" + i;
+      }
+      return keys;
+   }
+
+   public static void stop(EmbeddedCacheManager cacheManager) {
+      if (cacheManager != null) {
+         cacheManager.stop();
+      }
+   }
+}
@@ -0,0 +1,60 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * A per-thread sequence of key indexes, uniformly distributed and computed before the measurement, so the random
+ * number generation is not measured.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Thread)
+public class KeySequence {
+
+   private static final int SIZE = 1 << 16;
+   private static final int MASK = SIZE - 1;
+   private final int[] indexes = new int[SIZE];
+   private int position;
+
+   @Setup
+   public void setup() {
+      Random random = new Random(Thread.currentThread().getId());
+      for (int i = 0; i < SIZE; ++i) {
+         indexes[i] = random.nextInt(Integer.MAX_VALUE);
+      }
+   }
+
+   /**
+    * @return the next index, between 0 (inclusive) and {@code bound} (exclusive)
+    */
+   public final int next(int bound) {
+      return indexes[position++ & MASK] % bound;
+   }
+}
@@ -0,0 +1,116 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.container;
+
+import org.infinispan.Cache;
+import org.infinispan.benchmarks.BenchmarkCaches;
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.container.DataContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read operations of the {@link DataContainer} implementations: {@code DEFAULT} is the {@link
+ * org.infinispan.container.DefaultDataContainer} of a local cache and {@code GMU} is the {@link
+ * org.infinispan.container.gmu.GMUDataContainer} of a GMU cache, reading the most recent version.
+ * <p/>
+ * The writes are measured through the cache in {@link org.infinispan.benchmarks.interceptors.InterceptorChainBenchmark},
+ * since the GMU container needs the versions generated by the commit.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataContainerBenchmark {
+
+   @Param({"DEFAULT", "GMU"})
+   public String containerType;
+
+   @Param({"1024", "65536"})
+   public int numberOfKeys;
+
+   private EmbeddedCacheManager cacheManager;
+   private DataContainer dataContainer;
+   private Object[] keys;
+   private Object[] missingKeys;
+
+   @Setup
+   public void setup() throws Exception {
+      if ("GMU".equals(containerType)) {
+         cacheManager = BenchmarkCaches.gmuCacheManager();
+      } else {
+         cacheManager = BenchmarkCaches.localCacheManager(true);
+      }
+      Cache<Object, Object> cache = cacheManager.getCache();
+      keys = BenchmarkCaches.keys(numberOfKeys);
+      missingKeys = new Object[numberOfKeys];
+      for (int i = 0; i < numberOfKeys; ++i) {
+         missingKeys[i] = "missing-" + i;
+      }
+      BenchmarkCaches.writeAll(cache, keys, "value");
+      dataContainer = BenchmarkCaches.component(cache, DataContainer.class);
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkCaches.stop(cacheManager);
+   }
+
+   @Benchmark
+   public Object get(KeySequence sequence) {
+      return dataContainer.get(keys[sequence.next(numberOfKeys)], null);
+   }
+
+   @Benchmark
+   public Object peek(KeySequence sequence) {
+      return dataContainer.peek(keys[sequence.next(numberOfKeys)], null);
+   }
+
+   @Benchmark
+   public Object getMissing(KeySequence sequence) {
+      return dataContainer.get(missingKeys[sequence.next(numberOfKeys)], null);
+   }
+
+   @Benchmark
+   public boolean containsKey(KeySequence sequence) {
+      return dataContainer.containsKey(keys[sequence.next(numberOfKeys)], null);
+   }
+}
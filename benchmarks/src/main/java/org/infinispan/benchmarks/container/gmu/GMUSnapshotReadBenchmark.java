@@ -0,0 +1,112 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.container.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.benchmarks.BenchmarkCaches;
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.transaction.gmu.CommitLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reads of the {@link org.infinispan.container.gmu.GMUDataContainer} in a snapshot: each key has
+ * {@code versionsPerKey} versions and it is read with the most recent, the middle and the oldest snapshot version,
+ * which traverses the {@link org.infinispan.container.gmu.VersionChain} and builds the read version in the {@link
+ * CommitLog}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GMUSnapshotReadBenchmark {
+
+   private static final int NUMBER_OF_KEYS = 1024;
+
+   @Param({"1", "8", "32"})
+   public int versionsPerKey;
+
+   private EmbeddedCacheManager cacheManager;
+   private DataContainer dataContainer;
+   private Object[] keys;
+   private EntryVersion mostRecent;
+   private EntryVersion middle;
+   private EntryVersion oldest;
+
+   @Setup
+   public void setup() throws Exception {
+      cacheManager = BenchmarkCaches.gmuCacheManager();
+      Cache<Object, Object> cache = cacheManager.getCache();
+      CommitLog commitLog = BenchmarkCaches.component(cache, CommitLog.class);
+      keys = BenchmarkCaches.keys(NUMBER_OF_KEYS);
+      EntryVersion[] versions = new EntryVersion[versionsPerKey];
+      for (int i = 0; i < versionsPerKey; ++i) {
+         BenchmarkCaches.writeAll(cache, keys, "value-" + i);
+         versions[i] = commitLog.getCurrentVersion();
+      }
+      oldest = versions[0];
+      middle = versions[versionsPerKey / 2];
+      mostRecent = versions[versionsPerKey - 1];
+      dataContainer = BenchmarkCaches.component(cache, DataContainer.class);
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkCaches.stop(cacheManager);
+   }
+
+   @Benchmark
+   public Object readMostRecent(KeySequence sequence) {
+      return dataContainer.get(keys[sequence.next(NUMBER_OF_KEYS)], mostRecent);
+   }
+
+   @Benchmark
+   public Object readMiddle(KeySequence sequence) {
+      return dataContainer.get(keys[sequence.next(NUMBER_OF_KEYS)], middle);
+   }
+
+   @Benchmark
+   public Object readOldest(KeySequence sequence) {
+      return dataContainer.get(keys[sequence.next(NUMBER_OF_KEYS)], oldest);
+   }
+}
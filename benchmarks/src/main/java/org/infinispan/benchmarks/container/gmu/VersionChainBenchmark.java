@@ -0,0 +1,275 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.container.gmu;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.versioned.VersionedImmortalCacheEntry;
+import org.infinispan.container.gmu.GMUDataContainer;
+import org.infinispan.container.gmu.VersionChain;
+import org.infinispan.container.gmu.VersionEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.InequalVersionComparisonResult;
+import org.infinispan.container.versioning.SimpleClusteredVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.infinispan.container.versioning.InequalVersionComparisonResult.*;
+
+/**
+ * Measures the {@link VersionChain} used by the {@link GMUDataContainer}: the reads of the most recent and of the
+ * oldest version of a chain with {@code chainLength} versions, and the readers against a concurrent writer that adds
+ * new versions and garbage collects the old ones, keeping the chain length.
+ * <p/>
+ * The {@code implementation} parameter compares the lock-free chain with the {@link SynchronizedVersionChain
+ * synchronized} chain it replaced. The chain is shared by all the threads, so the scalability is measured by running
+ * the reads with 1 to 64 threads and the read/write group with 1 writer and 1 to 63 readers:
+ * <pre>
+ * for t in 1 2 4 8 16 32 64; do java -jar benchmarks/target/benchmarks.jar "VersionChainBenchmark.get" -t $t; done
+ * for r in 1 3 7 15 31 63; do java -jar benchmarks/target/benchmarks.jar "VersionChainBenchmark.readWrite" -tg $r,1; done
+ * </pre>
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VersionChainBenchmark {
+
+   private static final Object KEY = "key";
+
+   @Param({"1", "8", "64"})
+   public int chainLength;
+
+   @Param({"lock-free", "synchronized"})
+   public String implementation;
+
+   private Chain chain;
+   private SimpleClusteredVersion oldest;
+   private final AtomicLong nextVersion = new AtomicLong(1);
+
+   @Setup
+   public void setup() {
+      chain = "synchronized".equals(implementation) ? new SynchronizedVersionChain() : new LockFreeVersionChain();
+      for (int i = 0; i < chainLength; ++i) {
+         chain.add(entry(nextVersion.getAndIncrement()));
+      }
+      oldest = version(1);
+   }
+
+   @Benchmark
+   public Object getMostRecent() {
+      return chain.get(null);
+   }
+
+   @Benchmark
+   public Object getOldest() {
+      return chain.get(oldest);
+   }
+
+   @Benchmark
+   @Group("readWrite")
+   @GroupThreads(3)
+   public Object concurrentGet() {
+      return chain.get(null);
+   }
+
+   @Benchmark
+   @Group("readWrite")
+   @GroupThreads(1)
+   public Object concurrentAdd() {
+      long version = nextVersion.getAndIncrement();
+      chain.add(entry(version));
+      EntryVersion minVersion = version(version - chainLength + 1);
+      chain.gc(minVersion);
+      return minVersion;
+   }
+
+   private static InternalCacheEntry entry(long version) {
+      return new VersionedImmortalCacheEntry(KEY, version, version(version));
+   }
+
+   private static SimpleClusteredVersion version(long version) {
+      return new SimpleClusteredVersion(0, version);
+   }
+
+   private static boolean isOlderOrEquals(EntryVersion older, EntryVersion newer) {
+      InequalVersionComparisonResult result = older.compareTo(newer);
+      return result == BEFORE || result == BEFORE_OR_EQUAL || result == EQUAL;
+   }
+
+   private static interface Chain {
+      VersionEntry<InternalCacheEntry> get(EntryVersion version);
+
+      void add(InternalCacheEntry entry);
+
+      void gc(EntryVersion minVersion);
+   }
+
+   private static class LockFreeVersionChain implements Chain {
+
+      private final VersionChain<InternalCacheEntry> chain = new GMUDataContainer.DataContainerVersionChain();
+
+      @Override
+      public VersionEntry<InternalCacheEntry> get(EntryVersion version) {
+         return chain.get(version);
+      }
+
+      @Override
+      public void add(InternalCacheEntry entry) {
+         chain.add(entry);
+      }
+
+      @Override
+      public void gc(EntryVersion minVersion) {
+         chain.gc(minVersion);
+      }
+   }
+
+   /**
+    * The baseline: the version chain before it was lock-free. The head is guarded by the chain monitor and the link
+    * to the previous version by the monitor of each body.
+    */
+   private static class SynchronizedVersionChain implements Chain {
+
+      private Body first;
+
+      @Override
+      public VersionEntry<InternalCacheEntry> get(EntryVersion version) {
+         Body iterator;
+         synchronized (this) {
+            iterator = first;
+         }
+         if (version == null) {
+            return new VersionEntry<InternalCacheEntry>(iterator == null ? null : iterator.entry, null, null, true);
+         }
+         EntryVersion nextVersion = null;
+         InternalCacheEntry nextEntry = null;
+         while (iterator != null) {
+            if (isOlderOrEquals(iterator.entry.getVersion(), version)) {
+               return new VersionEntry<InternalCacheEntry>(iterator.entry, nextEntry, nextVersion, true);
+            }
+            nextVersion = iterator.entry.getVersion();
+            nextEntry = iterator.entry;
+            iterator = iterator.getPrevious();
+         }
+         return new VersionEntry<InternalCacheEntry>(null, null, nextVersion, false);
+      }
+
+      @Override
+      public void add(InternalCacheEntry entry) {
+         Body toAdd = new Body(entry);
+         Body iterator = firstAdd(toAdd);
+         while (iterator != null) {
+            iterator = iterator.add(toAdd);
+         }
+      }
+
+      @Override
+      public void gc(EntryVersion minVersion) {
+         Body iterator;
+         synchronized (this) {
+            iterator = first;
+         }
+         while (iterator != null) {
+            iterator = iterator.gc(minVersion);
+         }
+      }
+
+      private synchronized Body firstAdd(Body body) {
+         if (first == null || first.isOlder(body)) {
+            body.setPrevious(first);
+            first = body;
+            return null;
+         } else if (first.isEqual(body)) {
+            return null;
+         }
+         return first.add(body);
+      }
+   }
+
+   private static class Body {
+
+      private final InternalCacheEntry entry;
+      private Body previous;
+
+      private Body(InternalCacheEntry entry) {
+         this.entry = entry;
+      }
+
+      public synchronized Body getPrevious() {
+         return previous;
+      }
+
+      public synchronized void setPrevious(Body previous) {
+         this.previous = previous;
+      }
+
+      public synchronized Body add(Body other) {
+         if (previous == null) {
+            previous = other;
+            return null;
+         } else if (previous.isOlder(other)) {
+            other.setPrevious(previous);
+            previous = other;
+            return null;
+         } else if (previous.isEqual(other)) {
+            return null;
+         }
+         return previous;
+      }
+
+      public synchronized Body gc(EntryVersion minVersion) {
+         Body toReturn = previous;
+         if (isOlderOrEquals(entry.getVersion(), minVersion)) {
+            previous = null;
+         }
+         return toReturn;
+      }
+
+      private boolean isOlder(Body other) {
+         return entry.getVersion().compareTo(other.entry.getVersion()) == BEFORE;
+      }
+
+      private boolean isEqual(Body other) {
+         return entry.getVersion().compareTo(other.entry.getVersion()) == EQUAL;
+      }
+   }
+}
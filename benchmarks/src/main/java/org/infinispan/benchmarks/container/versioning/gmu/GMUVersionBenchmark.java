@@ -0,0 +1,144 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.container.versioning.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.gmu.DistGMUVersionGenerator;
+import org.infinispan.container.versioning.gmu.GMUDistributedVersion;
+import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionAccumulator;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.topology.CacheTopology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the vector clock arithmetic of the {@link DistGMUVersionGenerator} for a cluster with {@code clusterSize}
+ * members: the merge of {@code numberOfVersions} versions, with varargs and with the {@link GMUVersionAccumulator}
+ * used in the read path, and the version comparison.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GMUVersionBenchmark {
+
+   private static final String CACHE_NAME = "benchmark-cache";
+
+   @Param({"4", "32"})
+   public int clusterSize;
+
+   @Param({"2", "16"})
+   public int numberOfVersions;
+
+   private DistGMUVersionGenerator versionGenerator;
+   private EntryVersion[] versions;
+
+   @Setup
+   public void setup() {
+      List<Address> members = new ArrayList<Address>(clusterSize);
+      for (int i = 0; i < clusterSize; ++i) {
+         members.add(new TestAddress(i));
+      }
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getAddress()).thenReturn(members.get(0));
+      Cache cache = mock(Cache.class);
+      when(cache.getName()).thenReturn(CACHE_NAME);
+      ConsistentHash consistentHash = mock(ConsistentHash.class);
+      when(consistentHash.getMembers()).thenReturn(members);
+
+      versionGenerator = new DistGMUVersionGenerator();
+      versionGenerator.init(rpcManager, cache);
+      versionGenerator.setEmptyViewId();
+      versionGenerator.addCacheTopology(new CacheTopology(1, consistentHash, null));
+
+      Random random = new Random(42);
+      versions = new EntryVersion[numberOfVersions];
+      for (int i = 0; i < numberOfVersions; ++i) {
+         long[] values = new long[clusterSize];
+         for (int j = 0; j < clusterSize; ++j) {
+            values[j] = random.nextInt(1000);
+         }
+         versions[i] = new GMUDistributedVersion(CACHE_NAME, 1, versionGenerator, values);
+      }
+   }
+
+   @Benchmark
+   public GMUVersion mergeAndMax() {
+      return versionGenerator.mergeAndMax(versions);
+   }
+
+   @Benchmark
+   public GMUVersion mergeAndMin() {
+      return versionGenerator.mergeAndMin(versions);
+   }
+
+   @Benchmark
+   public GMUVersion mergeAndMaxWithAccumulator() {
+      GMUVersionAccumulator accumulator = GMUVersionAccumulator.acquire();
+      try {
+         for (EntryVersion version : versions) {
+            accumulator.add(version);
+         }
+         return versionGenerator.mergeAndMax(accumulator);
+      } finally {
+         accumulator.release();
+      }
+   }
+
+   @Benchmark
+   public Object compareTo() {
+      return versions[0].compareTo(versions[versions.length - 1]);
+   }
+
+   @Benchmark
+   public Object updatedVersion() {
+      return versionGenerator.updatedVersion(versions[0]);
+   }
+}
@@ -0,0 +1,128 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.interceptors;
+
+import org.infinispan.Cache;
+import org.infinispan.benchmarks.BenchmarkCaches;
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.transaction.TransactionManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a put and a get through the whole interceptor chain. {@code NON_TX} and {@code TX} are local caches and
+ * {@code GMU} is the single member GMU cache, so the transactional operations include the commit.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InterceptorChainBenchmark {
+
+   private static final int NUMBER_OF_KEYS = 1024;
+
+   @Param({"NON_TX", "TX", "GMU"})
+   public String cacheType;
+
+   private EmbeddedCacheManager cacheManager;
+   private Cache<Object, Object> cache;
+   private TransactionManager transactionManager;
+   private Object[] keys;
+
+   @Setup
+   public void setup() throws Exception {
+      if ("GMU".equals(cacheType)) {
+         cacheManager = BenchmarkCaches.gmuCacheManager();
+      } else {
+         cacheManager = BenchmarkCaches.localCacheManager("TX".equals(cacheType));
+      }
+      cache = cacheManager.getCache();
+      transactionManager = cache.getAdvancedCache().getTransactionManager();
+      keys = BenchmarkCaches.keys(NUMBER_OF_KEYS);
+      if (transactionManager == null) {
+         for (Object key : keys) {
+            cache.put(key, "value");
+         }
+      } else {
+         BenchmarkCaches.writeAll(cache, keys, "value");
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkCaches.stop(cacheManager);
+   }
+
+   @Benchmark
+   public Object get(KeySequence sequence) throws Exception {
+      Object key = keys[sequence.next(NUMBER_OF_KEYS)];
+      if (transactionManager == null) {
+         return cache.get(key);
+      }
+      transactionManager.begin();
+      try {
+         return cache.get(key);
+      } finally {
+         transactionManager.commit();
+      }
+   }
+
+   @Benchmark
+   public Object put(KeySequence sequence) throws Exception {
+      Object key = keys[sequence.next(NUMBER_OF_KEYS)];
+      if (transactionManager == null) {
+         return cache.put(key, "value");
+      }
+      transactionManager.begin();
+      boolean success = false;
+      try {
+         Object previous = cache.put(key, "value");
+         success = true;
+         return previous;
+      } finally {
+         if (success) {
+            transactionManager.commit();
+         } else {
+            transactionManager.rollback();
+         }
+      }
+   }
+}
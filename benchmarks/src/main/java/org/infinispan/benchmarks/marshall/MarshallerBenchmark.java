@@ -0,0 +1,108 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.marshall;
+
+import org.infinispan.Cache;
+import org.infinispan.benchmarks.BenchmarkCaches;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cache marshaller with the payloads that are more common in the remote commands.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarshallerBenchmark {
+
+   @Param({"STRING", "BYTE_ARRAY", "MAP"})
+   public String payloadType;
+
+   private EmbeddedCacheManager cacheManager;
+   private StreamingMarshaller marshaller;
+   private Object payload;
+   private byte[] marshalledPayload;
+
+   @Setup
+   public void setup() throws Exception {
+      cacheManager = BenchmarkCaches.localCacheManager(false);
+      Cache<Object, Object> cache = cacheManager.getCache();
+      marshaller = cache.getAdvancedCache().getComponentRegistry().getComponent(StreamingMarshaller.class,
+                                                                               KnownComponentNames.CACHE_MARSHALLER);
+      payload = createPayload();
+      marshalledPayload = marshaller.objectToByteBuffer(payload);
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkCaches.stop(cacheManager);
+   }
+
+   @Benchmark
+   public byte[] marshall() throws Exception {
+      return marshaller.objectToByteBuffer(payload);
+   }
+
+   @Benchmark
+   public Object unmarshall() throws Exception {
+      return marshaller.objectFromByteBuffer(marshalledPayload);
+   }
+
+   private Object createPayload() {
+      if ("STRING".equals(payloadType)) {
+         return "a-value-with-a-common-length";
+      } else if ("BYTE_ARRAY".equals(payloadType)) {
+         return new byte[1024];
+      } else if ("MAP".equals(payloadType)) {
+         Map<String, Integer> map = new HashMap<String, Integer>();
+         for (int i = 0; i < 16; ++i) {
+            map.put("key-" + i, i);
+         }
+         return map;
+      }
+      throw new IllegalArgumentException("Unknown payload " + payloadType);
+   }
+}
@@ -0,0 +1,104 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.transaction.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.benchmarks.BenchmarkCaches;
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.transaction.gmu.CommitLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CommitLog} lookups with {@code numberOfVersions} committed versions.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommitLogBenchmark {
+
+   @Param({"16", "1024"})
+   public int numberOfVersions;
+
+   private EmbeddedCacheManager cacheManager;
+   private CommitLog commitLog;
+   private EntryVersion[] versions;
+
+   @Setup
+   public void setup() throws Exception {
+      cacheManager = BenchmarkCaches.gmuCacheManager();
+      Cache<Object, Object> cache = cacheManager.getCache();
+      commitLog = BenchmarkCaches.component(cache, CommitLog.class);
+      Object[] key = BenchmarkCaches.keys(1);
+      versions = new EntryVersion[numberOfVersions];
+      for (int i = 0; i < numberOfVersions; ++i) {
+         BenchmarkCaches.writeAll(cache, key, "value-" + i);
+         versions[i] = commitLog.getCurrentVersion();
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkCaches.stop(cacheManager);
+   }
+
+   @Benchmark
+   public Object getCurrentVersion() {
+      return commitLog.getCurrentVersion();
+   }
+
+   @Benchmark
+   public Object getEntry(KeySequence sequence) {
+      return commitLog.getEntry(versions[sequence.next(numberOfVersions)]);
+   }
+
+   @Benchmark
+   public Object getReadVersion(KeySequence sequence) {
+      return commitLog.getReadVersion(versions[sequence.next(numberOfVersions)]);
+   }
+
+   @Benchmark
+   public Object getAvailableVersionLessThan(KeySequence sequence) {
+      return commitLog.getAvailableVersionLessThan(versions[sequence.next(numberOfVersions)]);
+   }
+}
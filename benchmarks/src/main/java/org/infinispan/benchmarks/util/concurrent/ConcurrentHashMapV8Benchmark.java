@@ -0,0 +1,96 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.util.concurrent;
+
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.util.concurrent.jdk8backported.ConcurrentHashMapV8;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the backported {@link ConcurrentHashMapV8} with the {@link ConcurrentHashMap} of the running JDK.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class ConcurrentHashMapV8Benchmark {
+
+   @Param({"V8", "JDK"})
+   public String mapType;
+
+   @Param({"1024", "65536"})
+   public int numberOfKeys;
+
+   private ConcurrentMap<Object, Object> map;
+   private Object[] keys;
+
+   @Setup
+   public void setup() {
+      if ("V8".equals(mapType)) {
+         map = new ConcurrentHashMapV8<Object, Object>(numberOfKeys, 0.75f, 32);
+      } else {
+         map = new ConcurrentHashMap<Object, Object>(numberOfKeys, 0.75f, 32);
+      }
+      keys = new Object[numberOfKeys];
+      for (int i = 0; i < numberOfKeys; ++i) {
+         keys[i] = "key-" + i;
+         map.put(keys[i], "value");
+      }
+   }
+
+   @Benchmark
+   public Object get(KeySequence sequence) {
+      return map.get(keys[sequence.next(numberOfKeys)]);
+   }
+
+   @Benchmark
+   public Object put(KeySequence sequence) {
+      return map.put(keys[sequence.next(numberOfKeys)], "value");
+   }
+
+   @Benchmark
+   public Object putIfAbsent(KeySequence sequence) {
+      return map.putIfAbsent(keys[sequence.next(numberOfKeys)], "value");
+   }
+}
@@ -0,0 +1,112 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks.util.concurrent.locks;
+
+import org.infinispan.benchmarks.KeySequence;
+import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantStripedLockContainer;
+import org.infinispan.util.concurrent.locks.containers.readwrite.OwnableReentrantPerEntryReadWriteLockContainer;
+import org.infinispan.util.concurrent.locks.containers.readwrite.OwnableReentrantStripedReadWriteLockContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an uncontended acquire and release of the {@link LockContainer} implementations. The current thread is the
+ * lock owner, as in a non-transactional cache.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class LockContainerBenchmark {
+
+   private static final int NUMBER_OF_KEYS = 65536;
+
+   @Param({"ReentrantPerEntry", "ReentrantStriped", "OwnableReentrantPerEntry", "OwnableReentrantStriped",
+           "OwnableReentrantPerEntryReadWrite", "OwnableReentrantStripedReadWrite"})
+   public String containerType;
+
+   @Param({"32", "1000"})
+   public int concurrencyLevel;
+
+   private LockContainer<?> lockContainer;
+   private Object[] keys;
+
+   @Setup
+   public void setup() {
+      lockContainer = createLockContainer();
+      keys = new Object[NUMBER_OF_KEYS];
+      for (int i = 0; i < NUMBER_OF_KEYS; ++i) {
+         keys[i] = "key-" + i;
+      }
+   }
+
+   @Benchmark
+   public Object acquireAndReleaseExclusive(KeySequence sequence) throws InterruptedException {
+      Object key = keys[sequence.next(NUMBER_OF_KEYS)];
+      Thread owner = Thread.currentThread();
+      Object lock = lockContainer.acquireExclusiveLock(owner, key, 0, TimeUnit.MILLISECONDS);
+      if (lock != null) {
+         lockContainer.releaseLock(owner, key);
+      }
+      return lock;
+   }
+
+   private LockContainer<?> createLockContainer() {
+      if ("ReentrantPerEntry".equals(containerType)) {
+         return new ReentrantPerEntryLockContainer(concurrencyLevel);
+      } else if ("ReentrantStriped".equals(containerType)) {
+         return new ReentrantStripedLockContainer(concurrencyLevel);
+      } else if ("OwnableReentrantPerEntry".equals(containerType)) {
+         return new OwnableReentrantPerEntryLockContainer(concurrencyLevel);
+      } else if ("OwnableReentrantStriped".equals(containerType)) {
+         return new OwnableReentrantStripedLockContainer(concurrencyLevel);
+      } else if ("OwnableReentrantPerEntryReadWrite".equals(containerType)) {
+         return new OwnableReentrantPerEntryReadWriteLockContainer(concurrencyLevel);
+      } else if ("OwnableReentrantStripedReadWrite".equals(containerType)) {
+         return new OwnableReentrantStripedReadWriteLockContainer(concurrencyLevel);
+      }
+      throw new IllegalArgumentException("Unknown lock container " + containerType);
+   }
+}
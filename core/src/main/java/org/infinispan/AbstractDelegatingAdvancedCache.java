@@ -42,6 +42,8 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Similar to {@link org.infinispan.AbstractDelegatingCache}, but for {@link AdvancedCache}.
@@ -197,6 +199,11 @@ public CacheEntry getCacheEntry(Object key, EnumSet<Flag> explicitFlags, ClassLo
       return cache.getCacheEntry(key, explicitFlags, explicitClassLoader);
    }
 
+   @Override
+   public Map<K, V> getAll(Set<?> keys) {
+      return cache.getAll(keys);
+   }
+
    protected final void putForExternalRead(K key, V value, EnumSet<Flag> flags, ClassLoader classLoader) {
       ((CacheImpl<K, V>) cache).putForExternalRead(key, value, flags, classLoader);
    }
@@ -41,6 +41,8 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An advanced interface that exposes additional methods not available on {@link Cache}.
@@ -306,5 +308,17 @@
     */
    CacheEntry getCacheEntry(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader);
 
+   /**
+    * Retrieves the values mapped to a set of keys. Keys with no mapping are not present in the returned map.
+    * <p/>
+    * In a distributed GMU cache, inside a transaction, the keys owned by the same remote node are fetched with a
+    * single remote call, all of them read in the same snapshot. Otherwise, this is equivalent to invoking
+    * {@link #get(Object)} for each key.
+    *
+    * @param keys the keys to retrieve
+    * @return a map with the keys found and their values
+    */
+   Map<K, V> getAll(Set<?> keys);
+
    boolean setTransactionClass(String transactionClass);
 }
@@ -31,6 +31,7 @@
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -80,6 +81,7 @@
 import org.infinispan.transaction.xa.TransactionXaAdapter;
 import org.infinispan.transaction.xa.recovery.RecoveryManager;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.IsolationLevel;
 import org.infinispan.util.concurrent.AbstractInProcessNotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingFutureAdaptor;
@@ -95,6 +97,8 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -298,6 +302,42 @@ public final CacheEntry getCacheEntry(Object key, EnumSet<Flag> explicitFlags, C
       return (CacheEntry) invoker.invoke(ctx, command);
    }
 
+   @Override
+   public final Map<K, V> getAll(Set<?> keys) {
+      return getAll(keys, null, null);
+   }
+
+   @SuppressWarnings("unchecked")
+   final Map<K, V> getAll(Set<?> keys, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      assertKeyNotNull(keys);
+      if (isBatchedReadAllowed()) {
+         InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, keys.size());
+         GetManyCommand command = commandsFactory.buildGetManyCommand(new HashSet<Object>(keys), explicitFlags);
+         return (Map<K, V>) invoker.invoke(ctx, command);
+      }
+      Map<K, V> result = new HashMap<K, V>();
+      for (Object key : keys) {
+         V value = get(key, explicitFlags, explicitClassLoader);
+         if (value != null) {
+            result.put((K) key, value);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * the batched read is only used by GMU (serializable) distributed caches inside a transaction. the values are
+    * never stored as binary nor loaded from a cache loader, so it can skip the per-key marshalling/loading logic.
+    */
+   private boolean isBatchedReadAllowed() {
+      return config.transaction().transactionMode().isTransactional() &&
+            config.locking().isolationLevel() == IsolationLevel.SERIALIZABLE &&
+            config.clustering().cacheMode().isDistributed() &&
+            !config.storeAsBinary().enabled() &&
+            !config.loaders().usingCacheLoaders() &&
+            getOngoingTransaction() != null;
+   }
+
    @Override
    public final V remove(Object key) {
       return remove(key, null, null);
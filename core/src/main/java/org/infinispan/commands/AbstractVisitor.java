@@ -27,6 +27,7 @@
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -105,6 +106,11 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return handleDefault(ctx, command);
    }
 
+   @Override
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      return handleDefault(ctx, command);
+   }
+
    @Override
    public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable {
       return handleDefault(ctx, command);
@@ -29,6 +29,7 @@
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
@@ -37,6 +38,7 @@
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
 import org.infinispan.commands.remote.GMUClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.remote.GarbageCollectorControlCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.ReconfigurableProtocolCommand;
@@ -170,6 +172,13 @@ public interface CommandsFactory {
     */
    GetCacheEntryCommand buildGetCacheEntryCommand(Object key, Set<Flag> flags);
 
+   /**
+    * Builds a GetManyCommand
+    * @param keys keys to get
+    * @return a GetManyCommand
+    */
+   GetManyCommand buildGetManyCommand(Set<Object> keys, Set<Flag> flags);
+
    /**
     * Builds a KeySetCommand
     * @return a KeySetCommand
@@ -448,6 +457,14 @@ GMUPrepareCommand buildGMUPrepareCommand(GlobalTransaction gtx, List<WriteComman
    GMUClusteredGetCommand buildGMUClusteredGetCommand(Object key, Set<Flag> flags, boolean acquireRemoteLock,
                                                       GlobalTransaction gtx, GMUVersion txVersion,
                                                       BitSet alreadyReadFromMask);
+
+   /**
+    * Builds a GMUClusteredGetManyCommand, which is a remote lookup command for multiple keys owned by the same node
+    * @param keys keys to look up
+    * @return a GMUClusteredGetManyCommand
+    */
+   GMUClusteredGetManyCommand buildGMUClusteredGetManyCommand(Object[] keys, Set<Flag> flags, GMUVersion txVersion,
+                                                              BitSet alreadyReadFromMask);
    /**
     * builds a garbage collector control command
     *
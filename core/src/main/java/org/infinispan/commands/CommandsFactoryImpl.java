@@ -31,6 +31,7 @@
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
@@ -40,6 +41,7 @@
 import org.infinispan.commands.remote.ConfigurationStateCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
 import org.infinispan.commands.remote.GMUClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.remote.GarbageCollectorControlCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.ReconfigurableProtocolCommand;
@@ -290,6 +292,11 @@ public GetCacheEntryCommand buildGetCacheEntryCommand(Object key, Set<Flag> flag
       return new GetCacheEntryCommand(key, flags);
    }
 
+   @Override
+   public GetManyCommand buildGetManyCommand(Set<Object> keys, Set<Flag> flags) {
+      return new GetManyCommand(keys, flags);
+   }
+
    @Override
    public PutMapCommand buildPutMapCommand(Map<?, ?> map, long lifespan, long maxIdleTimeMillis, Set<Flag> flags) {
       return new PutMapCommand(map, notifier, lifespan, maxIdleTimeMillis, flags);
@@ -439,6 +446,7 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
             ClearCommand cc = (ClearCommand) c;
             cc.init(notifier);
             break;
+         case GMUClusteredGetManyCommand.COMMAND_ID:
          case GMUClusteredGetCommand.COMMAND_ID:
             GMUClusteredGetCommand gmuClusteredGetCommand = (GMUClusteredGetCommand) c;
             gmuClusteredGetCommand.initializeGMUComponents(commitLog, versionGenerator, stateConsumer);
@@ -666,6 +674,12 @@ public GMUClusteredGetCommand buildGMUClusteredGetCommand(Object key, Set<Flag>
       return new GMUClusteredGetCommand(key, cacheName, flags, acquireRemoteLock, gtx, txVersion, alreadyReadFromMask);
    }
 
+   @Override
+   public GMUClusteredGetManyCommand buildGMUClusteredGetManyCommand(Object[] keys, Set<Flag> flags,
+                                                                     GMUVersion txVersion, BitSet alreadyReadFromMask) {
+      return new GMUClusteredGetManyCommand(keys, cacheName, flags, txVersion, alreadyReadFromMask);
+   }
+
    @Override
    public GarbageCollectorControlCommand buildGarbageCollectorControlCommand(GarbageCollectorControlCommand.Type type,
                                                                              int minimumVisibleViewId) {
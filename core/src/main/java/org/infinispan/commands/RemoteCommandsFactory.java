@@ -35,6 +35,7 @@
 import org.infinispan.commands.remote.ConfigurationStateCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
 import org.infinispan.commands.remote.GMUClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.remote.GarbageCollectorControlCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.ReconfigurableProtocolCommand;
@@ -281,6 +282,9 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case GMUClusteredGetCommand.COMMAND_ID:
                command = new GMUClusteredGetCommand(cacheName);
                break;
+            case GMUClusteredGetManyCommand.COMMAND_ID:
+               command = new GMUClusteredGetManyCommand(cacheName);
+               break;
             case GarbageCollectorControlCommand.COMMAND_ID:
                command = new GarbageCollectorControlCommand(cacheName);
                break;
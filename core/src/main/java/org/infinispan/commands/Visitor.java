@@ -27,6 +27,7 @@
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -74,6 +75,8 @@ public interface Visitor {
 
    Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable;
 
+   Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable;
+
    Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable;
 
    Object visitValuesCommand(InvocationContext ctx, ValuesCommand command) throws Throwable;
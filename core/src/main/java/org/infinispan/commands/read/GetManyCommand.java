@@ -0,0 +1,121 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.AbstractFlagAffectedCommand;
+import org.infinispan.commands.LocalCommand;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.lifecycle.ComponentStatus;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implements functionality defined by {@link org.infinispan.AdvancedCache#getAll(java.util.Set)}. It is a local
+ * command: the keys not owned by the local node are fetched by the distribution interceptor.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class GetManyCommand extends AbstractFlagAffectedCommand implements VisitableCommand, LocalCommand {
+
+   private static final Object[] EMPTY_ARRAY = new Object[0];
+   private final Set<Object> keys;
+
+   public GetManyCommand(Set<Object> keys, Set<Flag> flags) {
+      this.keys = keys == null ? Collections.emptySet() : keys;
+      this.flags = flags;
+   }
+
+   public Set<Object> getKeys() {
+      return keys;
+   }
+
+   @Override
+   public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
+      return visitor.visitGetManyCommand(ctx, this);
+   }
+
+   /**
+    * @return a map with the non-null values of the keys
+    */
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      Map<Object, Object> result = new HashMap<Object, Object>();
+      for (Object key : keys) {
+         CacheEntry entry = ctx.lookupEntry(key);
+         if (entry == null || entry.isNull() || entry.isRemoved()) {
+            continue;
+         }
+         Object value = entry.getValue();
+         if (value != null) {
+            result.put(key, value);
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return 0;  // no-op
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return EMPTY_ARRAY;  // no-op
+   }
+
+   @Override
+   public void setParameters(int commandId, Object[] parameters) {
+      // no-op
+   }
+
+   @Override
+   public boolean shouldInvoke(InvocationContext ctx) {
+      return true;
+   }
+
+   @Override
+   public boolean ignoreCommandOnStatus(ComponentStatus status) {
+      return false;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return "GetManyCommand{" +
+            "keys=" + keys +
+            ", flags=" + flags +
+            '}';
+   }
+}
@@ -159,6 +159,10 @@ protected InvocationContext createInvocationContext(GetKeyValueCommand command)
       return icc.createRemoteInvocationContextForCommand(command, getOrigin());
    }
 
+   protected final boolean isAffectedByRehash(Object key) {
+      return distributionManager != null && distributionManager.isAffectedByRehash(key);
+   }
+
    private void acquireLocksIfNeeded() throws Throwable {
       if (acquireRemoteLock) {
          LockControlCommand lockControlCommand = commandsFactory.buildLockControlCommand(key, flags, gtx);
@@ -24,6 +24,7 @@
 
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.container.entries.gmu.InternalGMUCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.container.versioning.VersionGenerator;
 import org.infinispan.container.versioning.gmu.GMUVersion;
 import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
@@ -155,16 +156,14 @@ protected GetKeyValueCommand constructCommand(Set<Flag> flags) {
 
    @Override
    protected Object invoke(GetKeyValueCommand command, InvocationContext context) {
-      setMaxGMUVersionToRead(context);
-      super.invoke(command, context);
-      InternalGMUCacheEntry gmuCacheEntry = context.getKeysReadInCommand().get(getKey());
-      if (gmuCacheEntry == null || gmuCacheEntry.getCreationVersion() == null || gmuCacheEntry.isUnsafeToRead()) {
-         return stateConsumer.oldOwners(getKey());
-      }
-      return gmuCacheEntry.toInternalCacheValue();
+      context.setVersionToRead(calculateVersionToRead());
+      return read(command, context);
    }
 
-   private void setMaxGMUVersionToRead(InvocationContext invocationContext) {
+   /**
+    * @return the version to read in this node, calculated from the transaction version and the already read from
+    */
+   protected final EntryVersion calculateVersionToRead() {
       GMUVersion maxGMUVersion;
       if (alreadyReadFrom != null) {
          List<Address> addressList = fromAlreadyReadFromMask(alreadyReadFrom, versionGenerator,
@@ -173,6 +172,29 @@ private void setMaxGMUVersionToRead(InvocationContext invocationContext) {
       } else {
          maxGMUVersion = null;
       }
-      invocationContext.setVersionToRead(commitLog.getAvailableVersionLessThan(maxGMUVersion));
+      return commitLog.getAvailableVersionLessThan(maxGMUVersion);
+   }
+
+   /**
+    * reads the key of the command with the version to read already set in the context.
+    *
+    * @return the {@link org.infinispan.container.entries.InternalCacheValue} read or the old owners if the value is
+    *         not available in this node
+    */
+   protected final Object read(GetKeyValueCommand command, InvocationContext context) {
+      super.invoke(command, context);
+      InternalGMUCacheEntry gmuCacheEntry = context.getKeysReadInCommand().get(command.getKey());
+      if (gmuCacheEntry == null || gmuCacheEntry.getCreationVersion() == null || gmuCacheEntry.isUnsafeToRead()) {
+         return stateConsumer.oldOwners(command.getKey());
+      }
+      return gmuCacheEntry.toInternalCacheValue();
+   }
+
+   protected final InvocationContext createRemoteInvocationContext(GetKeyValueCommand command) {
+      return super.createInvocationContext(command);
+   }
+
+   protected final boolean hasAlreadyReadOnThisNode() {
+      return invocationContext.hasAlreadyReadOnThisNode();
    }
 }
@@ -0,0 +1,127 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.remote;
+
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Issues a remote get call for multiple keys owned by the same node. All the keys are read with the same version, as
+ * if they were read by the same {@link GMUClusteredGetCommand}.
+ * <p/>
+ * The return value is an array with the same order of the keys. Each position contains the {@link
+ * org.infinispan.container.entries.InternalCacheValue} read, the old owners if the value is not available in this node,
+ * or {@code null} if the key is affected by a rehash.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class GMUClusteredGetManyCommand extends GMUClusteredGetCommand {
+
+   public static final byte COMMAND_ID = 49;
+   private Object[] keys;
+
+   public GMUClusteredGetManyCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public GMUClusteredGetManyCommand(Object[] keys, String cacheName, Set<Flag> flags, GMUVersion txVersion,
+                                     BitSet alreadyReadFrom) {
+      super(null, cacheName, flags, false, null, txVersion, alreadyReadFrom);
+      this.keys = keys;
+   }
+
+   public GMUClusteredGetManyCommand() {
+      super(); //for ID uniqueness test
+   }
+
+   @Override
+   public Object perform(InvocationContext context) throws Throwable {
+      final Object[] result = new Object[keys.length];
+      final EntryVersion versionToRead = calculateVersionToRead();
+      final boolean alreadyReadOnThisNode = hasAlreadyReadOnThisNode();
+      // make sure the get commands don't perform a remote call, as in ClusteredGetCommand
+      final Set<Flag> commandFlags = EnumSet.of(Flag.SKIP_REMOTE_LOOKUP, Flag.CACHE_MODE_LOCAL);
+      if (getFlags() != null) commandFlags.addAll(getFlags());
+      for (int i = 0; i < keys.length; ++i) {
+         if (isAffectedByRehash(keys[i])) {
+            continue;
+         }
+         GetKeyValueCommand command = commandsFactory.buildGetCacheEntryCommand(keys[i], commandFlags);
+         InvocationContext invocationContext = createRemoteInvocationContext(command);
+         invocationContext.setAlreadyReadOnThisNode(alreadyReadOnThisNode);
+         invocationContext.setVersionToRead(versionToRead);
+         result[i] = read(command, invocationContext);
+      }
+      return result;
+   }
+
+   public final Object[] getKeys() {
+      return keys;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      Object[] original = super.getParameters();
+      Object[] retVal = Arrays.copyOf(original, original.length + 1);
+      retVal[original.length] = keys;
+      return retVal;
+   }
+
+   @Override
+   public void setParameters(int commandId, Object[] args) {
+      keys = (Object[]) args[args.length - 1];
+      super.setParameters(commandId, Arrays.copyOf(args, args.length - 1));
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      return Arrays.equals(keys, ((GMUClusteredGetManyCommand) o).keys);
+   }
+
+   @Override
+   public int hashCode() {
+      return Arrays.hashCode(keys);
+   }
+
+   @Override
+   public String toString() {
+      return "GMUClusteredGetManyCommand{keys=" + Arrays.toString(keys) +
+            ", flags=" + getFlags() + "}";
+   }
+}
@@ -81,6 +81,8 @@ public final Object perform(InvocationContext ctx) throws Throwable {
          case SET_COOL_DOWN_TIME:
             manager.internalSetSwitchCoolDownTime((Integer) data);
             break;
+         case STATISTICS:
+            return manager.getWorkloadSample();
          default:
             break;
       }
@@ -121,7 +123,7 @@ public final void setParameters(int commandId, Object[] parameters) {
 
    @Override
    public final boolean isReturnValueExpected() {
-      return false;
+      return type == Type.STATISTICS;
    }
 
    public final void setData(Object data) {
@@ -147,7 +149,8 @@ public static enum Type {
       REGISTER(false),
       DATA(true),
       SWITCH_REQ(false, true),
-      SET_COOL_DOWN_TIME(true);
+      SET_COOL_DOWN_TIME(true),
+      STATISTICS(false);
       final boolean hasData;
       final boolean hasBoolean;
 
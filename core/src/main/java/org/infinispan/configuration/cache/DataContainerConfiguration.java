@@ -31,10 +31,14 @@
 public class DataContainerConfiguration extends AbstractTypedPropertiesConfiguration {
 
    private final DataContainer dataContainer;
+   private final boolean offHeap;
+   private final int offHeapSlabSize;
 
-   DataContainerConfiguration(DataContainer dataContainer, TypedProperties properties) {
+   DataContainerConfiguration(DataContainer dataContainer, boolean offHeap, int offHeapSlabSize, TypedProperties properties) {
       super(properties);
       this.dataContainer = dataContainer;
+      this.offHeap = offHeap;
+      this.offHeapSlabSize = offHeapSlabSize;
    }
    
    /**
@@ -45,10 +49,28 @@ public DataContainer dataContainer() {
       return dataContainer;
    }
 
+   /**
+    * If true, the values are kept outside the Java heap
+    * @return
+    */
+   public boolean offHeap() {
+      return offHeap;
+   }
+
+   /**
+    * The size, in bytes, of each slab of memory allocated outside the Java heap
+    * @return
+    */
+   public int offHeapSlabSize() {
+      return offHeapSlabSize;
+   }
+
    @Override
    public String toString() {
       return "DataContainerConfiguration{" +
             "dataContainer=" + dataContainer +
+            ", offHeap=" + offHeap +
+            ", offHeapSlabSize=" + offHeapSlabSize +
             '}';
    }
 
@@ -59,6 +81,8 @@ public boolean equals(Object o) {
 
       DataContainerConfiguration that = (DataContainerConfiguration) o;
 
+      if (offHeap != that.offHeap) return false;
+      if (offHeapSlabSize != that.offHeapSlabSize) return false;
       if (dataContainer != null ? !dataContainer.equals(that.dataContainer) : that.dataContainer != null)
          return false;
 
@@ -67,7 +91,10 @@ public boolean equals(Object o) {
 
    @Override
    public int hashCode() {
-      return dataContainer != null ? dataContainer.hashCode() : 0;
+      int result = dataContainer != null ? dataContainer.hashCode() : 0;
+      result = 31 * result + (offHeap ? 1 : 0);
+      result = 31 * result + offHeapSlabSize;
+      return result;
    }
 
 }
@@ -20,6 +20,7 @@
 
 import java.util.Properties;
 
+import org.infinispan.config.ConfigurationException;
 import org.infinispan.configuration.Builder;
 import org.infinispan.container.DataContainer;
 import org.infinispan.util.TypedProperties;
@@ -35,6 +36,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
    // No default here. DataContainerFactory figures out default.
    private DataContainer dataContainer;
    private Properties properties = new Properties();
+   private boolean offHeap = false;
+   private int offHeapSlabSize = 4 * 1024 * 1024;
 
    DataContainerConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -50,6 +53,30 @@ public DataContainerConfigurationBuilder dataContainer(DataContainer dataContain
       return this;
    }
 
+   /**
+    * If true, the values are marshalled and kept outside the Java heap. Only the keys and the expiration metadata of
+    * the entries are kept on the heap. The values must be marshallable.
+    *
+    * @param offHeap
+    * @return
+    */
+   public DataContainerConfigurationBuilder offHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+   }
+
+   /**
+    * The size, in bytes, of each slab of memory allocated outside the Java heap. It must be a power of two. The values
+    * bigger than a slab are allocated in a dedicated buffer.
+    *
+    * @param offHeapSlabSize
+    * @return
+    */
+   public DataContainerConfigurationBuilder offHeapSlabSize(int offHeapSlabSize) {
+      this.offHeapSlabSize = offHeapSlabSize;
+      return this;
+   }
+
    /**
     * Add key/value property pair to this data container configuration
     *
@@ -76,18 +103,23 @@ public DataContainerConfigurationBuilder withProperties(Properties props) {
    @Override
    public
    void validate() {
+      if (offHeap && (offHeapSlabSize < 1024 || Integer.bitCount(offHeapSlabSize) != 1)) {
+         throw new ConfigurationException("The off-heap slab size must be a power of two and at least 1024 bytes");
+      }
    }
 
    @Override
    public
    DataContainerConfiguration create() {
-      return new DataContainerConfiguration(dataContainer, TypedProperties.toTypedProperties(properties));
+      return new DataContainerConfiguration(dataContainer, offHeap, offHeapSlabSize, TypedProperties.toTypedProperties(properties));
    }
 
    @Override
    public DataContainerConfigurationBuilder read(DataContainerConfiguration template) {
       this.dataContainer = template.dataContainer();
       this.properties = template.properties();
+      this.offHeap = template.offHeap();
+      this.offHeapSlabSize = template.offHeapSlabSize();
 
       return this;
    }
@@ -97,6 +129,8 @@ public String toString() {
       return "DataContainerConfigurationBuilder{" +
             "dataContainer=" + dataContainer +
             ", properties=" + properties +
+            ", offHeap=" + offHeap +
+            ", offHeapSlabSize=" + offHeapSlabSize +
             '}';
    }
 
@@ -39,14 +39,17 @@ public class DataPlacementConfiguration extends AbstractTypedPropertiesConfigura
    private final int coolDownTime;
    private final ObjectLookupFactory objectLookupFactory;
    private final int maxNumberOfKeysToRequest;
+   private final boolean decentralized;
 
    protected DataPlacementConfiguration(TypedProperties properties, boolean enabled, int coolDownTime,
-                                        ObjectLookupFactory objectLookupFactory, int maxNumberOfKeysToRequest) {
+                                        ObjectLookupFactory objectLookupFactory, int maxNumberOfKeysToRequest,
+                                        boolean decentralized) {
       super(properties);
       this.enabled = enabled;
       this.coolDownTime = coolDownTime;
       this.objectLookupFactory = objectLookupFactory;
       this.maxNumberOfKeysToRequest = maxNumberOfKeysToRequest;
+      this.decentralized = decentralized;
    }
 
    public ObjectLookupFactory objectLookupFactory() {
@@ -65,6 +68,14 @@ public int maxNumberOfKeysToRequest() {
       return maxNumberOfKeysToRequest;
    }
 
+   /**
+    * @return true if the primary owners publish only the segments that changed and the coordinator merges them as
+    *         they arrive, instead of waiting for all the members
+    */
+   public boolean decentralized() {
+      return decentralized;
+   }
+
    @Override
    public String toString() {
       return "DataPlacementConfiguration{" +
@@ -72,6 +83,7 @@ public String toString() {
             ", coolDownTime=" + coolDownTime +
             ", objectLookupFactory=" + objectLookupFactory +
             ", maxNumberOfKeysToRequest=" + maxNumberOfKeysToRequest +
+            ", decentralized=" + decentralized +
             '}';
    }
 
@@ -84,7 +96,7 @@ public boolean equals(Object o) {
       DataPlacementConfiguration that = (DataPlacementConfiguration) o;
 
       return coolDownTime == that.coolDownTime && maxNumberOfKeysToRequest == that.maxNumberOfKeysToRequest &&
-            enabled == that.enabled &&
+            enabled == that.enabled && decentralized == that.decentralized &&
             !(objectLookupFactory != null ? !objectLookupFactory.equals(that.objectLookupFactory) :
                     that.objectLookupFactory != null);
 
@@ -96,6 +108,7 @@ public int hashCode() {
       result = 31 * result + (enabled ? 1 : 0);
       result = 31 * result + coolDownTime;
       result = 31 * result + maxNumberOfKeysToRequest;
+      result = 31 * result + (decentralized ? 1 : 0);
       result = 31 * result + (objectLookupFactory != null ? objectLookupFactory.hashCode() : 0);
       return result;
    }
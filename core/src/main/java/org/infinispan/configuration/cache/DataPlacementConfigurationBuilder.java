@@ -41,6 +41,7 @@ public class DataPlacementConfigurationBuilder extends AbstractConfigurationChil
    private ObjectLookupFactory objectLookupFactory;
    private int coolDownTime = 30000; //30 seconds by default
    private int maxNumberOfKeysToRequest = 500; //500 keys by default? is too high? too low?
+   private boolean decentralized = false;
    private Properties properties = new Properties();
 
    protected DataPlacementConfigurationBuilder(ConfigurationBuilder builder) {
@@ -87,6 +88,15 @@ public DataPlacementConfigurationBuilder maxNumberOfKeysToRequest(int maxNumberO
       return this;
    }
 
+   /**
+    * if true, each primary owner publishes only the object lookups of the segments that changed since the last round
+    * and the coordinator merges them in the current mapping as they arrive
+    */
+   public DataPlacementConfigurationBuilder decentralized(boolean decentralized) {
+      this.decentralized = decentralized;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (!enabled) {
@@ -109,7 +119,7 @@ public void validate() {
    @Override
    public DataPlacementConfiguration create() {
       return new DataPlacementConfiguration(TypedProperties.toTypedProperties(properties), enabled, coolDownTime,
-                                            objectLookupFactory, maxNumberOfKeysToRequest);
+                                            objectLookupFactory, maxNumberOfKeysToRequest, decentralized);
    }
 
    @Override
@@ -117,6 +127,7 @@ public Builder<DataPlacementConfiguration> read(DataPlacementConfiguration templ
       this.enabled = template.enabled();
       this.coolDownTime = template.coolDownTime();
       this.maxNumberOfKeysToRequest = template.maxNumberOfKeysToRequest();
+      this.decentralized = template.decentralized();
       this.objectLookupFactory = template.objectLookupFactory();
       this.properties = template.properties();
       return this;
@@ -35,14 +35,16 @@ public class GarbageCollectorConfiguration {
    private final int versionGCMaxIdle;
    private final int l1GCInterval;
    private final int viewGCBackOff;
+   private final int versionGCMaxBacklog;
 
    public GarbageCollectorConfiguration(boolean enabled, int transactionThreshold, int versionGCMaxIdle,
-                                        int l1GCInterval, int viewGCBackOff) {
+                                        int l1GCInterval, int viewGCBackOff, int versionGCMaxBacklog) {
       this.enabled = enabled;
       this.transactionThreshold = transactionThreshold;
       this.versionGCMaxIdle = versionGCMaxIdle;
       this.l1GCInterval = l1GCInterval;
       this.viewGCBackOff = viewGCBackOff;
+      this.versionGCMaxBacklog = versionGCMaxBacklog;
    }
 
    public boolean enabled() {
@@ -65,6 +67,14 @@ public int viewGCBackOff() {
       return viewGCBackOff;
    }
 
+   /**
+    * @return the maximum number of keys pending in the version garbage collector. When it is exceeded, the keys are
+    *         discarded and the next round visits all the keys
+    */
+   public int versionGCMaxBacklog() {
+      return versionGCMaxBacklog;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (this == o) return true;
@@ -76,7 +86,8 @@ public boolean equals(Object o) {
             l1GCInterval == that.l1GCInterval &&
             versionGCMaxIdle == that.versionGCMaxIdle &&
             transactionThreshold == that.transactionThreshold &&
-            viewGCBackOff == that.viewGCBackOff;
+            viewGCBackOff == that.viewGCBackOff &&
+            versionGCMaxBacklog == that.versionGCMaxBacklog;
 
    }
 
@@ -87,6 +98,7 @@ public int hashCode() {
       result = 31 * result + versionGCMaxIdle;
       result = 31 * result + l1GCInterval;
       result = 31 * result + viewGCBackOff;
+      result = 31 * result + versionGCMaxBacklog;
       return result;
    }
 
@@ -98,6 +110,7 @@ public String toString() {
             ", versionGCMaxIdle=" + versionGCMaxIdle +
             ", l1GCInterval=" + l1GCInterval +
             ", viewGCBackOff=" + viewGCBackOff +
+            ", versionGCMaxBacklog=" + versionGCMaxBacklog +
             '}';
    }
 }
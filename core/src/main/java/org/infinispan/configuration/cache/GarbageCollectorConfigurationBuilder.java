@@ -42,6 +42,7 @@ public class GarbageCollectorConfigurationBuilder extends AbstractConfigurationC
    private int versionGCMaxIdle = 60;
    private int l1GCInterval = 30;
    private int viewGCBackOff = 120;
+   private int versionGCMaxBacklog = 100000;
 
    public GarbageCollectorConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -72,6 +73,15 @@ public GarbageCollectorConfigurationBuilder viewGCBackOff(int viewGCBackOff) {
       return this;
    }
 
+   /**
+    * The maximum number of keys pending in the version garbage collector. When it is exceeded, the next round visits
+    * all the keys.
+    */
+   public GarbageCollectorConfigurationBuilder versionGCMaxBacklog(int versionGCMaxBacklog) {
+      this.versionGCMaxBacklog = versionGCMaxBacklog;
+      return this;
+   }
+
    @Override
    public Builder<GarbageCollectorConfiguration> read(GarbageCollectorConfiguration template) {
       this.enabled = template.enabled();
@@ -79,6 +89,7 @@ public Builder<GarbageCollectorConfiguration> read(GarbageCollectorConfiguration
       this.versionGCMaxIdle = template.versionGCMaxIdle();
       this.l1GCInterval = template.l1GCInterval();
       this.viewGCBackOff = template.viewGCBackOff();
+      this.versionGCMaxBacklog = template.versionGCMaxBacklog();
       return this;
    }
 
@@ -90,6 +101,7 @@ public String toString() {
             ", versionGCMaxIdle=" + versionGCMaxIdle +
             ", l1GCInterval=" + l1GCInterval +
             ", viewGCBackOff=" + viewGCBackOff +
+            ", versionGCMaxBacklog=" + versionGCMaxBacklog +
             '}';
    }
 
@@ -113,11 +125,14 @@ public void validate() {
       if (viewGCBackOff < 0) {
          throw new ConfigurationException("Transaction Threshold should be higher or equals than zero");
       }
+      if (versionGCMaxBacklog <= 0) {
+         throw new ConfigurationException("Version GC Max Backlog should be higher than zero");
+      }
    }
 
    @Override
    public GarbageCollectorConfiguration create() {
       return new GarbageCollectorConfiguration(enabled, transactionThreshold, versionGCMaxIdle, l1GCInterval,
-                                               viewGCBackOff);
+                                               viewGCBackOff, versionGCMaxBacklog);
    }
 }
@@ -30,15 +30,17 @@ public class StateTransferConfiguration {
    private Boolean originalFetchInMemoryState;
    private long timeout;
    private int chunkSize;
+   private int chunksInFlight;
    private boolean awaitInitialTransfer;
    private Boolean originalAwaitInitialTransfer;
 
    StateTransferConfiguration(boolean fetchInMemoryState, Boolean originalFetchInMemoryState, long timeout, int chunkSize,
-                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
+                              int chunksInFlight, boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
       this.fetchInMemoryState = fetchInMemoryState;
       this.originalFetchInMemoryState = originalFetchInMemoryState;
       this.timeout = timeout;
       this.chunkSize = chunkSize;
+      this.chunksInFlight = chunksInFlight;
       this.awaitInitialTransfer = awaitInitialTransfer;
       this.originalAwaitInitialTransfer = originalAwaitInitialTransfer;
    }
@@ -87,6 +89,14 @@ public int chunkSize() {
       return chunkSize;
    }
 
+   /**
+    * The maximum number of state chunks sent to a node that can be waiting for its acknowledge. The receiving node also
+    * uses it to compute the number of chunks it grants to the senders.
+    */
+   public int chunksInFlight() {
+      return chunksInFlight;
+   }
+
    /**
     * If {@code true}, this will cause the first call to method {@code CacheManager.getCache()} on the joiner node to
     * block and wait until the joining is complete and the cache has finished receiving state from neighboring caches
@@ -110,6 +120,7 @@ protected Boolean originalAwaitInitialTransfer() {
    public String toString() {
       return "StateTransferConfiguration{" +
             "chunkSize=" + chunkSize +
+            ", chunksInFlight=" + chunksInFlight +
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", originalFetchInMemoryState=" + originalFetchInMemoryState +
             ", timeout=" + timeout +
@@ -126,6 +137,7 @@ public boolean equals(Object o) {
       StateTransferConfiguration that = (StateTransferConfiguration) o;
 
       if (chunkSize != that.chunkSize) return false;
+      if (chunksInFlight != that.chunksInFlight) return false;
       if (fetchInMemoryState != that.fetchInMemoryState) return false;
       if (timeout != that.timeout) return false;
       if (originalFetchInMemoryState != null ? !originalFetchInMemoryState.equals(that.originalFetchInMemoryState) : that.originalFetchInMemoryState != null)
@@ -143,6 +155,7 @@ public int hashCode() {
       result = 31 * result + (originalFetchInMemoryState != null ? originalFetchInMemoryState.hashCode() : 0);
       result = 31 * result + (int) (timeout ^ (timeout >>> 32));
       result = 31 * result + chunkSize;
+      result = 31 * result + chunksInFlight;
       result = 31 * result + (awaitInitialTransfer ? 1 : 0);
       result = 31 * result + (originalAwaitInitialTransfer != null ? originalAwaitInitialTransfer.hashCode() : 0);
       return result;
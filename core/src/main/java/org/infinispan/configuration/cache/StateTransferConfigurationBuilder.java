@@ -40,6 +40,7 @@ public class StateTransferConfigurationBuilder extends
    private Boolean fetchInMemoryState = null;
    private Boolean awaitInitialTransfer = null;
    private int chunkSize = 10000;
+   private int chunksInFlight = 4;
    private long timeout = TimeUnit.MINUTES.toMillis(4);
 
    StateTransferConfigurationBuilder(ClusteringConfigurationBuilder builder) {
@@ -81,6 +82,15 @@ public StateTransferConfigurationBuilder chunkSize(int i) {
       return this;
    }
 
+   /**
+    * The maximum number of state chunks sent to a node that can be waiting for its acknowledge. The receiving node also
+    * uses it to compute the number of chunks it grants to the senders, so it should be the same in all the nodes.
+    */
+   public StateTransferConfigurationBuilder chunksInFlight(int i) {
+      this.chunksInFlight = i;
+      return this;
+   }
+
    /**
     * This is the maximum amount of time - in milliseconds - to wait for state from neighboring
     * caches, before throwing an exception and aborting startup.
@@ -108,6 +118,8 @@ public void validate() {
             && !getClusteringBuilder().cacheMode().isReplicated() && !getClusteringBuilder().cacheMode().isDistributed())
          throw new ConfigurationException(
                "awaitInitialTransfer can be enabled only if cache mode is distributed or replicated.");
+      if (chunksInFlight < 1)
+         throw new ConfigurationException("chunksInFlight must be greater than 0 but it is " + chunksInFlight);
    }
 
    @Override
@@ -137,7 +149,7 @@ public  StateTransferConfiguration create() {
          _awaitInitialTransfer = false;
       }
       return new StateTransferConfiguration(_fetchInMemoryState, fetchInMemoryState,
-            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer);
+            timeout, chunkSize, chunksInFlight, _awaitInitialTransfer, awaitInitialTransfer);
    }
 
    @Override
@@ -146,6 +158,7 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
       this.awaitInitialTransfer = template.originalAwaitInitialTransfer();
       this.timeout = template.timeout();
       this.chunkSize = template.chunkSize();
+      this.chunksInFlight = template.chunksInFlight();
       return this;
    }
 
@@ -153,6 +166,7 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
    public String toString() {
       return "StateTransferConfigurationBuilder{" +
             "chunkSize=" + chunkSize +
+            ", chunksInFlight=" + chunksInFlight +
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", timeout=" + timeout +
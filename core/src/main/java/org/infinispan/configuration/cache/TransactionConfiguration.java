@@ -49,13 +49,15 @@ public class TransactionConfiguration {
    private final long reaperWakeUpInterval;
    private final long completedTxTimeout;
    private final TransactionProtocol transactionProtocol; //2PC or Total order protocol
+   private final int totalOrderAdmissionLanes;
 
 
    TransactionConfiguration(boolean autoCommit, long cacheStopTimeout, boolean eagerLockingSingleNode, LockingMode lockingMode,
                             boolean syncCommitPhase, boolean syncRollbackPhase, TransactionManagerLookup transactionManagerLookup,
                             TransactionSynchronizationRegistryLookup transactionSynchronizationRegistryLookup, TransactionMode transactionMode,
                             boolean useEagerLocking, boolean useSynchronization, boolean use1PcForAutoCommitTransactions,
-                            long reaperWakeUpInterval, long completedTxTimeout, RecoveryConfiguration recovery, TransactionProtocol transactionProtocol) {
+                            long reaperWakeUpInterval, long completedTxTimeout, RecoveryConfiguration recovery, TransactionProtocol transactionProtocol,
+                            int totalOrderAdmissionLanes) {
       this.autoCommit = autoCommit;
       this.cacheStopTimeout = cacheStopTimeout;
       this.eagerLockingSingleNode = eagerLockingSingleNode;
@@ -72,6 +74,7 @@ public class TransactionConfiguration {
       this.reaperWakeUpInterval = reaperWakeUpInterval;
       this.completedTxTimeout = completedTxTimeout;
       this.transactionProtocol = transactionProtocol;
+      this.totalOrderAdmissionLanes = totalOrderAdmissionLanes;
    }
 
    /**
@@ -301,6 +304,7 @@ public String toString() {
             ", reaperWakeUpInterval=" + reaperWakeUpInterval +
             ", completedTxTimeout=" + completedTxTimeout +
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
+            ", totalOrderAdmissionLanes=" + totalOrderAdmissionLanes +
             '}';
    }
 
@@ -331,6 +335,7 @@ public boolean equals(Object o) {
       if (transactionProtocol != that.transactionProtocol) {
          return false;
       }
+      if (totalOrderAdmissionLanes != that.totalOrderAdmissionLanes) return false;
 
       return true;
    }
@@ -351,6 +356,7 @@ public int hashCode() {
       result = 31 * result + (recovery != null ? recovery.hashCode() : 0);
       result = 31 * result + (use1PcForAutoCommitTransactions ? 1 : 0);
       result = 31 * result + (transactionProtocol != null ? transactionProtocol.hashCode() : 0);
+      result = 31 * result + totalOrderAdmissionLanes;
       return result;
    }
 
@@ -360,4 +366,12 @@ public int hashCode() {
    public TransactionProtocol transactionProtocol() {
       return transactionProtocol;
    }
+
+   /**
+    * @return the number of admission lanes used by the GMU total order manager to acquire the keys locks in parallel
+    * @see TransactionConfigurationBuilder#totalOrderAdmissionLanes(int)
+    */
+   public int totalOrderAdmissionLanes() {
+      return totalOrderAdmissionLanes;
+   }
 }
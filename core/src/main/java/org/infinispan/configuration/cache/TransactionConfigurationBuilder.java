@@ -56,6 +56,7 @@ public class TransactionConfigurationBuilder extends AbstractConfigurationChildB
    private long reaperWakeUpInterval = 1000;
    private long completedTxTimeout = 15000;
    private TransactionProtocol transactionProtocol = TransactionProtocol.DEFAULT;
+   private int totalOrderAdmissionLanes = Runtime.getRuntime().availableProcessors();
 
 
    TransactionConfigurationBuilder(ConfigurationBuilder builder) {
@@ -258,6 +259,8 @@ public void validate() {
          throw new CacheConfigurationException("reaperWakeUpInterval must be > 0, we got " + reaperWakeUpInterval);
       if (completedTxTimeout < 0)
          throw new CacheConfigurationException("completedTxTimeout must be > 0, we got " + reaperWakeUpInterval);
+      if (totalOrderAdmissionLanes < 1)
+         throw new CacheConfigurationException("totalOrderAdmissionLanes must be >= 1, we got " + totalOrderAdmissionLanes);
       if(transactionProtocol == TransactionProtocol.TOTAL_ORDER) {
          //total order only supports transactional caches
          if(transactionMode != TransactionMode.TRANSACTIONAL) {
@@ -295,7 +298,8 @@ else if (transactionMode == null)
          transactionMode = TransactionMode.NON_TRANSACTIONAL;
       return new TransactionConfiguration(autoCommit, cacheStopTimeout, eagerLockingSingleNode, lockingMode, syncCommitPhase,
             syncRollbackPhase, transactionManagerLookup, transactionSynchronizationRegistryLookup, transactionMode,
-            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, reaperWakeUpInterval, completedTxTimeout, recovery.create(), transactionProtocol);
+            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, reaperWakeUpInterval, completedTxTimeout, recovery.create(), transactionProtocol,
+            totalOrderAdmissionLanes);
    }
 
    @Override
@@ -316,6 +320,7 @@ public TransactionConfigurationBuilder read(TransactionConfiguration template) {
       this.reaperWakeUpInterval = template.reaperWakeUpInterval();
       this.completedTxTimeout = template.completedTxTimeout();
       this.transactionProtocol = template.transactionProtocol();
+      this.totalOrderAdmissionLanes = template.totalOrderAdmissionLanes();
 
       return this;
    }
@@ -338,6 +343,7 @@ public String toString() {
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
             ", completedTxTimeout=" + completedTxTimeout +
             ", reaperWakeUpInterval=" + reaperWakeUpInterval +
+            ", totalOrderAdmissionLanes=" + totalOrderAdmissionLanes +
             '}';
    }
 
@@ -345,4 +351,14 @@ public TransactionConfigurationBuilder transactionProtocol(TransactionProtocol t
       this.transactionProtocol = transactionProtocol;
       return this;
    }
+
+   /**
+    * The number of admission lanes used by the GMU total order manager to acquire the keys locks of the delivered
+    * transactions in parallel. The lanes run in the total order executor. 1 acquires the locks in the thread delivering
+    * the messages in total order. Defaults to the number of available processors.
+    */
+   public TransactionConfigurationBuilder totalOrderAdmissionLanes(int totalOrderAdmissionLanes) {
+      this.totalOrderAdmissionLanes = totalOrderAdmissionLanes;
+      return this;
+   }
 }
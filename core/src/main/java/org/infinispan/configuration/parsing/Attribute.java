@@ -88,6 +88,8 @@ public enum Attribute {
     NUM_SEGMENTS("numSegments"),
     NUM_RETRIES("numRetries"),
     NUM_VIRTUAL_NODES("numVirtualNodes"),
+    OFF_HEAP("offHeap"),
+    OFF_HEAP_SLAB_SIZE("offHeapSlabSize"),
     ON_REHASH("onRehash"),
     PASSIVATION("passivation"),
     POSITION("position"),
@@ -150,15 +152,19 @@ public enum Attribute {
     REAPER_WAKE_UP_INTERVAL("reaperWakeUpInterval"),
     COMPLETED_TX_TIMEOUT("completedTxTimeout"),
     TRANSACTION_PROTOCOL("transactionProtocol"),
+    TOTAL_ORDER_ADMISSION_LANES("totalOrderAdmissionLanes"),
     OBJECT_LOOKUP_FACTORY("objectLookupFactory"),
     COOL_DOWN_TIME("coolDownTime"),
     MAX_KEYS_TO_REQUEST("maxNumberOfKeysToRequest"),
+    DECENTRALIZED("decentralized"),
     TRANSACTION_THRESHOLD("transactionThreshold"),
     VERSION_GC_MAX_IDLE("versionGCMaxIdle"),
     L1_GC_INTERVAL("l1GCInterval"),
     VIEW_GC_BACK_OFF("viewGCBackOff"),
+    VERSION_GC_MAX_BACKLOG("versionGCMaxBacklog"),
     SAMPLE_SERVICE_TIME("sampleServiceTimes"),
     GMU_WAITING_TIME("gmuWaitingTime"),
+    CHUNKS_IN_FLIGHT("chunksInFlight"),
     ;
 
     private final String name;
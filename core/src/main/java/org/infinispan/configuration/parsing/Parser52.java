@@ -241,6 +241,9 @@ private void parseGarbageCollector(XMLExtendedStreamReader reader, Configuration
             case VIEW_GC_BACK_OFF:
                builder.garbageCollector().viewGCBackOff(Integer.parseInt(value));
                break;
+            case VERSION_GC_MAX_BACKLOG:
+               builder.garbageCollector().versionGCMaxBacklog(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -487,6 +490,9 @@ private void parseTransaction(final XMLExtendedStreamReader reader, final Config
             case TRANSACTION_PROTOCOL:
                builder.transaction().transactionProtocol(TransactionProtocol.valueOf(value));
                break;
+            case TOTAL_ORDER_ADMISSION_LANES:
+               builder.transaction().totalOrderAdmissionLanes(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1190,6 +1196,12 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case CLASS:
                builder.dataContainer().dataContainer(Util.<DataContainer>getInstance(value, holder.getClassLoader()));
                break;
+            case OFF_HEAP:
+               builder.dataContainer().offHeap(Boolean.parseBoolean(value));
+               break;
+            case OFF_HEAP_SLAB_SIZE:
+               builder.dataContainer().offHeapSlabSize(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1387,6 +1399,9 @@ private void parseStateTransfer(final XMLExtendedStreamReader reader, final Conf
             case CHUNK_SIZE:
                builder.clustering().stateTransfer().chunkSize(Integer.parseInt(value));
                break;
+            case CHUNKS_IN_FLIGHT:
+               builder.clustering().stateTransfer().chunksInFlight(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -2028,6 +2043,9 @@ private void parseDataPlacement(final XMLExtendedStreamReader reader, final Conf
                   log.warn("Cannot parse the max number of key to request value. Setting to default");
                }
                break;
+            case DECENTRALIZED:
+               builder.dataPlacement().decentralized(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -26,6 +26,7 @@
 import org.infinispan.CacheException;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.eviction.ActivationManager;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionStrategy;
@@ -37,7 +38,6 @@
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.util.Immutables;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
-import org.infinispan.util.concurrent.ConcurrentMapFactory;
 
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
@@ -45,6 +45,7 @@
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
@@ -57,6 +58,9 @@
 public abstract class AbstractDataContainer<T> implements DataContainer {
 
    protected final ConcurrentMap<Object, T> entries;
+   //null if the container is bounded, since the eviction must consider all the entries
+   private final SegmentedConcurrentMap<Object, T> segmentedEntries;
+   private volatile ConsistentHash consistentHash;
    protected InternalEntryFactory entryFactory;
    private EvictionManager evictionManager;
    private PassivationManager passivator;
@@ -64,7 +68,8 @@
    private CacheLoaderManager clm;
 
    protected AbstractDataContainer(int concurrencyLevel) {
-      entries = ConcurrentMapFactory.makeConcurrentMap(128, concurrencyLevel);
+      segmentedEntries = new SegmentedConcurrentMap<Object, T>(concurrencyLevel);
+      entries = segmentedEntries;
    }
 
    protected AbstractDataContainer(int concurrencyLevel, int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy policy) {
@@ -93,6 +98,7 @@ protected AbstractDataContainer(int concurrencyLevel, int maxEntries, EvictionSt
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
       entries = new BoundedConcurrentHashMap<Object, T>(maxEntries, concurrencyLevel, eviction, evictionListener);
+      segmentedEntries = null;
    }
 
    @Inject
@@ -123,7 +129,75 @@ public Set<InternalCacheEntry> entrySet(EntryVersion version) {
 
    @Override
    public Iterator<InternalCacheEntry> iterator() {
-      return createEntryIterator(null);
+      return createEntryIterator(entries.values().iterator(), null);
+   }
+
+   @Override
+   public void partition(ConsistentHash consistentHash) {
+      this.consistentHash = consistentHash;
+      if (segmentedEntries != null) {
+         segmentedEntries.partition(consistentHash);
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> segmentIterator(Set<Integer> segments) {
+      if (segmentedEntries != null && segmentedEntries.isPartitioned()) {
+         return createEntryIterator(new SegmentsIterator(segments.toArray(new Integer[segments.size()])), null);
+      }
+      return createEntryIterator(new FilterIterator(consistentHash, segments), null);
+   }
+
+   @Override
+   public int segmentSize(int segment) {
+      if (segmentedEntries != null && segmentedEntries.isPartitioned()) {
+         return segmentedEntries.segmentSize(segment);
+      }
+      int size = 0;
+      for (Iterator<T> iterator = new FilterIterator(consistentHash, Collections.singleton(segment));
+           iterator.hasNext(); iterator.next()) {
+         size++;
+      }
+      return size;
+   }
+
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      if (segmentedEntries != null && segmentedEntries.isPartitioned()) {
+         for (int segment : segments) {
+            if (hasRemoveListener()) {
+               for (Iterator<T> iterator = segmentedEntries.segmentValues(segment).iterator(); iterator.hasNext(); ) {
+                  T value = iterator.next();
+                  iterator.remove();
+                  onRemove(value);
+               }
+            } else {
+               segmentedEntries.removeSegment(segment);
+            }
+         }
+         return;
+      }
+      for (Iterator<T> iterator = new FilterIterator(consistentHash, segments); iterator.hasNext(); ) {
+         T value = iterator.next();
+         iterator.remove();
+         onRemove(value);
+      }
+   }
+
+   /**
+    * @return true if {@link #onRemove(Object)} must be invoked for each value removed with the segments
+    */
+   protected boolean hasRemoveListener() {
+      return false;
+   }
+
+   /**
+    * invoked after a value is removed from the container with its segment.
+    *
+    * @param value the removed value
+    */
+   protected void onRemove(T value) {
+      //no-op by default
    }
 
    protected abstract Map<Object, InternalCacheEntry> getCacheEntries(Map<Object, T> evicted);
@@ -132,7 +206,12 @@ public Iterator<InternalCacheEntry> iterator() {
 
    protected abstract InternalCacheEntry getCacheEntry(T entry, EntryVersion version);
 
-   protected abstract EntryIterator createEntryIterator(EntryVersion version);
+   /**
+    * @param values  the values to iterate
+    * @param version the snapshot version of the entries. if it is null, the most recent version of each key is returned
+    * @return an iterator over the entries of the values
+    */
+   protected abstract EntryIterator createEntryIterator(Iterator<T> values, EntryVersion version);
 
    protected abstract static class EntryIterator implements Iterator<InternalCacheEntry> {
    }
@@ -214,7 +293,7 @@ public boolean contains(Object o) {
 
       @Override
       public Iterator<InternalCacheEntry> iterator() {
-         return new ImmutableEntryIterator(createEntryIterator(version));
+         return new ImmutableEntryIterator(createEntryIterator(entries.values().iterator(), version));
       }
 
       @Override
@@ -236,7 +315,7 @@ private Values(EntryVersion version) {
 
       @Override
       public Iterator<Object> iterator() {
-         return new ValueIterator(createEntryIterator(version));
+         return new ValueIterator(createEntryIterator(entries.values().iterator(), version));
       }
 
       @Override
@@ -267,4 +346,91 @@ public Object next() {
          return currentIterator.next().getValue();
       }
    }
+
+   /**
+    * iterates over the values of the segments, one segment after the other
+    */
+   private class SegmentsIterator implements Iterator<T> {
+
+      private final Integer[] segments;
+      private int nextSegment;
+      private Iterator<T> current;
+
+      private SegmentsIterator(Integer[] segments) {
+         this.segments = segments;
+         this.nextSegment = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (current == null || !current.hasNext()) {
+            if (nextSegment >= segments.length) {
+               return false;
+            }
+            current = segmentedEntries.segmentValues(segments[nextSegment++]).iterator();
+         }
+         return true;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         return current.next();
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * iterates over all the values and returns the ones in the segments. If no consistent hash is installed, it returns
+    * all the values.
+    */
+   private class FilterIterator implements Iterator<T> {
+
+      private final ConsistentHash consistentHash;
+      private final Set<Integer> segments;
+      private final Iterator<Map.Entry<Object, T>> iterator;
+      private T next;
+
+      private FilterIterator(ConsistentHash consistentHash, Set<Integer> segments) {
+         this.consistentHash = consistentHash;
+         this.segments = segments;
+         this.iterator = entries.entrySet().iterator();
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (next == null && iterator.hasNext()) {
+            Map.Entry<Object, T> entry = iterator.next();
+            if (consistentHash == null || segments.contains(consistentHash.getSegment(entry.getKey()))) {
+               next = entry.getValue();
+            }
+         }
+         return next != null;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         T toReturn = next;
+         next = null;
+         return toReturn;
+      }
+
+      @Override
+      public void remove() {
+         if (next != null) {
+            //the underlying iterator is already in the next value
+            throw new IllegalStateException("remove() is not supported after hasNext()");
+         }
+         iterator.remove();
+      }
+   }
 }
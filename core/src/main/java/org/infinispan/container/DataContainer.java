@@ -23,10 +23,12 @@
 package org.infinispan.container;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
@@ -167,4 +169,35 @@ public interface DataContainer extends Iterable<InternalCacheEntry> {
    boolean dumpTo(String filePath);
 
    void gc(EntryVersion minimumVersion);
+
+   /**
+    * Partitions the entries by the segments of the consistent hash, so the operations over a set of segments are
+    * proportional to the number of entries in those segments. The segment of a key does not depend on the owners, so
+    * it only needs to be invoked when the topology is installed and while no writes are in progress.
+    *
+    * @param consistentHash the consistent hash used to compute the segment of each key
+    */
+   void partition(ConsistentHash consistentHash);
+
+   /**
+    * Returns an iterator over the most recent entries of the segments. If the container is not partitioned yet, it
+    * may also return entries of other segments, so the clients must check the segment of each key.
+    *
+    * @param segments the segments to iterate
+    * @return an iterator over the mutable cache entries of the segments
+    */
+   Iterator<InternalCacheEntry> segmentIterator(Set<Integer> segments);
+
+   /**
+    * @param segment the segment
+    * @return the number of keys in the segment
+    */
+   int segmentSize(int segment);
+
+   /**
+    * Removes all the keys of the segments, without any notification or passivation.
+    *
+    * @param segments the segments to remove
+    */
+   void removeSegments(Set<Integer> segments);
 }
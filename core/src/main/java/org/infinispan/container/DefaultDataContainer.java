@@ -183,8 +183,8 @@ protected InternalCacheEntry getCacheEntry(InternalCacheEntry entry, EntryVersio
    }
 
    @Override
-   protected EntryIterator createEntryIterator(EntryVersion version) {
-      return new DefaultEntryIterator(entries.values().iterator());
+   protected EntryIterator createEntryIterator(Iterator<InternalCacheEntry> values, EntryVersion version) {
+      return new DefaultEntryIterator(values);
    }
 
    @Override
@@ -195,11 +195,17 @@ public final boolean dumpTo(String filePath) {
       }
       try {
          for (Map.Entry<Object, InternalCacheEntry> entry : entries.entrySet()) {
+            //the stored entry may not keep the value itself (e.g. off-heap)
+            InternalCacheEntry cacheEntry = getCacheEntry(entry.getValue(), null);
+            if (cacheEntry == null) {
+               //removed concurrently
+               continue;
+            }
             Util.safeWrite(bufferedWriter, entry.getKey());
             Util.safeWrite(bufferedWriter, "=");
-            Util.safeWrite(bufferedWriter, entry.getValue().getValue());
+            Util.safeWrite(bufferedWriter, cacheEntry.getValue());
             Util.safeWrite(bufferedWriter, "=");
-            Util.safeWrite(bufferedWriter, entry.getValue().getVersion());
+            Util.safeWrite(bufferedWriter, cacheEntry.getVersion());
             bufferedWriter.newLine();
             bufferedWriter.flush();
          }
@@ -0,0 +1,294 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent map partitioned by the segments of a {@link ConsistentHash}. Each segment has its own map, so a segment
+ * can be iterated, counted and removed without touching the keys of the other segments.
+ * <p/>
+ * The map starts with a single partition and it is partitioned when a consistent hash with more than one segment is
+ * installed. The segment of a key does not depend on the owners, so the partition is only re-done when the number of
+ * segments changes. The re-partition copies all the keys and it must not run concurrently with writes.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+final class SegmentedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+   private static final int INITIAL_CAPACITY = 128;
+   private final int concurrencyLevel;
+   private final EntrySet entrySet;
+   private volatile Partition<K, V> partition;
+
+   SegmentedConcurrentMap(int concurrencyLevel) {
+      this.concurrencyLevel = concurrencyLevel;
+      this.entrySet = new EntrySet();
+      this.partition = new Partition<K, V>(null, 1, INITIAL_CAPACITY, concurrencyLevel);
+   }
+
+   /**
+    * Partitions the keys by the segments of the consistent hash, if the number of segments is different from the
+    * current partition. It must be invoked while no writes are in progress.
+    *
+    * @param consistentHash the consistent hash
+    * @return {@code true} if the keys were re-partitioned
+    */
+   final synchronized boolean partition(ConsistentHash consistentHash) {
+      final Partition<K, V> current = partition;
+      final int numSegments = consistentHash.getNumSegments();
+      if (numSegments <= 1 || numSegments == current.maps.length) {
+         return false;
+      }
+      final Partition<K, V> newPartition = new Partition<K, V>(consistentHash, numSegments,
+                                                               Math.max(16, INITIAL_CAPACITY / numSegments),
+                                                               Math.max(1, concurrencyLevel / numSegments));
+      for (ConcurrentMap<K, V> map : current.maps) {
+         for (Map.Entry<K, V> entry : map.entrySet()) {
+            newPartition.map(entry.getKey()).put(entry.getKey(), entry.getValue());
+         }
+      }
+      partition = newPartition;
+      return true;
+   }
+
+   /**
+    * @return {@code true} if the keys are partitioned by segment
+    */
+   final boolean isPartitioned() {
+      return partition.consistentHash != null;
+   }
+
+   /**
+    * @return the values of the segment
+    */
+   final Collection<V> segmentValues(int segment) {
+      return partition.segment(segment).values();
+   }
+
+   /**
+    * @return the number of keys in the segment
+    */
+   final int segmentSize(int segment) {
+      return partition.segment(segment).size();
+   }
+
+   /**
+    * Removes all the keys in the segment
+    */
+   final void removeSegment(int segment) {
+      partition.segment(segment).clear();
+   }
+
+   @Override
+   public V get(Object key) {
+      return partition.map(key).get(key);
+   }
+
+   @Override
+   public boolean containsKey(Object key) {
+      return partition.map(key).containsKey(key);
+   }
+
+   @Override
+   public V put(K key, V value) {
+      return partition.map(key).put(key, value);
+   }
+
+   @Override
+   public V putIfAbsent(K key, V value) {
+      return partition.map(key).putIfAbsent(key, value);
+   }
+
+   @Override
+   public V remove(Object key) {
+      return partition.map(key).remove(key);
+   }
+
+   @Override
+   public boolean remove(Object key, Object value) {
+      return partition.map(key).remove(key, value);
+   }
+
+   @Override
+   public boolean replace(K key, V oldValue, V newValue) {
+      return partition.map(key).replace(key, oldValue, newValue);
+   }
+
+   @Override
+   public V replace(K key, V value) {
+      return partition.map(key).replace(key, value);
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (ConcurrentMap<K, V> map : partition.maps) {
+         size += map.size();
+      }
+      return size;
+   }
+
+   @Override
+   public boolean isEmpty() {
+      for (ConcurrentMap<K, V> map : partition.maps) {
+         if (!map.isEmpty()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void clear() {
+      for (ConcurrentMap<K, V> map : partition.maps) {
+         map.clear();
+      }
+   }
+
+   @Override
+   public Set<Entry<K, V>> entrySet() {
+      return entrySet;
+   }
+
+   private static class Partition<K, V> {
+      private final ConsistentHash consistentHash;
+      private final ConcurrentMap<K, V>[] maps;
+
+      @SuppressWarnings("unchecked")
+      private Partition(ConsistentHash consistentHash, int numSegments, int initialCapacity, int concurrencyLevel) {
+         this.consistentHash = consistentHash;
+         this.maps = new ConcurrentMap[numSegments];
+         for (int i = 0; i < numSegments; ++i) {
+            maps[i] = ConcurrentMapFactory.makeConcurrentMap(initialCapacity, concurrencyLevel);
+         }
+      }
+
+      private ConcurrentMap<K, V> map(Object key) {
+         return consistentHash == null ? maps[0] : maps[consistentHash.getSegment(key)];
+      }
+
+      private ConcurrentMap<K, V> segment(int segment) {
+         if (consistentHash == null) {
+            throw new IllegalStateException("Keys are not partitioned by segment");
+         }
+         if (segment < 0 || segment >= maps.length) {
+            throw new IllegalArgumentException("Segment " + segment + " does not exist");
+         }
+         return maps[segment];
+      }
+   }
+
+   private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+         return new EntryIterator(partition.maps);
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+         Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+         V value = get(entry.getKey());
+         return value != null && value.equals(entry.getValue());
+      }
+
+      @Override
+      public boolean remove(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+         Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+         return SegmentedConcurrentMap.this.remove(entry.getKey(), entry.getValue());
+      }
+
+      @Override
+      public int size() {
+         return SegmentedConcurrentMap.this.size();
+      }
+
+      @Override
+      public void clear() {
+         SegmentedConcurrentMap.this.clear();
+      }
+   }
+
+   /**
+    * weakly consistent iterator over the entries of all the segments, one segment after the other
+    */
+   private class EntryIterator implements Iterator<Entry<K, V>> {
+
+      private final ConcurrentMap<K, V>[] maps;
+      private int nextMap;
+      private Iterator<Entry<K, V>> current;
+      private Iterator<Entry<K, V>> last;
+
+      private EntryIterator(ConcurrentMap<K, V>[] maps) {
+         this.maps = maps;
+         this.nextMap = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (current == null || !current.hasNext()) {
+            if (nextMap >= maps.length) {
+               return false;
+            }
+            current = maps[nextMap++].entrySet().iterator();
+         }
+         return true;
+      }
+
+      @Override
+      public Entry<K, V> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         last = current;
+         return current.next();
+      }
+
+      @Override
+      public void remove() {
+         if (last == null) {
+            throw new IllegalStateException();
+         }
+         last.remove();
+         last = null;
+      }
+   }
+}
@@ -118,15 +118,16 @@ public InternalCacheEntry peek(Object k, EntryVersion version) {
          }
          return wrap(k, null, true, version, null, null, false);
       }
-      VersionEntry<InternalCacheEntry> entry = chain.get(getReadVersion(version));
+      VersionEntry<InternalCacheEntry> entry = read(chain, getReadVersion(version));
 
       if (log.isTraceEnabled()) {
          log.tracef("DataContainer.peek(%s,%s) => %s", k, version, entry);
       }
-      EntryVersion creationVersion = entry.getEntry() == null ? null : entry.getEntry().getVersion();
+      InternalCacheEntry found = entry.getEntry();
+      EntryVersion creationVersion = found == null ? null : found.getVersion();
       InternalCacheEntry nextEntry = entry.getNextEntry();
 
-      return wrap(k, entry.getEntry(), entry.isMostRecent(), version, creationVersion, entry.getNextVersion(), (nextEntry != null && nextEntry.isDonated()));
+      return wrap(k, found, entry.isMostRecent(), version, creationVersion, entry.getNextVersion(), (nextEntry != null && nextEntry.isDonated()));
    }
 
    @Override
@@ -144,7 +145,7 @@ public void put(Object k, Object v, EntryVersion version, long lifespan, long ma
          if (log.isTraceEnabled()) {
             log.tracef("DataContainer.put(%s,%s,%s,%s,%s), create new VersionChain", k, v, version, lifespan, maxIdle);
          }
-         chain = new DataContainerVersionChain();
+         chain = newVersionChain();
          oldChain = entries.putIfAbsent(k, chain);
          if (oldChain != null) {
             chain = oldChain;
@@ -178,7 +179,7 @@ public void put(Object k, Object v, EntryVersion version, long lifespan, long ma
          if (log.isTraceEnabled()) {
             log.tracef("DataContainer.put(%s,%s,%s,%s,%s), create new VersionChain", k, v, version, lifespan, maxIdle);
          }
-         chain = new DataContainerVersionChain();
+         chain = newVersionChain();
          oldChain = entries.putIfAbsent(k, chain);
          if (oldChain != null) {
             chain = oldChain;
@@ -222,7 +223,10 @@ public InternalCacheEntry remove(Object k, EntryVersion version) {
          log.tracef("DataContainer.remove(%s,%s)", k, version);
       }
       if (version == EvictedVersion.INSTANCE) {
-         entries.remove(k);
+         DataContainerVersionChain removed = entries.remove(k);
+         if (removed != null) {
+            onRemove(removed);
+         }
       }
 
       DataContainerVersionChain chain = entries.get(k);
@@ -237,7 +241,7 @@ public InternalCacheEntry remove(Object k, EntryVersion version) {
       if (log.isTraceEnabled()) {
          log.tracef("DataContainer.remove(%s,%s) => %s", k, version, entry);
       }
-      return wrap(k, entry.getEntry(), entry.isMostRecent(), null, null, null, false);
+      return wrap(k, readEntry(entry.getEntry()), entry.isMostRecent(), null, null, null, false);
    }
 
    @Override
@@ -316,6 +320,25 @@ public final void gc(EntryVersion minimumVersion) {
       }
    }
 
+   /**
+    * garbage collects the chain of a single key.
+    *
+    * @param minimumVersion the minimum visible version
+    * @param key            the key
+    * @return the number of versions removed
+    */
+   public final int gc(EntryVersion minimumVersion, Object key) {
+      DataContainerVersionChain versionChain = entries.get(key);
+      return versionChain == null ? 0 : versionChain.gc(minimumVersion);
+   }
+
+   /**
+    * @return a weakly consistent iterator over the keys with a version chain in this container
+    */
+   public final Iterator<Object> chainKeyIterator() {
+      return entries.keySet().iterator();
+   }
+
    public final VersionChain<?> getVersionChain(Object key) {
       return entries.get(key);
    }
@@ -335,24 +358,62 @@ public final String stateToString() {
    protected Map<Object, InternalCacheEntry> getCacheEntries(Map<Object, DataContainerVersionChain> evicted) {
       Map<Object, InternalCacheEntry> evictedMap = new HashMap<Object, InternalCacheEntry>();
       for (Map.Entry<Object, DataContainerVersionChain> entry : evicted.entrySet()) {
-         evictedMap.put(entry.getKey(), entry.getValue().get(null).getEntry());
+         evictedMap.put(entry.getKey(), read(entry.getValue(), null).getEntry());
       }
       return evictedMap;
    }
 
    @Override
    protected InternalCacheEntry getCacheEntry(DataContainerVersionChain evicted) {
-      return evicted.get(null).getEntry();
+      return read(evicted, null).getEntry();
    }
 
    @Override
    protected InternalCacheEntry getCacheEntry(DataContainerVersionChain entry, EntryVersion version) {
-      return entry == null ? null : entry.get(version).getEntry();
+      return entry == null ? null : read(entry, version).getEntry();
    }
 
    @Override
-   protected EntryIterator createEntryIterator(EntryVersion version) {
-      return new GMUEntryIterator(version, entries.values().iterator());
+   protected EntryIterator createEntryIterator(Iterator<DataContainerVersionChain> values, EntryVersion version) {
+      return new GMUEntryIterator(version, values);
+   }
+
+   /**
+    * @return a new and empty version chain
+    */
+   protected DataContainerVersionChain newVersionChain() {
+      return new DataContainerVersionChain();
+   }
+
+   /**
+    * @param stored the entry stored in a version chain
+    * @return the entry to return to the caller. It can be null if the entry is no longer available, i.e. the version
+    *         was released concurrently
+    */
+   protected InternalCacheEntry readEntry(InternalCacheEntry stored) {
+      return stored;
+   }
+
+   /**
+    * @return the version visible to {@code version}, with the entry returned by {@link #readEntry(InternalCacheEntry)}
+    */
+   private VersionEntry<InternalCacheEntry> read(DataContainerVersionChain chain, EntryVersion version) {
+      while (true) {
+         VersionEntry<InternalCacheEntry> entry = chain.get(version);
+         InternalCacheEntry stored = entry.getEntry();
+         InternalCacheEntry found = readEntry(stored);
+         if (found == stored) {
+            return entry;
+         } else if (found != null) {
+            return new VersionEntry<InternalCacheEntry>(found, entry.getNextEntry(), entry.getNextVersion(),
+                                                        entry.isFound());
+         }
+         //the version was garbage collected, expired or removed concurrently. it is no longer reachable from the
+         //chain, so the next read finds the version visible now (if any)
+         if (log.isTraceEnabled()) {
+            log.tracef("Version %s released concurrently. Reading the chain again", stored);
+         }
+      }
    }
 
    private GMUReadVersion getReadVersion(EntryVersion entryVersion) {
@@ -412,15 +473,8 @@ public void reincarnate(VersionBody<InternalCacheEntry> other) {
       }
 
       @Override
-      public VersionBody<InternalCacheEntry> gc(EntryVersion minVersion) {
-         if (isOlderOrEquals(getValue().getVersion(), minVersion)) {
-            VersionBody<InternalCacheEntry> previous = getPrevious();
-            //GC previous entries, removing all the references to the previous version entry
-            setPrevious(null);
-            return previous;
-         } else {
-            return getPrevious();
-         }
+      public boolean isGarbageCollectionPoint(EntryVersion minVersion) {
+         return isOlderOrEquals(getValue().getVersion(), minVersion);
       }
 
       @Override
@@ -466,7 +520,7 @@ private void findNext() {
          next = null;
          while (iterator.hasNext()) {
             DataContainerVersionChain chain = iterator.next();
-            next = chain.get(version).getEntry();
+            next = read(chain, version).getEntry();
             if (next != null) {
                return;
             }
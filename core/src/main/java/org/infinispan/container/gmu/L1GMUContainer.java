@@ -277,14 +277,8 @@ public void reincarnate(VersionBody<L1Entry> other) {
       }
 
       @Override
-      public VersionBody<L1Entry> gc(EntryVersion minVersion) {
-         if (minVersion == null || isOlderOrEquals(getValue().getCreationVersion(), minVersion)) {
-            VersionBody<L1Entry> previous = getPrevious();
-            setPrevious(null);
-            return previous;
-         } else {
-            return getPrevious();
-         }
+      public boolean isGarbageCollectionPoint(EntryVersion minVersion) {
+         return minVersion == null || isOlderOrEquals(getValue().getCreationVersion(), minVersion);
       }
 
       @Override
@@ -315,7 +309,7 @@ protected void writeValue(BufferedWriter writer, L1Entry value) throws IOExcepti
    private class L1Entry {
       private final InternalCacheEntry value;
       private final EntryVersion creationVersion;
-      private EntryVersion readVersion;
+      private volatile EntryVersion readVersion;
       private boolean invalid;
 
       public L1Entry(InternalGMUCacheEntry gmuCacheEntry) {
@@ -337,7 +331,7 @@ public EntryVersion getReadVersion() {
          return readVersion;
       }
 
-      public void setReadVersion(EntryVersion readVersion) {
+      public synchronized void setReadVersion(EntryVersion readVersion) {
          if (readVersion == null) {
             return;
          } else if (this.readVersion == null) {
@@ -25,17 +25,24 @@
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.container.versioning.InequalVersionComparisonResult;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 import static org.infinispan.container.versioning.InequalVersionComparisonResult.*;
 
 /**
- * // TODO: Document this
+ * A node in a {@link VersionChain}. The link to the previous (older) version is volatile and it is only changed with
+ * compare-and-set, so the readers can traverse the chain without acquiring any monitor.
  *
  * @author Pedro Ruivo
  * @since 5.2
  */
 public abstract class VersionBody<T> {
+   @SuppressWarnings("rawtypes")
+   private static final AtomicReferenceFieldUpdater<VersionBody, VersionBody> PREVIOUS_UPDATER =
+         AtomicReferenceFieldUpdater.newUpdater(VersionBody.class, VersionBody.class, "previous");
    private final T value;
-   private VersionBody<T> previous;
+   private volatile VersionBody<T> previous;
+   private volatile boolean removed;
 
    protected VersionBody(T value) {
       this.value = value;
@@ -58,40 +65,103 @@ public T getValue() {
       return value;
    }
 
-   public synchronized VersionBody<T> getPrevious() {
+   public VersionBody<T> getPrevious() {
       return previous;
    }
 
-   public synchronized void setPrevious(VersionBody<T> previous) {
+   public void setPrevious(VersionBody<T> previous) {
       this.previous = previous;
    }
 
-   public synchronized VersionBody<T> add(VersionBody<T> other) {
-      if (previous == null) {
-         previous = other;
-         return null;
-      } else if (previous.isOlder(other)) {
+   /**
+    * tries to insert {@code other} after this version body.
+    *
+    * @return null if {@code other} was inserted (or reincarnated), otherwise the next body where the insertion must be
+    *         retried. It returns {@code this} if a concurrent update was detected.
+    */
+   public VersionBody<T> add(VersionBody<T> other) {
+      VersionBody<T> previous = this.previous;
+      if (previous == null || previous.isOlder(other)) {
+         //other is not visible yet, so it is safe to update it before publishing it
          other.setPrevious(previous);
-         setPrevious(other);
+         if (!casPrevious(previous, other)) {
+            return this;
+         }
+         if (removed && casPrevious(other, null)) {
+            //this version was removed concurrently and other was linked after its older versions were detached. other
+            //is older than a removed version, so it is no longer visible
+            removeAll(other);
+         }
          return null;
       } else if (previous.isEqual(other)) {
+         other.setPrevious(null);
          previous.reincarnate(other);
          return null;
       }
       return previous;
    }
 
-   public synchronized VersionBody expire(long now) {
+   public VersionBody<T> expire(long now) {
+      VersionBody<T> previous = this.previous;
       if (previous == null) {
          return null;
       }
       if (previous.isExpired(now)) {
-         previous = previous.getPrevious();
+         if (casPrevious(previous, previous.getPrevious())) {
+            previous.onRemove();
+         }
          return this;
       }
       return previous;
    }
 
+   /**
+    * detaches all the older versions from this version body. A version inserted concurrently is either detached or
+    * linked after this version body.
+    *
+    * @return the first of the detached versions, or {@code null} if there was no older version
+    */
+   public final VersionBody<T> detachPrevious() {
+      while (true) {
+         VersionBody<T> previous = this.previous;
+         if (previous == null || casPrevious(previous, null)) {
+            return previous;
+         }
+      }
+   }
+
+   /**
+    * removes all the version bodies in the chain starting in {@code first}, which must no longer be reachable from the
+    * {@link VersionChain}. Each version body is notified once, including the ones inserted concurrently in the
+    * detached chain.
+    *
+    * @return the number of version bodies removed
+    */
+   public static int removeAll(VersionBody<?> first) {
+      int removed = 0;
+      VersionBody<?> iterator = first;
+      while (iterator != null) {
+         //set before detaching, so a concurrent add() in this version body detects it
+         iterator.removed = true;
+         VersionBody<?> previous = iterator.detachPrevious();
+         iterator.onRemove();
+         removed++;
+         iterator = previous;
+      }
+      return removed;
+   }
+
+   protected final boolean casPrevious(VersionBody<T> expected, VersionBody<T> update) {
+      return PREVIOUS_UPDATER.compareAndSet(this, expected, update);
+   }
+
+   /**
+    * invoked when this version body is removed from the chain, by the expiration or by the garbage collection.
+    */
+   protected void onRemove() {
+      //no-op by default
+   }
+
    @Override
    public String toString() {
       return "VersionBody{" +
@@ -111,7 +181,11 @@ public String toString() {
 
    public abstract void reincarnate(VersionBody<T> other);
 
-   public abstract VersionBody<T> gc(EntryVersion minVersion);
+   /**
+    * @param minVersion the minimum visible version
+    * @return true if this version is visible with {@code minVersion}, so all the older versions can be removed
+    */
+   public abstract boolean isGarbageCollectionPoint(EntryVersion minVersion);
 
    protected abstract boolean isExpired(long now);
 
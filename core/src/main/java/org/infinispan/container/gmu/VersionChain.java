@@ -29,9 +29,14 @@
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
- * // TODO: Document this
+ * A multi-version chain of values, ordered from the most recent to the oldest version.
+ * <p/>
+ * The chain is lock-free: the most recent version is published in a volatile field and new versions are linked with
+ * compare-and-set. The readers only follow volatile references so a snapshot read never blocks, even when a
+ * concurrent transaction is committing a new version of the same key.
  *
  * @author Pedro Ruivo
  * @since 5.2
@@ -39,13 +44,13 @@
 public abstract class VersionChain<T> {
 
    private static final Log log = LogFactory.getLog(VersionChain.class);
-   private VersionBody<T> first;
+   @SuppressWarnings("rawtypes")
+   private static final AtomicReferenceFieldUpdater<VersionChain, VersionBody> FIRST_UPDATER =
+         AtomicReferenceFieldUpdater.newUpdater(VersionChain.class, VersionBody.class, "first");
+   private volatile VersionBody<T> first;
 
    public final VersionEntry<T> get(EntryVersion version) {
-      VersionBody<T> iterator;
-      synchronized (this) {
-         iterator = first;
-      }
+      VersionBody<T> iterator = first;
 
       if (log.isTraceEnabled()) {
          log.tracef("[%s] find value for version %s", Thread.currentThread().getName(), version);
@@ -89,10 +94,7 @@ public final VersionBody<T> add(T value) {
    }
 
    public final boolean contains(EntryVersion version) {
-      VersionBody iterator;
-      synchronized (this) {
-         iterator = first;
-      }
+      VersionBody iterator = first;
 
       if (version == null) {
          return iterator != null && !iterator.isRemove();
@@ -115,12 +117,15 @@ public final VersionEntry<T> remove(T removeObject) {
    }
 
    public final void purgeExpired(long now) {
-      VersionBody iterator;
-      synchronized (this) {
-         while (first != null && first.isExpired(now)) {
-            first = first.getPrevious();
+      VersionBody<T> iterator = first;
+      while (iterator != null && iterator.isExpired(now)) {
+         VersionBody<T> previous = iterator.getPrevious();
+         if (casFirst(iterator, previous)) {
+            iterator.onRemove();
+            iterator = previous;
+         } else {
+            iterator = first;
          }
-         iterator = first;
       }
       while (iterator != null) {
          iterator = iterator.expire(now);
@@ -128,10 +133,7 @@ public final void purgeExpired(long now) {
    }
 
    public void chainToString(StringBuilder stringBuilder) {
-      VersionBody iterator;
-      synchronized (this) {
-         iterator = first;
-      }
+      VersionBody iterator = first;
       while (iterator != null) {
          stringBuilder.append(iterator).append("-->");
          iterator = iterator.getPrevious();
@@ -140,10 +142,7 @@ public void chainToString(StringBuilder stringBuilder) {
    }
 
    public final void dumpChain(BufferedWriter writer) throws IOException {
-      VersionBody<T> iterator;
-      synchronized (this) {
-         iterator = first;
-      }
+      VersionBody<T> iterator = first;
       while (iterator != null) {
          writeValue(writer, iterator.getValue());
          Util.safeWrite(writer, "|");
@@ -151,27 +150,48 @@ public final void dumpChain(BufferedWriter writer) throws IOException {
       }
    }
 
-   public final void gc(EntryVersion minVersion) {
-      VersionBody<T> iterator;
-      synchronized (this) {
-         iterator = first;
-      }
-      while (iterator != null) {
-         iterator = iterator.gc(minVersion);
+   /**
+    * removes all the versions older than the most recent version lower or equals than {@code minVersion}.
+    *
+    * @param minVersion the minimum visible version
+    * @return the number of versions removed
+    */
+   public final int gc(EntryVersion minVersion) {
+      VersionBody<T> iterator = first;
+      while (iterator != null && !iterator.isGarbageCollectionPoint(minVersion)) {
+         iterator = iterator.getPrevious();
       }
+      //the versions inserted concurrently are either detached (and removed) or kept after the garbage collection point
+      final int removed = iterator == null ? 0 : VersionBody.removeAll(iterator.detachPrevious());
       if (log.isTraceEnabled()) {
          StringBuilder stringBuilder = new StringBuilder(4096);
          chainToString(stringBuilder);
-         log.tracef("Chain after GC: %s", stringBuilder);
+         log.tracef("Chain after GC (%s versions removed): %s", removed, stringBuilder);
       }
+      return removed;
    }
 
    public final int numberOfVersion() {
-      VersionBody<T> iterator;
-      int size = 0;
-      synchronized (this) {
+      return countVersions(first);
+   }
+
+   /**
+    * removes all the versions from the chain. It is invoked when the chain is removed from the data container.
+    */
+   public final void removeAll() {
+      VersionBody<T> iterator = first;
+      while (!casFirst(iterator, null)) {
          iterator = first;
       }
+      VersionBody.removeAll(iterator);
+   }
+
+   protected abstract VersionBody<T> newValue(T value);
+
+   protected abstract void writeValue(BufferedWriter writer, T value) throws IOException;
+
+   private static int countVersions(VersionBody<?> iterator) {
+      int size = 0;
       while (iterator != null) {
          size++;
          iterator = iterator.getPrevious();
@@ -179,20 +199,27 @@ public final int numberOfVersion() {
       return size;
    }
 
-   protected abstract VersionBody<T> newValue(T value);
-
-   protected abstract void writeValue(BufferedWriter writer, T value) throws IOException;
+   private boolean casFirst(VersionBody<T> expected, VersionBody<T> update) {
+      return FIRST_UPDATER.compareAndSet(this, expected, update);
+   }
 
    //return null if the value was added successfully
-   private synchronized VersionBody<T> firstAdd(VersionBody<T> body) {
-      if (first == null || first.isOlder(body)) {
-         body.setPrevious(first);
-         first = body;
-         return null;
-      } else if (first.isEqual(body)) {
-         first.reincarnate(body);
-         return null;
-      }
-      return first.add(body);
+   private VersionBody<T> firstAdd(VersionBody<T> body) {
+      while (true) {
+         VersionBody<T> currentFirst = first;
+         if (currentFirst == null || currentFirst.isOlder(body)) {
+            //body is not visible yet, so it is safe to update it before publishing it
+            body.setPrevious(currentFirst);
+            if (casFirst(currentFirst, body)) {
+               return null;
+            }
+         } else if (currentFirst.isEqual(body)) {
+            body.setPrevious(null);
+            currentFirst.reincarnate(body);
+            return null;
+         } else {
+            return currentFirst.add(body);
+         }
+      }
    }
 }
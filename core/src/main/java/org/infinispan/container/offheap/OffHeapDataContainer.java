@@ -0,0 +1,272 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.marshall.StreamingMarshaller;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DefaultDataContainer} that keeps the values outside the Java heap.
+ * <p/>
+ * The keys and the expiration metadata of the entries are kept in the on-heap map, while the values are marshalled to
+ * an {@link OffHeapMemory} and the map entry only keeps an {@link OffHeapValue}. The entries returned are on-heap
+ * copies, unmarshalled on each read, so changing them does not change the container.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@ThreadSafe
+public class OffHeapDataContainer extends DefaultDataContainer {
+
+   private final OffHeapStorage storage;
+
+   public OffHeapDataContainer(int concurrencyLevel, int slabSize) {
+      super(concurrencyLevel);
+      storage = new OffHeapStorage(slabSize);
+   }
+
+   protected OffHeapDataContainer(int concurrencyLevel, int slabSize, int maxEntries, EvictionStrategy strategy,
+                                  EvictionThreadPolicy policy) {
+      super(concurrencyLevel, maxEntries, strategy, policy);
+      storage = new OffHeapStorage(slabSize);
+   }
+
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int slabSize, int maxEntries,
+                                                    EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      return new OffHeapDataContainer(concurrencyLevel, slabSize, maxEntries, strategy, policy);
+   }
+
+   public static DataContainer unBoundedDataContainer(int concurrencyLevel, int slabSize) {
+      return new OffHeapDataContainer(concurrencyLevel, slabSize);
+   }
+
+   @Inject
+   public void injectOffHeapDependencies(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+                                         InternalEntryFactory entryFactory) {
+      storage.initialize(marshaller, entryFactory);
+   }
+
+   @Stop(priority = 999)
+   public void stop() {
+      //the container is not reused after stop, so all the memory is released
+      clear();
+      storage.destroy();
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object key, EntryVersion version) {
+      while (true) {
+         InternalCacheEntry stored = entries.get(key);
+         if (stored == null) {
+            return null;
+         }
+         InternalCacheEntry entry = storage.load(stored);
+         if (entry != null) {
+            return entry;
+         }
+         //the value was replaced concurrently. read the new value
+      }
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k, EntryVersion version) {
+      while (true) {
+         InternalCacheEntry stored = entries.get(k);
+         if (stored == null) {
+            return null;
+         }
+         if (stored.canExpire()) {
+            long currentTimeMillis = System.currentTimeMillis();
+            if (stored.isExpired(currentTimeMillis)) {
+               if (entries.remove(k, stored)) {
+                  storage.release(stored);
+               }
+               return null;
+            }
+            stored.touch(currentTimeMillis);
+         }
+         InternalCacheEntry entry = storage.load(stored);
+         if (entry != null) {
+            return entry;
+         }
+         //the value was replaced concurrently. read the new value
+      }
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
+      storage.release(entries.put(k, entryFactory.create(k, storage.store(v), version, lifespan, maxIdle)));
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle, boolean donated) {
+      storage.release(entries.put(k, entryFactory.create(k, storage.store(v), version, lifespan, maxIdle, donated)));
+   }
+
+   @Override
+   public boolean containsKey(Object k, EntryVersion version) {
+      InternalCacheEntry stored = entries.get(k);
+      if (stored != null && stored.canExpire() && stored.isExpired(System.currentTimeMillis())) {
+         if (entries.remove(k, stored)) {
+            storage.release(stored);
+         }
+         stored = null;
+      }
+      return stored != null;
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k, EntryVersion version) {
+      InternalCacheEntry stored = entries.remove(k);
+      if (stored == null) {
+         return null;
+      }
+      InternalCacheEntry entry = stored.canExpire() && stored.isExpired(System.currentTimeMillis()) ? null :
+            storage.load(stored);
+      storage.release(stored);
+      return entry;
+   }
+
+   @Override
+   public void clear() {
+      for (Map.Entry<Object, InternalCacheEntry> entry : entries.entrySet()) {
+         if (entries.remove(entry.getKey(), entry.getValue())) {
+            storage.release(entry.getValue());
+         }
+      }
+   }
+
+   @Override
+   public void purgeExpired() {
+      long currentTimeMillis = System.currentTimeMillis();
+      for (Map.Entry<Object, InternalCacheEntry> entry : entries.entrySet()) {
+         if (entry.getValue().isExpired(currentTimeMillis) && entries.remove(entry.getKey(), entry.getValue())) {
+            storage.release(entry.getValue());
+         }
+      }
+   }
+
+   /**
+    * @return the off-heap memory where the values are stored
+    */
+   public final OffHeapMemory getOffHeapMemory() {
+      return storage.getMemory();
+   }
+
+   @Override
+   protected Map<Object, InternalCacheEntry> getCacheEntries(Map<Object, InternalCacheEntry> evicted) {
+      Map<Object, InternalCacheEntry> evictedMap = new HashMap<Object, InternalCacheEntry>();
+      for (Map.Entry<Object, InternalCacheEntry> entry : evicted.entrySet()) {
+         InternalCacheEntry loaded = storage.load(entry.getValue());
+         storage.release(entry.getValue());
+         if (loaded != null) {
+            evictedMap.put(entry.getKey(), loaded);
+         }
+      }
+      return evictedMap;
+   }
+
+   @Override
+   protected InternalCacheEntry getCacheEntry(InternalCacheEntry evicted) {
+      return storage.load(evicted);
+   }
+
+   @Override
+   protected InternalCacheEntry getCacheEntry(InternalCacheEntry entry, EntryVersion version) {
+      return entry == null ? null : storage.load(entry);
+   }
+
+   @Override
+   protected EntryIterator createEntryIterator(Iterator<InternalCacheEntry> values, EntryVersion version) {
+      return new OffHeapEntryIterator(values);
+   }
+
+   @Override
+   protected boolean hasRemoveListener() {
+      return true;
+   }
+
+   @Override
+   protected void onRemove(InternalCacheEntry value) {
+      storage.release(value);
+   }
+
+   private class OffHeapEntryIterator extends EntryIterator {
+
+      private final Iterator<InternalCacheEntry> iterator;
+      private InternalCacheEntry next;
+
+      private OffHeapEntryIterator(Iterator<InternalCacheEntry> iterator) {
+         this.iterator = iterator;
+         findNext();
+      }
+
+      @Override
+      public boolean hasNext() {
+         return next != null;
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (next == null) {
+            throw new NoSuchElementException();
+         }
+         InternalCacheEntry toReturn = next;
+         findNext();
+         return toReturn;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      private void findNext() {
+         next = null;
+         while (iterator.hasNext()) {
+            //null if the value was replaced or removed concurrently
+            next = storage.load(iterator.next());
+            if (next != null) {
+               return;
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,188 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.gmu.GMUDataContainer;
+import org.infinispan.container.gmu.VersionBody;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.marshall.StreamingMarshaller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link GMUDataContainer} that keeps the values of all the versions outside the Java heap.
+ * <p/>
+ * The version chains and the metadata of each version are kept on-heap, while the values are marshalled to an {@link
+ * OffHeapMemory}. The value of a version is released when the version is removed from its chain (expiration or
+ * garbage collection) or when the chain is removed from the container (eviction or clear). A read that races with the
+ * release of the version it is reading reads the chain again (see {@link #readEntry(InternalCacheEntry)}).
+ * <p/>
+ * The entries returned are on-heap copies, so the last access time is not updated in the stored entries and the
+ * max idle expiration is based on the creation (or last update) of each version.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class OffHeapGMUDataContainer extends GMUDataContainer {
+
+   private final OffHeapStorage storage;
+
+   protected OffHeapGMUDataContainer(int concurrencyLevel, int slabSize) {
+      super(concurrencyLevel);
+      storage = new OffHeapStorage(slabSize);
+   }
+
+   protected OffHeapGMUDataContainer(int concurrencyLevel, int slabSize, int maxEntries, EvictionStrategy strategy,
+                                     EvictionThreadPolicy policy) {
+      super(concurrencyLevel, maxEntries, strategy, policy);
+      storage = new OffHeapStorage(slabSize);
+   }
+
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int slabSize, int maxEntries,
+                                                    EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      return new OffHeapGMUDataContainer(concurrencyLevel, slabSize, maxEntries, strategy, policy);
+   }
+
+   public static DataContainer unBoundedDataContainer(int concurrencyLevel, int slabSize) {
+      return new OffHeapGMUDataContainer(concurrencyLevel, slabSize);
+   }
+
+   @Inject
+   public void injectOffHeapDependencies(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+                                         InternalEntryFactory entryFactory) {
+      storage.initialize(marshaller, entryFactory);
+   }
+
+   @Stop(priority = 999)
+   public void stop() {
+      //the container is not reused after stop, so all the memory is released
+      clear();
+      storage.destroy();
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
+      super.put(k, storage.store(v), version, lifespan, maxIdle);
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle, boolean donated) {
+      super.put(k, storage.store(v), version, lifespan, maxIdle, donated);
+   }
+
+   @Override
+   public void clear() {
+      for (Map.Entry<Object, DataContainerVersionChain> entry : entries.entrySet()) {
+         if (entries.remove(entry.getKey(), entry.getValue())) {
+            entry.getValue().removeAll();
+         }
+      }
+   }
+
+   /**
+    * @return the off-heap memory where the values are stored
+    */
+   public final OffHeapMemory getOffHeapMemory() {
+      return storage.getMemory();
+   }
+
+   @Override
+   protected Map<Object, InternalCacheEntry> getCacheEntries(Map<Object, DataContainerVersionChain> evicted) {
+      Map<Object, InternalCacheEntry> evictedMap = super.getCacheEntries(evicted);
+      for (DataContainerVersionChain chain : evicted.values()) {
+         chain.removeAll();
+      }
+      return evictedMap;
+   }
+
+   @Override
+   protected DataContainerVersionChain newVersionChain() {
+      return new OffHeapVersionChain();
+   }
+
+   /**
+    * @return the on-heap copy of the version, or {@code null} if the version was released concurrently. In the latter
+    *         case, the read is retried in the chain
+    */
+   @Override
+   protected InternalCacheEntry readEntry(InternalCacheEntry stored) {
+      return stored == null ? null : storage.load(stored);
+   }
+
+   @Override
+   protected boolean hasRemoveListener() {
+      return true;
+   }
+
+   @Override
+   protected void onRemove(DataContainerVersionChain value) {
+      value.removeAll();
+   }
+
+   private class OffHeapVersionChain extends DataContainerVersionChain {
+
+      @Override
+      protected VersionBody<InternalCacheEntry> newValue(InternalCacheEntry value) {
+         return new OffHeapVersionBody(value);
+      }
+
+      @Override
+      protected void writeValue(BufferedWriter writer, InternalCacheEntry value) throws IOException {
+         //the stored value is the off-heap handle. the loaded entry is null if the version was released concurrently
+         InternalCacheEntry loaded = storage.load(value);
+         writer.write(String.valueOf(loaded == null ? null : loaded.getValue()));
+         writer.write("=");
+         writer.write(String.valueOf(value.getVersion()));
+      }
+   }
+
+   private class OffHeapVersionBody extends DataContainerVersionBody {
+
+      private OffHeapVersionBody(InternalCacheEntry value) {
+         super(value);
+      }
+
+      @Override
+      public void reincarnate(VersionBody<InternalCacheEntry> other) {
+         //the same version was already committed. the other value is discarded
+         storage.release(other.getValue());
+      }
+
+      @Override
+      protected void onRemove() {
+         storage.release(getValue());
+      }
+   }
+}
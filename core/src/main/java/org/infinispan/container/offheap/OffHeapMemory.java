@@ -0,0 +1,256 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A slab allocator of memory outside the Java heap.
+ * <p/>
+ * The memory is allocated in direct {@link ByteBuffer} slabs of {@code slabSize} bytes and it is split in blocks with
+ * a power of two size (at least {@link #MIN_BLOCK_SIZE} bytes). The released blocks are kept in a free list by size
+ * and reused by the next allocations of the same size, so the slabs are never returned to the operating system until
+ * {@link #destroy()} is invoked. The blocks bigger than a slab are allocated in a dedicated buffer, which is dropped
+ * when the block is released.
+ * <p/>
+ * A block is identified by its address: the index of the slab in the upper 32 bits and the offset inside the slab in
+ * the lower 32 bits. The allocation and the release are synchronized. The reads and writes are not, and they must
+ * only be performed on blocks that are allocated.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public final class OffHeapMemory {
+
+   public static final int MIN_BLOCK_SIZE = 16;
+   private static final int MIN_BLOCK_SHIFT = 4;
+   private static final ByteBuffer[] EMPTY = new ByteBuffer[0];
+   private final int slabSize;
+   //free lists, one per block size. guarded by this
+   private final long[][] freeBlocks;
+   private final int[] freeBlocksSize;
+   //the slabs indexes released by the dedicated buffers. guarded by this
+   private int[] freeSlabs;
+   private int freeSlabsSize;
+   //guarded by this. the array is replaced when it grows so the readers can access it without synchronization
+   private volatile ByteBuffer[] slabs;
+   private int numberOfSlabs;
+   private int currentSlab;
+   private int currentOffset;
+   private volatile long usedMemory;
+   private volatile long allocatedMemory;
+
+   public OffHeapMemory(int slabSize) {
+      if (slabSize < MIN_BLOCK_SIZE || Integer.bitCount(slabSize) != 1) {
+         throw new IllegalArgumentException("The slab size must be a power of two and at least " + MIN_BLOCK_SIZE +
+                                                  " bytes");
+      }
+      this.slabSize = slabSize;
+      int sizes = Integer.numberOfTrailingZeros(slabSize) - MIN_BLOCK_SHIFT + 1;
+      this.freeBlocks = new long[sizes][];
+      this.freeBlocksSize = new int[sizes];
+      reset();
+   }
+
+   /**
+    * @param length the number of bytes
+    * @return the address of a block with at least {@code length} bytes
+    */
+   public synchronized long allocate(int length) {
+      if (length < 0) {
+         throw new IllegalArgumentException("Negative length " + length);
+      }
+      if (length > slabSize) {
+         int slab = newSlab(ByteBuffer.allocateDirect(length));
+         usedMemory += length;
+         allocatedMemory += length;
+         return address(slab, 0);
+      }
+      int sizeClass = sizeClass(length);
+      int blockSize = blockSize(sizeClass);
+      usedMemory += blockSize;
+      if (freeBlocksSize[sizeClass] > 0) {
+         return freeBlocks[sizeClass][--freeBlocksSize[sizeClass]];
+      }
+      if (currentSlab < 0 || currentOffset + blockSize > slabSize) {
+         if (currentSlab >= 0) {
+            //the remaining space of the slab is split in free blocks, so it is not lost
+            carve(currentSlab, currentOffset, slabSize - currentOffset);
+         }
+         currentSlab = newSlab(ByteBuffer.allocateDirect(slabSize));
+         currentOffset = 0;
+         allocatedMemory += slabSize;
+      }
+      long address = address(currentSlab, currentOffset);
+      currentOffset += blockSize;
+      return address;
+   }
+
+   /**
+    * releases the block. The {@code length} must be the same used to allocate it.
+    */
+   public synchronized void free(long address, int length) {
+      int slab = slab(address);
+      if (length > slabSize) {
+         slabs[slab] = null;
+         pushFreeSlab(slab);
+         usedMemory -= length;
+         allocatedMemory -= length;
+         return;
+      }
+      int sizeClass = sizeClass(length);
+      usedMemory -= blockSize(sizeClass);
+      pushFreeBlock(sizeClass, address);
+   }
+
+   public void write(long address, byte[] source, int offset, int length) {
+      ByteBuffer buffer = slabs[slab(address)].duplicate();
+      buffer.position(offset(address));
+      buffer.put(source, offset, length);
+   }
+
+   public void read(long address, byte[] destination, int offset, int length) {
+      ByteBuffer buffer = slabs[slab(address)].duplicate();
+      buffer.position(offset(address));
+      buffer.get(destination, offset, length);
+   }
+
+   /**
+    * @return the number of bytes in the allocated blocks
+    */
+   public long getUsedMemory() {
+      return usedMemory;
+   }
+
+   /**
+    * @return the number of bytes allocated outside the Java heap
+    */
+   public long getAllocatedMemory() {
+      return allocatedMemory;
+   }
+
+   public int getSlabSize() {
+      return slabSize;
+   }
+
+   /**
+    * drops all the slabs. All the addresses allocated before became invalid, but the memory can still be used to
+    * allocate new blocks.
+    */
+   public synchronized void destroy() {
+      reset();
+   }
+
+   @Override
+   public String toString() {
+      return "OffHeapMemory{" +
+            "slabSize=" + slabSize +
+            ", usedMemory=" + usedMemory +
+            ", allocatedMemory=" + allocatedMemory +
+            '}';
+   }
+
+   private void reset() {
+      Arrays.fill(freeBlocks, null);
+      Arrays.fill(freeBlocksSize, 0);
+      freeSlabs = null;
+      freeSlabsSize = 0;
+      slabs = EMPTY;
+      numberOfSlabs = 0;
+      currentSlab = -1;
+      currentOffset = 0;
+      usedMemory = 0;
+      allocatedMemory = 0;
+   }
+
+   private void carve(int slab, int offset, int remaining) {
+      while (remaining >= MIN_BLOCK_SIZE) {
+         int blockSize = Integer.highestOneBit(remaining);
+         pushFreeBlock(sizeClass(blockSize), address(slab, offset));
+         offset += blockSize;
+         remaining -= blockSize;
+      }
+   }
+
+   private int newSlab(ByteBuffer buffer) {
+      int slab;
+      if (freeSlabsSize > 0) {
+         slab = freeSlabs[--freeSlabsSize];
+      } else {
+         slab = numberOfSlabs++;
+         if (slab == slabs.length) {
+            slabs = Arrays.copyOf(slabs, Math.max(16, slab << 1));
+         }
+      }
+      ByteBuffer[] current = slabs;
+      current[slab] = buffer;
+      //volatile write to publish the new slab
+      slabs = current;
+      return slab;
+   }
+
+   private void pushFreeBlock(int sizeClass, long address) {
+      long[] blocks = freeBlocks[sizeClass];
+      int size = freeBlocksSize[sizeClass];
+      if (blocks == null) {
+         blocks = freeBlocks[sizeClass] = new long[16];
+      } else if (size == blocks.length) {
+         blocks = freeBlocks[sizeClass] = Arrays.copyOf(blocks, size << 1);
+      }
+      blocks[size] = address;
+      freeBlocksSize[sizeClass] = size + 1;
+   }
+
+   private void pushFreeSlab(int slab) {
+      if (freeSlabs == null) {
+         freeSlabs = new int[16];
+      } else if (freeSlabsSize == freeSlabs.length) {
+         freeSlabs = Arrays.copyOf(freeSlabs, freeSlabsSize << 1);
+      }
+      freeSlabs[freeSlabsSize++] = slab;
+   }
+
+   private static int sizeClass(int length) {
+      if (length <= MIN_BLOCK_SIZE) {
+         return 0;
+      }
+      return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_BLOCK_SHIFT;
+   }
+
+   private static int blockSize(int sizeClass) {
+      return 1 << (sizeClass + MIN_BLOCK_SHIFT);
+   }
+
+   private static long address(int slab, int offset) {
+      return ((long) slab << 32) | (offset & 0xFFFFFFFFL);
+   }
+
+   private static int slab(long address) {
+      return (int) (address >>> 32);
+   }
+
+   private static int offset(long address) {
+      return (int) address;
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.infinispan.CacheException;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.marshall.StreamingMarshaller;
+
+import java.io.IOException;
+
+/**
+ * Marshalls the values of the entries to the {@link OffHeapMemory} and creates the on-heap copies of the entries
+ * stored by the off-heap data containers.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+final class OffHeapStorage {
+
+   private final OffHeapMemory memory;
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+
+   OffHeapStorage(int slabSize) {
+      this.memory = new OffHeapMemory(slabSize);
+   }
+
+   void initialize(StreamingMarshaller marshaller, InternalEntryFactory entryFactory) {
+      this.marshaller = marshaller;
+      this.entryFactory = entryFactory;
+   }
+
+   /**
+    * @return the {@link OffHeapValue} with the marshalled {@code value}, or {@code null} if the value is null
+    */
+   Object store(Object value) {
+      if (value == null) {
+         return null;
+      }
+      try {
+         ByteBuffer buffer = marshaller.objectToBuffer(value);
+         return new OffHeapValue(memory, buffer.getBuf(), buffer.getOffset(), buffer.getLength());
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall value " + value, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while marshalling value " + value, e);
+      }
+   }
+
+   /**
+    * @return an on-heap copy of the stored entry, or {@code null} if its value was already released by a concurrent
+    *         update
+    */
+   InternalCacheEntry load(InternalCacheEntry stored) {
+      Object value = stored.getValue();
+      if (!(value instanceof OffHeapValue)) {
+         return stored;
+      }
+      byte[] bytes = ((OffHeapValue) value).read();
+      if (bytes == null) {
+         return null;
+      }
+      try {
+         return entryFactory.create(stored.getKey(), marshaller.objectFromByteBuffer(bytes), stored);
+      } catch (IOException e) {
+         throw new CacheException("Unable to unmarshall value of key " + stored.getKey(), e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException("Unable to unmarshall value of key " + stored.getKey(), e);
+      }
+   }
+
+   void release(InternalCacheEntry stored) {
+      Object value = stored == null ? null : stored.getValue();
+      if (value instanceof OffHeapValue) {
+         ((OffHeapValue) value).dispose();
+      }
+   }
+
+   OffHeapMemory getMemory() {
+      return memory;
+   }
+
+   void destroy() {
+      memory.destroy();
+   }
+}
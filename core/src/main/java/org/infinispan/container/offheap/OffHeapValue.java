@@ -0,0 +1,115 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A marshalled value stored in a block of {@link OffHeapMemory}. It is kept by the data container in place of the
+ * value of the entry.
+ * <p/>
+ * The block is reference counted: the owner (the data container) holds one reference, released by {@link #dispose()},
+ * and each reader holds one reference while copying the bytes. The block is freed when the last reference is
+ * released, so a reader never sees a block reused by another value.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public final class OffHeapValue {
+
+   private static final AtomicIntegerFieldUpdater<OffHeapValue> REFERENCES_UPDATER =
+         AtomicIntegerFieldUpdater.newUpdater(OffHeapValue.class, "references");
+   private static final AtomicIntegerFieldUpdater<OffHeapValue> OWNED_UPDATER =
+         AtomicIntegerFieldUpdater.newUpdater(OffHeapValue.class, "owned");
+   private final OffHeapMemory memory;
+   private final long address;
+   private final int length;
+   private volatile int references = 1;
+   private volatile int owned = 1;
+
+   public OffHeapValue(OffHeapMemory memory, byte[] bytes, int offset, int length) {
+      this.memory = memory;
+      this.length = length;
+      this.address = memory.allocate(length);
+      memory.write(address, bytes, offset, length);
+   }
+
+   /**
+    * @return a copy of the bytes or {@code null} if the value was already disposed.
+    */
+   public byte[] read() {
+      if (!acquire()) {
+         return null;
+      }
+      try {
+         byte[] bytes = new byte[length];
+         memory.read(address, bytes, 0, length);
+         return bytes;
+      } finally {
+         release();
+      }
+   }
+
+   /**
+    * releases the owner reference. It is idempotent and the block is freed after the concurrent reads finish.
+    */
+   public void dispose() {
+      if (OWNED_UPDATER.compareAndSet(this, 1, 0)) {
+         release();
+      }
+   }
+
+   public boolean isDisposed() {
+      return owned == 0;
+   }
+
+   public int getLength() {
+      return length;
+   }
+
+   @Override
+   public String toString() {
+      return "OffHeapValue{" +
+            "address=" + address +
+            ", length=" + length +
+            ", disposed=" + isDisposed() +
+            '}';
+   }
+
+   private boolean acquire() {
+      while (true) {
+         int current = references;
+         if (current <= 0) {
+            return false;
+         } else if (REFERENCES_UPDATER.compareAndSet(this, current, current + 1)) {
+            return true;
+         }
+      }
+   }
+
+   private void release() {
+      if (REFERENCES_UPDATER.decrementAndGet(this) == 0) {
+         memory.free(address, length);
+      }
+   }
+}
@@ -36,11 +36,9 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -107,15 +105,30 @@ public final GMUVersion mergeAndMax(EntryVersion... entryVersions) {
       if (entryVersions == null || entryVersions.length == 0) {
          throw new IllegalStateException("Cannot merge an empy list");
       }
+      GMUVersionAccumulator accumulator = GMUVersionAccumulator.acquire();
+      try {
+         for (EntryVersion entryVersion : entryVersions) {
+            accumulator.add(entryVersion);
+         }
+         return mergeAndMax(accumulator);
+      } finally {
+         accumulator.release();
+      }
+   }
+
+   @Override
+   public final GMUVersion mergeAndMax(GMUVersionAccumulator accumulator) {
+      if (accumulator.isEmpty()) {
+         throw new IllegalStateException("Cannot merge an empy list");
+      }
       int maxViewId = -1;
-      List<GMUVersion> gmuVersions = new ArrayList<GMUVersion>(entryVersions.length);
       //validate the entry versions
-      for (EntryVersion entryVersion : entryVersions) {
+      for (int i = 0; i < accumulator.size(); ++i) {
+         EntryVersion entryVersion = accumulator.get(i);
          if (entryVersion == null) {
-            log.errorf("Null version in list %s. It will be ignored", entryVersion);
+            log.errorf("Null version in list %s. It will be ignored", accumulator);
          } else if (entryVersion instanceof GMUVersion) {
             final GMUVersion currentVersion = (GMUVersion) entryVersion;
-            gmuVersions.add(currentVersion);
             if (currentVersion.getViewId() > maxViewId) {
                maxViewId = currentVersion.getViewId();
             }
@@ -129,10 +142,21 @@ public final GMUVersion mergeAndMax(EntryVersion... entryVersions) {
       if (maxViewId > -1) {
          viewId = maxViewId;
       }
-      GMUDistributedVersion mergedVersion = new GMUDistributedVersion(cacheName, viewId, this,
-                                                                      mergeClustered(viewId, gmuVersions));
+      ClusterSnapshot clusterSnapshot = getClusterSnapshot(viewId);
+      //the buffer is reused. the GMUDistributedVersion makes its own copy
+      long[] versions = accumulator.values(clusterSnapshot.size());
+      for (int i = 0; i < accumulator.size(); ++i) {
+         GMUVersion entryVersion = (GMUVersion) accumulator.get(i);
+         if (entryVersion == null) {
+            continue;
+         }
+         for (int index = 0; index < versions.length; ++index) {
+            versions[index] = Math.max(versions[index], entryVersion.getVersionValue(clusterSnapshot, index));
+         }
+      }
+      GMUDistributedVersion mergedVersion = new GMUDistributedVersion(cacheName, viewId, this, versions);
       if (log.isTraceEnabled()) {
-         log.tracef("mergeAndMax(%s) ==> %s", Arrays.toString(entryVersions), mergedVersion);
+         log.tracef("mergeAndMax(%s) ==> %s", accumulator, mergedVersion);
       }
       return mergedVersion;
    }
@@ -148,7 +172,7 @@ public GMUVersion mergeAndMin(EntryVersion... entryVersions) {
 
       for (EntryVersion entryVersion : entryVersions) {
          for (int i = 0; i < clusterSnapshot.size(); ++i) {
-            long value = ((GMUVersion) entryVersion).getVersionValue(clusterSnapshot.get(i));
+            long value = ((GMUVersion) entryVersion).getVersionValue(clusterSnapshot, i);
             if (versions[i] == NON_EXISTING) {
                versions[i] = value;
             } else if (value != NON_EXISTING) {
@@ -263,8 +287,7 @@ public GMUVersion setNodeVersion(EntryVersion version, long value) {
       long[] versionValues = create(true, clusterSnapshot.size());
 
       for (int i = 0; i < clusterSnapshot.size(); ++i) {
-         Address address = clusterSnapshot.get(i);
-         versionValues[i] = ((GMUVersion) version).getVersionValue(address);
+         versionValues[i] = ((GMUVersion) version).getVersionValue(clusterSnapshot, i);
       }
 
       versionValues[clusterSnapshot.indexOf(getAddress())] = value;
@@ -278,15 +301,24 @@ public GMUVersion setNodeVersion(EntryVersion version, long value) {
 
    @Override
    public GMUVersion updatedVersion(EntryVersion entryVersion) {
+      int viewId = currentViewId;
       if (entryVersion instanceof GMUReplicatedVersion) {
-         return new GMUReplicatedVersion(cacheName, currentViewId, this,
+         if (((GMUReplicatedVersion) entryVersion).getViewId() == viewId) {
+            //versions are immutable and it is already in the current view
+            return (GMUReplicatedVersion) entryVersion;
+         }
+         return new GMUReplicatedVersion(cacheName, viewId, this,
                                          ((GMUReplicatedVersion) entryVersion).getThisNodeVersionValue());
       } else if (entryVersion instanceof GMUDistributedVersion) {
-         int viewId = currentViewId;
          ClusterSnapshot clusterSnapshot = getClusterSnapshot(viewId);
+         GMUDistributedVersion distributedVersion = (GMUDistributedVersion) entryVersion;
+         if (distributedVersion.getViewId() == viewId && distributedVersion.getClusterSnapshot() == clusterSnapshot) {
+            //versions are immutable and it is already in the current view
+            return distributedVersion;
+         }
          long[] newVersions = new long[clusterSnapshot.size()];
          for (int i = 0; i < clusterSnapshot.size(); ++i) {
-            newVersions[i] = ((GMUDistributedVersion) entryVersion).getVersionValue(clusterSnapshot.get(i));
+            newVersions[i] = distributedVersion.getVersionValue(clusterSnapshot, i);
          }
          return new GMUDistributedVersion(cacheName, viewId, this, newVersions);
       }
@@ -366,7 +398,7 @@ private long[] increment(GMUVersion initialVersion, int viewId) {
       long[] versions = create(false, clusterSnapshot.size());
 
       for (int index = 0; index < clusterSnapshot.size(); ++index) {
-         versions[index] = initialVersion.getVersionValue(clusterSnapshot.get(index));
+         versions[index] = initialVersion.getVersionValue(clusterSnapshot, index);
       }
 
       int myIndex = clusterSnapshot.indexOf(getAddress());
@@ -374,18 +406,6 @@ private long[] increment(GMUVersion initialVersion, int viewId) {
       return versions;
    }
 
-   private long[] mergeClustered(int viewId, Collection<GMUVersion> entryVersions) {
-      ClusterSnapshot clusterSnapshot = getClusterSnapshot(viewId);
-      long[] versions = create(true, clusterSnapshot.size());
-
-      for (GMUVersion entryVersion : entryVersions) {
-         for (int index = 0; index < clusterSnapshot.size(); ++index) {
-            versions[index] = Math.max(versions[index], entryVersion.getVersionValue(clusterSnapshot.get(index)));
-         }
-      }
-      return versions;
-   }
-
    private long[] calculateVersionToCommit(int newViewId, EntryVersion version, Collection<Address> addresses) {
       final GMUVersion gmuVersion = (GMUVersion) version;
 
@@ -407,7 +427,7 @@ private long[] calculateVersionToCommit(int newViewId, EntryVersion version, Col
 
       ClusterSnapshot clusterSnapshot = getClusterSnapshot(newViewId);
       long[] versions = create(true, clusterSnapshot.size());
-      List<Integer> ownersIndex = new LinkedList<Integer>();
+      boolean[] ownersIndex = new boolean[clusterSnapshot.size()];
       long commitValue = 0;
 
       for (Address owner : addresses) {
@@ -416,14 +436,14 @@ private long[] calculateVersionToCommit(int newViewId, EntryVersion version, Col
             continue;
          }
          commitValue = Math.max(commitValue, gmuVersion.getVersionValue(owner));
-         ownersIndex.add(index);
+         ownersIndex[index] = true;
       }
 
       for (int index = 0; index < clusterSnapshot.size(); ++index) {
-         if (ownersIndex.contains(index)) {
+         if (ownersIndex[index]) {
             versions[index] = commitValue;
          } else {
-            versions[index] = gmuVersion.getVersionValue(clusterSnapshot.get(index));
+            versions[index] = gmuVersion.getVersionValue(clusterSnapshot, index);
          }
       }
       return versions;
@@ -75,6 +75,15 @@ public long getVersionValue(int addressIndex) {
       return validIndex(addressIndex) ? versions[addressIndex] : NON_EXISTING;
    }
 
+   @Override
+   public long getVersionValue(ClusterSnapshot clusterSnapshot, int index) {
+      if (clusterSnapshot == this.clusterSnapshot) {
+         //same view, same indexes
+         return getVersionValue(index);
+      }
+      return getVersionValue(clusterSnapshot.get(index));
+   }
+
    @Override
    public long getThisNodeVersionValue() {
       return getVersionValue(nodeIndex);
@@ -101,7 +110,7 @@ public InequalVersionComparisonResult compareTo(EntryVersion other) {
 
          for (int index = 0; index < clusterSnapshot.size(); ++index) {
             long myVersion = getVersionValue(index);
-            long otherVersion = clusterEntryVersion.getVersionValue(clusterSnapshot.get(index));
+            long otherVersion = clusterEntryVersion.getVersionValue(clusterSnapshot, index);
 
             if (myVersion == NON_EXISTING || otherVersion == NON_EXISTING) {
                continue;
@@ -160,7 +169,7 @@ public InequalVersionComparisonResult compareToWithCheckUnsafeBeforeOrEqual(Entr
          boolean before = false, equal = false, after = false;
 
          for (int index = 0; index < otherClusterSnapshot.size(); ++index) {
-            long myVersion = getVersionValue(otherClusterSnapshot.get(index));
+            long myVersion = getVersionValue(otherClusterSnapshot, index);
             long otherVersion = clusterEntryVersion.getVersionValue(index);
 
             if (myVersion == NON_EXISTING && otherVersion != NON_EXISTING) {
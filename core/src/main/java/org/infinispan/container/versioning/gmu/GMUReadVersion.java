@@ -26,26 +26,40 @@
 import org.infinispan.container.versioning.InequalVersionComparisonResult;
 import org.infinispan.remoting.transport.Address;
 
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 import static org.infinispan.container.versioning.InequalVersionComparisonResult.BEFORE;
 
 /**
- * // TODO: Document this
+ * The version used by a transaction to read from the multiversion data container. It contains the highest version
+ * value visible in this node and the set of (version, sub-version) pairs below it that are not visible.
+ * <p/>
+ * The not visible set is kept in two primitive arrays sorted by version and sub-version, so the {@link
+ * #contains(long, int)} invoked for each version inspected during a read is a binary search without boxing. The set
+ * is built by the {@link org.infinispan.transaction.gmu.CommitLog} and sorted once, before the first query.
  *
  * @author Pedro Ruivo
  * @since 5.2
  */
 public class GMUReadVersion extends GMUVersion {
 
+   private static final int INITIAL_CAPACITY = 8;
+   private static final long[] EMPTY_VERSIONS = new long[0];
+   private static final int[] EMPTY_SUB_VERSIONS = new int[0];
+
    private final long version;
-   private final Set<Pair> notVisibleSubVersions;
+   private long[] notVisibleVersions;
+   private int[] notVisibleSubVersions;
+   private int notVisibleSize;
+   private boolean sorted;
 
    public GMUReadVersion(String cacheName, int viewId, GMUVersionGenerator versionGenerator, long version) {
       super(cacheName, viewId, versionGenerator);
       this.version = version;
-      this.notVisibleSubVersions = new TreeSet<Pair>();
+      this.notVisibleVersions = EMPTY_VERSIONS;
+      this.notVisibleSubVersions = EMPTY_SUB_VERSIONS;
+      this.notVisibleSize = 0;
+      this.sorted = true;
    }
 
    @Override
@@ -64,11 +78,57 @@ public long getThisNodeVersionValue() {
    }
 
    public final void addNotVisibleSubversion(long version, int subVersion) {
-      notVisibleSubVersions.add(new Pair(version, subVersion));
+      if (notVisibleSize == notVisibleVersions.length) {
+         int newCapacity = Math.max(INITIAL_CAPACITY, notVisibleSize << 1);
+         notVisibleVersions = Arrays.copyOf(notVisibleVersions, newCapacity);
+         notVisibleSubVersions = Arrays.copyOf(notVisibleSubVersions, newCapacity);
+      }
+      notVisibleVersions[notVisibleSize] = version;
+      notVisibleSubVersions[notVisibleSize] = subVersion;
+      notVisibleSize++;
+      sorted = false;
+   }
+
+   /**
+    * sorts the not visible set. it must be invoked after the last {@link #addNotVisibleSubversion(long, int)} and
+    * before the version is shared with other threads. the first {@link #contains(long, int)} invokes it if needed.
+    */
+   public final void sortNotVisibleSubVersions() {
+      if (sorted) {
+         return;
+      }
+      //the commit log is iterated from the most recent entry, so the pairs are added in descending order
+      if (isDescending()) {
+         reverse();
+      } else {
+         insertionSort();
+      }
+      sorted = true;
    }
 
    public final boolean contains(long version, int subVersion) {
-      return notVisibleSubVersions.contains(new Pair(version, subVersion));
+      if (notVisibleSize == 0) {
+         return false;
+      }
+      sortNotVisibleSubVersions();
+      int low = 0;
+      int high = notVisibleSize - 1;
+      while (low <= high) {
+         int middle = (low + high) >>> 1;
+         int result = compare(notVisibleVersions[middle], notVisibleSubVersions[middle], version, subVersion);
+         if (result < 0) {
+            low = middle + 1;
+         } else if (result > 0) {
+            high = middle - 1;
+         } else {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   public final int notVisibleSize() {
+      return notVisibleSize;
    }
 
    @Override
@@ -94,50 +154,56 @@ public InequalVersionComparisonResult compareToWithCheckUnsafeBeforeOrEqual(Entr
 
    @Override
    public String toString() {
-      return "GMUReadVersion{" +
-            "version=" + version +
-            ", notVisibleSubVersions=" + notVisibleSubVersions +
-            ", " + super.toString();
-   }
-
-   private class Pair implements Comparable<Pair> {
-      private final long version;
-      private final int subVersion;
-
-      private Pair(long version, int subVersion) {
-         this.version = version;
-         this.subVersion = subVersion;
+      StringBuilder builder = new StringBuilder("GMUReadVersion{");
+      builder.append("version=").append(version);
+      builder.append(", notVisibleSubVersions=[");
+      for (int i = 0; i < notVisibleSize; ++i) {
+         if (i != 0) {
+            builder.append(", ");
+         }
+         builder.append("(").append(notVisibleVersions[i]).append(",").append(notVisibleSubVersions[i]).append(")");
       }
+      return builder.append("], ").append(super.toString()).toString();
+   }
 
-      @Override
-      public int compareTo(Pair pair) {
-         int result = Long.valueOf(version).compareTo(pair.version);
-         if (result == 0) {
-            return Integer.valueOf(subVersion).compareTo(pair.subVersion);
+   private boolean isDescending() {
+      for (int i = 1; i < notVisibleSize; ++i) {
+         if (compare(notVisibleVersions[i - 1], notVisibleSubVersions[i - 1],
+                     notVisibleVersions[i], notVisibleSubVersions[i]) < 0) {
+            return false;
          }
-         return result;
       }
+      return true;
+   }
 
-      @Override
-      public boolean equals(Object o) {
-         if (this == o) return true;
-         if (o == null || getClass() != o.getClass()) return false;
-
-         Pair pair = (Pair) o;
-         return subVersion == pair.subVersion && version == pair.version;
-
+   private void reverse() {
+      for (int i = 0, j = notVisibleSize - 1; i < j; ++i, --j) {
+         swap(i, j);
       }
+   }
 
-      @Override
-      public int hashCode() {
-         int result = (int) (version ^ (version >>> 32));
-         result = 31 * result + subVersion;
-         return result;
+   private void insertionSort() {
+      for (int i = 1; i < notVisibleSize; ++i) {
+         for (int j = i; j > 0 && compare(notVisibleVersions[j - 1], notVisibleSubVersions[j - 1],
+                                          notVisibleVersions[j], notVisibleSubVersions[j]) > 0; --j) {
+            swap(j, j - 1);
+         }
       }
+   }
+
+   private void swap(int i, int j) {
+      long version = notVisibleVersions[i];
+      notVisibleVersions[i] = notVisibleVersions[j];
+      notVisibleVersions[j] = version;
+      int subVersion = notVisibleSubVersions[i];
+      notVisibleSubVersions[i] = notVisibleSubVersions[j];
+      notVisibleSubVersions[j] = subVersion;
+   }
 
-      @Override
-      public String toString() {
-         return "(" + version + "," + subVersion + ")";
+   private static int compare(long version1, int subVersion1, long version2, int subVersion2) {
+      if (version1 != version2) {
+         return version1 < version2 ? -1 : 1;
       }
+      return subVersion1 < subVersion2 ? -1 : (subVersion1 == subVersion2 ? 0 : 1);
    }
 }
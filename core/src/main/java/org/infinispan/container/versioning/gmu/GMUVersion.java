@@ -75,6 +75,19 @@ public ClusterSnapshot getClusterSnapshot() {
 
    public abstract long getThisNodeVersionValue();
 
+   /**
+    * returns the version value of the address in the position {@code index} of the {@code clusterSnapshot}. It is the
+    * same as {@code getVersionValue(clusterSnapshot.get(index))} but the implementations can avoid the address lookup
+    * when the cluster snapshot is the same.
+    *
+    * @param clusterSnapshot the cluster snapshot
+    * @param index           the address index in the cluster snapshot
+    * @return the version value
+    */
+   public long getVersionValue(ClusterSnapshot clusterSnapshot, int index) {
+      return getVersionValue(clusterSnapshot.get(index));
+   }
+
    public static String versionsToString(long[] versions, ClusterSnapshot clusterSnapshot) {
       if (versions == null || versions.length == 0) {
          return "[]";
@@ -127,10 +140,9 @@ protected final InequalVersionComparisonResult compare(long value1, long value2)
          return InequalVersionComparisonResult.AFTER;
       }
 
-      int compare = Long.valueOf(value1).compareTo(value2);
-      if (compare < 0) {
+      if (value1 < value2) {
          return InequalVersionComparisonResult.BEFORE;
-      } else if (compare == 0) {
+      } else if (value1 == value2) {
          return InequalVersionComparisonResult.EQUAL;
       }
       return InequalVersionComparisonResult.AFTER;
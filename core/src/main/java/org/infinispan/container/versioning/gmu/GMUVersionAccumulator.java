@@ -0,0 +1,121 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.versioning.gmu;
+
+import org.infinispan.container.versioning.EntryVersion;
+
+import java.util.Arrays;
+
+import static org.infinispan.container.versioning.gmu.GMUVersion.NON_EXISTING;
+
+/**
+ * A mutable and thread-confined accumulator of GMU versions to be merged with
+ * {@link GMUVersionGenerator#mergeAndMax(GMUVersionAccumulator)}.
+ * <p/>
+ * It avoids the intermediate collections and arrays when the versions are collected one by one (for example, from the
+ * commit log or from the prepare responses): the internal buffers are reused by the same thread and only the merged
+ * (immutable) {@link GMUVersion} is created.
+ * <p/>
+ * Usage: {@link #acquire()}, {@link #add(EntryVersion)} and always {@link #release()} in a finally block.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public final class GMUVersionAccumulator {
+
+   private static final int INITIAL_CAPACITY = 16;
+   private static final ThreadLocal<GMUVersionAccumulator> THREAD_ACCUMULATOR = new ThreadLocal<GMUVersionAccumulator>() {
+      @Override
+      protected GMUVersionAccumulator initialValue() {
+         return new GMUVersionAccumulator();
+      }
+   };
+   private EntryVersion[] versions;
+   private long[] values;
+   private int size;
+   private boolean inUse;
+
+   private GMUVersionAccumulator() {
+      versions = new EntryVersion[INITIAL_CAPACITY];
+   }
+
+   /**
+    * @return the accumulator of the current thread. If it is already in use (nested usage), a new accumulator is
+    *         returned.
+    */
+   public static GMUVersionAccumulator acquire() {
+      GMUVersionAccumulator accumulator = THREAD_ACCUMULATOR.get();
+      if (accumulator.inUse) {
+         accumulator = new GMUVersionAccumulator();
+      }
+      accumulator.inUse = true;
+      return accumulator;
+   }
+
+   /**
+    * clears the accumulated versions (so they can be garbage collected) and makes this accumulator available again.
+    */
+   public final void release() {
+      Arrays.fill(versions, 0, size, null);
+      size = 0;
+      inUse = false;
+   }
+
+   public final void add(EntryVersion version) {
+      if (size == versions.length) {
+         versions = Arrays.copyOf(versions, size << 1);
+      }
+      versions[size++] = version;
+   }
+
+   public final int size() {
+      return size;
+   }
+
+   public final boolean isEmpty() {
+      return size == 0;
+   }
+
+   public final EntryVersion get(int index) {
+      return versions[index];
+   }
+
+   /**
+    * @return a reusable array with {@code length} positions, all of them set to {@link GMUVersion#NON_EXISTING}. The
+    *         array content is only valid until the next invocation.
+    */
+   final long[] values(int length) {
+      if (values == null || values.length != length) {
+         values = new long[length];
+      }
+      Arrays.fill(values, NON_EXISTING);
+      return values;
+   }
+
+   @Override
+   public String toString() {
+      return "GMUVersionAccumulator{" +
+            "versions=" + Arrays.asList(versions).subList(0, size) +
+            '}';
+   }
+}
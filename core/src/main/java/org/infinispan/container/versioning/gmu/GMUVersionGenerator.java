@@ -38,6 +38,15 @@
 public interface GMUVersionGenerator extends VersionGenerator {
    GMUVersion mergeAndMax(EntryVersion... entryVersions);
 
+   /**
+    * same as {@link #mergeAndMax(EntryVersion...)} but the versions are collected in the {@code accumulator}. It avoids
+    * the allocation of intermediate collections.
+    *
+    * @param accumulator the versions to merge
+    * @return the merged version
+    */
+   GMUVersion mergeAndMax(GMUVersionAccumulator accumulator);
+
    GMUVersion mergeAndMin(EntryVersion... entryVersions);
 
    GMUVersion calculateCommitVersion(EntryVersion prepareVersion, Collection<Address> affectedOwners);
@@ -94,6 +94,22 @@ public final GMUVersion mergeAndMax(EntryVersion... entryVersions) {
       return new GMUReplicatedVersion(cacheName, cacheTopologyId, this, merge(entryVersions));
    }
 
+   @Override
+   public final GMUVersion mergeAndMax(GMUVersionAccumulator accumulator) {
+      long max = NON_EXISTING;
+      for (int i = 0; i < accumulator.size(); ++i) {
+         EntryVersion entryVersion = accumulator.get(i);
+         if (entryVersion == null) {
+            continue;
+         } else if (!(entryVersion instanceof GMUReplicatedVersion)) {
+            throw new IllegalArgumentException("Expected an array of GMU entry version but it has " +
+                                                     entryVersion.getClass().getSimpleName());
+         }
+         max = Math.max(max, ((GMUVersion) entryVersion).getThisNodeVersionValue());
+      }
+      return new GMUReplicatedVersion(cacheName, cacheTopologyId, this, max);
+   }
+
    @Override
    public final GMUVersion mergeAndMin(EntryVersion... entryVersions) {
       if (entryVersions.length == 0) {
@@ -156,6 +172,10 @@ public GMUVersion setNodeVersion(EntryVersion version, long value) {
    @Override
    public GMUVersion updatedVersion(EntryVersion entryVersion) {
       if (entryVersion instanceof GMUReplicatedVersion) {
+         if (((GMUReplicatedVersion) entryVersion).getViewId() == cacheTopologyId) {
+            //versions are immutable and it is already in the current view
+            return (GMUReplicatedVersion) entryVersion;
+         }
          return new GMUReplicatedVersion(cacheName, cacheTopologyId, this,
                                          ((GMUReplicatedVersion) entryVersion).getThisNodeVersionValue());
       } else if (entryVersion instanceof GMUDistributedVersion) {
@@ -234,6 +234,19 @@ public enum Flag {
     */
    GUARANTEED_DELIVERY,
 
+   /**
+    * Declares that the ongoing transaction will only read. With GMU (serializable isolation level), a read-only
+    * transaction never aborts: its reads are not registered for validation and, when it completes, the prepare and
+    * commit phases are skipped. Any write performed in a transaction declared as read-only fails.
+    * <p/>
+    * The transaction still goes through the transaction interceptors: it is registered in the transaction table until
+    * it completes, so the garbage collector keeps the versions of its snapshot, and the entries read are still wrapped
+    * in its context, so the repeated reads return the same value.
+    * <p/>
+    * It is enough to set this flag in one of the transaction's reads. It has no effect outside a transaction.
+    */
+   READ_ONLY_TRANSACTION,
+
    ;
 
    /**
@@ -32,8 +32,8 @@
 import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Pedro Ruivo
@@ -82,18 +82,55 @@ public static ClusterObjectLookup read(ObjectInput input, Hash hash) throws IOEx
       return new ClusterObjectLookup(objectLookups, new ClusterSnapshot(members, hash));
    }
 
+   /**
+    * merges the object lookups of some segments in the {@code base} cluster object lookup. The segments not present in
+    * {@code segmentObjectLookups} keep the object lookup of the {@code base}. A {@code null} object lookup removes the
+    * mapping of the segment.
+    * <p/>
+    * Note: the owners indexes in the object lookups are relative to the cluster snapshot. If the {@code base} was
+    * created with a different cluster snapshot, its object lookups are discarded
+    *
+    * @param base                 the current cluster object lookup (can be null)
+    * @param segmentObjectLookups the new object lookups for each segment
+    * @param clusterSnapshot      the cluster snapshot used to create the new object lookups
+    * @param numberOfSegments     the number of segments
+    * @return the merged cluster object lookup
+    */
+   public static ClusterObjectLookup merge(ClusterObjectLookup base, Map<Integer, ObjectLookup> segmentObjectLookups,
+                                           ClusterSnapshot clusterSnapshot, int numberOfSegments) {
+      ObjectLookup[] objectLookups;
+      if (base != null && base.objectLookups != null && base.objectLookups.length == numberOfSegments &&
+            clusterSnapshot.equals(base.clusterSnapshot)) {
+         objectLookups = Arrays.copyOf(base.objectLookups, numberOfSegments);
+      } else {
+         objectLookups = new ObjectLookup[numberOfSegments];
+      }
+      for (Map.Entry<Integer, ObjectLookup> entry : segmentObjectLookups.entrySet()) {
+         if (entry.getKey() < 0 || entry.getKey() >= numberOfSegments) {
+            throw new IllegalArgumentException("Segment " + entry.getKey() + " does not exist");
+         }
+         objectLookups[entry.getKey()] = entry.getValue();
+      }
+      return new ClusterObjectLookup(objectLookups, clusterSnapshot);
+   }
+
    public final List<Address> getNewOwnersForKey(Object key, ConsistentHash consistentHash, int numberOfOwners) {
-      if (objectLookups == null || objectLookups.length == 0 || objectLookups[consistentHash.getSegment(key)] == null) {
+      if (objectLookups == null || objectLookups.length == 0) {
+         return null;
+      }
+      ObjectLookup objectLookup = objectLookups[consistentHash.getSegment(key)];
+      if (objectLookup == null) {
          return null;
       }
-      List<Integer> newOwnersIndexes = objectLookups[consistentHash.getSegment(key)].query(key);
-      if (newOwnersIndexes == null || newOwnersIndexes.isEmpty()) {
+      int[] newOwnersIndexes = objectLookup.queryOwners(key);
+      if (newOwnersIndexes == null || newOwnersIndexes.length == 0) {
          return null;
       }
-      List<Address> newOwners = new ArrayList<Address>(Math.min(numberOfOwners, newOwnersIndexes.size()));
-      for (Iterator<Integer> iterator = newOwnersIndexes.iterator(); iterator.hasNext() && newOwners.size() < numberOfOwners; ) {
-         Address owner = clusterSnapshot.get(iterator.next());
-         if (owner != null && consistentHash.getMembers().contains(owner)) {
+      List<Address> members = consistentHash.getMembers();
+      List<Address> newOwners = new ArrayList<Address>(Math.min(numberOfOwners, newOwnersIndexes.length));
+      for (int i = 0; i < newOwnersIndexes.length && newOwners.size() < numberOfOwners; ++i) {
+         Address owner = clusterSnapshot.get(newOwnersIndexes[i]);
+         if (owner != null && members.contains(owner)) {
             newOwners.add(owner);
          }
       }
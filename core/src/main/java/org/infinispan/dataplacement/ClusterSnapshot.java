@@ -138,6 +138,33 @@ public String toString() {
             '}';
    }
 
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      ClusterSnapshot that = (ClusterSnapshot) o;
+
+      if (internalAddresses.length != that.internalAddresses.length) {
+         return false;
+      }
+      for (int i = 0; i < internalAddresses.length; ++i) {
+         if (!internalAddresses[i].address.equals(that.internalAddresses[i].address)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = 1;
+      for (InternalAddress internalAddress : internalAddresses) {
+         result = 31 * result + internalAddress.address.hashCode();
+      }
+      return result;
+   }
+
    private int checkIndex(int index, InternalAddress internalAddress) {
       //first check the index returned by the binarySearch
       if (internalAddresses[index].address.equals(internalAddress.address)) {
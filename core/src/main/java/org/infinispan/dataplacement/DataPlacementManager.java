@@ -27,6 +27,8 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.remote.DataPlacementCommand;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.dataplacement.ch.DataPlacementConsistentHash;
+import org.infinispan.dataplacement.ch.OwnersCache;
 import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.dataplacement.lookup.ObjectLookupFactory;
 import org.infinispan.dataplacement.stats.AccessesMessageSizeTask;
@@ -37,6 +39,7 @@
 import org.infinispan.distribution.group.GroupManager;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
@@ -61,6 +64,7 @@
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -82,6 +86,7 @@ public class DataPlacementManager {
    private final ObjectPlacementManager objectPlacementManager;
    private final ObjectLookupManager objectLookupManager;
    private final RoundManager roundManager;
+   private final PublishedSegmentMappings publishedSegmentMappings;
    private final ExecutorService statsAsync = Executors.newSingleThreadExecutor();
    private RpcManager rpcManager;
    private CommandsFactory commandsFactory;
@@ -91,12 +96,14 @@ public class DataPlacementManager {
    private Stats stats;
    private DistributionManager distributionManager;
    private DataPlacementRebalancePolicy rebalancePolicy;
+   private boolean decentralized;
 
    public DataPlacementManager() {
       roundManager = new RoundManager(INITIAL_COOL_DOWN_TIME);
       accessesManager = new AccessesManager();
       objectPlacementManager = new ObjectPlacementManager();
       objectLookupManager = new ObjectLookupManager();
+      publishedSegmentMappings = new PublishedSegmentMappings();
    }
 
    @Inject
@@ -127,6 +134,7 @@ public void inject(CommandsFactory commandsFactory, DistributionManager distribu
       }
 
       roundManager.init(configuration.dataPlacement().coolDownTime());
+      decentralized = configuration.dataPlacement().decentralized();
 
       //this is needed because the custom statistics invokes this method twice. the seconds time, it replaces
       //the original object placement and remote accesses manager (== problems!!)
@@ -150,6 +158,13 @@ public void start() {
       accessesManager.setStreamLibContainer(StreamLibContainer.getOrCreateStreamLibContainer(cache));
    }
 
+   @Stop
+   public void stop() {
+      if (objectLookupFactory != null) {
+         objectLookupFactory.stop();
+      }
+   }
+
    /**
     * starts a new round of data placement protocol
     *
@@ -211,6 +226,9 @@ public final void addRequest(Address sender, ObjectRequest objectRequest, long r
       if (objectPlacementManager.aggregateRequest(sender, objectRequest)) {
          stats.receivedAccesses();
          Collection<SegmentMapping> objectsToMove = objectPlacementManager.calculateObjectsToMove();
+         stats.setNewOwnersCalculationDuration(objectPlacementManager.getLastRoundDuration());
+         stats.newOwnersCalculationFootprint(objectPlacementManager.getLastRoundFootprint());
+         stats.agedKeys(objectPlacementManager.getLastRoundAgedKeys());
 
          if (log.isTraceEnabled()) {
             log.tracef("All keys request list received. Object to move are " + objectsToMove);
@@ -222,12 +240,21 @@ public final void addRequest(Address sender, ObjectRequest objectRequest, long r
 
          long start = System.nanoTime();
 
-         for (SegmentMapping segmentMapping : objectsToMove) {
-            ObjectLookup objectLookup = objectLookupFactory.createObjectLookup(segmentMapping, numberOfOwners);
-            if (objectLookup == null) {
-               log.errorf("Object lookup created is null for segment " + segmentMapping.getSegmentId());
+         if (decentralized) {
+            //only the segments that changed are published. null removes the mapping of the segment
+            Map<Integer, SegmentMapping> changed = publishedSegmentMappings.update(objectLookupManager.getClusterSnapshot(),
+                                                                                  objectsToMove);
+            for (Map.Entry<Integer, SegmentMapping> entry : changed.entrySet()) {
+               segmentObjectLookup.put(entry.getKey(), entry.getValue() == null ? null :
+                     createObjectLookup(entry.getValue(), numberOfOwners));
+            }
+            if (log.isDebugEnabled()) {
+               log.debugf("%s segments changed since the last round: %s", changed.size(), changed.keySet());
+            }
+         } else {
+            for (SegmentMapping segmentMapping : objectsToMove) {
+               segmentObjectLookup.put(segmentMapping.getSegmentId(), createObjectLookup(segmentMapping, numberOfOwners));
             }
-            segmentObjectLookup.put(segmentMapping.getSegmentId(), objectLookup);
          }
 
          stats.setObjectLookupCreationDuration(System.nanoTime() - start);
@@ -271,6 +298,12 @@ public final void addObjectLookup(Address sender, Map<Integer, ObjectLookup> obj
       }
 
       objectLookupFactory.init(objectLookups.values());
+
+      if (decentralized) {
+         addSegmentObjectLookups(sender, objectLookups);
+         return;
+      }
+
       if (objectLookupManager.addObjectLookup(sender, objectLookups)) {
          try {
             rebalancePolicy.setNewSegmentMappings(cache.getName(), objectLookupManager.getClusterObjectLookup());
@@ -429,6 +462,45 @@ public final void setMaxNumberOfKeysToRequest(@Parameter(name = "Keys to request
       }
    }
 
+   @ManagedAttribute(description = "The number of owners lookups served by the owners cache of the current " +
+         "consistent hash", writable = false, displayName = "Owners cache hits")
+   public final long getOwnersCacheHits() {
+      OwnersCache ownersCache = currentOwnersCache();
+      return ownersCache == null ? 0 : ownersCache.getHits();
+   }
+
+   @ManagedAttribute(description = "The number of owners lookups not found in the owners cache of the current " +
+         "consistent hash", writable = false, displayName = "Owners cache misses")
+   public final long getOwnersCacheMisses() {
+      OwnersCache ownersCache = currentOwnersCache();
+      return ownersCache == null ? 0 : ownersCache.getMisses();
+   }
+
+   @ManagedAttribute(description = "The hit ratio of the owners cache of the current consistent hash", writable = false,
+                     displayName = "Owners cache hit ratio")
+   public final double getOwnersCacheHitRatio() {
+      OwnersCache ownersCache = currentOwnersCache();
+      return ownersCache == null ? 0 : ownersCache.getHitRatio();
+   }
+
+   @ManagedAttribute(description = "The duration (in milliseconds) of the last new owners calculation", writable = false,
+                     displayName = "New owners calculation duration")
+   public final long getNewOwnersCalculationDuration() {
+      return TimeUnit.NANOSECONDS.toMillis(objectPlacementManager.getLastRoundDuration());
+   }
+
+   @ManagedAttribute(description = "The approximated memory (in bytes) used by the last new owners calculation",
+                     writable = false, displayName = "New owners calculation memory footprint")
+   public final long getNewOwnersCalculationFootprint() {
+      return objectPlacementManager.getLastRoundFootprint();
+   }
+
+   @ManagedAttribute(description = "The number of keys moved by the data placement so far", writable = false,
+                     displayName = "Number of keys moved")
+   public final int getNumberOfKeysMoved() {
+      return objectPlacementManager.getKeysToMove().size();
+   }
+
    @ManagedOperation(description = "Returns the coordinator IP address.",
                      displayName = "Coordinator Host Name")
    public final String getCoordinatorHostName() {
@@ -463,6 +535,42 @@ public final void setReplicationDegree(@Parameter(name = "Replication Degree") i
       handleNewReplicationDegree(replicationDegree);
    }
 
+   private ObjectLookup createObjectLookup(SegmentMapping segmentMapping, int numberOfOwners) {
+      ObjectLookup objectLookup = objectLookupFactory.createObjectLookup(segmentMapping, numberOfOwners);
+      if (objectLookup == null) {
+         log.errorf("Object lookup created is null for segment " + segmentMapping.getSegmentId());
+      }
+      return objectLookup;
+   }
+
+   /**
+    * merges the object lookups of the segments that changed in the sender as soon as they are received, without
+    * waiting for the other members
+    *
+    * @param sender        the sender
+    * @param objectLookups the object lookups of the segments that changed
+    */
+   private void addSegmentObjectLookups(Address sender, Map<Integer, ObjectLookup> objectLookups) {
+      boolean allReceived = objectLookupManager.addObjectLookup(sender, objectLookups);
+      if (!objectLookups.isEmpty()) {
+         try {
+            rebalancePolicy.mergeSegmentMappings(cache.getName(), objectLookups, objectLookupManager.getClusterSnapshot());
+         } catch (Exception e) {
+            log.error("Error triggering State Transfer with the new segment mappings", e);
+         }
+      } else if (allReceived && !objectLookupManager.hasSegmentsChanged()) {
+         //nothing changed in this round. no state transfer will finish the round
+         log.debugf("No segment mappings changed in round %s", roundManager.getCurrentRoundId());
+         roundManager.markRoundFinished();
+      }
+   }
+
+   private OwnersCache currentOwnersCache() {
+      ConsistentHash consistentHash = distributionManager.getConsistentHash();
+      return consistentHash instanceof DataPlacementConsistentHash ?
+            ((DataPlacementConsistentHash) consistentHash).getOwnersCache() : null;
+   }
+
    private Address getCoordinator() {
       return rpcManager.getTransport().getCoordinator();
    }
@@ -24,6 +24,7 @@
 
 import org.infinispan.dataplacement.ch.ConsistentHashChanges;
 import org.infinispan.dataplacement.ch.DataPlacementConsistentHash;
+import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.jmx.annotations.Parameter;
@@ -154,6 +155,26 @@ public final void setNewSegmentMappings(String cacheName, ClusterObjectLookup se
       clusterTopologyManager.updateCacheStatus(cacheName);
    }
 
+   /**
+    * merges the object lookups of some segments in the current mappings and triggers the rebalance
+    *
+    * @param cacheName            the cache name
+    * @param segmentObjectLookups the object lookups of the segments that changed
+    * @param clusterSnapshot      the cluster snapshot used to create the object lookups
+    */
+   public final void mergeSegmentMappings(String cacheName, Map<Integer, ObjectLookup> segmentObjectLookups,
+                                          ClusterSnapshot clusterSnapshot) throws Exception {
+      synchronized (consistentHashChangesMap) {
+         ConsistentHashChanges consistentHashChanges = consistentHashChangesMap.get(cacheName);
+         if (consistentHashChanges == null) {
+            consistentHashChanges = new ConsistentHashChanges();
+            consistentHashChangesMap.put(cacheName, consistentHashChanges);
+         }
+         consistentHashChanges.addSegmentMappings(segmentObjectLookups, clusterSnapshot);
+      }
+      clusterTopologyManager.updateCacheStatus(cacheName);
+   }
+
    public final void setNewReplicationDegree(String cacheName, int replicationDegree) throws Exception {
       synchronized (consistentHashChangesMap) {
          ConsistentHashChanges consistentHashChanges = consistentHashChangesMap.get(cacheName);
@@ -185,9 +206,23 @@ private ConsistentHashChanges getConsistentHashChanges(String cacheName, Consist
             if (consistentHashChanges == null) {
                return null;
             }
+            DataPlacementConsistentHash dataPlacementConsistentHash = (DataPlacementConsistentHash) consistentHash;
+            if (consistentHashChanges.getNewSegmentMappings() != null) {
+               //merge the segments that changed with the pending mappings or, if none, with the current mappings
+               ClusterObjectLookup pending = consistentHashChanges.getNewMappings();
+               consistentHashChanges.setNewMappings(pending == null ?
+                                                          dataPlacementConsistentHash.mergeSegmentMappings(
+                                                                consistentHashChanges.getNewSegmentMappings(),
+                                                                consistentHashChanges.getSegmentMappingsSnapshot()) :
+                                                          ClusterObjectLookup.merge(pending,
+                                                                                    consistentHashChanges.getNewSegmentMappings(),
+                                                                                    consistentHashChanges.getSegmentMappingsSnapshot(),
+                                                                                    consistentHash.getNumSegments()));
+               consistentHashChanges.clearSegmentMappings();
+            }
             ClusterObjectLookup clusterObjectLookup = consistentHashChanges.getNewMappings();
-            List<ClusterObjectLookup> list = ((DataPlacementConsistentHash) consistentHash).getClusterObjectLookupList();
-            if (clusterObjectLookup != null && list.size() == -1 && clusterObjectLookup.equals(list.get(0))) {
+            List<ClusterObjectLookup> list = dataPlacementConsistentHash.getClusterObjectLookupList();
+            if (clusterObjectLookup != null && list.size() == 1 && clusterObjectLookup.equals(list.get(0))) {
                //no changes in the mapping
                consistentHashChanges.setNewMappings(null);
             }
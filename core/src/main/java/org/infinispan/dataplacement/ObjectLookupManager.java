@@ -44,6 +44,7 @@ public class ObjectLookupManager {
    private final BitSet acksReceived;
    private ClusterSnapshot clusterSnapshot;
    private ObjectLookup[] receivedObjectLookup;
+   private boolean segmentsChanged;
 
    public ObjectLookupManager() {
       objectLookupReceived = new BitSet();
@@ -60,6 +61,7 @@ public final synchronized void resetState(ClusterSnapshot roundClusterSnapshot,
       objectLookupReceived.clear();
       acksReceived.clear();
       receivedObjectLookup = new ObjectLookup[numberOfSegments];
+      segmentsChanged = false;
    }
 
    /**
@@ -90,6 +92,7 @@ public final synchronized boolean addObjectLookup(Address from, Map<Integer, Obj
          }
          receivedObjectLookup[entry.getKey()] = entry.getValue();
       }
+      segmentsChanged |= !segmentObjectLookups.isEmpty();
       objectLookupReceived.set(senderId);
 
       logObjectLookupReceived(from);
@@ -124,6 +127,17 @@ public final synchronized boolean addAck(Address from) {
       return hasAllAcks();
    }
 
+   /**
+    * @return true if at least one member sent an object lookup for a segment in this round
+    */
+   public final synchronized boolean hasSegmentsChanged() {
+      return segmentsChanged;
+   }
+
+   public final synchronized ClusterSnapshot getClusterSnapshot() {
+      return clusterSnapshot;
+   }
+
    public final ClusterObjectLookup getClusterObjectLookup() {
       return new ClusterObjectLookup(receivedObjectLookup, clusterSnapshot);
    }
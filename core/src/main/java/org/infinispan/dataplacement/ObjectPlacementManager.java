@@ -25,19 +25,26 @@
 import org.infinispan.dataplacement.ch.DataPlacementConsistentHash;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinTask;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
- * Collects all the remote and local access for each member for the key in which this member is the primary owner
+ * Collects all the remote and local access for each member for the key in which this member is the primary owner.
+ * <p/>
+ * The new owners are calculated independently for each segment. The requests are first partitioned by segment (in
+ * primitive arrays) and then each segment is processed in a {@link ForkJoinPool}. The keys moved in previous rounds are
+ * kept while they are requested: a key that is not requested during {@link #MAX_MOVED_KEY_AGE} rounds is dropped and it
+ * returns to the owners defined by the default consistent hash.
  *
  * @author Zhongmiao Li
  * @author João Paiva
@@ -46,17 +53,46 @@
  */
 public class ObjectPlacementManager {
 
+   /**
+    * number of consecutive rounds in which a moved key can be not requested before it is dropped
+    */
+   public static final int MAX_MOVED_KEY_AGE = Integer.getInteger("infinispan.dataplacement.moved_keys_max_age", 10);
+   /**
+    * number of threads used to calculate the new owners. 1 or less disables the parallel calculation
+    */
+   public static final int THREADS = Integer.getInteger("infinispan.dataplacement.placement_threads",
+                                                        Runtime.getRuntime().availableProcessors());
+   //number of keys (requested and moved) below which the segments are processed by the invoking thread
+   private static final int PARALLEL_THRESHOLD = 4096;
+   //approximated sizes (in bytes) used to estimate the memory footprint of a round
+   private static final int REFERENCE_SIZE = 8;
+   private static final int OBJECT_OVERHEAD = 16;
+   private static final int MAP_ENTRY_OVERHEAD = 32;
    private static final Log log = LogFactory.getLog(ObjectPlacementManager.class);
    private final BitSet requestReceived;
+   private final ForkJoinPool pool;
+   private final int maxMovedKeyAge;
    private ClusterSnapshot clusterSnapshot;
    private ObjectRequest[] objectRequests;
    //this can be quite big. save it as an array to save some memory
    private Object[] allKeysMoved;
+   //number of consecutive rounds in which each key moved was not requested
+   private int[] allKeysMovedAge;
    private ConsistentHash consistentHash;
+   private volatile long lastRoundDuration;
+   private volatile long lastRoundFootprint;
+   private volatile int lastRoundAgedKeys;
 
    public ObjectPlacementManager() {
+      this(THREADS > 1 ? new ForkJoinPool(THREADS) : null, MAX_MOVED_KEY_AGE);
+   }
+
+   public ObjectPlacementManager(ForkJoinPool pool, int maxMovedKeyAge) {
+      this.pool = pool;
+      this.maxMovedKeyAge = maxMovedKeyAge;
       requestReceived = new BitSet();
       allKeysMoved = new Object[0];
+      allKeysMovedAge = new int[0];
    }
 
    /**
@@ -105,61 +141,68 @@ public final synchronized boolean aggregateRequest(Address member, ObjectRequest
     * @return a map with the keys to be moved and the new owners
     */
    public final synchronized Collection<SegmentMapping> calculateObjectsToMove() {
-      Map<Object, OwnersInfo> newOwnersMap = new HashMap<Object, OwnersInfo>();
-
-      for (int requesterIdx = 0; requesterIdx < clusterSnapshot.size(); ++requesterIdx) {
-         ObjectRequest objectRequest = objectRequests[requesterIdx];
-
-         if (objectRequest == null) {
-            continue;
-         }
-
-         Map<Object, Long> requestedObjects = objectRequest.getRemoteAccesses();
-
-         for (Map.Entry<Object, Long> entry : requestedObjects.entrySet()) {
-            calculateNewOwners(newOwnersMap, entry.getKey(), entry.getValue(), requesterIdx);
+      long start = System.nanoTime();
+      SegmentAccumulator[] accumulators = new SegmentAccumulator[consistentHash.getNumSegments()];
+
+      partitionRequests(accumulators);
+      partitionKeysMoved(accumulators);
+      partitionLocalAccesses(accumulators);
+
+      //only the segments with keys are processed
+      List<SegmentAccumulator> toProcess = new ArrayList<SegmentAccumulator>();
+      int totalKeys = 0;
+      for (SegmentAccumulator accumulator : accumulators) {
+         if (accumulator != null) {
+            toProcess.add(accumulator);
+            totalKeys += accumulator.workload();
          }
-         //release memory asap
-         requestedObjects.clear();
-      }
-
-      removeNotMovedObjects(newOwnersMap);
-
-      if (log.isDebugEnabled()) {
-         log.debugf("This round final Owners per key are %s", newOwnersMap);
       }
+      SegmentAccumulator[] segments = toProcess.toArray(new SegmentAccumulator[toProcess.size()]);
 
-      //process the old moved keys. this will set the new owners of the previous rounds
-      for (Object key : allKeysMoved) {
-         if (!newOwnersMap.containsKey(key)) {
-            newOwnersMap.put(key, createOwnersInfo(key));
+      if (pool != null && segments.length > 1 && totalKeys >= PARALLEL_THRESHOLD) {
+         pool.invoke(new SegmentTask(segments, 0, segments.length));
+      } else {
+         for (SegmentAccumulator accumulator : segments) {
+            accumulator.calculateNewOwners();
          }
       }
 
-      if (log.isDebugEnabled()) {
-         log.debugf("Final Owners per key are %s", newOwnersMap);
+      List<SegmentMapping> segmentMappings = new ArrayList<SegmentMapping>(segments.length);
+      int keysMoved = 0;
+      int agedKeys = 0;
+      long footprint = 0;
+      for (SegmentAccumulator accumulator : segments) {
+         if (accumulator.segmentMapping.size() > 0) {
+            segmentMappings.add(accumulator.segmentMapping);
+         }
+         keysMoved += accumulator.keptSize;
+         agedKeys += accumulator.agedKeys;
+         footprint += accumulator.footprint;
       }
 
       //update all the keys moved array
-      allKeysMoved = newOwnersMap.keySet().toArray(new Object[newOwnersMap.size()]);
-
-      Map<Integer, SegmentMapping> segmentMappingMap = new HashMap<Integer, SegmentMapping>(consistentHash.getNumSegments());
-
-      for (Map.Entry<Object, OwnersInfo> entry : newOwnersMap.entrySet()) {
-         int segmentId = consistentHash.getSegment(entry.getKey());
-         SegmentMapping segmentMapping = segmentMappingMap.get(segmentId);
-         if (segmentMapping == null) {
-            segmentMapping = new SegmentMapping(segmentId);
-            segmentMappingMap.put(segmentId, segmentMapping);
-         }
-         segmentMapping.add(entry.getKey(), entry.getValue());
+      Object[] newKeysMoved = new Object[keysMoved];
+      int[] newKeysMovedAge = new int[keysMoved];
+      int offset = 0;
+      for (SegmentAccumulator accumulator : segments) {
+         System.arraycopy(accumulator.keptKeys, 0, newKeysMoved, offset, accumulator.keptSize);
+         System.arraycopy(accumulator.keptAges, 0, newKeysMovedAge, offset, accumulator.keptSize);
+         offset += accumulator.keptSize;
       }
+      allKeysMoved = newKeysMoved;
+      allKeysMovedAge = newKeysMovedAge;
+
+      lastRoundAgedKeys = agedKeys;
+      lastRoundFootprint = footprint + (long) keysMoved * (REFERENCE_SIZE + 4);
+      lastRoundDuration = System.nanoTime() - start;
 
       if (log.isDebugEnabled()) {
-         log.debugf("Final Owners per segment are %s", segmentMappingMap);
+         log.debugf("Final Owners per segment are %s. %s keys moved, %s keys dropped by age. Took %s ns and " +
+                          "approximately %s bytes", segmentMappings, keysMoved, agedKeys, lastRoundDuration,
+                    lastRoundFootprint);
       }
 
-      return segmentMappingMap.values();
+      return segmentMappings;
    }
 
    /**
@@ -176,100 +219,136 @@ public final int getNumberOfOwners() {
    }
 
    /**
-    * for each object to move, it checks if the owners are different from the owners returned by the original
-    * Infinispan's consistent hash. If this is true, the object is removed from the map {@code newOwnersMap}
+    * @return the duration (in nanoseconds) of the last new owners calculation
+    */
+   public final long getLastRoundDuration() {
+      return lastRoundDuration;
+   }
+
+   /**
+    * @return the approximated memory footprint (in bytes) of the last new owners calculation
+    */
+   public final long getLastRoundFootprint() {
+      return lastRoundFootprint;
+   }
+
+   /**
+    * @return the number of moved keys dropped in the last round because they were not requested
+    */
+   public final int getLastRoundAgedKeys() {
+      return lastRoundAgedKeys;
+   }
+
+   /**
+    * moves the remote accesses from the object requests to the segment accumulators, keeping the order of the
+    * requesters
     *
-    * @param newOwnersMap the map with the key to be moved and the new owners
+    * @param accumulators the segment accumulators
     */
-   private void removeNotMovedObjects(Map<Object, OwnersInfo> newOwnersMap) {
-      ConsistentHash defaultConsistentHash = getDefaultConsistentHash();
-      Iterator<Map.Entry<Object, OwnersInfo>> iterator = newOwnersMap.entrySet().iterator();
+   private void partitionRequests(SegmentAccumulator[] accumulators) {
+      int numberOfMembers = clusterSnapshot.size();
+      for (int requesterIdx = 0; requesterIdx < objectRequests.length; ++requesterIdx) {
+         ObjectRequest objectRequest = objectRequests[requesterIdx];
 
-      //if the owners info corresponds to the default consistent hash owners, remove the key from the map 
-      mainLoop:
-      while (iterator.hasNext()) {
-         Map.Entry<Object, OwnersInfo> entry = iterator.next();
-         Object key = entry.getKey();
-         OwnersInfo ownersInfo = entry.getValue();
-         Collection<Integer> ownerInfoIndexes = ownersInfo.getNewOwnersIndexes();
-         Collection<Address> defaultOwners = defaultConsistentHash.locateOwners(key);
-
-         if (ownerInfoIndexes.size() != defaultOwners.size()) {
+         if (objectRequest == null) {
             continue;
          }
 
-         for (Address address : defaultOwners) {
-            if (!ownerInfoIndexes.contains(clusterSnapshot.indexOf(address))) {
-               continue mainLoop;
-            }
+         Map<Object, Long> requestedObjects = objectRequest.getRemoteAccesses();
+         for (Map.Entry<Object, Long> entry : requestedObjects.entrySet()) {
+            accumulator(accumulators, entry.getKey(), numberOfMembers).addRemoteAccess(entry.getKey(), requesterIdx,
+                                                                                         entry.getValue());
          }
-         iterator.remove();
+         //release memory asap
+         requestedObjects.clear();
       }
    }
 
    /**
-    * updates the owner information for the {@code key} based in the {@code numberOfRequests} made by the member who
-    * requested this {@code key} (identified by {@code requesterId})
+    * adds the keys moved in previous rounds to the segment accumulators
     *
-    * @param newOwnersMap     the new owners map to be updated
-    * @param key              the key requested
-    * @param numberOfRequests the number of accesses made to this key
-    * @param requesterId      the member id
+    * @param accumulators the segment accumulators
     */
-   private void calculateNewOwners(Map<Object, OwnersInfo> newOwnersMap, Object key, long numberOfRequests, int requesterId) {
-      OwnersInfo newOwnersInfo = newOwnersMap.get(key);
-      if (log.isTraceEnabled()) {
-         log.tracef("Analyzing key=%s, numberOfRequest=%s, requesterId=%s, OwnerInfo=%s", key, numberOfRequests,
-                    requesterId, newOwnersInfo);
+   private void partitionKeysMoved(SegmentAccumulator[] accumulators) {
+      int numberOfMembers = clusterSnapshot.size();
+      for (int i = 0; i < allKeysMoved.length; ++i) {
+         accumulator(accumulators, allKeysMoved[i], numberOfMembers).addKeyMoved(allKeysMoved[i], allKeysMovedAge[i]);
       }
+   }
+
+   /**
+    * moves the local accesses from the object requests to the segment accumulators. only the segments with keys
+    * requested or previously moved need them.
+    *
+    * @param accumulators the segment accumulators
+    */
+   private void partitionLocalAccesses(SegmentAccumulator[] accumulators) {
+      for (int memberIdx = 0; memberIdx < objectRequests.length; ++memberIdx) {
+         ObjectRequest objectRequest = objectRequests[memberIdx];
+
+         if (objectRequest == null) {
+            continue;
+         }
 
-      if (newOwnersInfo == null) {
-         newOwnersInfo = createOwnersInfo(key);
-         newOwnersMap.put(key, newOwnersInfo);
-         if (log.isTraceEnabled()) {
-            log.tracef("Creating new OwnerInfo for key [%s]: %s", key, newOwnersInfo);
+         Map<Object, Long> localAccesses = objectRequest.getLocalAccesses();
+         for (Map.Entry<Object, Long> entry : localAccesses.entrySet()) {
+            SegmentAccumulator accumulator = accumulators[consistentHash.getSegment(entry.getKey())];
+            if (accumulator != null) {
+               accumulator.addLocalAccess(entry.getKey(), memberIdx, entry.getValue());
+            }
          }
+         //release memory asap
+         localAccesses.clear();
       }
-      newOwnersInfo.calculateNewOwner(requesterId, numberOfRequests);
-      if (log.isTraceEnabled()) {
-         log.tracef("Result of analyzing key=%s, numberOfRequest=%s, requesterId=%s, OwnerInfo=%s", key, numberOfRequests,
-                    requesterId, newOwnersInfo);
+   }
+
+   private SegmentAccumulator accumulator(SegmentAccumulator[] accumulators, Object key, int numberOfMembers) {
+      int segmentId = consistentHash.getSegment(key);
+      SegmentAccumulator accumulator = accumulators[segmentId];
+      if (accumulator == null) {
+         accumulator = new SegmentAccumulator(segmentId, numberOfMembers);
+         accumulators[segmentId] = accumulator;
       }
+      return accumulator;
    }
 
    /**
-    * returns the local accesses and owners for the {@code key}
+    * checks if the owners are the same as the owners returned by the original Infinispan's consistent hash
     *
-    * @param key the key
-    * @return the local accesses and owners for the key
+    * @param key        the key
+    * @param ownersInfo the new owners
+    * @return true if the key is not moved
     */
-   private Map<Integer, Long> getLocalAccesses(Object key) {
-      Map<Integer, Long> localAccessesMap = new TreeMap<Integer, Long>();
+   private boolean isDefaultPlacement(Object key, OwnersInfo ownersInfo) {
+      Collection<Address> defaultOwners = getDefaultConsistentHash().locateOwners(key);
 
-      for (int memberIndex = 0; memberIndex < objectRequests.length; ++memberIndex) {
-         ObjectRequest request = objectRequests[memberIndex];
-         if (request == null) {
-            continue;
-         }
-         Long localAccesses = request.getLocalAccesses().remove(key);
-         if (localAccesses != null) {
-            localAccessesMap.put(memberIndex, localAccesses);
-         }
+      if (ownersInfo.getReplicationCount() != defaultOwners.size()) {
+         return false;
       }
 
-      return localAccessesMap;
+      mainLoop:
+      for (Address address : defaultOwners) {
+         int defaultIndex = clusterSnapshot.indexOf(address);
+         for (int i = 0; i < ownersInfo.getReplicationCount(); ++i) {
+            if (ownersInfo.getOwner(i) == defaultIndex) {
+               continue mainLoop;
+            }
+         }
+         return false;
+      }
+      return true;
    }
 
    /**
     * creates a new owners information initialized with the current owners returned by the current consistent hash and
     * their number of accesses for the {@code key}
     *
-    * @param key the key
+    * @param key           the key
+    * @param localAccesses the local accesses for the key, indexed by member (can be null)
     * @return the new owners information.
     */
-   private OwnersInfo createOwnersInfo(Object key) {
+   private OwnersInfo createOwnersInfo(Object key, long[] localAccesses) {
       Collection<Address> replicas = consistentHash.locateOwners(key);
-      Map<Integer, Long> localAccesses = getLocalAccesses(key);
 
       OwnersInfo ownersInfo = new OwnersInfo(replicas.size());
 
@@ -280,12 +359,8 @@ private OwnersInfo createOwnersInfo(Object key) {
             ownerIndex = findNewOwner(key, replicas);
          }
 
-         Long accesses = localAccesses.remove(ownerIndex);
-
-         if (accesses == null) {
-            //TODO check if this should be zero or the min number of local accesses from the member
-            accesses = 0L;
-         }
+         //TODO check if this should be zero or the min number of local accesses from the member
+         long accesses = localAccesses == null ? 0 : localAccesses[ownerIndex];
 
          ownersInfo.add(ownerIndex, accesses);
       }
@@ -309,13 +384,12 @@ private int findNewOwner(Object key, Collection<Address> alreadyOwner) {
          return 0;
       }
 
-      int startIndex = consistentHash.getHashFunction().hash(key) % size;
+      int startIndex = (consistentHash.getHashFunction().hash(key) & Integer.MAX_VALUE) % size;
 
-      for (int index = startIndex + 1; index != startIndex; index = (index + 1) % size) {
+      for (int index = (startIndex + 1) % size; index != startIndex; index = (index + 1) % size) {
          if (!alreadyOwner.contains(clusterSnapshot.get(index))) {
             return index;
          }
-         index = (index + 1) % size;
       }
 
       return 0;
@@ -354,5 +428,199 @@ private void logRequestReceived(Address sender, ObjectRequest request) {
       }
    }
 
-}
+   /**
+    * accumulates the remote accesses, the local accesses and the keys moved of a single segment and calculates the new
+    * owners for them
+    */
+   private class SegmentAccumulator {
+      private final int segmentId;
+      private final int numberOfMembers;
+      //remote accesses, ordered by requester
+      private Object[] requestedKeys;
+      private int[] requesters;
+      private long[] accesses;
+      private int requestedSize;
+      //keys moved in previous rounds and their age
+      private Object[] keysMoved;
+      private int[] keysMovedAge;
+      private int keysMovedSize;
+      //local accesses for each key, indexed by member
+      private Map<Object, long[]> localAccesses;
+      //results
+      private SegmentMapping segmentMapping;
+      private Object[] keptKeys;
+      private int[] keptAges;
+      private int keptSize;
+      private int agedKeys;
+      private long footprint;
+
+      private SegmentAccumulator(int segmentId, int numberOfMembers) {
+         this.segmentId = segmentId;
+         this.numberOfMembers = numberOfMembers;
+         requestedKeys = new Object[4];
+         requesters = new int[4];
+         accesses = new long[4];
+         keysMoved = new Object[0];
+         keysMovedAge = new int[0];
+      }
 
+      private void addRemoteAccess(Object key, int requesterIdx, long numberOfAccesses) {
+         if (requestedSize == requestedKeys.length) {
+            int newLength = requestedSize << 1;
+            requestedKeys = Arrays.copyOf(requestedKeys, newLength);
+            requesters = Arrays.copyOf(requesters, newLength);
+            accesses = Arrays.copyOf(accesses, newLength);
+         }
+         requestedKeys[requestedSize] = key;
+         requesters[requestedSize] = requesterIdx;
+         accesses[requestedSize] = numberOfAccesses;
+         requestedSize++;
+      }
+
+      private void addKeyMoved(Object key, int age) {
+         if (keysMovedSize == keysMoved.length) {
+            int newLength = Math.max(4, keysMovedSize << 1);
+            keysMoved = Arrays.copyOf(keysMoved, newLength);
+            keysMovedAge = Arrays.copyOf(keysMovedAge, newLength);
+         }
+         keysMoved[keysMovedSize] = key;
+         keysMovedAge[keysMovedSize] = age;
+         keysMovedSize++;
+      }
+
+      private void addLocalAccess(Object key, int memberIdx, long numberOfAccesses) {
+         if (localAccesses == null) {
+            localAccesses = new HashMap<Object, long[]>();
+         }
+         long[] memberAccesses = localAccesses.get(key);
+         if (memberAccesses == null) {
+            memberAccesses = new long[numberOfMembers];
+            localAccesses.put(key, memberAccesses);
+         }
+         memberAccesses[memberIdx] = numberOfAccesses;
+      }
+
+      private int workload() {
+         return requestedSize + keysMovedSize;
+      }
+
+      private long[] localAccesses(Object key) {
+         return localAccesses == null ? null : localAccesses.get(key);
+      }
+
+      /**
+       * calculates the new owners for the keys requested and for the keys moved in previous rounds. The keys moved in
+       * previous rounds and not requested are kept with the owners returned by the current consistent hash, unless
+       * they are too old.
+       */
+      private void calculateNewOwners() {
+         Map<Object, OwnersInfo> newOwnersMap = new HashMap<Object, OwnersInfo>(requestedSize);
+
+         for (int i = 0; i < requestedSize; ++i) {
+            Object key = requestedKeys[i];
+            OwnersInfo newOwnersInfo = newOwnersMap.get(key);
+
+            if (newOwnersInfo == null) {
+               newOwnersInfo = createOwnersInfo(key, localAccesses(key));
+               newOwnersMap.put(key, newOwnersInfo);
+            }
+            newOwnersInfo.calculateNewOwner(requesters[i], accesses[i]);
+            if (log.isTraceEnabled()) {
+               log.tracef("Result of analyzing key=%s, numberOfRequest=%s, requesterId=%s, OwnerInfo=%s", key,
+                          accesses[i], requesters[i], newOwnersInfo);
+            }
+         }
+
+         segmentMapping = new SegmentMapping(segmentId);
+         keptKeys = new Object[newOwnersMap.size() + keysMovedSize];
+         keptAges = new int[keptKeys.length];
+
+         //process the old moved keys. this will set the new owners of the previous rounds
+         for (int i = 0; i < keysMovedSize; ++i) {
+            Object key = keysMoved[i];
+            if (newOwnersMap.containsKey(key)) {
+               continue;
+            }
+            int age = keysMovedAge[i] + 1;
+            if (age > maxMovedKeyAge) {
+               agedKeys++;
+               continue;
+            }
+            segmentMapping.add(key, createOwnersInfo(key, localAccesses(key)));
+            keep(key, age);
+         }
+
+         //if the owners info corresponds to the default consistent hash owners, the key is not moved
+         for (Map.Entry<Object, OwnersInfo> entry : newOwnersMap.entrySet()) {
+            if (!isDefaultPlacement(entry.getKey(), entry.getValue())) {
+               segmentMapping.add(entry.getKey(), entry.getValue());
+               keep(entry.getKey(), 0);
+            }
+         }
+
+         footprint = estimateFootprint(newOwnersMap.size());
+
+         //release memory asap
+         requestedKeys = null;
+         requesters = null;
+         accesses = null;
+         keysMoved = null;
+         keysMovedAge = null;
+         localAccesses = null;
+      }
+
+      private void keep(Object key, int age) {
+         keptKeys[keptSize] = key;
+         keptAges[keptSize] = age;
+         keptSize++;
+      }
+
+      private long estimateFootprint(int numberOfKeys) {
+         int numberOfOwners = consistentHash.getNumOwners();
+         long bytes = (long) requestedKeys.length * (REFERENCE_SIZE + 4 + 8);
+         bytes += (long) keysMoved.length * (REFERENCE_SIZE + 4);
+         if (localAccesses != null) {
+            bytes += (long) localAccesses.size() * (MAP_ENTRY_OVERHEAD + OBJECT_OVERHEAD + 8 * numberOfMembers);
+         }
+         bytes += (long) numberOfKeys * (MAP_ENTRY_OVERHEAD + 3 * OBJECT_OVERHEAD + 12 * numberOfOwners);
+         bytes += (long) segmentMapping.size() * (2 * OBJECT_OVERHEAD + REFERENCE_SIZE + 4 * numberOfOwners);
+         return bytes;
+      }
+   }
+
+   /**
+    * calculates the new owners for a range of segments, splitting it in half until a single segment remains
+    */
+   private class SegmentTask extends ForkJoinTask<Void> {
+      private final SegmentAccumulator[] segments;
+      private final int from;
+      private final int to;
+
+      private SegmentTask(SegmentAccumulator[] segments, int from, int to) {
+         this.segments = segments;
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      public Void getRawResult() {
+         return null;
+      }
+
+      @Override
+      protected void setRawResult(Void value) {
+         //no-op
+      }
+
+      @Override
+      protected boolean exec() {
+         if (to - from == 1) {
+            segments[from].calculateNewOwners();
+         } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new SegmentTask(segments, from, middle), new SegmentTask(segments, middle, to));
+         }
+         return true;
+      }
+   }
+}
@@ -24,7 +24,7 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -34,61 +34,81 @@
  * @since 5.2
  */
 public class OwnersInfo implements Serializable {
-   private final ArrayList<Integer> ownersIndexes;
-   private final ArrayList<Long> ownersAccesses;
+   private int[] ownersIndexes;
+   private long[] ownersAccesses;
+   private int size;
 
    public OwnersInfo(int size) {
-      ownersIndexes = new ArrayList<Integer>(size);
-      ownersAccesses = new ArrayList<Long>(size);
+      ownersIndexes = new int[size];
+      ownersAccesses = new long[size];
    }
 
    public void add(int ownerIndex, long numberOfAccesses) {
-      ownersIndexes.add(ownerIndex);
-      ownersAccesses.add(numberOfAccesses);
+      if (size == ownersIndexes.length) {
+         int newLength = Math.max(1, size << 1);
+         ownersIndexes = Arrays.copyOf(ownersIndexes, newLength);
+         ownersAccesses = Arrays.copyOf(ownersAccesses, newLength);
+      }
+      ownersIndexes[size] = ownerIndex;
+      ownersAccesses[size] = numberOfAccesses;
+      size++;
    }
 
    public void calculateNewOwner(int requestIdx, long numberOfAccesses) {
-      if (ownersIndexes.contains(requestIdx)) {
-         //already there
-         return;
+      for (int index = 0; index < size; ++index) {
+         if (ownersIndexes[index] == requestIdx) {
+            //already there
+            return;
+         }
       }
 
       int toReplaceIndex = -1;
       long minAccesses = numberOfAccesses;
 
-      for (int index = 0; index < ownersAccesses.size(); ++index) {
-         if (ownersAccesses.get(index) < minAccesses) {
-            minAccesses = ownersAccesses.get(index);
+      for (int index = 0; index < size; ++index) {
+         if (ownersAccesses[index] < minAccesses) {
+            minAccesses = ownersAccesses[index];
             toReplaceIndex = index;
          }
       }
 
       if (toReplaceIndex != -1) {
-         ownersIndexes.set(toReplaceIndex, requestIdx);
-         ownersAccesses.set(toReplaceIndex, numberOfAccesses);
+         ownersIndexes[toReplaceIndex] = requestIdx;
+         ownersAccesses[toReplaceIndex] = numberOfAccesses;
       }
    }
 
    public int getOwner(int index) {
-      if (index > ownersIndexes.size()) {
+      if (index < 0 || index >= size) {
          return -1;
       }
-      return ownersIndexes.get(index);
+      return ownersIndexes[index];
    }
 
    public int getReplicationCount() {
-      return ownersIndexes.size();
+      return size;
    }
 
    public List<Integer> getNewOwnersIndexes() {
-      return new LinkedList<Integer>(ownersIndexes);
+      List<Integer> list = new ArrayList<Integer>(size);
+      for (int index = 0; index < size; ++index) {
+         list.add(ownersIndexes[index]);
+      }
+      return list;
+   }
+
+   /**
+    * @return a copy of the new owners indexes
+    */
+   public int[] getNewOwnersIndexesArray() {
+      return Arrays.copyOf(ownersIndexes, size);
    }
 
    @Override
    public String toString() {
       return "OwnersInfo{" +
-            "ownersIndexes=" + ownersIndexes +
-            ", ownersAccesses=" + ownersAccesses +
+            "ownersIndexes=" + Arrays.toString(getNewOwnersIndexesArray()) +
+            ", ownersAccesses=" + Arrays.toString(Arrays.copyOf(ownersAccesses, size)) +
             '}';
    }
 }
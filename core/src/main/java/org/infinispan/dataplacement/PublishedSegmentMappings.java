@@ -0,0 +1,85 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the segment mappings published by this member, in order to publish only the segments that changed
+ * since the last round.
+ * <p/>
+ * All the segments are published again when the cluster snapshot changes, because the owners indexes are relative to
+ * it.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class PublishedSegmentMappings {
+
+   private final Map<Integer, Long> fingerprints;
+   private ClusterSnapshot clusterSnapshot;
+
+   public PublishedSegmentMappings() {
+      fingerprints = new HashMap<Integer, Long>();
+   }
+
+   /**
+    * computes the segments that changed since the last invocation and marks them as published
+    *
+    * @param roundClusterSnapshot the cluster snapshot of the current round
+    * @param segmentMappings      all the segment mappings calculated by this member
+    * @return the segment mappings that changed. A {@code null} value means that the segment does not have keys to
+    *         move anymore
+    */
+   public final synchronized Map<Integer, SegmentMapping> update(ClusterSnapshot roundClusterSnapshot,
+                                                                 Collection<SegmentMapping> segmentMappings) {
+      if (!roundClusterSnapshot.equals(clusterSnapshot)) {
+         fingerprints.clear();
+         clusterSnapshot = roundClusterSnapshot;
+      }
+
+      Map<Integer, SegmentMapping> changed = new HashMap<Integer, SegmentMapping>();
+      Set<Integer> removed = new HashSet<Integer>(fingerprints.keySet());
+
+      for (SegmentMapping segmentMapping : segmentMappings) {
+         int segmentId = segmentMapping.getSegmentId();
+         removed.remove(segmentId);
+         long fingerprint = segmentMapping.fingerprint();
+         Long previous = fingerprints.put(segmentId, fingerprint);
+         if (previous == null || previous != fingerprint) {
+            changed.put(segmentId, segmentMapping);
+         }
+      }
+
+      for (Integer segmentId : removed) {
+         fingerprints.remove(segmentId);
+         changed.put(segmentId, null);
+      }
+
+      return changed;
+   }
+}
@@ -22,10 +22,9 @@
  */
 package org.infinispan.dataplacement;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -41,7 +40,7 @@ public class SegmentMapping {
 
    public SegmentMapping(int segmentId) {
       this.segmentId = segmentId;
-      this.keyOwnersList = new LinkedList<KeyOwners>();
+      this.keyOwnersList = new ArrayList<KeyOwners>();
    }
 
    public final int getSegmentId() {
@@ -49,7 +48,27 @@ public final int getSegmentId() {
    }
 
    public final void add(Object key, OwnersInfo info) {
-      keyOwnersList.add(new KeyOwners(key, info.getNewOwnersIndexes()));
+      keyOwnersList.add(new KeyOwners(key, info.getNewOwnersIndexesArray()));
+   }
+
+   public final int size() {
+      return keyOwnersList.size();
+   }
+
+   /**
+    * returns a fingerprint of the keys and owners in this segment mapping. it does not depend of the order in which the
+    * keys were added
+    *
+    * @return the fingerprint of this segment mapping
+    */
+   public final long fingerprint() {
+      long fingerprint = keyOwnersList.size();
+      for (KeyOwners keyOwners : keyOwnersList) {
+         long hash = keyOwners.key.hashCode() * 0x9E3779B97F4A7C15L + Arrays.hashCode(keyOwners.ownerIndexes);
+         hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+         fingerprint += hash ^ (hash >>> 33);
+      }
+      return fingerprint;
    }
 
    public final Iterator<KeyOwners> iterator() {
@@ -68,13 +87,9 @@ public static class KeyOwners {
       private final Object key;
       private final int[] ownerIndexes;
 
-      private KeyOwners(Object key, Collection<Integer> ownerIndexes) {
+      private KeyOwners(Object key, int[] ownerIndexes) {
          this.key = key;
-         this.ownerIndexes = new int[ownerIndexes.size()];
-         int index = 0;
-         for (int i : ownerIndexes) {
-            this.ownerIndexes[index++] = i;
-         }
+         this.ownerIndexes = ownerIndexes;
       }
 
       public final Object getKey() {
@@ -26,11 +26,13 @@
 import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
 import org.infinispan.dataplacement.c50.keyfeature.KeyFeatureManager;
 import org.infinispan.dataplacement.c50.lookup.BloomFilter;
+import org.infinispan.dataplacement.c50.tree.CompiledDecisionTree;
 import org.infinispan.dataplacement.c50.tree.DecisionTree;
 import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.dataplacement.stats.IncrementableLong;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +47,7 @@ public class C50MLObjectLookup implements ObjectLookup {
    private final BloomFilter bloomFilter;
    private final DecisionTree[] decisionTreeArray;
    private transient KeyFeatureManager keyFeatureManager;
+   private transient volatile CompiledTrees compiledTrees;
 
    public C50MLObjectLookup(int numberOfOwners, BloomFilter bloomFilter) {
       this.bloomFilter = bloomFilter;
@@ -53,10 +56,12 @@ public C50MLObjectLookup(int numberOfOwners, BloomFilter bloomFilter) {
 
    public void setDecisionTreeList(int index, DecisionTree decisionTree) {
       decisionTreeArray[index] = decisionTree;
+      compiledTrees = null;
    }
 
    public void setKeyFeatureManager(KeyFeatureManager keyFeatureManager) {
       this.keyFeatureManager = keyFeatureManager;
+      compiledTrees = null;
    }
 
    public BloomFilter getBloomFilter() {
@@ -69,17 +74,16 @@ public DecisionTree[] getDecisionTreeArray() {
 
    @Override
    public List<Integer> query(Object key) {
+      return toList(queryOwners(key));
+   }
+
+   @Override
+   public int[] queryOwners(Object key) {
       if (!bloomFilter.contains(key)) {
          return null;
-      } else {
-         Map<Feature, FeatureValue> keyFeatures = keyFeatureManager.getFeatures(key);
-         List<Integer> owners = new LinkedList<Integer>();
-
-         for (DecisionTree tree : decisionTreeArray) {
-            owners.add(tree.query(keyFeatures));
-         }
-         return owners;
       }
+      CompiledTrees trees = compiledTrees();
+      return trees.query(trees.keyFeatures(key));
    }
 
    @Override
@@ -93,13 +97,11 @@ public List<Integer> queryWithProfiling(Object key, IncrementableLong[] phaseDur
          return null;
       } else {
          long ts1 = System.nanoTime();
-         List<Integer> owners = new LinkedList<Integer>();
-         Map<Feature, FeatureValue> keyFeatures = keyFeatureManager.getFeatures(key);
+         CompiledTrees trees = compiledTrees();
+         FeatureValue[] keyFeatures = trees.keyFeatures(key);
          long ts2 = System.nanoTime();
 
-         for (DecisionTree tree : decisionTreeArray) {
-            owners.add(tree.query(keyFeatures));
-         }
+         int[] owners = trees.query(keyFeatures);
 
          long ts3 = System.nanoTime();
 
@@ -114,6 +116,81 @@ public List<Integer> queryWithProfiling(Object key, IncrementableLong[] phaseDur
             phaseDurations[0].add(ts1 - ts0);
          }
 
+         return toList(owners);
+      }
+   }
+
+   /**
+    * returns the compiled decision trees, compiling them if needed. The compilation is idempotent, so concurrent
+    * queries may compile the trees more than once without harm.
+    */
+   private CompiledTrees compiledTrees() {
+      CompiledTrees trees = compiledTrees;
+      if (trees == null) {
+         trees = new CompiledTrees(keyFeatureManager, decisionTreeArray);
+         compiledTrees = trees;
+      }
+      return trees;
+   }
+
+   private static List<Integer> toList(int[] owners) {
+      if (owners == null) {
+         return null;
+      }
+      List<Integer> list = new ArrayList<Integer>(owners.length);
+      for (int owner : owners) {
+         list.add(owner);
+      }
+      return list;
+   }
+
+   /**
+    * the decision trees compiled with the features of the key feature manager
+    */
+   private static class CompiledTrees {
+      private final KeyFeatureManager keyFeatureManager;
+      private final Feature[] features;
+      private final CompiledDecisionTree[] trees;
+      private final ThreadLocal<FeatureValue[]> scratchKeyFeatures;
+
+      private CompiledTrees(KeyFeatureManager keyFeatureManager, DecisionTree[] decisionTrees) {
+         this.keyFeatureManager = keyFeatureManager;
+         this.features = keyFeatureManager.getAllKeyFeatures();
+         this.trees = new CompiledDecisionTree[decisionTrees.length];
+         for (int i = 0; i < trees.length; ++i) {
+            trees[i] = decisionTrees[i].compile(features);
+         }
+         final int numberOfFeatures = features.length;
+         this.scratchKeyFeatures = new ThreadLocal<FeatureValue[]>() {
+            @Override
+            protected FeatureValue[] initialValue() {
+               return new FeatureValue[numberOfFeatures];
+            }
+         };
+      }
+
+      /**
+       * extracts the key features once, to be used by all the decision trees. The array returned is reused by the next
+       * query in the same thread, so it is only valid until then
+       */
+      private FeatureValue[] keyFeatures(Object key) {
+         Map<Feature, FeatureValue> featureMap = keyFeatureManager.getFeatures(key);
+         FeatureValue[] keyFeatures = scratchKeyFeatures.get();
+         if (featureMap == null || featureMap.isEmpty()) {
+            Arrays.fill(keyFeatures, null);
+         } else {
+            for (int i = 0; i < features.length; ++i) {
+               keyFeatures[i] = featureMap.get(features[i]);
+            }
+         }
+         return keyFeatures;
+      }
+
+      private int[] query(FeatureValue[] keyFeatures) {
+         int[] owners = new int[trees.length];
+         for (int i = 0; i < trees.length; ++i) {
+            owners[i] = trees[i].query(keyFeatures);
+         }
          return owners;
       }
    }
@@ -30,12 +30,14 @@
 import org.infinispan.dataplacement.c50.lookup.BloomFilter;
 import org.infinispan.dataplacement.c50.tree.DecisionTree;
 import org.infinispan.dataplacement.c50.tree.DecisionTreeBuilder;
+import org.infinispan.dataplacement.c50.tree.DecisionTreeLearner;
 import org.infinispan.dataplacement.c50.tree.DecisionTreeParser;
 import org.infinispan.dataplacement.c50.tree.ParseTreeNode;
 import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.dataplacement.lookup.ObjectLookupFactory;
 import org.infinispan.util.TypedProperties;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -44,6 +46,7 @@
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -55,6 +58,9 @@
 
 /**
  * Object Lookup Factory when Machine Learner (C5.0) and Bloom Filters technique is used
+ * <p/>
+ * By default, the decision trees are built in-process by the {@link DecisionTreeLearner}. The external C5.0 binary
+ * is used only if the property {@link #LEARNER} is set to {@link #C50_LEARNER}.
  *
  * @author Pedro Ruivo
  * @since 5.2
@@ -64,6 +70,11 @@ public class C50MLObjectLookupFactory implements ObjectLookupFactory {
    public static final String LOCATION = "location";
    public static final String KEY_FEATURE_MANAGER = "keyFeatureManager";
    public static final String BF_FALSE_POSITIVE = "bfFalsePositiveProb";
+   public static final String LEARNER = "learner";
+   public static final String EMBEDDED_LEARNER = "embedded";
+   public static final String C50_LEARNER = "c5.0";
+   public static final String LEARNER_THREADS = "learnerThreads";
+   public static final String LEARNER_MIN_CASES = "learnerMinCases";
    private static final String INPUT_FORMAT = "%1$sinput-%2$s";
    private static final String INPUT_ML_DATA_FORMAT = INPUT_FORMAT + ".data";
    private static final String INPUT_ML_NAMES_FORMAT = INPUT_FORMAT + ".names";
@@ -74,6 +85,8 @@ public class C50MLObjectLookupFactory implements ObjectLookupFactory {
    private KeyFeatureManager keyFeatureManager;
    private String machineLearnerPath = System.getProperty("user.dir");
    private double bloomFilterFalsePositiveProbability = 0.001;
+   private DecisionTreeLearner decisionTreeLearner;
+   private ForkJoinPool learnerPool;
 
    public C50MLObjectLookupFactory() {
       featureMap = new HashMap<String, Feature>();
@@ -111,6 +124,21 @@ public void setConfiguration(Configuration configuration) {
       for (Feature feature : keyFeatureManager.getAllKeyFeatures()) {
          featureMap.put(feature.getName(), feature);
       }
+
+      //the configuration can be set more than once. the pool of the previous learner is no longer used
+      shutdownLearnerPool();
+      String learner = typedProperties.getProperty(LEARNER, EMBEDDED_LEARNER);
+      if (C50_LEARNER.equals(learner)) {
+         decisionTreeLearner = null;
+      } else {
+         if (!EMBEDDED_LEARNER.equals(learner)) {
+            log.warnf("Unknown learner %s. Using the %s learner", learner, EMBEDDED_LEARNER);
+         }
+         int threads = typedProperties.getIntProperty(LEARNER_THREADS, Runtime.getRuntime().availableProcessors());
+         int minCases = typedProperties.getIntProperty(LEARNER_MIN_CASES, 2);
+         learnerPool = threads > 1 ? new ForkJoinPool(threads) : null;
+         decisionTreeLearner = new DecisionTreeLearner(keyFeatureManager.getAllKeyFeatures(), minCases, learnerPool);
+      }
    }
 
    @Override
@@ -131,6 +159,11 @@ public ObjectLookup createObjectLookup(SegmentMapping segmentMapping, int number
       BloomFilter bloomFilter = createBloomFilter(keys);
       C50MLObjectLookup objectLookup = new C50MLObjectLookup(numberOfOwners, bloomFilter);
       objectLookup.setKeyFeatureManager(keyFeatureManager);
+
+      if (decisionTreeLearner != null) {
+         return learnDecisionTrees(segmentMapping, numberOfOwners, objectLookup) ? objectLookup : null;
+      }
+
       deleteAll();
 
       for (int iteration = 0; iteration < numberOfOwners; ++iteration) {
@@ -179,6 +212,67 @@ public int getNumberOfQueryProfilingPhases() {
       return 3;
    }
 
+   @Override
+   public void stop() {
+      shutdownLearnerPool();
+   }
+
+   private void shutdownLearnerPool() {
+      if (learnerPool != null) {
+         learnerPool.shutdown();
+         learnerPool = null;
+      }
+   }
+
+   /**
+    * builds the decision trees in-process, one for each owner index
+    *
+    * @param segmentMapping the objects to move and new owners
+    * @param numberOfOwners the number of owners
+    * @param objectLookup   the object lookup where the decision trees are set
+    * @return true if the decision trees were built, false otherwise
+    */
+   private boolean learnDecisionTrees(SegmentMapping segmentMapping, int numberOfOwners, C50MLObjectLookup objectLookup) {
+      Feature[] features = keyFeatureManager.getAllKeyFeatures();
+      List<FeatureValue[]> samples = new ArrayList<FeatureValue[]>();
+      List<int[]> owners = new ArrayList<int[]>();
+
+      for (Iterator<SegmentMapping.KeyOwners> iterator = segmentMapping.iterator(); iterator.hasNext(); ) {
+         SegmentMapping.KeyOwners keyOwners = iterator.next();
+         Map<Feature, FeatureValue> keyFeatures = keyFeatureManager.getFeatures(keyOwners.getKey());
+         FeatureValue[] sample = new FeatureValue[features.length];
+         //the key may have no features. all of them are unknown
+         if (keyFeatures != null) {
+            for (int i = 0; i < features.length; ++i) {
+               sample[i] = keyFeatures.get(features[i]);
+            }
+         }
+         samples.add(sample);
+         owners.add(keyOwners.getOwnerIndexes());
+      }
+
+      int[][] classes = new int[numberOfOwners][samples.size()];
+      for (int sample = 0; sample < samples.size(); ++sample) {
+         int[] ownerIndexes = owners.get(sample);
+         for (int iteration = 0; iteration < numberOfOwners; ++iteration) {
+            classes[iteration][sample] = iteration < ownerIndexes.length ? ownerIndexes[iteration] : -1;
+         }
+      }
+
+      DecisionTree[] trees;
+      try {
+         trees = decisionTreeLearner.learn(samples.toArray(new FeatureValue[samples.size()][]), classes);
+      } catch (RuntimeException e) {
+         log.errorf(e, "Error while building the decision trees");
+         return false;
+      }
+
+      for (int iteration = 0; iteration < numberOfOwners; ++iteration) {
+         objectLookup.setDecisionTreeList(iteration, trees[iteration]);
+      }
+      return true;
+   }
+
    /**
     * returns the bloom filter with the objects to move encoding on it
     *
@@ -306,7 +400,7 @@ private boolean writeObjectsToInputData(Iterator<SegmentMapping.KeyOwners> itera
       try {
          while (iterator.hasNext()) {
             SegmentMapping.KeyOwners keyOwners = iterator.next();
-            int owner = keyOwners.getOwnerIndexes().length < iteration ?
+            int owner = iteration < keyOwners.getOwnerIndexes().length ?
                   keyOwners.getOwnerIndexes()[iteration] : -1;
             if (owner >= 0) {
                writeInputData(keyOwners.getKey(), owner, writer);
@@ -335,7 +429,7 @@ private void writeInputData(Object key, Integer nodeIndex, BufferedWriter writer
       Map<Feature, FeatureValue> keyFeatures = keyFeatureManager.getFeatures(key);
 
       for (Feature feature : keyFeatureManager.getAllKeyFeatures()) {
-         FeatureValue keyFeatureValue = keyFeatures.get(feature);
+         FeatureValue keyFeatureValue = keyFeatures == null ? null : keyFeatures.get(feature);
          String value;
          if (keyFeatureValue == null) {
             value = "N/A";
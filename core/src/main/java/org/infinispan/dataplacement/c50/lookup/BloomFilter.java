@@ -22,104 +22,167 @@
  */
 package org.infinispan.dataplacement.c50.lookup;
 
+import org.infinispan.marshall.MarshalledValue;
+
 import java.io.Serializable;
-import java.util.BitSet;
 import java.util.Collection;
 
+/**
+ * A cache-line blocked Bloom filter. Each key is mapped to a single block of 512 bits (8 longs, a cache line) and all
+ * the bits of the key are set in that block, so a query touches only one cache line.
+ * <p/>
+ * The keys are hashed to 64 bits without allocation: the content of the {@link String}, {@code byte[]} and boxed
+ * integer keys is hashed, so the keys with the same {@link Object#hashCode()} still have different bits. The other
+ * keys are hashed by their {@link Object#hashCode()}, that must be the same in all the nodes. The {@link
+ * MarshalledValue} keys are hashed as the instance they wrap.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
 public class BloomFilter implements Serializable {
 
+   private static final int BLOCK_SHIFT = 3; //8 longs per block
+   private static final int BITS_PER_BLOCK = 64 << BLOCK_SHIFT;
+   private static final int MAX_NUM_HASH = 32;
+   //more bits are needed to achieve the same false positive rate since the keys are not uniform among the blocks
+   private static final double BLOCKED_OVERHEAD = 1.5;
+   private static final long C1 = 0x87c37b91114253d5L;
+   private static final long C2 = 0x4cf5ad432745937fL;
    private final int numHash;
-   private final int filterSize;
-   private final BitSet filter;
+   private final int numBlocks;
+   private final long[] filter;
 
    //num queries = 1
    public BloomFilter(Collection<Object> objects, double falsePositiveRate) {
       double bitsPerElement = Math.log(falsePositiveRate) / Math.log(0.6185);
-      numHash = (int) Math.ceil(Math.log(2) * bitsPerElement);
+      numHash = Math.max(1, Math.min(MAX_NUM_HASH, (int) Math.ceil(Math.log(2) * bitsPerElement)));
 
-      filter = new BitSet((int) Math.ceil(bitsPerElement * objects.size()));
-      filterSize = filter.size();
+      long numBits = (long) Math.ceil(bitsPerElement * BLOCKED_OVERHEAD * objects.size());
+      numBlocks = (int) Math.max(1, (numBits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK);
+      filter = new long[numBlocks << BLOCK_SHIFT];
 
       for (Object obj : objects) {
-         accessFilterPositions(convertObjectToByteArray(obj), true);
+         add(hash(obj));
       }
    }
 
    public boolean contains(Object object) {
-      return accessFilterPositions(convertObjectToByteArray(object), false);
+      long hash = hash(object);
+      int block = block(hash) << BLOCK_SHIFT;
+      long positions = mix(hash ^ C2);
+      int position = (int) positions;
+      int step = (int) (positions >>> 32) | 1;
+      for (int i = 0; i < numHash; ++i) {
+         int bit = position & (BITS_PER_BLOCK - 1);
+         if ((filter[block + (bit >>> 6)] & (1L << bit)) == 0) {
+            return false;
+         }
+         position += step;
+      }
+      return true;
    }
 
+   /**
+    * @return the number of bits in the filter
+    */
    public final int size() {
-      return filterSize;
+      return filter.length << 6;
    }
 
-   private byte[] convertObjectToByteArray(Object object) {
-      int value = object.hashCode();
-      return new byte[]{
-            (byte) (value >>> 24),
-            (byte) (value >>> 16),
-            (byte) (value >>> 8),
-            (byte) value};
+   private void add(long hash) {
+      int block = block(hash) << BLOCK_SHIFT;
+      long positions = mix(hash ^ C2);
+      int position = (int) positions;
+      int step = (int) (positions >>> 32) | 1;
+      for (int i = 0; i < numHash; ++i) {
+         int bit = position & (BITS_PER_BLOCK - 1);
+         filter[block + (bit >>> 6)] |= 1L << bit;
+         position += step;
+      }
    }
 
-   private boolean accessFilterPositions(byte[] elementId, boolean set) {
-      int hash1 = murmurHash(elementId, elementId.length, 0);
-      int hash2 = murmurHash(elementId, elementId.length, hash1);
-      for (int i = 0; i < numHash; i++) {
-         if (set)
-            filter.set(Math.abs((hash1 + i * hash2) % filterSize), true);
-         else if (!filter.get(Math.abs((hash1 + i * hash2) % filterSize)))
-            return false;
-      }
-      return true;
+   /**
+    * @return the block index in [0, numBlocks), using the high bits of the hash (without modulo)
+    */
+   private int block(long hash) {
+      return (int) (((hash >>> 32) * numBlocks) >>> 32);
    }
 
-   private int murmurHash(byte[] data, int length, int seed) {
-      int m = 0x5bd1e995;
-      int r = 24;
-
-      int h = seed ^ length;
-
-      int len_4 = length >> 2;
-
-      for (int i = 0; i < len_4; i++) {
-         int i_4 = i << 2;
-         int k = data[i_4 + 3];
-         k = k << 8;
-         k = k | (data[i_4 + 2] & 0xff);
-         k = k << 8;
-         k = k | (data[i_4 + 1] & 0xff);
-         k = k << 8;
-         k = k | (data[i_4] & 0xff);
-         k *= m;
-         k ^= k >>> r;
-         k *= m;
-         h *= m;
-         h ^= k;
+   private static long hash(Object object) {
+      if (object instanceof MarshalledValue) {
+         //the same key can be marshalled or not
+         object = ((MarshalledValue) object).get();
       }
+      if (object instanceof String) {
+         return hash((String) object);
+      } else if (object instanceof byte[]) {
+         return hash((byte[]) object);
+      } else if (object instanceof Long || object instanceof Integer || object instanceof Short ||
+            object instanceof Byte) {
+         return mix(((Number) object).longValue() * C1);
+      }
+      return mix(object.hashCode() * C2);
+   }
 
-      // avoid calculating modulo
-      int len_m = len_4 << 2;
-      int left = length - len_m;
-
-      if (left != 0) {
-         if (left >= 3) {
-            h ^= (int) data[length - 3] << 16;
+   private static long hash(String string) {
+      int length = string.length();
+      long hash = length;
+      int i = 0;
+      for (; i + 4 <= length; i += 4) {
+         hash = mixBlock(hash, string.charAt(i) | ((long) string.charAt(i + 1) << 16) |
+               ((long) string.charAt(i + 2) << 32) | ((long) string.charAt(i + 3) << 48));
+      }
+      if (i < length) {
+         long block = 0;
+         for (int shift = 0; i < length; ++i, shift += 16) {
+            block |= (long) string.charAt(i) << shift;
          }
-         if (left >= 2) {
-            h ^= (int) data[length - 2] << 8;
+         hash = mixBlock(hash, block);
+      }
+      return mix(hash);
+   }
+
+   private static long hash(byte[] bytes) {
+      long hash = ~bytes.length;
+      int i = 0;
+      for (; i + 8 <= bytes.length; i += 8) {
+         long block = 0;
+         for (int j = 7; j >= 0; --j) {
+            block = (block << 8) | (bytes[i + j] & 0xff);
          }
-         if (left >= 1) {
-            h ^= (int) data[length - 1];
+         hash = mixBlock(hash, block);
+      }
+      if (i < bytes.length) {
+         long block = 0;
+         for (int shift = 0; i < bytes.length; ++i, shift += 8) {
+            block |= (long) (bytes[i] & 0xff) << shift;
          }
-
-         h *= m;
+         hash = mixBlock(hash, block);
       }
+      return mix(hash);
+   }
 
-      h ^= h >>> 13;
-      h *= m;
-      h ^= h >>> 15;
+   /**
+    * the MurmurHash3 x64 block mixing
+    */
+   private static long mixBlock(long hash, long block) {
+      block *= C1;
+      block = Long.rotateLeft(block, 31);
+      block *= C2;
+      hash ^= block;
+      hash = Long.rotateLeft(hash, 27);
+      return hash * 5 + 0x52dce729;
+   }
 
-      return h;
+   /**
+    * the MurmurHash3 64 bits finalizer
+    */
+   private static long mix(long hash) {
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
    }
 }
@@ -0,0 +1,217 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement.c50.tree;
+
+import org.infinispan.dataplacement.c50.keyfeature.Feature;
+import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
+import org.infinispan.dataplacement.c50.tree.node.DecisionTreeNode;
+import org.infinispan.dataplacement.c50.tree.node.Type0Node;
+import org.infinispan.dataplacement.c50.tree.node.Type1Node;
+import org.infinispan.dataplacement.c50.tree.node.Type2Node;
+import org.infinispan.dataplacement.c50.tree.node.Type3Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link DecisionTree} flattened in primitive arrays. The nodes are stored in breadth-first order and the forks of
+ * each node are contiguous, so the query is a loop over array positions without the nodes polymorphic dispatch.
+ * <p/>
+ * The key features are passed as an array, indexed in the same order as the features used to compile the tree, so
+ * they can be extracted once per key and shared by all the trees.
+ * <p/>
+ * The query returns the same value as {@link DecisionTree#query(java.util.Map)}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class CompiledDecisionTree {
+
+   private static final byte LEAF = 0;
+   private static final byte DISCRETE = 1;
+   private static final byte CUT = 2;
+   private static final byte SUBSET = 3;
+   private static final int NOT_AVAILABLE = -1;
+   private final byte[] types;
+   private final int[] values;
+   private final int[] featureIndexes;
+   private final int[] firstForks;
+   //Type1: the value of each fork. Type2: the cut. Type3: the values of each fork, flattened
+   private final FeatureValue[][] nodeValues;
+   //Type3 only: the fork of each value in nodeValues
+   private final int[][] nodeValueForks;
+
+   private CompiledDecisionTree(int numberOfNodes) {
+      types = new byte[numberOfNodes];
+      values = new int[numberOfNodes];
+      featureIndexes = new int[numberOfNodes];
+      firstForks = new int[numberOfNodes];
+      nodeValues = new FeatureValue[numberOfNodes][];
+      nodeValueForks = new int[numberOfNodes][];
+   }
+
+   /**
+    * flattens the decision tree
+    *
+    * @param root     the root node of the decision tree
+    * @param features the features in the same order of the key features array used in the query
+    * @return the compiled decision tree
+    */
+   public static CompiledDecisionTree compile(DecisionTreeNode root, Feature[] features) {
+      List<DecisionTreeNode> nodes = new ArrayList<DecisionTreeNode>();
+      nodes.add(root);
+      for (int i = 0; i < nodes.size(); ++i) {
+         DecisionTreeNode[] forks = forksOf(nodes.get(i));
+         if (forks != null) {
+            for (DecisionTreeNode fork : forks) {
+               nodes.add(fork);
+            }
+         }
+      }
+
+      CompiledDecisionTree tree = new CompiledDecisionTree(nodes.size());
+      int nextFork = 1;
+      for (int i = 0; i < nodes.size(); ++i) {
+         DecisionTreeNode node = nodes.get(i);
+         tree.values[i] = node.getValue();
+         tree.firstForks[i] = nextFork;
+         if (node instanceof Type0Node) {
+            tree.types[i] = LEAF;
+            continue;
+         } else if (node instanceof Type1Node) {
+            Type1Node type1Node = (Type1Node) node;
+            tree.types[i] = DISCRETE;
+            tree.featureIndexes[i] = indexOf(type1Node.getFeature(), features);
+            tree.nodeValues[i] = type1Node.getAttributeValues();
+         } else if (node instanceof Type2Node) {
+            Type2Node type2Node = (Type2Node) node;
+            tree.types[i] = CUT;
+            tree.featureIndexes[i] = indexOf(type2Node.getFeature(), features);
+            tree.nodeValues[i] = new FeatureValue[]{type2Node.getCut()};
+         } else if (node instanceof Type3Node) {
+            Type3Node type3Node = (Type3Node) node;
+            tree.types[i] = SUBSET;
+            tree.featureIndexes[i] = indexOf(type3Node.getFeature(), features);
+            compileSubset(tree, i, type3Node.getEltsValues());
+         } else {
+            throw new IllegalArgumentException("Unknown decision tree node " + node);
+         }
+         nextFork += forksOf(node).length;
+      }
+      return tree;
+   }
+
+   /**
+    * queries the decision tree
+    *
+    * @param keyFeatures the key features values, indexed as the features used to compile the tree. A null value means
+    *                    the feature is not available
+    * @return the index of the new owner
+    */
+   public final int query(FeatureValue[] keyFeatures) {
+      int node = 0;
+      while (true) {
+         byte type = types[node];
+         if (type == LEAF) {
+            return values[node];
+         }
+         int featureIndex = featureIndexes[node];
+         FeatureValue keyValue = featureIndex == NOT_AVAILABLE ? null : keyFeatures[featureIndex];
+         if (keyValue == null) {
+            node = firstForks[node];
+            continue;
+         }
+         FeatureValue[] nodeValue = nodeValues[node];
+         switch (type) {
+            case DISCRETE:
+               node = firstForks[node] + 1 + matchIndex(nodeValue, keyValue);
+               break;
+            case CUT:
+               if (keyValue.isLessOrEqualsThan(nodeValue[0])) {
+                  node = firstForks[node] + 1;
+               } else if (keyValue.isGreaterThan(nodeValue[0])) {
+                  node = firstForks[node] + 2;
+               } else {
+                  throw new IllegalStateException("Expected one value match");
+               }
+               break;
+            default:
+               node = firstForks[node] + nodeValueForks[node][matchIndex(nodeValue, keyValue)];
+               break;
+         }
+      }
+   }
+
+   /**
+    * @return the number of nodes in the tree
+    */
+   public final int size() {
+      return types.length;
+   }
+
+   private static int matchIndex(FeatureValue[] nodeValue, FeatureValue keyValue) {
+      for (int i = 0; i < nodeValue.length; ++i) {
+         if (nodeValue[i].isEquals(keyValue)) {
+            return i;
+         }
+      }
+      throw new IllegalStateException("Expected one value match");
+   }
+
+   private static void compileSubset(CompiledDecisionTree tree, int node, Type3Node.InternalEltsValues[] eltsValues) {
+      List<FeatureValue> values = new ArrayList<FeatureValue>();
+      List<Integer> forks = new ArrayList<Integer>();
+      for (int fork = 0; fork < eltsValues.length; ++fork) {
+         for (FeatureValue value : eltsValues[fork].getValues()) {
+            values.add(value);
+            //the first fork is the N/A
+            forks.add(fork + 1);
+         }
+      }
+      tree.nodeValues[node] = values.toArray(new FeatureValue[values.size()]);
+      tree.nodeValueForks[node] = new int[forks.size()];
+      for (int i = 0; i < forks.size(); ++i) {
+         tree.nodeValueForks[node][i] = forks.get(i);
+      }
+   }
+
+   private static DecisionTreeNode[] forksOf(DecisionTreeNode node) {
+      if (node instanceof Type1Node) {
+         return ((Type1Node) node).getForks();
+      } else if (node instanceof Type2Node) {
+         return ((Type2Node) node).getForks();
+      } else if (node instanceof Type3Node) {
+         return ((Type3Node) node).getForks();
+      }
+      return null;
+   }
+
+   private static int indexOf(Feature feature, Feature[] features) {
+      for (int i = 0; i < features.length; ++i) {
+         if (features[i].equals(feature)) {
+            return i;
+         }
+      }
+      return NOT_AVAILABLE;
+   }
+}
@@ -69,6 +69,20 @@ public final int query(Map<Feature, FeatureValue> keyFeature) {
       return result.getValue();
    }
 
+   /**
+    * flattens this decision tree in primitive arrays
+    *
+    * @param features the features in the same order of the key features array used in the query
+    * @return the compiled decision tree
+    * @see CompiledDecisionTree
+    */
+   public final CompiledDecisionTree compile(Feature[] features) {
+      if (root == null) {
+         throw new IllegalStateException("Expected to find a root node to start");
+      }
+      return CompiledDecisionTree.compile(root, features);
+   }
+
    /**
     * @return the deep of the tree
     */
@@ -0,0 +1,553 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement.c50.tree;
+
+import org.infinispan.dataplacement.c50.keyfeature.Feature;
+import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
+import org.infinispan.dataplacement.c50.tree.node.DecisionTreeNode;
+import org.infinispan.dataplacement.c50.tree.node.Type0Node;
+import org.infinispan.dataplacement.c50.tree.node.Type1Node;
+import org.infinispan.dataplacement.c50.tree.node.Type2Node;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinTask;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * In-process decision tree learner. It builds the same decision trees as the C5.0 machine learner (without boosting
+ * and without the global pruning), directly from the key features in memory:
+ * <p/>
+ * - the discrete features ({@link org.infinispan.dataplacement.c50.keyfeature.NameListFeature}) generate {@link
+ * Type1Node}, with one fork for each possible value;
+ * <p/>
+ * - the continuous features ({@link org.infinispan.dataplacement.c50.keyfeature.NumericFeature}) generate {@link
+ * Type2Node}, with the cut that maximizes the information gain;
+ * <p/>
+ * - the first fork of each node is always for the keys without the feature (N/A).
+ * <p/>
+ * The attribute in each node is the one with the best gain ratio, among the attributes with at least the average
+ * information gain. The sub-trees with more than {@link #PARALLEL_THRESHOLD} keys are built in parallel in the
+ * fork-join pool.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class DecisionTreeLearner {
+
+   /**
+    * the value of the tree without keys, as in the C5.0 input.names
+    */
+   public static final int NO_OWNER = -1;
+   private static final Log log = LogFactory.getLog(DecisionTreeLearner.class);
+   private static final String CONTINUOUS = "continuous";
+   private static final int PARALLEL_THRESHOLD = 1024;
+   private static final double EPSILON = 1E-9;
+   private static final double LOG_2 = Math.log(2);
+   private static final Comparator<FeatureValue> FEATURE_VALUE_COMPARATOR = new Comparator<FeatureValue>() {
+      @Override
+      public int compare(FeatureValue value1, FeatureValue value2) {
+         if (value1.isEquals(value2)) {
+            return 0;
+         }
+         return value1.isLessOrEqualsThan(value2) ? -1 : 1;
+      }
+   };
+   private final Feature[] features;
+   private final FeatureValue[][] discreteValues;
+   private final int minCases;
+   private final ForkJoinPool pool;
+
+   /**
+    * @param features the features of the keys, in the same order as the samples values
+    * @param minCases the minimum number of keys in at least two forks of a node (the C5.0 -m option)
+    * @param pool     the pool where the trees are built
+    */
+   public DecisionTreeLearner(Feature[] features, int minCases, ForkJoinPool pool) {
+      if (minCases < 1) {
+         throw new IllegalArgumentException("Minimum number of cases should be greater than zero");
+      }
+      this.features = features;
+      this.minCases = minCases;
+      this.pool = pool;
+      this.discreteValues = new FeatureValue[features.length][];
+      for (int i = 0; i < features.length; ++i) {
+         String[] classes = features[i].getMachineLearnerClasses();
+         if (classes.length == 1 && CONTINUOUS.equals(classes[0])) {
+            continue;
+         }
+         discreteValues[i] = new FeatureValue[classes.length];
+         for (int j = 0; j < classes.length; ++j) {
+            discreteValues[i][j] = features[i].featureValueFromParser(classes[j]);
+         }
+      }
+   }
+
+   /**
+    * builds one decision tree for each classification of the samples. The trees are built concurrently.
+    *
+    * @param samples the features values of each key. {@code samples[key][feature]} is null if the key does not have
+    *                the feature
+    * @param classes the classification of each key, for each tree. {@code classes[tree][key]} is the value that the
+    *                tree should return for the key or a negative value if the key should not be used in that tree
+    * @return the decision trees, in the same order as {@code classes}
+    */
+   public final DecisionTree[] learn(FeatureValue[][] samples, int[][] classes) {
+      LearnAllTask task = new LearnAllTask(samples, classes);
+      if (pool == null) {
+         task.exec();
+      } else {
+         pool.invoke(task);
+      }
+      return task.getRawResult();
+   }
+
+   private DecisionTree learn(FeatureValue[][] samples, int[] classes) {
+      TreeData data = new TreeData(samples, classes);
+      if (data.subset.length == 0) {
+         return new DecisionTree(new Type0Node(NO_OWNER));
+      }
+      DecisionTree tree = new DecisionTree(new NodeTask(data, data.subset).compute());
+      if (log.isTraceEnabled()) {
+         log.tracef("Decision tree learned from %s keys. The deep is %s", data.subset.length, tree.getDeep());
+      }
+      return tree;
+   }
+
+   private DecisionTreeNode build(TreeData data, int[] subset) {
+      int[] classCounts = data.classCounts(subset);
+      int majority = majority(classCounts);
+
+      if (subset.length < 2 * minCases || classCounts[majority] == subset.length) {
+         return new Type0Node(data.classValues[majority]);
+      }
+
+      Split split = bestSplit(data, subset, classCounts);
+
+      if (split == null) {
+         return new Type0Node(data.classValues[majority]);
+      }
+
+      int[][] partition = partition(data, subset, split);
+      DecisionTreeNode[] forks = new DecisionTreeNode[partition.length];
+
+      if (subset.length >= PARALLEL_THRESHOLD && pool != null) {
+         NodeTask[] tasks = new NodeTask[partition.length];
+         for (int i = 0; i < partition.length; ++i) {
+            if (partition[i].length != 0) {
+               tasks[i] = new NodeTask(data, partition[i]);
+               tasks[i].fork();
+            }
+         }
+         for (int i = 0; i < partition.length; ++i) {
+            forks[i] = tasks[i] == null ? new Type0Node(data.classValues[majority]) : tasks[i].join();
+         }
+      } else {
+         for (int i = 0; i < partition.length; ++i) {
+            forks[i] = partition[i].length == 0 ? new Type0Node(data.classValues[majority]) :
+                  build(data, partition[i]);
+         }
+      }
+
+      if (sameLeafValue(forks)) {
+         //all the forks return the same value. the split is useless
+         return new Type0Node(forks[0].getValue());
+      }
+
+      Feature feature = features[split.feature];
+      int value = data.classValues[majority];
+      return split.cut == null ? new Type1Node(value, feature, forks) : new Type2Node(value, feature, forks, split.cut);
+   }
+
+   private Split bestSplit(TreeData data, int[] subset, int[] classCounts) {
+      double baseInfo = info(classCounts, subset.length);
+      Split[] candidates = new Split[features.length];
+      double gainSum = 0;
+      int numberOfCandidates = 0;
+
+      for (int i = 0; i < features.length; ++i) {
+         candidates[i] = discreteValues[i] == null ? continuousSplit(data, subset, i, baseInfo) :
+               discreteSplit(data, subset, i, baseInfo);
+         if (candidates[i] != null) {
+            gainSum += candidates[i].gain;
+            numberOfCandidates++;
+         }
+      }
+
+      if (numberOfCandidates == 0) {
+         return null;
+      }
+
+      double averageGain = gainSum / numberOfCandidates;
+      Split best = null;
+      for (Split candidate : candidates) {
+         if (candidate != null && candidate.gain >= averageGain - EPSILON &&
+               (best == null || candidate.gainRatio > best.gainRatio)) {
+            best = candidate;
+         }
+      }
+      return best;
+   }
+
+   private Split discreteSplit(TreeData data, int[] subset, int feature, double baseInfo) {
+      int numberOfForks = discreteValues[feature].length + 1;
+      int[][] forkCounts = new int[numberOfForks][data.classValues.length];
+      int[] forkSizes = new int[numberOfForks];
+
+      for (int sample : subset) {
+         int fork = data.discreteIndexes[feature][sample] + 1;
+         forkCounts[fork][data.classIndexes[sample]]++;
+         forkSizes[fork]++;
+      }
+
+      return createSplit(feature, null, baseInfo, subset.length, forkCounts, forkSizes);
+   }
+
+   private Split continuousSplit(TreeData data, int[] subset, int feature, double baseInfo) {
+      int numberOfClasses = data.classValues.length;
+      int[][] forkCounts = new int[3][numberOfClasses];
+      int[] forkSizes = new int[3];
+      Integer[] known = new Integer[subset.length];
+      int numberOfKnown = 0;
+
+      for (int sample : subset) {
+         if (data.samples[sample][feature] == null) {
+            forkCounts[0][data.classIndexes[sample]]++;
+            forkSizes[0]++;
+         } else {
+            known[numberOfKnown++] = sample;
+            forkCounts[2][data.classIndexes[sample]]++;
+            forkSizes[2]++;
+         }
+      }
+
+      if (numberOfKnown < 2 * minCases) {
+         return null;
+      }
+
+      final FeatureValue[][] samples = data.samples;
+      final int featureIndex = feature;
+      Arrays.sort(known, 0, numberOfKnown, new Comparator<Integer>() {
+         @Override
+         public int compare(Integer sample1, Integer sample2) {
+            return FEATURE_VALUE_COMPARATOR.compare(samples[sample1][featureIndex], samples[sample2][featureIndex]);
+         }
+      });
+
+      Split best = null;
+      for (int i = 0; i < numberOfKnown - 1; ++i) {
+         int classIndex = data.classIndexes[known[i]];
+         forkCounts[1][classIndex]++;
+         forkSizes[1]++;
+         forkCounts[2][classIndex]--;
+         forkSizes[2]--;
+
+         FeatureValue value = samples[known[i]][feature];
+         if (forkSizes[1] < minCases || forkSizes[2] < minCases ||
+               value.isEquals(samples[known[i + 1]][feature])) {
+            continue;
+         }
+
+         Split split = createSplit(feature, value, baseInfo, subset.length, forkCounts, forkSizes);
+         if (split != null && (best == null || split.gain > best.gain)) {
+            best = split;
+         }
+      }
+      return best;
+   }
+
+   private Split createSplit(int feature, FeatureValue cut, double baseInfo, int total, int[][] forkCounts,
+                             int[] forkSizes) {
+      int forksWithMinCases = 0;
+      double forksInfo = 0;
+      for (int i = 0; i < forkSizes.length; ++i) {
+         if (forkSizes[i] >= minCases) {
+            forksWithMinCases++;
+         }
+         if (forkSizes[i] != 0) {
+            forksInfo += forkSizes[i] * info(forkCounts[i], forkSizes[i]) / total;
+         }
+      }
+
+      if (forksWithMinCases < 2) {
+         return null;
+      }
+
+      double gain = baseInfo - forksInfo;
+      double splitInfo = info(forkSizes, total);
+      if (gain <= EPSILON || splitInfo <= EPSILON) {
+         return null;
+      }
+      return new Split(feature, cut, gain, gain / splitInfo);
+   }
+
+   private int[][] partition(TreeData data, int[] subset, Split split) {
+      int numberOfForks = split.cut == null ? discreteValues[split.feature].length + 1 : 3;
+      int[] forkOfSample = new int[subset.length];
+      int[] forkSizes = new int[numberOfForks];
+
+      for (int i = 0; i < subset.length; ++i) {
+         int fork;
+         if (split.cut == null) {
+            fork = data.discreteIndexes[split.feature][subset[i]] + 1;
+         } else {
+            FeatureValue value = data.samples[subset[i]][split.feature];
+            fork = value == null ? 0 : (value.isLessOrEqualsThan(split.cut) ? 1 : 2);
+         }
+         forkOfSample[i] = fork;
+         forkSizes[fork]++;
+      }
+
+      int[][] partition = new int[numberOfForks][];
+      for (int i = 0; i < numberOfForks; ++i) {
+         partition[i] = new int[forkSizes[i]];
+         forkSizes[i] = 0;
+      }
+      for (int i = 0; i < subset.length; ++i) {
+         int fork = forkOfSample[i];
+         partition[fork][forkSizes[fork]++] = subset[i];
+      }
+      return partition;
+   }
+
+   private static boolean sameLeafValue(DecisionTreeNode[] forks) {
+      for (DecisionTreeNode fork : forks) {
+         if (!(fork instanceof Type0Node) || fork.getValue() != forks[0].getValue()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static int majority(int[] classCounts) {
+      int majority = 0;
+      for (int i = 1; i < classCounts.length; ++i) {
+         if (classCounts[i] > classCounts[majority]) {
+            majority = i;
+         }
+      }
+      return majority;
+   }
+
+   private static double info(int[] counts, int total) {
+      double info = 0;
+      for (int count : counts) {
+         if (count != 0) {
+            double probability = (double) count / total;
+            info -= probability * Math.log(probability) / LOG_2;
+         }
+      }
+      return info;
+   }
+
+   private static class Split {
+      private final int feature;
+      private final FeatureValue cut;
+      private final double gain;
+      private final double gainRatio;
+
+      private Split(int feature, FeatureValue cut, double gain, double gainRatio) {
+         this.feature = feature;
+         this.cut = cut;
+         this.gain = gain;
+         this.gainRatio = gainRatio;
+      }
+   }
+
+   /**
+    * the samples used to build a tree, with the classes and the discrete features values converted to indexes
+    */
+   private class TreeData {
+      private final FeatureValue[][] samples;
+      private final int[] classValues;
+      private final int[] classIndexes;
+      private final int[][] discreteIndexes;
+      private final int[] subset;
+
+      private TreeData(FeatureValue[][] samples, int[] classes) {
+         this.samples = samples;
+         TreeSet<Integer> distinctClasses = new TreeSet<Integer>();
+         int numberOfSamples = 0;
+         for (int value : classes) {
+            if (value >= 0) {
+               distinctClasses.add(value);
+               numberOfSamples++;
+            }
+         }
+
+         classValues = new int[distinctClasses.size()];
+         int index = 0;
+         for (int value : distinctClasses) {
+            classValues[index++] = value;
+         }
+
+         subset = new int[numberOfSamples];
+         classIndexes = new int[samples.length];
+         index = 0;
+         for (int i = 0; i < classes.length; ++i) {
+            if (classes[i] >= 0) {
+               subset[index++] = i;
+               classIndexes[i] = Arrays.binarySearch(classValues, classes[i]);
+            }
+         }
+
+         discreteIndexes = new int[features.length][];
+         for (int feature = 0; feature < features.length; ++feature) {
+            if (discreteValues[feature] != null) {
+               discreteIndexes[feature] = new int[samples.length];
+               for (int sample : subset) {
+                  discreteIndexes[feature][sample] = discreteIndex(feature, samples[sample][feature]);
+               }
+            }
+         }
+      }
+
+      private int[] classCounts(int[] subset) {
+         int[] counts = new int[classValues.length];
+         for (int sample : subset) {
+            counts[classIndexes[sample]]++;
+         }
+         return counts;
+      }
+
+      /**
+       * @return the index of the value in the feature possible values or -1 if the value is not available. The
+       *         values that does not match any possible value are not available.
+       */
+      private int discreteIndex(int feature, FeatureValue value) {
+         if (value != null) {
+            FeatureValue[] possibleValues = discreteValues[feature];
+            for (int i = 0; i < possibleValues.length; ++i) {
+               if (possibleValues[i].isEquals(value)) {
+                  return i;
+               }
+            }
+         }
+         return -1;
+      }
+   }
+
+   private class NodeTask extends ForkJoinTask<DecisionTreeNode> {
+      private final TreeData data;
+      private final int[] subset;
+      private DecisionTreeNode result;
+
+      private NodeTask(TreeData data, int[] subset) {
+         this.data = data;
+         this.subset = subset;
+      }
+
+      @Override
+      public DecisionTreeNode getRawResult() {
+         return result;
+      }
+
+      @Override
+      protected void setRawResult(DecisionTreeNode value) {
+         this.result = value;
+      }
+
+      @Override
+      protected boolean exec() {
+         result = build(data, subset);
+         return true;
+      }
+
+      private DecisionTreeNode compute() {
+         exec();
+         return result;
+      }
+   }
+
+   private class LearnAllTask extends ForkJoinTask<DecisionTree[]> {
+      private final FeatureValue[][] samples;
+      private final int[][] classes;
+      private DecisionTree[] result;
+
+      private LearnAllTask(FeatureValue[][] samples, int[][] classes) {
+         this.samples = samples;
+         this.classes = classes;
+      }
+
+      @Override
+      public DecisionTree[] getRawResult() {
+         return result;
+      }
+
+      @Override
+      protected void setRawResult(DecisionTree[] value) {
+         this.result = value;
+      }
+
+      @Override
+      protected boolean exec() {
+         DecisionTree[] trees = new DecisionTree[classes.length];
+         if (pool == null || classes.length == 1) {
+            for (int i = 0; i < classes.length; ++i) {
+               trees[i] = learn(samples, classes[i]);
+            }
+         } else {
+            LearnTask[] tasks = new LearnTask[classes.length];
+            for (int i = 0; i < classes.length; ++i) {
+               tasks[i] = new LearnTask(samples, classes[i]);
+               tasks[i].fork();
+            }
+            for (int i = 0; i < classes.length; ++i) {
+               trees[i] = tasks[i].join();
+            }
+         }
+         result = trees;
+         return true;
+      }
+   }
+
+   private class LearnTask extends ForkJoinTask<DecisionTree> {
+      private final FeatureValue[][] samples;
+      private final int[] classes;
+      private DecisionTree result;
+
+      private LearnTask(FeatureValue[][] samples, int[] classes) {
+         this.samples = samples;
+         this.classes = classes;
+      }
+
+      @Override
+      public DecisionTree getRawResult() {
+         return result;
+      }
+
+      @Override
+      protected void setRawResult(DecisionTree value) {
+         this.result = value;
+      }
+
+      @Override
+      protected boolean exec() {
+         result = learn(samples, classes);
+         return true;
+      }
+   }
+}
@@ -100,6 +100,21 @@ public int getValue() {
       return value;
    }
 
+   public final Feature getFeature() {
+      return feature;
+   }
+
+   public final DecisionTreeNode[] getForks() {
+      return forks;
+   }
+
+   /**
+    * @return the feature value that leads to each fork, starting in the second fork (the first is the N/A)
+    */
+   public final FeatureValue[] getAttributeValues() {
+      return attributeValues;
+   }
+
    @Override
    public int getDeep() {
       int maxDeep = 0;
@@ -96,6 +96,18 @@ public int getValue() {
       return value;
    }
 
+   public final Feature getFeature() {
+      return feature;
+   }
+
+   public final DecisionTreeNode[] getForks() {
+      return forks;
+   }
+
+   public final FeatureValue getCut() {
+      return cut;
+   }
+
    @Override
    public int getDeep() {
       int maxDeep = 0;
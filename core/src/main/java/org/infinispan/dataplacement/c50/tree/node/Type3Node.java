@@ -103,6 +103,21 @@ public int getValue() {
       return value;
    }
 
+   public final Feature getFeature() {
+      return feature;
+   }
+
+   public final DecisionTreeNode[] getForks() {
+      return forks;
+   }
+
+   /**
+    * @return the feature values that leads to each fork, starting in the second fork (the first is the N/A)
+    */
+   public final InternalEltsValues[] getEltsValues() {
+      return values;
+   }
+
    @Override
    public int getDeep() {
       int maxDeep = 0;
@@ -123,6 +138,10 @@ public InternalEltsValues(Collection<String> eltsValues, Feature feature) {
          }
       }
 
+      public final FeatureValue[] getValues() {
+         return values;
+      }
+
       @Override
       public String toString() {
          return "InternalEltsValues{" +
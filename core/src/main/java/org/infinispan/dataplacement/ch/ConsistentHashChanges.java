@@ -23,6 +23,11 @@
 package org.infinispan.dataplacement.ch;
 
 import org.infinispan.dataplacement.ClusterObjectLookup;
+import org.infinispan.dataplacement.ClusterSnapshot;
+import org.infinispan.dataplacement.lookup.ObjectLookup;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * // TODO: Document this
@@ -34,6 +39,9 @@ public class ConsistentHashChanges {
 
    private ClusterObjectLookup newMappings;
    private int newReplicationDegree;
+   //object lookups of the segments that changed, not yet merged in the new mappings
+   private Map<Integer, ObjectLookup> newSegmentMappings;
+   private ClusterSnapshot segmentMappingsSnapshot;
 
    public ConsistentHashChanges() {
       newMappings = null;
@@ -48,6 +56,34 @@ public final void setNewMappings(ClusterObjectLookup newMappings) {
       this.newMappings = newMappings;
    }
 
+   /**
+    * adds the object lookups of the segments that changed. If the cluster snapshot is different from the previous
+    * pending segments, the previous pending segments are discarded
+    *
+    * @param segmentObjectLookups the object lookups per segment ({@code null} removes the segment mapping)
+    * @param clusterSnapshot      the cluster snapshot used to create the object lookups
+    */
+   public final void addSegmentMappings(Map<Integer, ObjectLookup> segmentObjectLookups, ClusterSnapshot clusterSnapshot) {
+      if (newSegmentMappings == null || !clusterSnapshot.equals(segmentMappingsSnapshot)) {
+         newSegmentMappings = new HashMap<Integer, ObjectLookup>();
+         segmentMappingsSnapshot = clusterSnapshot;
+      }
+      newSegmentMappings.putAll(segmentObjectLookups);
+   }
+
+   public final Map<Integer, ObjectLookup> getNewSegmentMappings() {
+      return newSegmentMappings;
+   }
+
+   public final ClusterSnapshot getSegmentMappingsSnapshot() {
+      return segmentMappingsSnapshot;
+   }
+
+   public final void clearSegmentMappings() {
+      newSegmentMappings = null;
+      segmentMappingsSnapshot = null;
+   }
+
    public final int getNewReplicationDegree() {
       return newReplicationDegree;
    }
@@ -57,6 +93,6 @@ public final void setNewReplicationDegree(int newReplicationDegree) {
    }
 
    public final boolean hasChanges() {
-      return newMappings != null || newReplicationDegree != -1;
+      return newMappings != null || newReplicationDegree != -1 || newSegmentMappings != null;
    }
 }
@@ -24,6 +24,8 @@
 
 import org.infinispan.commons.hash.Hash;
 import org.infinispan.dataplacement.ClusterObjectLookup;
+import org.infinispan.dataplacement.ClusterSnapshot;
+import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.marshall.AbstractExternalizer;
 import org.infinispan.marshall.Ids;
@@ -41,6 +43,7 @@
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -55,11 +58,14 @@
    //one object lookup per segment
    private final List<ClusterObjectLookup> clusterObjectLookupList;
    private final boolean union;
+   //the owners computed by this instance. null if there is nothing to cache
+   private final OwnersCache ownersCache;
 
    public DataPlacementConsistentHash(CH consistentHash) {
       this.consistentHash = consistentHash;
       this.clusterObjectLookupList = InfinispanCollections.emptyList();
       this.union = false;
+      this.ownersCache = null;
    }
 
    public DataPlacementConsistentHash(CH consistentHash, ClusterObjectLookup clusterObjectLookup) {
@@ -70,6 +76,7 @@ public DataPlacementConsistentHash(CH consistentHash, ClusterObjectLookup cluste
          this.clusterObjectLookupList = Collections.singletonList(clusterObjectLookup);
       }
       this.union = false;
+      this.ownersCache = createOwnersCache(clusterObjectLookupList);
    }
 
    public DataPlacementConsistentHash(DataPlacementConsistentHash<CH> baseCH, CH consistentHash) {
@@ -80,12 +87,14 @@ public DataPlacementConsistentHash(DataPlacementConsistentHash<CH> baseCH, CH co
          this.clusterObjectLookupList = Collections.singletonList(baseCH.getClusterObjectLookupList().get(0));
       }
       this.union = false;
+      this.ownersCache = createOwnersCache(clusterObjectLookupList);
    }
 
    private DataPlacementConsistentHash(CH consistentHash, List<ClusterObjectLookup> clusterObjectLookups, boolean union) {
       this.consistentHash = consistentHash;
       this.clusterObjectLookupList = clusterObjectLookups;
       this.union = union;
+      this.ownersCache = createOwnersCache(clusterObjectLookupList);
    }
 
    @Override
@@ -110,27 +119,18 @@ public List<Address> getMembers() {
 
    @Override
    public Address locatePrimaryOwner(Object key) {
-      if (union) {
+      if (clusterObjectLookupList.isEmpty()) {
          return consistentHash.locatePrimaryOwner(key);
       }
-      List<Address> newOwners = getNewOwnersForKey(key, 1);
-      return newOwners == null || newOwners.isEmpty() ? consistentHash.locatePrimaryOwner(key) :
-            newOwners.get(0);
+      return getOwners(key).getPrimaryOwner();
    }
 
    @Override
    public List<Address> locateOwners(Object key) {
-      List<Address> newOwners = getNewOwnersForKey(key, union ? Integer.MAX_VALUE : consistentHash.getNumOwners());
-      List<Address> defaultOwners = consistentHash.locateOwners(key);
-
-      if (union) {
-         List<Address> union = new LinkedList<Address>(defaultOwners);
-         mergeUnique(union, newOwners);
-         return union;
+      if (clusterObjectLookupList.isEmpty()) {
+         return consistentHash.locateOwners(key);
       }
-
-      return newOwners == null || newOwners.isEmpty() ? defaultOwners :
-            merge(defaultOwners, newOwners, defaultOwners.size());
+      return getOwners(key).getOwners();
    }
 
    @Override
@@ -195,10 +195,32 @@ public int hashCode() {
       return result;
    }
 
+   /**
+    * @return the owners cache of this consistent hash or null if it does not have new owners to cache
+    */
+   public final OwnersCache getOwnersCache() {
+      return ownersCache;
+   }
+
    public final List<ClusterObjectLookup> getClusterObjectLookupList() {
       return clusterObjectLookupList;
    }
 
+   /**
+    * merges the new object lookups of some segments with the current mapping of this consistent hash
+    *
+    * @param segmentObjectLookups the new object lookups for each segment. {@code null} removes the segment mapping
+    * @param clusterSnapshot      the cluster snapshot used to create the new object lookups
+    * @return the merged cluster object lookup
+    * @see ClusterObjectLookup#merge(ClusterObjectLookup, java.util.Map, org.infinispan.dataplacement.ClusterSnapshot,
+    *      int)
+    */
+   public final ClusterObjectLookup mergeSegmentMappings(Map<Integer, ObjectLookup> segmentObjectLookups,
+                                                         ClusterSnapshot clusterSnapshot) {
+      ClusterObjectLookup current = clusterObjectLookupList.isEmpty() ? null : clusterObjectLookupList.get(0);
+      return ClusterObjectLookup.merge(current, segmentObjectLookups, clusterSnapshot, getNumSegments());
+   }
+
    public final DataPlacementConsistentHash<CH> union(DataPlacementConsistentHash<CH> baseCH, CH unionCH) {
       List<ClusterObjectLookup> union = new LinkedList<ClusterObjectLookup>();
       union.addAll(getClusterObjectLookupList());
@@ -214,7 +236,46 @@ public String toString() {
             '}';
    }
 
-   private List<Address> merge(List<Address> defaultOwners, List<Address> newOwners, int numberOfOwners) {
+   private static OwnersCache createOwnersCache(List<ClusterObjectLookup> clusterObjectLookups) {
+      return clusterObjectLookups.isEmpty() || OwnersCache.CAPACITY <= 0 ? null : new OwnersCache(OwnersCache.CAPACITY);
+   }
+
+   private OwnersCache.CachedOwners getOwners(Object key) {
+      if (ownersCache == null) {
+         return computeOwners(key);
+      }
+      OwnersCache.CachedOwners cachedOwners = ownersCache.get(key);
+      if (cachedOwners == null) {
+         cachedOwners = computeOwners(key);
+         ownersCache.put(key, cachedOwners);
+      }
+      return cachedOwners;
+   }
+
+   private OwnersCache.CachedOwners computeOwners(Object key) {
+      List<Address> defaultOwners = consistentHash.locateOwners(key);
+
+      if (union) {
+         List<Address> unionOwners = new ArrayList<Address>(defaultOwners);
+         mergeUnique(unionOwners, getNewOwnersForKey(key, Integer.MAX_VALUE));
+         return new OwnersCache.CachedOwners(Collections.unmodifiableList(unionOwners),
+                                             consistentHash.locatePrimaryOwner(key));
+      }
+
+      List<Address> newOwners = getNewOwnersForKey(key, consistentHash.getNumOwners());
+      if (newOwners.isEmpty()) {
+         return new OwnersCache.CachedOwners(defaultOwners, consistentHash.locatePrimaryOwner(key));
+      }
+      //the primary owner is the first new owner. it must be read before the merge since it changes the list
+      Address primaryOwner = newOwners.get(0);
+      return new OwnersCache.CachedOwners(Collections.unmodifiableList(merge(defaultOwners, newOwners,
+                                                                             defaultOwners.size())),
+                                          primaryOwner);
+   }
+
+   private List<Address> merge(List<Address> defaultOwnersList, List<Address> newOwners, int numberOfOwners) {
+      //the default owners list can be immutable
+      List<Address> defaultOwners = new LinkedList<Address>(defaultOwnersList);
       List<Address> merged = new ArrayList<Address>(numberOfOwners);
       //first put owners that are in the default and new owners list
       for (Iterator<Address> iterator = defaultOwners.iterator(); iterator.hasNext() && merged.size() < numberOfOwners; ) {
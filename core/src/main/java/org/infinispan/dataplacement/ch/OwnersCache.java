@@ -0,0 +1,130 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement.ch;
+
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.jdk8backported.LongAdder;
+
+import java.util.List;
+
+/**
+ * A bounded cache with the owners computed by the {@link DataPlacementConsistentHash} for each key.
+ * <p/>
+ * Each {@link DataPlacementConsistentHash} instance has its own cache. Since the consistent hash is immutable and a
+ * new instance is installed when the cluster object lookups or the default consistent hash changes, the cache is
+ * discarded atomically with the topology that computed its owners.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public final class OwnersCache {
+
+   /**
+    * the maximum number of keys in the cache. zero disables the cache
+    */
+   public static final int CAPACITY = Integer.getInteger("infinispan.dataplacement.owners_cache_size", 16384);
+   private static final int CONCURRENCY_LEVEL = 32;
+   private final BoundedConcurrentHashMap<Object, CachedOwners> cache;
+   private final LongAdder hits;
+   private final LongAdder misses;
+
+   public OwnersCache(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Capacity should be greater than zero");
+      }
+      cache = new BoundedConcurrentHashMap<Object, CachedOwners>(capacity, CONCURRENCY_LEVEL,
+                                                                 BoundedConcurrentHashMap.Eviction.LRU);
+      hits = new LongAdder();
+      misses = new LongAdder();
+   }
+
+   /**
+    * @param key the key
+    * @return the cached owners of the key or null if they are not cached
+    */
+   public final CachedOwners get(Object key) {
+      CachedOwners cachedOwners = cache.get(key);
+      if (cachedOwners == null) {
+         misses.increment();
+      } else {
+         hits.increment();
+      }
+      return cachedOwners;
+   }
+
+   public final void put(Object key, CachedOwners cachedOwners) {
+      cache.put(key, cachedOwners);
+   }
+
+   public final long getHits() {
+      return hits.sum();
+   }
+
+   public final long getMisses() {
+      return misses.sum();
+   }
+
+   /**
+    * @return the hit ratio, between 0 and 1, or 0 if the cache was never queried
+    */
+   public final double getHitRatio() {
+      long hits = this.hits.sum();
+      long total = hits + misses.sum();
+      return total == 0 ? 0 : (double) hits / total;
+   }
+
+   public final int size() {
+      return cache.size();
+   }
+
+   @Override
+   public String toString() {
+      return "OwnersCache{" +
+            "size=" + cache.size() +
+            ", hits=" + hits.sum() +
+            ", misses=" + misses.sum() +
+            '}';
+   }
+
+   /**
+    * the owners and the primary owner of a key. The owners list is immutable
+    */
+   public static class CachedOwners {
+      private final List<Address> owners;
+      private final Address primaryOwner;
+
+      public CachedOwners(List<Address> owners, Address primaryOwner) {
+         this.owners = owners;
+         this.primaryOwner = primaryOwner;
+      }
+
+      public final List<Address> getOwners() {
+         return owners;
+      }
+
+      public final Address getPrimaryOwner() {
+         return primaryOwner;
+      }
+   }
+}
@@ -26,9 +26,9 @@
 import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.dataplacement.stats.IncrementableLong;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -40,36 +40,53 @@
  */
 public class HashMapObjectLookup implements ObjectLookup {
 
-   private final Map<Object, List<Integer>> lookup;
+   private final Map<Object, int[]> lookup;
 
    public HashMapObjectLookup(Iterator<SegmentMapping.KeyOwners> iterator) {
-      lookup = new HashMap<Object, List<Integer>>();
+      lookup = new HashMap<Object, int[]>();
 
       while (iterator.hasNext()) {
          SegmentMapping.KeyOwners owners = iterator.next();
-         List<Integer> list = new LinkedList<Integer>();
-         for (int index : owners.getOwnerIndexes()) {
-            list.add(index);
-         }
-         lookup.put(owners.getKey(), list);
+         lookup.put(owners.getKey(), owners.getOwnerIndexes());
       }
    }
 
    @Override
    public List<Integer> query(Object key) {
+      return toList(lookup.get(key));
+   }
+
+   /**
+    * @return the owners indexes of the key. The array is not copied and it is shared by all the queries of the key, so
+    *         it must not be modified. The callers, such as the {@link org.infinispan.dataplacement.ClusterObjectLookup},
+    *         only read it to build the owners list
+    */
+   @Override
+   public int[] queryOwners(Object key) {
       return lookup.get(key);
    }
 
    @Override
    public List<Integer> queryWithProfiling(Object key, IncrementableLong[] phaseDurations) {
       long start = System.nanoTime();
-      List<Integer> result = lookup.get(key);
+      int[] result = lookup.get(key);
       long end = System.nanoTime();
 
       if (phaseDurations.length == 1) {
          phaseDurations[0].add(end - start);
       }
 
-      return result;
+      return toList(result);
+   }
+
+   private static List<Integer> toList(int[] ownersIndexes) {
+      if (ownersIndexes == null) {
+         return null;
+      }
+      List<Integer> list = new ArrayList<Integer>(ownersIndexes.length);
+      for (int index : ownersIndexes) {
+         list.add(index);
+      }
+      return list;
    }
 }
@@ -56,4 +56,9 @@ public void init(Collection<ObjectLookup> objectLookup) {
    public int getNumberOfQueryProfilingPhases() {
       return 1;
    }
+
+   @Override
+   public void stop() {
+      //nothing to release
+   }
 }
@@ -43,6 +43,15 @@ public interface ObjectLookup extends Serializable {
     */
    List<Integer> query(Object key);
 
+   /**
+    * the same as {@link #query(Object)} but it returns the owners index in an array. This is the method used in the
+    * keys lookup, so it should avoid the creation of objects. The array returned should not be modified
+    *
+    * @param key the key to find
+    * @return the owners index where the key is or null if the key was not moved
+    */
+   int[] queryOwners(Object key);
+
    /**
     * the same as {@link #query(Object)} but it profiling information
     *
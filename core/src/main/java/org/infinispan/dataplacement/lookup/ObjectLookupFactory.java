@@ -64,4 +64,9 @@ public interface ObjectLookupFactory {
     * @return the number of phases when the query profiling
     */
    int getNumberOfQueryProfilingPhases();
+
+   /**
+    * releases the resources used by this object lookup factory. It is invoked when the cache stops
+    */
+   void stop();
 }
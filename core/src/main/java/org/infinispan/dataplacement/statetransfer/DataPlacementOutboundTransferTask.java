@@ -48,11 +48,11 @@
 public class DataPlacementOutboundTransferTask extends OutboundTransferTask {
 
    public DataPlacementOutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
-                                            int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider,
+                                            int maxChunksInFlight, int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider,
                                             ConsistentHash writeCh, DataContainer dataContainer,
                                             CacheLoaderManager cacheLoaderManager, RpcManager rpcManager,
                                             CommandsFactory commandsFactory, long timeout, String cacheName, CommitLog commitLog) {
-      super(destination, segments, stateTransferChunkSize, topologyId, readCh, stateProvider, writeCh, dataContainer,
+      super(destination, segments, stateTransferChunkSize, maxChunksInFlight, topologyId, readCh, stateProvider, writeCh, dataContainer,
             cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName, commitLog);
    }
 
@@ -41,7 +41,7 @@ public class DataPlacementStateProvider extends StateProviderImpl {
 
    @Override
    protected OutboundTransferTask createTask(Address destination, Set<Integer> segments, CacheTopology cacheTopology) {
-      return new DataPlacementOutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
+      return new DataPlacementOutboundTransferTask(destination, segments, chunkSize, chunksInFlight, cacheTopology.getTopologyId(),
                                                    cacheTopology.getReadConsistentHash(), this,
                                                    cacheTopology.getWriteConsistentHash(), dataContainer,
                                                    cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName,
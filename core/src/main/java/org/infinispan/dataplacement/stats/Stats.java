@@ -148,6 +148,18 @@ public final void setObjectLookupCreationDuration(long duration) {
       this.duration.put(Duration.OBJECT_LOOKUP_CREATION, duration);
    }
 
+   public final void setNewOwnersCalculationDuration(long duration) {
+      this.duration.put(Duration.NEW_OWNERS_CALCULATION, duration);
+   }
+
+   public final void newOwnersCalculationFootprint(long value) {
+      messageSizes.put(Size.NEW_OWNERS_FOOTPRINT, (int) Math.min(Integer.MAX_VALUE, value));
+   }
+
+   public final void agedKeys(int value) {
+      counters.get(Counter.AGED_KEYS).increment(value);
+   }
+
    public final void saveTo(BufferedWriter writer, boolean printHeader) {
       if (log.isTraceEnabled()) {
          log.tracef("Saving statistics to %s. print headers? %s", writer, printHeader);
@@ -258,7 +270,11 @@ private static enum Counter {
       /**
        * the total number of keys to move
        */
-      TOTAL_KEYS_TO_MOVE
+      TOTAL_KEYS_TO_MOVE,
+      /**
+       * the number of keys moved in previous rounds that returned to the default owners because they were not requested
+       */
+      AGED_KEYS
    }
 
    private static enum Size {
@@ -275,14 +291,22 @@ private static enum Size {
        */
       BLOOM_FILTER,
       MACHINE_LEARNER_1,
-      MACHINE_LEARNER_2
+      MACHINE_LEARNER_2,
+      /**
+       * approximated memory (in bytes) used to calculate the new owners
+       */
+      NEW_OWNERS_FOOTPRINT
    }
 
    private static enum Duration {
       /**
        * time (in nanoseconds) to create the object lookup
        */
-      OBJECT_LOOKUP_CREATION
+      OBJECT_LOOKUP_CREATION,
+      /**
+       * time (in nanoseconds) to calculate the new owners
+       */
+      NEW_OWNERS_CALCULATION
    }
 
    private class IncrementalInteger {
@@ -26,6 +26,8 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
 import org.infinispan.container.gmu.GMUDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.container.offheap.OffHeapGMUDataContainer;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
@@ -76,12 +78,22 @@ public <T> T construct(Class<T> componentType) {
    }
 
    private DataContainer unBoundedDataContainer(boolean serializable, int level) {
+      if (configuration.dataContainer().offHeap()) {
+         int slabSize = configuration.dataContainer().offHeapSlabSize();
+         return serializable ? OffHeapGMUDataContainer.unBoundedDataContainer(level, slabSize) :
+               OffHeapDataContainer.unBoundedDataContainer(level, slabSize);
+      }
       return serializable ? GMUDataContainer.unBoundedDataContainer(level) :
             DefaultDataContainer.unBoundedDataContainer(level);
    }
 
    private DataContainer boundedDataContainer(boolean serializable, int level, int maxEntries, EvictionStrategy st,
                                               EvictionThreadPolicy policy) {
+      if (configuration.dataContainer().offHeap()) {
+         int slabSize = configuration.dataContainer().offHeapSlabSize();
+         return serializable ? OffHeapGMUDataContainer.boundedDataContainer(level, slabSize, maxEntries, st, policy) :
+               OffHeapDataContainer.boundedDataContainer(level, slabSize, maxEntries, st, policy);
+      }
       return serializable ? GMUDataContainer.boundedDataContainer(level, maxEntries, st, policy) :
             DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy);
    }
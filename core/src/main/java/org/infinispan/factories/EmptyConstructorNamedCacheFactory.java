@@ -155,7 +155,7 @@ public <T> T construct(Class<T> componentType) {
             return (T) new BackupSenderImpl(globalConfiguration.sites().localSite());
          } else if (componentType.equals(TotalOrderManager.class)) {
             return (T) (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE ?
-                              new GMUTotalOrderManager() :
+                              new GMUTotalOrderManager(configuration.transaction().totalOrderAdmissionLanes()) :
                               new DefaultTotalOrderManager());
          } else if (componentType.equals(DataPlacementManager.class)){
                return (T) new DataPlacementManager();
@@ -27,6 +27,7 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.tx.RollbackCommand;
@@ -39,6 +40,8 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.Map;
+
 /**
  * Always at the end of the chain, directly in front of the cache. Simply calls into the cache using reflection. If the
  * call resulted in a modification, add the Modification to the end of the modification list keyed by the current
@@ -104,6 +107,18 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return ret;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      if (trace) log.trace("Executing command: " + command + ".");
+      Map<Object, Object> ret = (Map<Object, Object>) command.perform(ctx);
+      for (Map.Entry<Object, Object> entry : ret.entrySet()) {
+         notifier.notifyCacheEntryVisited(entry.getKey(), entry.getValue(), true, ctx);
+         notifier.notifyCacheEntryVisited(entry.getKey(), entry.getValue(), false, ctx);
+      }
+      return ret;
+   }
+
    @Override
    final public Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
       if (trace) log.trace("Executing command: " + command + ".");
@@ -24,6 +24,7 @@
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.write.ApplyDeltaCommand;
@@ -130,6 +131,20 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       }
    }
 
+   @Override
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      try {
+         for (Object key : command.getKeys()) {
+            wrapEntryForReading(ctx, key, command);
+         }
+         return invokeNextInterceptor(ctx, command);
+      } finally {
+         //needed because entries might be added in L1
+         if (!ctx.isInTxScope())
+            commitContextEntries(ctx, command.hasFlag(Flag.SKIP_OWNERSHIP_CHECK), false);
+      }
+   }
+
    @Override
    public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand command) throws Throwable {
       if (command.getKeys() != null) {
@@ -360,10 +375,18 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
       }
    }
 
+   /**
+    * wraps the entry of one of the keys of the {@link GetManyCommand}
+    */
+   protected void wrapEntryForReading(InvocationContext ctx, Object key, GetManyCommand command) throws Throwable {
+      checkIfKeyRead(ctx, key, command);
+      entryFactory.wrapEntryForReading(ctx, key);
+   }
+
    /**
     * invoked when a command that may return a value to the application, it has the logic of keep track of the keys read
     * by the transaction. This information is later used to perform the write skew check.
-    * 
+    *
     * @param context the invocation context
     * @param key     the key accessed
     * @param command the visitable command (can be a read or write command)
@@ -30,11 +30,13 @@
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 
+import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.SetTransactionClassCommand;
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.ShadowTransactionCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.tx.AbstractTransactionBoundaryCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -287,6 +289,11 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return enlistReadAndInvokeNext(ctx, command);
    }
 
+   @Override
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      return enlistReadAndInvokeNext(ctx, command);
+   }
+
    @Override
    public Object visitSetTransactionClassCommand(InvocationContext ctx, SetTransactionClassCommand command) throws Throwable {
       return enlistReadAndInvokeNext(ctx, command);
@@ -299,9 +306,21 @@ public Object visitShadowTransactionCommand(InvocationContext ctx, ShadowTransac
 
    private Object enlistReadAndInvokeNext(InvocationContext ctx, VisitableCommand command) throws Throwable {
       enlistIfNeeded(ctx);
+      if (shouldEnlist(ctx) && command instanceof FlagAffectedCommand &&
+            ((FlagAffectedCommand) command).hasFlag(Flag.READ_ONLY_TRANSACTION)) {
+         markDeclaredReadOnly((TxInvocationContext) ctx);
+      }
       return invokeNextInterceptor(ctx, command);
    }
 
+   private void markDeclaredReadOnly(TxInvocationContext ctx) {
+      if (ctx.hasModifications()) {
+         throw new IllegalStateException("Transaction " + ctx.getGlobalTransaction().globalId() +
+                                               " has already written and cannot be declared read-only");
+      }
+      ((LocalTransaction) ctx.getCacheTransaction()).markDeclaredReadOnly();
+   }
+
    private void enlistIfNeeded(InvocationContext ctx) throws SystemException {
       if (shouldEnlist(ctx)) {
          LocalTransaction localTransaction = enlist((TxInvocationContext) ctx);
@@ -320,6 +339,10 @@ private Object enlistWriteAndInvokeNext(InvocationContext ctx, WriteCommand comm
             // mark the transaction as originating from state transfer as early as possible
             localTransaction.setFromStateTransfer(true);
          }
+         if (localTransaction.isDeclaredReadOnly()) {
+            throw new IllegalStateException("Transaction " + localTransaction.getGlobalTransaction().globalId() +
+                                                  " was declared read-only and cannot write");
+         }
       }
       Object rv;
       try {
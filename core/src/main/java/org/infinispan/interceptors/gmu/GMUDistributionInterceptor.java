@@ -24,7 +24,9 @@
 
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.container.entries.CacheEntry;
@@ -35,6 +37,7 @@
 import org.infinispan.container.gmu.L1GMUContainer;
 import org.infinispan.container.versioning.VersionGenerator;
 import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionAccumulator;
 import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -59,10 +62,12 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -167,22 +172,33 @@ protected void storeInL1(Object key, InternalCacheEntry ice, InvocationContext c
       }
    }
 
+   @Override
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      if (ctx.isOriginLocal() && ctx instanceof TxInvocationContext) {
+         retrieveManyFromRemoteSources((TxInvocationContext) ctx, command);
+      }
+      return invokeNextInterceptor(ctx, command);
+   }
+
    protected boolean needsRemoteGet(InvocationContext ctx, AbstractDataCommand command) {
+      return needsRemoteGet(ctx, command.getKey(), command);
+   }
+
+   private boolean needsRemoteGet(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       if (command.hasFlag(Flag.CACHE_MODE_LOCAL)
             || command.hasFlag(Flag.SKIP_REMOTE_LOOKUP)
             || command.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
          return false;
       }
       boolean shouldFetchFromRemote = false;
-      CacheEntry entry = ctx.lookupEntry(command.getKey());
+      CacheEntry entry = ctx.lookupEntry(key);
       if (entry == null || entry.isNull() || entry.isLockPlaceholder()) {
-         Object key = command.getKey();
          ConsistentHash ch = stateTransferManager.getCacheTopology().getReadConsistentHash();
          shouldFetchFromRemote = ctx.isOriginLocal() && !ch.isKeyLocalToNode(rpcManager.getAddress(), key) &&
                (!dataContainer.containsKey(key, null) || cacheConfiguration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE);
 
 
-         InternalGMUCacheEntry igmuce = ctx.getKeysReadInCommand().get(command.getKey());
+         InternalGMUCacheEntry igmuce = ctx.getKeysReadInCommand().get(key);
          boolean unsafeToRead = igmuce != null && igmuce.isUnsafeToRead();
          shouldFetchFromRemote = shouldFetchFromRemote || (ctx.isOriginLocal() && unsafeToRead);
          if (!shouldFetchFromRemote && getLog().isTraceEnabled()) {
@@ -316,6 +332,150 @@ private InternalCacheEntry retrieveTransactionalGetFromRemoteSource(Object key,
       return gmuCacheEntry;
    }
 
+   /**
+    * fetches the keys not owned by this node. The keys are grouped by primary owner and each owner receives a single
+    * {@link GMUClusteredGetManyCommand}. The owners are contacted one after the other and the transaction version is
+    * updated between them, so the reads are the same as if the keys were read one by one.
+    * <p/>
+    * The keys that cannot be fetched in batch (rehash in progress, not available in the primary owner, etc.) are
+    * fetched with the {@link org.infinispan.commands.remote.GMUClusteredGetCommand}.
+    */
+   private void retrieveManyFromRemoteSources(TxInvocationContext ctx, GetManyCommand command) throws Throwable {
+      final boolean rehashInProgress = stateTransferManager.getCacheTopology().getPendingCH() != null;
+      final List<Address> members = rpcManager.getTransport().getMembers();
+      final ConsistentHash readCH = stateTransferManager.getCacheTopology().getReadConsistentHash();
+      final Map<Address, List<Object>> keysByOwner = new LinkedHashMap<Address, List<Object>>();
+      final List<Object> singleKeys = new ArrayList<Object>();
+
+      for (Object key : command.getKeys()) {
+         if (!needsRemoteGet(ctx, key, command) || retrieveFromL1(key, ctx)) {
+            continue;
+         }
+         Address primaryOwner = null;
+         if (!rehashInProgress) {
+            for (Address owner : readCH.locateOwners(key)) {
+               if (members.contains(owner)) {
+                  primaryOwner = owner;
+                  break;
+               }
+            }
+         }
+         if (primaryOwner == null || primaryOwner.equals(rpcManager.getAddress())) {
+            singleKeys.add(key);
+            continue;
+         }
+         List<Object> keys = keysByOwner.get(primaryOwner);
+         if (keys == null) {
+            keys = new ArrayList<Object>();
+            keysByOwner.put(primaryOwner, keys);
+         }
+         keys.add(key);
+      }
+
+      for (Map.Entry<Address, List<Object>> entry : keysByOwner.entrySet()) {
+         final Address owner = entry.getKey();
+         final Object[] keys = entry.getValue().toArray();
+         final Object[] values = fetchMany(owner, keys, ctx, command);
+         final List<InternalGMUCacheEntry> readEntries = new ArrayList<InternalGMUCacheEntry>(keys.length);
+         for (int i = 0; i < keys.length; ++i) {
+            if (values == null || !(values[i] instanceof InternalGMUCacheValue)) {
+               singleKeys.add(keys[i]);
+               continue;
+            }
+            InternalGMUCacheEntry gmuCacheEntry = (InternalGMUCacheEntry) ((InternalGMUCacheValue) values[i])
+                  .toInternalCacheEntry(keys[i]);
+            ctx.addKeyReadInCommand(keys[i], gmuCacheEntry);
+            readEntries.add(gmuCacheEntry);
+            storeRemoteEntry(keys[i], gmuCacheEntry, ctx, command);
+         }
+         if (!readEntries.isEmpty()) {
+            ctx.addReadFrom(owner);
+            mergeTransactionVersion(ctx, readEntries);
+         }
+      }
+
+      for (Object key : singleKeys) {
+         InternalCacheEntry ice = retrieveTransactionalGetFromRemoteSource(key, ctx, false, command);
+         storeRemoteEntry(key, ice, ctx, command);
+         //bounds the next reads, as the batched reads above
+         mergeTransactionVersion(ctx, Collections.singletonList((InternalGMUCacheEntry) ice));
+      }
+   }
+
+   private Object[] fetchMany(Address owner, Object[] keys, TxInvocationContext ctx, GetManyCommand command) {
+      final GMUVersion transactionVersion = (GMUVersion) ctx.getTransactionVersion();
+      final BitSet alreadyReadFromMask = toAlreadyReadFromMask(ctx.getAlreadyReadFrom(), versionGenerator,
+                                                               transactionVersion.getViewId());
+      final GMUClusteredGetManyCommand get = cf.buildGMUClusteredGetManyCommand(keys, command.getFlags(),
+                                                                                transactionVersion,
+                                                                                alreadyReadFromMask);
+      try {
+         Collection<Address> target = Collections.singleton(owner);
+         ResponseFilter filter = new ClusteredGetResponseValidityFilter(target, rpcManager.getAddress());
+         Map<Address, Response> responses = rpcManager.invokeRemotely(target, get, ResponseMode.WAIT_FOR_VALID_RESPONSE,
+                                                                      cacheConfiguration.clustering().sync().replTimeout(),
+                                                                      true, filter, false);
+         Response response = responses.get(owner);
+         if (response instanceof SuccessfulResponse) {
+            Object result = ((SuccessfulResponse) response).getResponseValue();
+            if (result instanceof Object[] && ((Object[]) result).length == keys.length) {
+               return (Object[]) result;
+            }
+         }
+      } catch (Throwable throwable) {
+         if (log.isDebugEnabled()) {
+            log.debugf(throwable, "Remote get for keys %s failed in %s", Arrays.toString(keys), owner);
+         }
+      }
+      return null;
+   }
+
+   private boolean retrieveFromL1(Object key, TxInvocationContext ctx) {
+      if (!isL1CacheEnabled) {
+         return false;
+      }
+      InternalGMUCacheEntry gmuCacheEntry = l1GMUContainer.getValidVersion(key, ctx.getTransactionVersion(),
+                                                                           ctx.getAlreadyReadFrom());
+      if (gmuCacheEntry == null) {
+         return false;
+      }
+      ctx.addKeyReadInCommand(key, gmuCacheEntry);
+      ctx.addReadFrom(dm.getPrimaryLocation(key));
+      if (!ctx.replaceValue(key, gmuCacheEntry.getInternalCacheEntry())) {
+         ctx.putLookedUpEntry(key, gmuCacheEntry.getInternalCacheEntry());
+      }
+      return true;
+   }
+
+   private void storeRemoteEntry(Object key, InternalCacheEntry ice, InvocationContext ctx,
+                                 FlagAffectedCommand command) throws Throwable {
+      if (isL1CacheEnabled && dm.getReadConsistentHash().locateOwners(key).equals(dm.getWriteConsistentHash().locateOwners(key))) {
+         storeInL1(key, ice, ctx, false, command);
+      } else if (!ctx.replaceValue(key, ice)) {
+         ctx.putLookedUpEntry(key, ice);
+      }
+   }
+
+   /**
+    * merges the transaction version with the versions read, to bound the reads in the next owners.
+    */
+   private void mergeTransactionVersion(TxInvocationContext ctx, List<InternalGMUCacheEntry> readEntries) {
+      GMUVersionAccumulator versions = GMUVersionAccumulator.acquire();
+      try {
+         versions.add(ctx.getTransactionVersion());
+         for (InternalGMUCacheEntry entry : readEntries) {
+            if (entry.getMaximumTransactionVersion() != null) {
+               versions.add(entry.getMaximumTransactionVersion());
+            }
+         }
+         if (versions.size() > 1) {
+            ctx.setTransactionVersion(versionGenerator.mergeAndMax(versions));
+         }
+      } finally {
+         versions.release();
+      }
+   }
+
    private InternalCacheEntry retrieveSingleKeyFromRemoteSource(Object key, SingleKeyNonTxInvocationContext ctx, FlagAffectedCommand command) {
       ConsistentHash pendingCH = stateTransferManager.getCacheTopology().getPendingCH();
 
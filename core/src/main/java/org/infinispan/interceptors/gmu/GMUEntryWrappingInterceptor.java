@@ -25,6 +25,7 @@
 import org.infinispan.CacheException;
 import org.infinispan.commands.AbstractFlagAffectedCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.GMUCommitCommand;
 import org.infinispan.commands.tx.GMUPrepareCommand;
@@ -43,6 +44,7 @@
 import org.infinispan.container.versioning.VersionGenerator;
 import org.infinispan.container.versioning.gmu.GMUCacheEntryVersion;
 import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionAccumulator;
 import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -72,6 +74,7 @@
 import org.infinispan.transaction.gmu.CommitLog;
 import org.infinispan.transaction.gmu.GMURemoteTransactionState;
 import org.infinispan.transaction.gmu.manager.CommittedTransaction;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorManager;
 import org.infinispan.transaction.gmu.manager.TransactionCommitManager;
 import org.infinispan.transaction.xa.CacheTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -110,6 +113,7 @@ public class GMUEntryWrappingInterceptor extends EntryWrappingInterceptor {
    private CacheLoaderManager cacheLoaderManager;
    private CacheStore store;
    private CommitLog commitLog;
+   private GarbageCollectorManager garbageCollectorManager;
 
    @Inject
    public void inject(TransactionCommitManager transactionCommitManager, DataContainer dataContainer,
@@ -125,6 +129,11 @@ public void inject(TransactionCommitManager transactionCommitManager, DataContai
       this.commitLog = commitLog;
    }
 
+   @Inject
+   public void injectGarbageCollectorManager(GarbageCollectorManager garbageCollectorManager) {
+      this.garbageCollectorManager = garbageCollectorManager;
+   }
+
    @Start(priority = 16) //after cache store interceptor
    public void enableCacheStore() {
       if (cacheLoaderManager.isShared()) {
@@ -323,6 +332,13 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return retVal;
    }
 
+   @Override
+   public Object visitGetManyCommand(InvocationContext ctx, GetManyCommand command) throws Throwable {
+      Object retVal = super.visitGetManyCommand(ctx, command);
+      updateTransactionVersion(ctx, command);
+      return retVal;
+   }
+
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
       ctx.clearKeyReadInCommand();
@@ -382,12 +398,26 @@ public final List<String> printExecutorQueue() {
       return gmuExecutor.printQueue();
    }
 
+   /**
+    * the transaction version is updated after each local read, as it happens with a sequence of gets, to read all the
+    * keys in the same snapshot.
+    */
+   @Override
+   protected void wrapEntryForReading(InvocationContext ctx, Object key, GetManyCommand command) throws Throwable {
+      ctx.clearKeyReadInCommand();
+      super.wrapEntryForReading(ctx, key, command);
+      updateTransactionVersion(ctx, command);
+      ctx.clearKeyReadInCommand();
+   }
+
    @Override
    protected void commitContextEntry(CacheEntry entry, InvocationContext ctx, boolean skipOwnershipCheck) {
       if (ctx.isInTxScope() && !entry.isLoaded()) {
          cdl.commitEntry(entry, ((TxInvocationContext) ctx).getTransactionVersion(), skipOwnershipCheck, ctx);
       } else {
          cdl.commitEntry(entry, entry.getVersion(), skipOwnershipCheck, ctx);
+         //no commit log entry has this key: the version garbage collector must be notified
+         garbageCollectorManager.notifyKeyWritten(entry.getKey());
       }
    }
 
@@ -542,39 +572,49 @@ private void updateTransactionVersion(InvocationContext context, AbstractFlagAff
       }
 
       TxInvocationContext txInvocationContext = (TxInvocationContext) context;
-      List<EntryVersion> entryVersionList = new LinkedList<EntryVersion>();
-      entryVersionList.add(txInvocationContext.getTransactionVersion());
-
-      if (log.isTraceEnabled()) {
-         log.tracef("[%s] Keys read in this command: %s", txInvocationContext.getGlobalTransaction().globalId(),
-                    txInvocationContext.getKeysReadInCommand());
-      }
+      //a declared read-only transaction is never validated, so its reads do not need to be registered
+      final boolean registerRead = !command.hasFlag(Flag.READ_WITHOUT_REGISTERING) &&
+            !isDeclaredReadOnly(txInvocationContext);
+      GMUVersionAccumulator entryVersionList = GMUVersionAccumulator.acquire();
+      try {
+         entryVersionList.add(txInvocationContext.getTransactionVersion());
 
-      for (InternalGMUCacheEntry internalGMUCacheEntry : txInvocationContext.getKeysReadInCommand().values()) {
-         if (txInvocationContext.hasModifications() && !internalGMUCacheEntry.isMostRecent() && !internalGMUCacheEntry.isUnsafeToRead()) {
-            throw new CacheException("Read-Write transaction read an old value and should rollback");
+         if (log.isTraceEnabled()) {
+            log.tracef("[%s] Keys read in this command: %s", txInvocationContext.getGlobalTransaction().globalId(),
+                       txInvocationContext.getKeysReadInCommand());
          }
 
-         if (internalGMUCacheEntry.isUnsafeToRead()) {
-            throw new CacheException("Transaction read an unsafe value and should rollback");
-         }
+         for (InternalGMUCacheEntry internalGMUCacheEntry : txInvocationContext.getKeysReadInCommand().values()) {
+            if (txInvocationContext.hasModifications() && !internalGMUCacheEntry.isMostRecent() && !internalGMUCacheEntry.isUnsafeToRead()) {
+               throw new CacheException("Read-Write transaction read an old value and should rollback");
+            }
 
-         if (internalGMUCacheEntry.getMaximumTransactionVersion() != null) {
-            entryVersionList.add(internalGMUCacheEntry.getMaximumTransactionVersion());
-         }
-         if (!command.hasFlag(Flag.READ_WITHOUT_REGISTERING)) {
-            txInvocationContext.getCacheTransaction().addReadKey(internalGMUCacheEntry.getKey());
+            if (internalGMUCacheEntry.isUnsafeToRead()) {
+               throw new CacheException("Transaction read an unsafe value and should rollback");
+            }
+
+            if (internalGMUCacheEntry.getMaximumTransactionVersion() != null) {
+               entryVersionList.add(internalGMUCacheEntry.getMaximumTransactionVersion());
+            }
+            if (registerRead) {
+               txInvocationContext.getCacheTransaction().addReadKey(internalGMUCacheEntry.getKey());
+            }
+            if (cdl.localNodeIsOwner(internalGMUCacheEntry.getKey())) {
+               txInvocationContext.setAlreadyReadOnThisNode(true);
+               txInvocationContext.addReadFrom(cdl.getAddress());
+            }
          }
-         if (cdl.localNodeIsOwner(internalGMUCacheEntry.getKey())) {
-            txInvocationContext.setAlreadyReadOnThisNode(true);
-            txInvocationContext.addReadFrom(cdl.getAddress());
+
+         if (entryVersionList.size() > 1) {
+            txInvocationContext.setTransactionVersion(versionGenerator.mergeAndMax(entryVersionList));
          }
+      } finally {
+         entryVersionList.release();
       }
+   }
 
-      if (entryVersionList.size() > 1) {
-         EntryVersion[] txVersionArray = new EntryVersion[entryVersionList.size()];
-         txInvocationContext.setTransactionVersion(versionGenerator.mergeAndMax(entryVersionList.toArray(txVersionArray)));
-      }
+   private static boolean isDeclaredReadOnly(TxInvocationContext context) {
+      return context.isOriginLocal() && ((LocalTransaction) context.getCacheTransaction()).isDeclaredReadOnly();
    }
 
    private boolean hasLocalKeysToUpdate(WriteCommand[] modifications) {
@@ -93,6 +93,7 @@
 import org.infinispan.statetransfer.StateChunk;
 import org.infinispan.statetransfer.TransactionInfo;
 import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.GMUSuccessfulResponse;
 import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.responses.UnsuccessfulResponse;
 import org.infinispan.remoting.responses.UnsureResponse;
@@ -263,6 +264,7 @@ private void loadInternalMarshallables() {
       addInternalExternalizer(new ExceptionResponse.Externalizer());
       addInternalExternalizer(new UnsuccessfulResponse.Externalizer());
       addInternalExternalizer(new UnsureResponse.Externalizer());
+      addInternalExternalizer(new GMUSuccessfulResponse.Externalizer());
 
       ReplicableCommandExternalizer cmExt =
             new ReplicableCommandExternalizer(cmdFactory, gcr);
@@ -27,6 +27,7 @@
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
@@ -40,9 +41,17 @@
 import org.infinispan.reconfigurableprotocol.protocol.PassiveReplicationCommitProtocol;
 import org.infinispan.reconfigurableprotocol.protocol.TotalOrderCommitProtocol;
 import org.infinispan.reconfigurableprotocol.protocol.TwoPhaseCommitProtocol;
+import org.infinispan.reconfigurableprotocol.selector.AutonomicProtocolSelector;
+import org.infinispan.reconfigurableprotocol.selector.ProtocolSelectionPolicy;
+import org.infinispan.reconfigurableprotocol.selector.WorkloadStatistics;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.JGroupsAddress;
+import org.infinispan.stats.TransactionsStatisticsRegistry;
+import org.infinispan.stats.container.StatisticsSnapshot;
 import org.infinispan.transaction.LocalTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.Util;
@@ -51,12 +60,18 @@
 import org.jgroups.stack.IpAddress;
 
 import javax.transaction.Transaction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.infinispan.commands.remote.ReconfigurableProtocolCommand.Type;
 
@@ -76,18 +91,28 @@ public class ReconfigurableReplicationManager {
    private final ProtocolManager protocolManager;
    private final CoolDownTimeManager coolDownTimeManager;
    private final StatisticManager statisticManager;
+   private final AutonomicProtocolSelector autonomicProtocolSelector;
    private RpcManager rpcManager;
    private CommandsFactory commandsFactory;
    private Configuration configuration;
    private ComponentRegistry componentRegistry;
    private volatile boolean allowSwitch = false;
    private boolean defaultProtocolsRegistered;
+   //the autonomic selection blocks in remote calls and in the switch. it has its own thread to not delay the shared
+   //scheduled tasks (eviction, expiration, L1 cleanup...)
+   private ScheduledExecutorService autonomicSelectionExecutor;
+   private ScheduledFuture<?> autonomicSelectionTask;
+   //the statistics at the beginning of the current round. only accessed by the autonomic selection task
+   //the last workload sample of each member, collected by the coordinator
+   private volatile Map<Address, long[]> lastWorkloadSamples = Collections.emptyMap();
+   private long lastWorkloadSampleTime;
 
    public ReconfigurableReplicationManager() {
       statisticManager = new StatisticManager();
       registry = new ReconfigurableProtocolRegistry();
       protocolManager = new ProtocolManager(statisticManager);
       coolDownTimeManager = new CoolDownTimeManager();
+      autonomicProtocolSelector = new AutonomicProtocolSelector();
       this.defaultProtocolsRegistered = false;
    }
 
@@ -132,6 +157,15 @@ public final void inject(InterceptorChain interceptorChain, RpcManager rpcManage
       initialProtocol();
    }
 
+   @Stop
+   public final synchronized void stop() {
+      stopAutonomicSelection();
+      if (autonomicSelectionExecutor != null) {
+         autonomicSelectionExecutor.shutdownNow();
+         autonomicSelectionExecutor = null;
+      }
+   }
+
    /**
     * method invoked when a message is received from the network. it contains data for the specific replication
     * protocol
@@ -650,12 +684,182 @@ public final void resetSwitchStats() {
       statisticManager.reset();
    }
 
+   @ManagedOperation(description = "Starts the autonomic selection of the replication protocol. Periodically, the " +
+         "coordinator predicts the throughput of each protocol for the observed workload and switches to the best one",
+                     displayName = "Start autonomic protocol selection")
+   public final synchronized void startAutonomicSelection(@Parameter(name = "Period in seconds") int period) {
+      if (!allowSwitch || period <= 0) {
+         return;
+      }
+      stopAutonomicSelection();
+      lastWorkloadSamples = Collections.emptyMap();
+      autonomicProtocolSelector.reset();
+      if (autonomicSelectionExecutor == null) {
+         autonomicSelectionExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread th = new Thread(r, "AutonomicProtocolSelector," + componentRegistry.getCacheName() + "," +
+                     rpcManager.getAddress());
+               th.setDaemon(true);
+               return th;
+            }
+         });
+      }
+      autonomicSelectionTask = autonomicSelectionExecutor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               autonomicSelectionRound();
+            } catch (Throwable throwable) {
+               log.warnf(throwable, "Error in the autonomic replication protocol selection");
+            }
+         }
+      }, period, period, TimeUnit.SECONDS);
+   }
+
+   @ManagedOperation(description = "Stops the autonomic selection of the replication protocol",
+                     displayName = "Stop autonomic protocol selection")
+   public final synchronized void stopAutonomicSelection() {
+      if (autonomicSelectionTask != null) {
+         autonomicSelectionTask.cancel(false);
+         autonomicSelectionTask = null;
+      }
+   }
+
+   @ManagedAttribute(description = "Returns true if the replication protocol is selected automatically", writable = false,
+                     displayName = "Autonomic protocol selection enabled")
+   public final synchronized boolean isAutonomicSelectionEnabled() {
+      return autonomicSelectionTask != null;
+   }
+
+   @ManagedOperation(description = "Sets the policy that predicts the throughput of the replication protocols. The " +
+         "policy must implement the ProtocolSelectionPolicy", displayName = "Set protocol selection policy")
+   public final void setProtocolSelectionPolicy(@Parameter(name = "Class name") String clazzName) throws Exception {
+      Class<?> clazz = Util.loadClass(clazzName, this.getClass().getClassLoader());
+      if (!ProtocolSelectionPolicy.class.isAssignableFrom(clazz)) {
+         throw new Exception("Class " + clazzName + " does not implement ProtocolSelectionPolicy");
+      }
+      autonomicProtocolSelector.setPolicy((ProtocolSelectionPolicy) clazz.newInstance());
+   }
+
+   @ManagedAttribute(description = "Returns the policy that predicts the throughput of the replication protocols",
+                     writable = false, displayName = "Protocol selection policy")
+   public final String getProtocolSelectionPolicy() {
+      return autonomicProtocolSelector.getPolicy().getClass().getCanonicalName();
+   }
+
+   @ManagedOperation(description = "Sets the minimum predicted improvement (e.g. 0.2 for 20%) over the current protocol " +
+         "throughput to switch protocol", displayName = "Set selection improvement threshold")
+   public final void setSelectionImprovementThreshold(@Parameter(name = "Threshold") double threshold) {
+      autonomicProtocolSelector.setImprovementThreshold(threshold);
+   }
+
+   @ManagedOperation(description = "Sets the number of consecutive rounds that a protocol must be the best to be " +
+         "selected", displayName = "Set selection stable rounds")
+   public final void setSelectionStableRounds(@Parameter(name = "Rounds") int rounds) {
+      autonomicProtocolSelector.setStableRounds(rounds);
+   }
+
+   @ManagedOperation(description = "Sets the time (in seconds) after a switch without selecting a new protocol",
+                     displayName = "Set selection cool down time")
+   public final void setSelectionCoolDownTime(@Parameter(name = "Cool Down Time in seconds") int seconds) {
+      autonomicProtocolSelector.setCoolDownTime(TimeUnit.SECONDS.toMillis(seconds));
+   }
+
+   @ManagedOperation(description = "Returns the throughput predicted for each protocol in the last selection round",
+                     displayName = "Last predictions")
+   public final String printLastProtocolPredictions() {
+      return String.valueOf(autonomicProtocolSelector.getLastPredictions());
+   }
+
    @ManagedAttribute(description = "Returns true if it is possible to change the reconfigurable protocol", writable = false,
                      displayName = "Allow Switch?")
    public final boolean getAllowProtocolSwitch() {
       return allowSwitch;
    }
 
+   /**
+    * @return the raw counters of the local transaction statistics, used by the coordinator to compute the workload of
+    *         the cluster, or null if the statistics are not available
+    */
+   public final long[] getWorkloadSample() {
+      final StatisticsSnapshot snapshot = TransactionsStatisticsRegistry.getSnapshot(null);
+      return snapshot == null ? null : WorkloadStatistics.sample(snapshot);
+   }
+
+   /**
+    * collects the workload statistics of all the members since the previous round and, if the selector decides so,
+    * switches the replication protocol. It only runs in the coordinator, that triggers the switches.
+    */
+   private void autonomicSelectionRound() throws Exception {
+      if (!rpcManager.getTransport().isCoordinator()) {
+         lastWorkloadSamples = Collections.emptyMap();
+         return;
+      }
+      final Map<Address, long[]> samples = collectWorkloadSamples();
+      final long now = System.nanoTime();
+      final Map<Address, long[]> previousSamples = lastWorkloadSamples;
+      final long duration = now - lastWorkloadSampleTime;
+      lastWorkloadSamples = samples;
+      lastWorkloadSampleTime = now;
+
+      //the members without a previous sample (first round or new members) only set the beginning of their window
+      final long[] counters = WorkloadStatistics.newCounters();
+      boolean hasWindow = false;
+      for (Map.Entry<Address, long[]> entry : samples.entrySet()) {
+         final long[] previous = previousSamples.get(entry.getKey());
+         if (previous != null) {
+            WorkloadStatistics.addWindow(counters, previous, entry.getValue());
+            hasWindow = true;
+         }
+      }
+      if (!hasWindow || protocolManager.isInProgress() || protocolManager.isUnsafe()) {
+         return;
+      }
+      final WorkloadStatistics statistics = WorkloadStatistics.fromCounters(counters, duration,
+                                                                            rpcManager.getTransport().getMembers().size());
+
+      final Collection<String> protocolIds = new ArrayList<String>();
+      for (ReconfigurableProtocol protocol : registry.getAllAvailableProtocols()) {
+         protocolIds.add(protocol.getUniqueProtocolName());
+      }
+      final String currentProtocolId = getCurrentProtocolId();
+      final String newProtocolId = autonomicProtocolSelector.evaluate(statistics, currentProtocolId, protocolIds,
+                                                                      System.currentTimeMillis());
+      if (newProtocolId == null) {
+         return;
+      }
+      log.infof("Switching replication protocol from %s to %s. Workload is %s", currentProtocolId, newProtocolId,
+                statistics);
+      switchTo(newProtocolId, false, false);
+      autonomicProtocolSelector.switched(System.currentTimeMillis());
+   }
+
+   /**
+    * @return the workload sample of each member. The members that do not reply are ignored in this round
+    */
+   private Map<Address, long[]> collectWorkloadSamples() {
+      final Map<Address, long[]> samples = new HashMap<Address, long[]>();
+      final long[] localSample = getWorkloadSample();
+      if (localSample != null) {
+         samples.put(rpcManager.getAddress(), localSample);
+      }
+      ReconfigurableProtocolCommand command = commandsFactory.buildReconfigurableProtocolCommand(Type.STATISTICS, null);
+      Map<Address, Response> responses = rpcManager.invokeRemotely(null, command, ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS,
+                                                                   configuration.clustering().sync().replTimeout(), false);
+      if (responses != null) {
+         for (Map.Entry<Address, Response> entry : responses.entrySet()) {
+            if (entry.getValue() instanceof SuccessfulResponse) {
+               Object value = ((SuccessfulResponse) entry.getValue()).getResponseValue();
+               if (value instanceof long[]) {
+                  samples.put(entry.getKey(), (long[]) value);
+               }
+            }
+         }
+      }
+      return samples;
+   }
+
    private Address getCoordinator() {
       return rpcManager.getTransport().getCoordinator();
    }
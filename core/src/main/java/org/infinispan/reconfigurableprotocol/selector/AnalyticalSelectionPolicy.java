@@ -0,0 +1,123 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.reconfigurableprotocol.selector;
+
+import org.infinispan.reconfigurableprotocol.protocol.PassiveReplicationCommitProtocol;
+import org.infinispan.reconfigurableprotocol.protocol.TotalOrderCommitProtocol;
+import org.infinispan.reconfigurableprotocol.protocol.TwoPhaseCommitProtocol;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A coarse analytical model of the default replication protocols.
+ * <p/>
+ * The cost of a transaction is normalized to the execution of a read only transaction. An update transaction also
+ * pays the commit latency, in round trips, and it is re-executed while it aborts:
+ * <ul>
+ *    <li>2PC: two round trips (prepare and commit) with the locks held, so a conflict may abort both transactions
+ *    (deadlocks and timeouts);</li>
+ *    <li>TO: three round trips (total order broadcast and prepare), but a conflict only aborts one of them;</li>
+ *    <li>PB: one round trip to the backups and (almost) no aborts, since the conflicts are resolved locally, but the
+ *    primary executes the update transactions of all the nodes.</li>
+ * </ul>
+ * The conflict probability is derived from the aborts observed with the current protocol or, if none, from the lock
+ * contention probability. The predicted throughput of each protocol is the observed throughput scaled by the ratio
+ * between the costs.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class AnalyticalSelectionPolicy implements ProtocolSelectionPolicy {
+
+   private static final double MAX_ABORT_PROBABILITY = 0.95;
+
+   @Override
+   public Map<String, Double> predictThroughput(WorkloadStatistics statistics, String currentProtocolId,
+                                                Collection<String> protocolIds) {
+      final Map<String, Double> predictions = new HashMap<String, Double>();
+      final double conflictProbability = conflictProbability(currentProtocolId, statistics);
+      final double currentCost = cost(currentProtocolId, statistics, conflictProbability);
+      if (Double.isNaN(currentCost)) {
+         return predictions;
+      }
+      for (String protocolId : protocolIds) {
+         final double cost = cost(protocolId, statistics, conflictProbability);
+         if (!Double.isNaN(cost)) {
+            predictions.put(protocolId, statistics.getThroughput() * currentCost / cost);
+         }
+      }
+      return predictions;
+   }
+
+   /**
+    * @return the relative cost of a transaction with the protocol or {@link Double#NaN} if the protocol is unknown
+    */
+   final double cost(String protocolId, WorkloadStatistics statistics, double conflictProbability) {
+      final double writeRatio = statistics.getWriteRatio();
+      final double rtt = relativeRtt(statistics);
+      final int numberOfNodes = Math.max(1, statistics.getNumberOfNodes());
+      if (TwoPhaseCommitProtocol.UID.equals(protocolId)) {
+         return (1 - writeRatio) + writeRatio * (1 + 2 * rtt) / (1 - abortProbability(2 * conflictProbability));
+      } else if (TotalOrderCommitProtocol.UID.equals(protocolId)) {
+         return (1 - writeRatio) + writeRatio * (1 + 3 * rtt) / (1 - abortProbability(conflictProbability));
+      } else if (PassiveReplicationCommitProtocol.UID.equals(protocolId)) {
+         return (1 - writeRatio) + numberOfNodes * writeRatio * (1 + rtt) /
+               (1 - abortProbability(conflictProbability / numberOfNodes));
+      }
+      return Double.NaN;
+   }
+
+   /**
+    * @return the probability of two update transactions to conflict. It is estimated from the abort rate of the update
+    *         transactions, reversing the abort model of the current protocol, or it is the lock contention probability
+    *         if no update transaction aborted
+    */
+   final double conflictProbability(String currentProtocolId, WorkloadStatistics statistics) {
+      final double writeRatio = statistics.getWriteRatio();
+      if (writeRatio <= 0 || statistics.getAbortRate() <= 0) {
+         return statistics.getContentionProbability();
+      }
+      final double writeAbortRate = Math.min(1, statistics.getAbortRate() / writeRatio);
+      if (TwoPhaseCommitProtocol.UID.equals(currentProtocolId)) {
+         return writeAbortRate / 2;
+      } else if (PassiveReplicationCommitProtocol.UID.equals(currentProtocolId)) {
+         return writeAbortRate * Math.max(1, statistics.getNumberOfNodes());
+      }
+      return writeAbortRate;
+   }
+
+   /**
+    * @return the prepare round trip time relative to the execution time of an update transaction
+    */
+   private static double relativeRtt(WorkloadStatistics statistics) {
+      final double rtt = statistics.getPrepareRtt();
+      final double execution = statistics.getWriteTransactionDuration() - rtt;
+      return rtt <= 0 || execution <= 0 ? 1 : rtt / execution;
+   }
+
+   private static double abortProbability(double conflictProbability) {
+      return Math.min(MAX_ABORT_PROBABILITY, Math.max(0, conflictProbability));
+   }
+}
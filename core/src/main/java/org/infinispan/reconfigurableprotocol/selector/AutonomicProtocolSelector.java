@@ -0,0 +1,195 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.reconfigurableprotocol.selector;
+
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Decides when to switch the replication protocol, based on the throughput predicted by a {@link
+ * ProtocolSelectionPolicy} for the observed workload.
+ * <p/>
+ * To avoid oscillations, a protocol is only selected if its predicted throughput is better than the one of the current
+ * protocol by, at least, the improvement threshold, and if it is the best protocol for a number of consecutive rounds.
+ * After a switch, no other protocol is selected during the cool down period. The windows with fewer transactions than
+ * the minimum are ignored.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class AutonomicProtocolSelector {
+
+   private static final Log log = LogFactory.getLog(AutonomicProtocolSelector.class);
+   private volatile ProtocolSelectionPolicy policy;
+   private volatile double improvementThreshold;
+   private volatile int stableRounds;
+   private volatile long coolDownTime; //in milliseconds
+   private volatile long minimumTransactions;
+   private String candidate;
+   private int candidateRounds;
+   private long nextSelectionTime;
+   private Map<String, Double> lastPredictions;
+
+   public AutonomicProtocolSelector() {
+      policy = new AnalyticalSelectionPolicy();
+      improvementThreshold = 0.2;
+      stableRounds = 3;
+      coolDownTime = 300000; //5 min
+      minimumTransactions = 100;
+      lastPredictions = Collections.emptyMap();
+   }
+
+   /**
+    * evaluates the workload of a new round
+    *
+    * @param statistics        the workload observed in the last round
+    * @param currentProtocolId the current replication protocol ID
+    * @param protocolIds       the available replication protocols IDs
+    * @param now               the current time in milliseconds
+    * @return the protocol ID to switch to or null if the current protocol should be kept
+    */
+   public final synchronized String evaluate(WorkloadStatistics statistics, String currentProtocolId,
+                                             Collection<String> protocolIds, long now) {
+      if (now < nextSelectionTime) {
+         clearCandidate();
+         return null;
+      } else if (statistics.getNumberOfTransactions() < minimumTransactions) {
+         return null;
+      }
+      final Map<String, Double> predictions = policy.predictThroughput(statistics, currentProtocolId, protocolIds);
+      lastPredictions = predictions;
+      final Double currentThroughput = predictions.get(currentProtocolId);
+      if (currentThroughput == null) {
+         clearCandidate();
+         return null;
+      }
+
+      String best = currentProtocolId;
+      double bestThroughput = currentThroughput;
+      for (Map.Entry<String, Double> entry : predictions.entrySet()) {
+         if (entry.getValue() > bestThroughput) {
+            best = entry.getKey();
+            bestThroughput = entry.getValue();
+         }
+      }
+
+      if (best.equals(currentProtocolId) || bestThroughput < currentThroughput * (1 + improvementThreshold)) {
+         clearCandidate();
+         return null;
+      }
+
+      if (best.equals(candidate)) {
+         candidateRounds++;
+      } else {
+         candidate = best;
+         candidateRounds = 1;
+      }
+
+      if (log.isDebugEnabled()) {
+         log.debugf("Protocol %s is predicted to be better than %s (%s). Rounds %s of %s", best, currentProtocolId,
+                    predictions, candidateRounds, stableRounds);
+      }
+
+      if (candidateRounds < stableRounds) {
+         return null;
+      }
+      clearCandidate();
+      return best;
+   }
+
+   /**
+    * notifies that the protocol has switched. It starts the cool down period.
+    *
+    * @param now the current time in milliseconds
+    */
+   public final synchronized void switched(long now) {
+      clearCandidate();
+      nextSelectionTime = now + coolDownTime;
+   }
+
+   public final synchronized void reset() {
+      clearCandidate();
+      nextSelectionTime = 0;
+      lastPredictions = Collections.emptyMap();
+   }
+
+   /**
+    * @return the predictions of the last evaluated round
+    */
+   public final synchronized Map<String, Double> getLastPredictions() {
+      return lastPredictions;
+   }
+
+   public final ProtocolSelectionPolicy getPolicy() {
+      return policy;
+   }
+
+   public final synchronized void setPolicy(ProtocolSelectionPolicy policy) {
+      if (policy == null) {
+         throw new NullPointerException("Protocol selection policy cannot be null");
+      }
+      this.policy = policy;
+      clearCandidate();
+   }
+
+   public final double getImprovementThreshold() {
+      return improvementThreshold;
+   }
+
+   public final void setImprovementThreshold(double improvementThreshold) {
+      this.improvementThreshold = improvementThreshold;
+   }
+
+   public final int getStableRounds() {
+      return stableRounds;
+   }
+
+   public final void setStableRounds(int stableRounds) {
+      this.stableRounds = stableRounds;
+   }
+
+   public final long getCoolDownTime() {
+      return coolDownTime;
+   }
+
+   public final void setCoolDownTime(long coolDownTime) {
+      this.coolDownTime = coolDownTime;
+   }
+
+   public final long getMinimumTransactions() {
+      return minimumTransactions;
+   }
+
+   public final void setMinimumTransactions(long minimumTransactions) {
+      this.minimumTransactions = minimumTransactions;
+   }
+
+   private void clearCandidate() {
+      candidate = null;
+      candidateRounds = 0;
+   }
+}
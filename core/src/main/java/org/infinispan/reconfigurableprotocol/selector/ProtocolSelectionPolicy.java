@@ -0,0 +1,49 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.reconfigurableprotocol.selector;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Predicts the throughput of the replication protocols for a given workload. The {@link AutonomicProtocolSelector}
+ * uses the predictions to decide when to switch protocol.
+ * <p/>
+ * The implementations must have a public constructor without arguments, so they can be registered by class name.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public interface ProtocolSelectionPolicy {
+
+   /**
+    * @param statistics        the workload observed with the current protocol
+    * @param currentProtocolId the current replication protocol ID
+    * @param protocolIds       the available replication protocols IDs
+    * @return the predicted throughput (transactions per second) for each protocol. The protocols that the policy does
+    *         not know are omitted
+    */
+   Map<String, Double> predictThroughput(WorkloadStatistics statistics, String currentProtocolId,
+                                         Collection<String> protocolIds);
+
+}
@@ -0,0 +1,229 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.reconfigurableprotocol.selector;
+
+import org.infinispan.stats.container.StatisticsSnapshot;
+
+import static org.infinispan.stats.ExposedStatistic.*;
+
+/**
+ * The workload observed in a time window, used to predict the throughput of each replication protocol.
+ * <p/>
+ * The values are computed from the difference between two snapshots of the transaction statistics, so they reflect
+ * only the transactions finished in that window. To observe the workload of the whole cluster, each member reduces its
+ * snapshot to a {@link #sample(StatisticsSnapshot) sample} of raw counters, and the windows of all the members are
+ * {@link #addWindow(long[], long[], long[]) added} before computing the statistics. Each transaction is only counted
+ * in the member where it was executed.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class WorkloadStatistics {
+
+   //the positions of the raw counters in a sample
+   private static final int RESET_TIME = 0;
+   private static final int READ_TX = 1;
+   private static final int WRITE_TX = 2;
+   private static final int ABORTED_TX = 3;
+   private static final int PUTS = 4;
+   private static final int CONTENTIONS = 5;
+   private static final int PREPARE_RTTS = 6;
+   private static final int PREPARE_RTT_TIME = 7;
+   private static final int COMMITTED_WRITE_TX = 8;
+   private static final int WRITE_TX_TIME = 9;
+   private static final int SAMPLE_SIZE = 10;
+
+   private final double writeRatio;
+   private final double contentionProbability;
+   private final double abortRate;
+   private final double prepareRtt;
+   private final double writeTransactionDuration;
+   private final double throughput;
+   private final int numberOfNodes;
+   private final long numberOfTransactions;
+
+   public WorkloadStatistics(double writeRatio, double contentionProbability, double abortRate, double prepareRtt,
+                             double writeTransactionDuration, double throughput, int numberOfNodes,
+                             long numberOfTransactions) {
+      this.writeRatio = writeRatio;
+      this.contentionProbability = contentionProbability;
+      this.abortRate = abortRate;
+      this.prepareRtt = prepareRtt;
+      this.writeTransactionDuration = writeTransactionDuration;
+      this.throughput = throughput;
+      this.numberOfNodes = numberOfNodes;
+      this.numberOfTransactions = numberOfTransactions;
+   }
+
+   /**
+    * computes the workload between two snapshots
+    *
+    * @param previous      the snapshot at the beginning of the window. it can be null or older than the last reset,
+    *                      in which case the window starts at the last reset
+    * @param current       the snapshot at the end of the window
+    * @param durationNanos the window duration in nanoseconds
+    * @param numberOfNodes the number of nodes in the cluster
+    * @return the workload statistics of the window
+    */
+   public static WorkloadStatistics between(StatisticsSnapshot previous, StatisticsSnapshot current,
+                                            long durationNanos, int numberOfNodes) {
+      final long[] counters = newCounters();
+      addWindow(counters, previous == null ? null : sample(previous), sample(current));
+      return fromCounters(counters, durationNanos, numberOfNodes);
+   }
+
+   /**
+    * @return the raw counters of the snapshot needed to compute the workload statistics. The sample is a plain array
+    *         so it can be sent to the coordinator
+    */
+   public static long[] sample(StatisticsSnapshot snapshot) {
+      final long[] sample = new long[SAMPLE_SIZE];
+      sample[RESET_TIME] = snapshot.getLastResetTime();
+      sample[READ_TX] = snapshot.getLocal(NUM_READ_ONLY_TX_COMMIT) + snapshot.getLocal(NUM_ABORTED_RO_TX);
+      sample[WRITE_TX] = snapshot.getLocal(NUM_COMMITTED_WR_TX) + snapshot.getLocal(NUM_ABORTED_WR_TX);
+      sample[ABORTED_TX] = snapshot.getLocal(NUM_ABORTED_RO_TX) + snapshot.getLocal(NUM_ABORTED_WR_TX);
+      sample[PUTS] = snapshot.getLocal(NUM_PUT) + snapshot.getRemote(NUM_PUT);
+      sample[CONTENTIONS] = snapshot.getLocal(LOCK_CONTENTION_TO_LOCAL) + snapshot.getLocal(LOCK_CONTENTION_TO_REMOTE) +
+            snapshot.getRemote(LOCK_CONTENTION_TO_LOCAL) + snapshot.getRemote(LOCK_CONTENTION_TO_REMOTE);
+      sample[PREPARE_RTTS] = snapshot.getLocal(NUM_RTTS_PREPARE);
+      sample[PREPARE_RTT_TIME] = snapshot.getLocal(RTT_PREPARE);
+      sample[COMMITTED_WRITE_TX] = snapshot.getLocal(NUM_COMMITTED_WR_TX);
+      sample[WRITE_TX_TIME] = snapshot.getLocal(WR_TX_SUCCESSFUL_EXECUTION_TIME);
+      return sample;
+   }
+
+   /**
+    * @return empty counters, to be filled with {@link #addWindow(long[], long[], long[])}
+    */
+   public static long[] newCounters() {
+      return new long[SAMPLE_SIZE];
+   }
+
+   /**
+    * adds the difference between two samples of the same member to the counters.
+    *
+    * @param counters the counters to update
+    * @param previous the sample at the beginning of the window. it can be null or older than the last reset, in which
+    *                 case the window starts at the last reset
+    * @param current  the sample at the end of the window
+    */
+   public static void addWindow(long[] counters, long[] previous, long[] current) {
+      if (previous != null && previous[RESET_TIME] != current[RESET_TIME]) {
+         previous = null;
+      }
+      for (int i = RESET_TIME + 1; i < SAMPLE_SIZE; ++i) {
+         counters[i] += current[i] - (previous == null ? 0 : previous[i]);
+      }
+   }
+
+   /**
+    * @param counters      the counters of the window, of one or more members
+    * @param durationNanos the window duration in nanoseconds
+    * @param numberOfNodes the number of nodes in the cluster
+    * @return the workload statistics of the window
+    */
+   public static WorkloadStatistics fromCounters(long[] counters, long durationNanos, int numberOfNodes) {
+      final long readTx = counters[READ_TX];
+      final long writeTx = counters[WRITE_TX];
+      final long committedTx = readTx + writeTx - counters[ABORTED_TX];
+      return new WorkloadStatistics(ratio(writeTx, readTx + writeTx),
+                                    ratio(counters[CONTENTIONS], counters[PUTS]),
+                                    ratio(counters[ABORTED_TX], readTx + writeTx),
+                                    ratio(counters[PREPARE_RTT_TIME], counters[PREPARE_RTTS]) / 1000,
+                                    ratio(counters[WRITE_TX_TIME], counters[COMMITTED_WRITE_TX]) / 1000,
+                                    durationNanos <= 0 ? 0 : committedTx * 1E9 / durationNanos,
+                                    numberOfNodes,
+                                    readTx + writeTx);
+   }
+
+   /**
+    * @return the fraction of the transactions that are update transactions
+    */
+   public final double getWriteRatio() {
+      return writeRatio;
+   }
+
+   /**
+    * @return the probability of a write to find the lock already acquired
+    */
+   public final double getContentionProbability() {
+      return contentionProbability;
+   }
+
+   /**
+    * @return the fraction of the transactions that aborted
+    */
+   public final double getAbortRate() {
+      return abortRate;
+   }
+
+   /**
+    * @return the average round trip time of the prepare, in microseconds
+    */
+   public final double getPrepareRtt() {
+      return prepareRtt;
+   }
+
+   /**
+    * @return the average duration of a successful update transaction, in microseconds
+    */
+   public final double getWriteTransactionDuration() {
+      return writeTransactionDuration;
+   }
+
+   /**
+    * @return the number of transactions committed per second
+    */
+   public final double getThroughput() {
+      return throughput;
+   }
+
+   public final int getNumberOfNodes() {
+      return numberOfNodes;
+   }
+
+   /**
+    * @return the number of transactions (committed or aborted) in the window
+    */
+   public final long getNumberOfTransactions() {
+      return numberOfTransactions;
+   }
+
+   @Override
+   public String toString() {
+      return "WorkloadStatistics{" +
+            "writeRatio=" + writeRatio +
+            ", contentionProbability=" + contentionProbability +
+            ", abortRate=" + abortRate +
+            ", prepareRtt=" + prepareRtt +
+            ", writeTransactionDuration=" + writeTransactionDuration +
+            ", throughput=" + throughput +
+            ", numberOfNodes=" + numberOfNodes +
+            ", numberOfTransactions=" + numberOfTransactions +
+            '}';
+   }
+
+   private static double ratio(long value, long total) {
+      return total <= 0 ? 0 : value * 1.0 / total;
+   }
+}
@@ -29,12 +29,15 @@
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ConfigurationStateCommand;
 import org.infinispan.commands.remote.GMUClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.tx.GMUCommitCommand;
+import org.infinispan.commands.tx.GMUPrepareCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.tx.RollbackCommand;
 import org.infinispan.commands.tx.totalorder.TotalOrderPrepareCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.factories.KnownComponentNames;
@@ -46,8 +49,10 @@
 import org.infinispan.manager.NamedCacheNotFoundException;
 import org.infinispan.remoting.responses.AbstractResponse;
 import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.GMUSuccessfulResponse;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.responses.ResponseGenerator;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
 import org.infinispan.remoting.transport.jgroups.JGroupsTransport;
@@ -56,15 +61,20 @@
 import org.infinispan.stats.TransactionsStatisticsRegistry;
 import org.infinispan.stats.container.TransactionStatistics;
 import org.infinispan.transaction.TotalOrderRemoteTransactionState;
-import org.infinispan.transaction.totalorder.TotalOrderLatch;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorManager;
 import org.infinispan.transaction.totalorder.TotalOrderManager;
 import org.infinispan.util.concurrent.BlockingRunnable;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
 import org.infinispan.util.concurrent.IsolationLevel;
+import org.infinispan.util.concurrent.TaskDependency;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 import org.jgroups.blocks.RpcDispatcher;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 import static org.infinispan.stats.ExposedStatistic.*;
 
 /**
@@ -81,20 +91,17 @@ public class InboundInvocationHandlerImpl implements InboundInvocationHandler {
    private GlobalConfiguration globalConfiguration;
    private Transport transport;
    private CancellationService cancelService;
-   private BlockingTaskAwareExecutorService totalOrderExecutorService;
    private BlockingTaskAwareExecutorService gmuExecutorService;
    private RpcDispatcher.Marshaller marshaller = null;
 
    @Inject
    public void inject(GlobalComponentRegistry gcr, Transport transport,
-                      @ComponentName(KnownComponentNames.TOTAL_ORDER_EXECUTOR) BlockingTaskAwareExecutorService totalOrderExecutorService,
                       @ComponentName(KnownComponentNames.GMU_EXECUTOR) BlockingTaskAwareExecutorService gmuExecutorService,
                       GlobalConfiguration globalConfiguration, CancellationService cancelService) {
       this.gcr = gcr;
       this.transport = transport;
       this.globalConfiguration = globalConfiguration;
       this.cancelService = cancelService;
-      this.totalOrderExecutorService = totalOrderExecutorService;
       this.gmuExecutorService = gmuExecutorService;
    }
 
@@ -162,17 +169,10 @@ private void handleWithWaitForBlocks(final CacheRpcCommand cmd, final ComponentR
       if (cmd instanceof TotalOrderPrepareCommand) {
          final TotalOrderRemoteTransactionState state = ((TotalOrderPrepareCommand) cmd).getOrCreateState();
          final TotalOrderManager totalOrderManager = cr.getTotalOrderManager();
-         totalOrderManager.ensureOrder(state, ((TotalOrderPrepareCommand) cmd).getKeysToLock());
-         final boolean hasWaited = isTOGoingToWait(state);
-         totalOrderExecutorService.execute(new BlockingRunnable() {
+         totalOrderManager.ensureOrder(state, ((TotalOrderPrepareCommand) cmd).getKeysToLock(), new DependencyAwareRunnable() {
             @Override
-            public boolean isReady() {
-               for (TotalOrderLatch block : state.getConflictingTransactionBlocks()) {
-                  if (block.isBlocked()) {
-                     return false;
-                  }
-               }
-               return true;
+            protected Collection<? extends TaskDependency> getDependencies() {
+               return state.getConflictingTransactionBlocks();
             }
 
             @Override
@@ -193,7 +193,7 @@ public void run() {
                      startR = System.nanoTime();
                      startS = isServiceTime ? TransactionsStatisticsRegistry.getThreadCPUTime() : 0;
 
-                     if (hasWaited) {
+                     if (hasWaited()) {
                         waitTime = startR - arrivalTime;
                         tx.incrementValue(NUM_TO_GMU_PREPARE_COMMAND_REMOTE_WAITED);
                         tx.addValue(TO_GMU_PREPARE_COMMAND_REMOTE_WAIT, waitTime);
@@ -225,6 +225,9 @@ public void run() {
                   PiggyBackStat pbs = new PiggyBackStat(waitTime);
                   ((AbstractResponse) resp).setPiggyBackStat(pbs);
                }
+               if (cmd instanceof GMUPrepareCommand) {
+                  resp = piggyBackMinimumVisibleVersion(resp, cr);
+               }
                //the ResponseGenerated is null in this case because the return value is a Response
                reply(response, resp);
 
@@ -283,6 +286,7 @@ public void run() {
                   PiggyBackStat pbs = new PiggyBackStat(waitTime);
                   ((AbstractResponse) resp).setPiggyBackStat(pbs);
                }
+               resp = piggyBackMinimumVisibleVersion(resp, cr);
                //the ResponseGenerated is null in this case because the return value is a Response
                reply(response, resp);
                if (stats) {
@@ -292,6 +296,10 @@ public void run() {
 
             @Override
             public final String toString() {
+               if (gmuClusteredGetCommand instanceof GMUClusteredGetManyCommand) {
+                  return "GMUClusterGetMany{keys=" +
+                        Arrays.toString(((GMUClusteredGetManyCommand) gmuClusteredGetCommand).getKeys()) + "}";
+               }
                return "GMUClusterGet{key=" + gmuClusteredGetCommand.getKey() + "}";
             }
          });
@@ -325,6 +333,7 @@ public void run() {
                   log.exceptionHandlingCommand(cmd, throwable);
                   resp = new ExceptionResponse(new CacheException("Problems invoking command.", throwable));
                }
+               resp = piggyBackMinimumVisibleVersion(resp, cr);
                //the ResponseGenerated is null in this case because the return value is a Response
                reply(response, resp);
                //Before the gmuExecutorService continues handling other stuff, we have to detach the current xact.
@@ -341,6 +350,9 @@ public final String toString() {
          return;
       }
       Response resp = handleInternal(cmd, cr);
+      if (cmd instanceof GMUPrepareCommand) {
+         resp = piggyBackMinimumVisibleVersion(resp, cr);
+      }
 
       // A null response is valid and OK ...
       if (trace && resp != null && !resp.isValid()) {
@@ -354,6 +366,27 @@ public final String toString() {
       }
    }
 
+   /**
+    * replaces the successful response of a GMU command by one carrying the minimum visible version of this node, used
+    * by the garbage collector of the other nodes. The response is not changed if the garbage collection is disabled.
+    */
+   private Response piggyBackMinimumVisibleVersion(Response resp, ComponentRegistry cr) {
+      if (resp == null || resp.getClass() != SuccessfulResponse.class) {
+         return resp;
+      }
+      GarbageCollectorManager garbageCollectorManager = cr.getComponent(GarbageCollectorManager.class);
+      EntryVersion minimumVisibleVersion = garbageCollectorManager == null ? null :
+            garbageCollectorManager.getMinimumVisibleVersionToPiggyBack();
+      if (minimumVisibleVersion == null) {
+         return resp;
+      }
+      SuccessfulResponse successfulResponse = (SuccessfulResponse) resp;
+      GMUSuccessfulResponse gmuResponse = new GMUSuccessfulResponse(successfulResponse.getResponseValue(),
+                                                                    minimumVisibleVersion);
+      gmuResponse.setPiggyBackStat(successfulResponse.getPiggyBackStat());
+      return gmuResponse;
+   }
+
    private void reply(org.jgroups.blocks.Response response, Object retVal) {
       if (response != null) {
          response.send(retVal, false);
@@ -371,15 +404,5 @@ private int getReplySize(Response r) {
       }
    }
 
-
-   private boolean isTOGoingToWait(final TotalOrderRemoteTransactionState state) {
-      for (TotalOrderLatch block : state.getConflictingTransactionBlocks()) {
-         if (block.isBlocked()) {
-            return true;
-         }
-      }
-      return false;
-   }
-
 }
 
@@ -0,0 +1,92 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting.responses;
+
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.marshall.AbstractExternalizer;
+import org.infinispan.marshall.Ids;
+import org.infinispan.stats.PiggyBackStat;
+import org.infinispan.util.Util;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+/**
+ * A successful response to a GMU command that also carries the minimum visible version of the sender, used by the
+ * garbage collector of the other nodes. The other caches keep using the {@link SuccessfulResponse}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class GMUSuccessfulResponse extends SuccessfulResponse {
+
+   private final EntryVersion minimumVisibleVersion;
+
+   public GMUSuccessfulResponse(Object responseValue, EntryVersion minimumVisibleVersion) {
+      super(responseValue);
+      this.minimumVisibleVersion = minimumVisibleVersion;
+   }
+
+   /**
+    * @return the lower bound of the versions visible by the transactions running in the sender
+    */
+   public EntryVersion getMinimumVisibleVersion() {
+      return minimumVisibleVersion;
+   }
+
+   @Override
+   public String toString() {
+      return "GMUSuccessfulResponse{" +
+            "responseValue=" + getResponseValue() +
+            ", minimumVisibleVersion=" + minimumVisibleVersion +
+            "} ";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<GMUSuccessfulResponse> {
+      @Override
+      public void writeObject(ObjectOutput output, GMUSuccessfulResponse response) throws IOException {
+         output.writeObject(response.getResponseValue());
+         output.writeObject(response.minimumVisibleVersion);
+         output.writeObject(response.piggyBackStat);
+      }
+
+      @Override
+      public GMUSuccessfulResponse readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         GMUSuccessfulResponse response = new GMUSuccessfulResponse(input.readObject(), (EntryVersion) input.readObject());
+         response.setPiggyBackStat((PiggyBackStat) input.readObject());
+         return response;
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.GMU_SUCCESSFUL_RESPONSE;
+      }
+
+      @Override
+      public Set<Class<? extends GMUSuccessfulResponse>> getTypeClasses() {
+         return Util.<Class<? extends GMUSuccessfulResponse>>asSet(GMUSuccessfulResponse.class);
+      }
+   }
+}
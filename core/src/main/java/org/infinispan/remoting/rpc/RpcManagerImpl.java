@@ -29,6 +29,7 @@
 import org.infinispan.commands.TopologyAffectedCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.VersioningScheme;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
@@ -49,6 +50,8 @@
 import org.infinispan.statetransfer.StateTransferManager;
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.topology.LocalTopologyManager;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorManager;
+import org.infinispan.util.concurrent.IsolationLevel;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.concurrent.ResponseFuture;
 import org.infinispan.util.logging.Log;
@@ -96,6 +99,7 @@ public class RpcManagerImpl implements RpcManager {
    private CommandsFactory cf;
    private LocalTopologyManager localTopologyManager;
    private StateTransferManager stateTransferManager;
+   private GarbageCollectorManager garbageCollectorManager;
    private String cacheName;
 
    @Inject
@@ -115,6 +119,15 @@ public void injectDependencies(Transport t, Cache cache, Configuration cfg,
       this.stateTransferManager = stateTransferManager;
    }
 
+   @Inject
+   public void injectGarbageCollectorManager(GarbageCollectorManager garbageCollectorManager, Configuration cfg) {
+      //only the GMU caches piggy-back the minimum visible version in the responses
+      if (cfg.locking().isolationLevel() == IsolationLevel.SERIALIZABLE &&
+            cfg.versioning().scheme() == VersioningScheme.GMU && cfg.garbageCollector().enabled()) {
+         this.garbageCollectorManager = garbageCollectorManager;
+      }
+   }
+
    @Start(priority = 9)
    private void start() {
       statisticsEnabled = configuration.jmxStatistics().enabled();
@@ -174,6 +187,8 @@ public final Map<Address, Response> invokeRemotely(Collection<Address> recipient
          Map<Address, Response> result = t.invokeRemotely(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter,
                                                           totalOrder, configuration.clustering().cacheMode().isDistributed());
          if (statisticsEnabled) replicationCount.incrementAndGet();
+         //GMU only: collects the minimum visible versions piggy-backed in the responses
+         if (garbageCollectorManager != null) garbageCollectorManager.handleResponses(result);
          return result;
       } catch (CacheException e) {
          log.trace("replication exception: ", e);
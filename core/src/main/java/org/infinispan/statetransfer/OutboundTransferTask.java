@@ -31,6 +31,8 @@
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
@@ -39,18 +41,28 @@
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.concurrent.ResponseFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
  * OutboundTransferTask are created and managed by StateTransferManagerImpl. There should be at most
  * one such task per destination at any time.
+ * <p/>
+ * The chunks are pipelined: up to {@code chunksInFlight} chunks (see
+ * {@link org.infinispan.configuration.cache.StateTransferConfiguration#chunksInFlight()}) can be waiting for the
+ * acknowledge of the destination. Each acknowledge carries the number of chunks the destination is willing to receive (see
+ * {@link StateConsumer#getStateTransferCredits()}), which bounds the chunks in flight from then on. The last chunk is
+ * only sent after all the other chunks are acknowledged, so it is always the last one to be applied.
  *
  * @author anistor@redhat.com
  * @since 5.2
@@ -71,6 +83,11 @@ public class OutboundTransferTask implements Runnable {
 
    private final int stateTransferChunkSize;
 
+   /**
+    * The maximum number of chunks sent to the destination that can be waiting for its acknowledge.
+    */
+   private final int maxChunksInFlight;
+
    protected final ConsistentHash readCh;
 
    protected final ConsistentHash writeCh;
@@ -91,6 +108,17 @@ public class OutboundTransferTask implements Runnable {
 
    protected final Map<Integer, List<InternalCacheEntry>> entriesBySegment = ConcurrentMapFactory.makeConcurrentMap();
 
+   /**
+    * The chunks sent and not yet acknowledged by the destination, in the order they were sent. Only accessed by the
+    * thread running this task.
+    */
+   private final Queue<ResponseFuture> chunksInFlight = new ArrayDeque<ResponseFuture>();
+
+   /**
+    * The number of chunks the destination accepts to have in flight, updated by each acknowledge.
+    */
+   private int credits;
+
    /**
     * The total number of entries from all segments accumulated in entriesBySegment.
     */
@@ -102,7 +130,7 @@ public class OutboundTransferTask implements Runnable {
    private FutureTask<Void> runnableFuture;
 
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
-                               int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, ConsistentHash writeCh, DataContainer dataContainer,
+                               int maxChunksInFlight, int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, ConsistentHash writeCh, DataContainer dataContainer,
                                CacheLoaderManager cacheLoaderManager, RpcManager rpcManager,
                                CommandsFactory commandsFactory, long timeout, String cacheName, CommitLog commitLog) {
       this.writeCh = writeCh;
@@ -116,12 +144,17 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       if (stateTransferChunkSize <= 0) {
          throw new IllegalArgumentException("stateTransferChunkSize must be greater than 0");
       }
+      if (maxChunksInFlight <= 0) {
+         throw new IllegalArgumentException("maxChunksInFlight must be greater than 0");
+      }
       this.stateProvider = stateProvider;
       this.destination = destination;
       if (segments != null) {
          this.segments.addAll(segments);
       }
       this.stateTransferChunkSize = stateTransferChunkSize;
+      this.maxChunksInFlight = maxChunksInFlight;
+      this.credits = maxChunksInFlight;
       this.topologyId = topologyId;
       this.readCh = readCh;
       this.dataContainer = dataContainer;
@@ -156,8 +189,11 @@ public Set<Integer> getSegments() {
    //todo [anistor] check thread interrupt status in loops to implement faster cancellation
    public void run() {
       try {
-         // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
+         // send data container entries. the data placement requests have no segments and check all the keys
+         Iterator<InternalCacheEntry> iterator = segments.isEmpty() ? dataContainer.iterator() :
+               dataContainer.segmentIterator(segments);
+         while (iterator.hasNext()) {
+            InternalCacheEntry ice = iterator.next();
             Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
             int segmentId = readCh.getSegment(key);
             if (isKeyMoved(key)) {
@@ -242,8 +278,9 @@ protected void sendEntries(boolean isLast) {
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
          if (!entries.isEmpty() || isLast) {
-            chunks.add(new StateChunk(e.getKey(), new ArrayList<InternalCacheEntry>(entries), isLast));
-            entries.clear();
+            // the list is handed over to the chunk, it can still be in flight when this segment is filled again
+            chunks.add(new StateChunk(e.getKey(), entries, isLast));
+            entriesBySegment.put(e.getKey(), new ArrayList<InternalCacheEntry>());
          }
       }
 
@@ -272,18 +309,67 @@ protected final void sendChunks(List<StateChunk> chunks, boolean isLast) {
          StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
          EntryVersion version = commitLog != null && commitLog.isEnabled() ? commitLog.getCurrentVersion() : null;
          cmd.setVersion(version);
-         // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
          try {
-            rpcManager.invokeRemotely(Collections.singleton(destination), cmd, ResponseMode.SYNCHRONOUS, timeout, false, false);
+            if (isLast) {
+               // it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
+               while (!chunksInFlight.isEmpty()) {
+                  awaitAcknowledge();
+               }
+               rpcManager.invokeRemotely(Collections.singleton(destination), cmd, ResponseMode.SYNCHRONOUS, timeout, false, false);
+            } else {
+               // the chunks already acknowledged are collected first, they may have granted a different number of credits
+               while (!chunksInFlight.isEmpty() && (chunksInFlight.size() >= credits || chunksInFlight.peek().isDone())) {
+                  awaitAcknowledge();
+               }
+               chunksInFlight.add(rpcManager.invokeRemotelyWithFuture(Collections.singleton(destination), cmd, false, false));
+            }
          } catch (SuspectException e) {
             log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
             cancel();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
          } catch (Exception e) {
             log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
          }
       }
    }
 
+   /**
+    * Waits for the acknowledge of the oldest chunk in flight and updates the credits granted by the destination. It
+    * waits at most the state transfer timeout, as the synchronous send of the last chunk.
+    */
+   private void awaitAcknowledge() throws InterruptedException {
+      ResponseFuture future = chunksInFlight.remove();
+      try {
+         Map<Address, Response> responses = future.get(timeout, TimeUnit.MILLISECONDS);
+         Response response = responses == null ? null : responses.get(destination);
+         if (response instanceof SuccessfulResponse) {
+            Object value = ((SuccessfulResponse) response).getResponseValue();
+            if (value instanceof Integer) {
+               credits = Math.max(1, Math.min(maxChunksInFlight, (Integer) value));
+            }
+         }
+      } catch (ExecutionException e) {
+         onAcknowledgeFailure(e.getCause());
+      } catch (TimeoutException e) {
+         onAcknowledgeFailure(e);
+      } catch (RuntimeException e) {
+         onAcknowledgeFailure(e);
+      }
+   }
+
+   private void onAcknowledgeFailure(Throwable t) {
+      // the SuspectException may be wrapped in several RpcException and ExecutionException
+      for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+         if (cause instanceof SuspectException) {
+            throw (SuspectException) cause;
+         }
+      }
+      // the other chunks can still be applied, as it happens when a chunk is sent synchronously
+      log.errorf(t, "Failed to send entries to node %s : %s", destination, t.getMessage());
+   }
+
    /**
     * Cancel some of the segments. If all segments get cancelled then the whole task will be cancelled.
     *
@@ -321,6 +407,7 @@ public String toString() {
             ", destination=" + destination +
             ", segments=" + segments +
             ", stateTransferChunkSize=" + stateTransferChunkSize +
+            ", credits=" + credits +
             ", timeout=" + timeout +
             ", cacheName='" + cacheName + '\'' +
             '}';
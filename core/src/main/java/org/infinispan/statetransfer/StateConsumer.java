@@ -58,6 +58,14 @@ public interface StateConsumer {
 
    void applyState(Address sender, int topologyId, Collection<StateChunk> stateChunks, EntryVersion txVersion);
 
+   /**
+    * Returns the number of state chunks a sender can have in flight to this node. It is sent back with the acknowledge
+    * of each chunk and it shrinks while this node is busy applying the chunks received from other senders.
+    *
+    * @return the number of chunks, always greater than zero
+    */
+   int getStateTransferCredits();
+
    /**
     * Cancels all incoming state transfers. The already received data is not discarded.
     * This is executed when the cache is shutting down.
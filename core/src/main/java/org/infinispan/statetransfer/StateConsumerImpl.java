@@ -41,6 +41,7 @@
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.dataplacement.ch.DataPlacementConsistentHash;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
@@ -48,6 +49,13 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Parameter;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
@@ -61,6 +69,7 @@
 import org.infinispan.transaction.LocalTransaction;
 import org.infinispan.transaction.RemoteTransaction;
 import org.infinispan.transaction.TransactionTable;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorManager;
 import org.infinispan.transaction.gmu.manager.SortedTransactionQueue;
 import org.infinispan.transaction.totalorder.TotalOrderLatch;
 import org.infinispan.transaction.totalorder.TotalOrderManager;
@@ -76,6 +85,7 @@
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.infinispan.context.Flag.*;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
@@ -86,6 +96,7 @@
  * @author anistor@redhat.com
  * @since 5.2
  */
+@MBean(objectName = "StateConsumer", description = "Component that receives and applies the state transferred from other nodes")
 public class StateConsumerImpl implements StateConsumer {
 
    protected static final Log log = LogFactory.getLog(StateConsumerImpl.class);
@@ -107,6 +118,11 @@ public class StateConsumerImpl implements StateConsumer {
    private CacheNotifier cacheNotifier;
    private TotalOrderManager totalOrderManager;
    protected long timeout;
+
+   /**
+    * The maximum number of chunks a sender can have in flight to this node.
+    */
+   private int chunksInFlight;
    private boolean useVersionedPut;
    protected boolean isFetchEnabled;
    protected boolean isTransactional;
@@ -114,6 +130,7 @@ public class StateConsumerImpl implements StateConsumer {
    private boolean isInvalidationMode;
 
    private BlockingTaskAwareExecutorService gmuExecutorService;
+   private GarbageCollectorManager garbageCollectorManager;
 
    protected volatile CacheTopology cacheTopology;
 
@@ -163,6 +180,18 @@ public class StateConsumerImpl implements StateConsumer {
    private VersionGenerator versionGenerator;
    private final Map<Address, ShadowTransactionInfo> shadowTransactionInfoMap = new HashMap<Address, ShadowTransactionInfo>();
 
+   /**
+    * The number of state chunks being applied, from all the senders. It reduces the credits granted to the senders.
+    */
+   private final AtomicInteger applyingChunks = new AtomicInteger(0);
+
+   private volatile boolean statisticsEnabled;
+
+   /**
+    * The transfer statistics of each segment received since the last reset.
+    */
+   private final ConcurrentMap<Integer, SegmentTransferStatistics> segmentStatistics = ConcurrentMapFactory.makeConcurrentMap();
+
    public StateConsumerImpl() {
    }
 
@@ -259,11 +288,17 @@ public void init(Cache cache,
             configuration.clustering().cacheMode().isClustered();
 
       timeout = configuration.clustering().stateTransfer().timeout();
+      chunksInFlight = configuration.clustering().stateTransfer().chunksInFlight();
       if (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE) {
          oldKeyOwners = ConcurrentMapFactory.makeConcurrentMap();
       }
    }
 
+   @Inject
+   public void injectGarbageCollectorManager(GarbageCollectorManager garbageCollectorManager) {
+      this.garbageCollectorManager = garbageCollectorManager;
+   }
+
    public boolean hasActiveTransfers() {
       synchronized (this) {
          return !transfersBySource.isEmpty();
@@ -362,6 +397,8 @@ public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean is
       // No need for a try/finally block, since it's just an assignment
       stateTransferLock.acquireExclusiveTopologyLock();
       this.cacheTopology = cacheTopology;
+      // no writes are in progress, so the data container can be partitioned (only the first time)
+      dataContainer.partition(cacheTopology.getWriteConsistentHash());
       if (isRebalance) {
          if (trace) log.tracef("Start keeping track of keys for rebalance");
          updatedKeys = new ConcurrentHashSet<Object>();
@@ -479,6 +516,20 @@ private Set<Integer> getOwnedSegments(ConsistentHash consistentHash) {
    }
 
    public void applyState(Address sender, int topologyId, Collection<StateChunk> stateChunks, EntryVersion txVersion) {
+      applyingChunks.incrementAndGet();
+      try {
+         applyStateChunks(sender, topologyId, stateChunks, txVersion);
+      } finally {
+         applyingChunks.decrementAndGet();
+      }
+   }
+
+   @Override
+   public int getStateTransferCredits() {
+      return Math.max(1, chunksInFlight - applyingChunks.get());
+   }
+
+   private void applyStateChunks(Address sender, int topologyId, Collection<StateChunk> stateChunks, EntryVersion txVersion) {
       ConsistentHash wCh = cacheTopology.getWriteConsistentHash();
       // ignore responses received after we are no longer a member
       if (!wCh.getMembers().contains(rpcManager.getAddress())) {
@@ -546,51 +597,13 @@ private void doApplyState(Address sender, int segmentId, Collection<InternalCach
          log.tracef("Received keys %s for segment %d of cache %s from node %s", keys, segmentId, cacheName, sender);
       }
 
-      // CACHE_MODE_LOCAL avoids handling by StateTransferInterceptor and any potential locks in StateTransferLock
-      EnumSet<Flag> flags = EnumSet.of(PUT_FOR_STATE_TRANSFER, CACHE_MODE_LOCAL, IGNORE_RETURN_VALUES, SKIP_REMOTE_LOOKUP, SKIP_SHARED_CACHE_STORE, SKIP_OWNERSHIP_CHECK, SKIP_XSITE_BACKUP);
-      for (InternalCacheEntry e : cacheEntries) {
-         if (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE) {
-            OwnersList ownersList = new OwnersList();
-            OwnersList existing = oldKeyOwners.putIfAbsent(e.getKey(), ownersList);
-            if (existing != null) {
-               ownersList = existing;
-            }
-            ownersList.add(sender);
-            //Wait for the commit of the state-transfer transaction
-            ShadowTransactionInfo transactionInfo;
-            synchronized (this) {
-               transactionInfo = this.shadowTransactionInfoMap.get(sender);
-            }
-
-            GMUCacheEntryVersion version = null;
-            SortedTransactionQueue.TransactionEntry transactionEntry = null;
-            if (transactionInfo == null) {
-               log.error("Unable to determine a commit version on state transfer");
-            } else {
-
-               try {
-                  transactionEntry = transactionInfo.waitForTransactionEntry();
-                  if(transactionEntry != null)
-                     transactionEntry.awaitUntilCommitted();
-
-               } catch (InterruptedException e1) {
-                  e1.printStackTrace();
-               }
-
-               if(transactionEntry != null && transactionEntry.isCommitted())
-                  version = transactionEntry.getNewVersionInDataContainer();
-
-               if(version == null){
-                  log.error("Transaction Info for Transaction Entry "+transactionEntry+" is not null but Commit Version is null");
-               }
-            }
-
-            //Then put in the GMUDataContainer the new data by using the version numbers of the state transfer transaction
-            dataContainer.put(e.getKey(), e.getValue(), version, e.getLifespan(), e.getMaxIdle(), true);
-
-
-         } else {
-
+      final long start = statisticsEnabled ? System.nanoTime() : 0;
+      if (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE) {
+         applyStateInDataContainer(sender, cacheEntries);
+      } else {
+         // CACHE_MODE_LOCAL avoids handling by StateTransferInterceptor and any potential locks in StateTransferLock
+         EnumSet<Flag> flags = EnumSet.of(PUT_FOR_STATE_TRANSFER, CACHE_MODE_LOCAL, IGNORE_RETURN_VALUES, SKIP_REMOTE_LOOKUP, SKIP_SHARED_CACHE_STORE, SKIP_OWNERSHIP_CHECK, SKIP_XSITE_BACKUP);
+         for (InternalCacheEntry e : cacheEntries) {
             try {
                InvocationContext ctx;
                if (transactionManager != null) {
@@ -641,7 +654,77 @@ private void doApplyState(Address sender, int segmentId, Collection<InternalCach
                log.problemApplyingStateForKey(ex.getMessage(), e.getKey(), ex);
             }
          }
-         log.debugf("Finished applying state for segment %d of cache %s", segmentId, cacheName);
+      }
+      if (statisticsEnabled) {
+         updateStatistics(segmentId, cacheEntries.size(), start, System.nanoTime());
+      }
+      log.debugf("Finished applying state for segment %d of cache %s", segmentId, cacheName);
+   }
+
+   private void updateStatistics(int segmentId, int entries, long start, long end) {
+      SegmentTransferStatistics statistics = segmentStatistics.get(segmentId);
+      if (statistics == null) {
+         statistics = new SegmentTransferStatistics(start);
+         SegmentTransferStatistics existing = segmentStatistics.putIfAbsent(segmentId, statistics);
+         if (existing != null) {
+            statistics = existing;
+         }
+      }
+      statistics.chunkApplied(entries, start, end);
+   }
+
+   /**
+    * Puts the received entries directly in the data container, tagged with the commit version of the shadow
+    * transaction of the sender. The shadow transaction is awaited once for the whole chunk.
+    */
+   private void applyStateInDataContainer(Address sender, Collection<InternalCacheEntry> cacheEntries) {
+      if (cacheEntries.isEmpty()) {
+         return;
+      }
+      //Wait for the commit of the state-transfer transaction
+      ShadowTransactionInfo transactionInfo;
+      synchronized (this) {
+         transactionInfo = this.shadowTransactionInfoMap.get(sender);
+      }
+
+      GMUCacheEntryVersion version = null;
+      SortedTransactionQueue.TransactionEntry transactionEntry = null;
+      if (transactionInfo == null) {
+         log.error("Unable to determine a commit version on state transfer");
+      } else {
+
+         try {
+            transactionEntry = transactionInfo.waitForTransactionEntry();
+            if(transactionEntry != null)
+               transactionEntry.awaitUntilCommitted();
+
+         } catch (InterruptedException e) {
+            //interrupted...
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while waiting for the state transfer transaction of " + sender, e);
+         }
+
+         if(transactionEntry != null && transactionEntry.isCommitted())
+            version = transactionEntry.getNewVersionInDataContainer();
+
+         if(version == null){
+            log.error("Transaction Info for Transaction Entry "+transactionEntry+" is not null but Commit Version is null");
+         }
+      }
+
+      for (InternalCacheEntry e : cacheEntries) {
+         OwnersList ownersList = new OwnersList();
+         OwnersList existing = oldKeyOwners.putIfAbsent(e.getKey(), ownersList);
+         if (existing != null) {
+            ownersList = existing;
+         }
+         ownersList.add(sender);
+         //Then put in the GMUDataContainer the new data by using the version numbers of the state transfer transaction
+         dataContainer.put(e.getKey(), e.getValue(), version, e.getLifespan(), e.getMaxIdle(), true);
+         if (garbageCollectorManager != null) {
+            //the state is not in the commit log
+            garbageCollectorManager.notifyKeyWritten(e.getKey());
+         }
       }
    }
 
@@ -673,6 +756,7 @@ protected void applyTransactions(Address sender, Collection<TransactionInfo> tra
    @Start(priority = 20)
    public void start() {
       isFetchEnabled = configuration.clustering().stateTransfer().fetchInMemoryState() || cacheLoaderManager.isFetchPersistentState();
+      statisticsEnabled = configuration.jmxStatistics().enabled();
    }
 
    @Stop(priority = 20)
@@ -1021,9 +1105,20 @@ private void invalidateSegments(ConsistentHash consistentHash, Set<Integer> segm
       Set<Object> keysToL1 = new HashSet<Object>();
       Set<Object> keysToRemove = new HashSet<Object>();
 
+      // only the segments not owned can have keys to remove, unless the data placement moved keys out of the owned
+      // segments. The data container only iterates the keys of those segments.
+      Set<Integer> segmentsToCheck = new HashSet<Integer>(segmentsToL1);
+      Set<Integer> ownedSegments = consistentHash instanceof DataPlacementConsistentHash ?
+            InfinispanCollections.<Integer>emptySet() : getOwnedSegments(consistentHash);
+      for (int segment = 0; segment < consistentHash.getNumSegments(); ++segment) {
+         if (!ownedSegments.contains(segment)) {
+            segmentsToCheck.add(segment);
+         }
+      }
+
       // gather all keys from data container that belong to the segments that are being removed/moved to L1
-      for (InternalCacheEntry ice : dataContainer) {
-         Object key = ice.getKey();
+      for (Iterator<InternalCacheEntry> iterator = dataContainer.segmentIterator(segmentsToCheck); iterator.hasNext(); ) {
+         Object key = iterator.next().getKey();
          int keySegment = getSegment(key);
          if (segmentsToL1.contains(keySegment)) {
             keysToL1.add(key);
@@ -1063,7 +1158,9 @@ private void invalidateSegments(ConsistentHash consistentHash, Set<Integer> segm
             InvocationContext ctx = icc.createNonTxInvocationContext();
             interceptorChain.invoke(ctx, invalidateCmd);
 
-            log.debugf("Invalidated %d keys, data container now has %d keys", keysToL1.size(), dataContainer.size(null));
+            if (log.isDebugEnabled()) {
+               log.debugf("Invalidated %d keys, data container now has %d keys", keysToL1.size(), dataContainer.size(null));
+            }
             if (trace) log.tracef("Invalidated keys: %s", keysToL1);
          } catch (CacheException e) {
             log.failedToInvalidateKeys(e);
@@ -1077,7 +1174,9 @@ private void invalidateSegments(ConsistentHash consistentHash, Set<Integer> segm
             InvocationContext ctx = icc.createNonTxInvocationContext();
             interceptorChain.invoke(ctx, invalidateCmd);
 
-            log.debugf("Invalidated %d keys, data container of cache %s now has %d keys", keysToRemove.size(), cacheName, dataContainer.size(null));
+            if (log.isDebugEnabled()) {
+               log.debugf("Invalidated %d keys, data container of cache %s now has %d keys", keysToRemove.size(), cacheName, dataContainer.size(null));
+            }
             if (trace) log.tracef("Invalidated keys: %s", keysToRemove);
          } catch (CacheException e) {
             log.failedToInvalidateKeys(e);
@@ -1187,6 +1286,57 @@ void onTaskCompletion(InboundTransferTask inboundTransfer) {
       notifyEndOfRebalanceIfNeeded(cacheTopology.getTopologyId());
    }
 
+   // -------------------------------------------- JMX information -----------------------------------------------
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      segmentStatistics.clear();
+   }
+
+   @ManagedAttribute(description = "Statistics enabled", displayName = "Statistics enabled", dataType = DataType.TRAIT, writable = true)
+   public boolean isStatisticsEnabled() {
+      return statisticsEnabled;
+   }
+
+   public void setStatisticsEnabled(boolean statisticsEnabled) {
+      this.statisticsEnabled = statisticsEnabled;
+   }
+
+   @ManagedAttribute(description = "Number of state chunks being applied", displayName = "Number of state chunks being applied")
+   public int getApplyingChunks() {
+      return applyingChunks.get();
+   }
+
+   @ManagedAttribute(description = "Number of cache entries received by state transfer", displayName = "Number of received entries", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getReceivedEntries() {
+      if (!statisticsEnabled) {
+         return -1;
+      }
+      long entries = 0;
+      for (SegmentTransferStatistics statistics : segmentStatistics.values()) {
+         entries += statistics.getEntries();
+      }
+      return entries;
+   }
+
+   @ManagedAttribute(description = "State transfer throughput of each received segment, in entries per second", displayName = "State transfer throughput per segment", dataType = DataType.TRAIT)
+   public String getSegmentsThroughput() {
+      if (!statisticsEnabled) {
+         return "N/A";
+      }
+      Map<Integer, Double> throughput = new TreeMap<Integer, Double>();
+      for (Map.Entry<Integer, SegmentTransferStatistics> entry : segmentStatistics.entrySet()) {
+         throughput.put(entry.getKey(), entry.getValue().getThroughput());
+      }
+      return throughput.toString();
+   }
+
+   @ManagedOperation(description = "Returns the state transfer throughput of a segment, in entries per second", displayName = "Segment state transfer throughput")
+   public double getSegmentThroughput(@Parameter(name = "segment", description = "The segment id") int segment) {
+      SegmentTransferStatistics statistics = segmentStatistics.get(segment);
+      return statistics == null ? 0 : statistics.getThroughput();
+   }
+
    private class OwnersList {
       private final List<Address> owners;
 
@@ -1206,4 +1356,39 @@ public synchronized final List<Address> toList() {
          return Collections.unmodifiableList(owners);
       }
    }
+
+   /**
+    * The entries received for a segment and the time elapsed between the start of the first chunk and the end of the
+    * last chunk applied. The chunks of a segment can be applied concurrently and finish out of order, so the first chunk
+    * to finish is not always the first one to start.
+    */
+   private static class SegmentTransferStatistics {
+      private long start;
+      private long end;
+      private long entries;
+
+      private SegmentTransferStatistics(long start) {
+         this.start = start;
+         this.end = start;
+      }
+
+      public synchronized final void chunkApplied(int entries, long start, long end) {
+         this.entries += entries;
+         if (start < this.start) {
+            this.start = start;
+         }
+         if (end > this.end) {
+            this.end = end;
+         }
+      }
+
+      public synchronized final long getEntries() {
+         return entries;
+      }
+
+      public synchronized final double getThroughput() {
+         long elapsed = end - start;
+         return elapsed <= 0 ? 0 : entries * 1000000000d / elapsed;
+      }
+   }
 }
@@ -77,6 +77,7 @@ public class StateProviderImpl implements StateProvider {
    private StateTransferLock stateTransferLock;
    protected long timeout;
    protected int chunkSize;
+   protected int chunksInFlight;
 
    private StateConsumer stateConsumer;
    protected CommitLog commitLog;
@@ -121,6 +122,7 @@ public void init(Cache cache,
       // ignore chunk sizes <= 0
       int chunkSize = configuration.clustering().stateTransfer().chunkSize();
       this.chunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
+      chunksInFlight = configuration.clustering().stateTransfer().chunksInFlight();
    }
 
    public boolean isStateTransferInProgress() {
@@ -307,7 +309,7 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, Se
    }
    
    protected OutboundTransferTask createTask(Address destination, Set<Integer> segments, CacheTopology cacheTopology) {
-      return new OutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
+      return new OutboundTransferTask(destination, segments, chunkSize, chunksInFlight, cacheTopology.getTopologyId(),
                                       cacheTopology.getReadConsistentHash(), this, cacheTopology.getWriteConsistentHash(), 
                                       dataContainer, cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName, commitLog);
    }
@@ -94,7 +94,7 @@ public Object perform(InvocationContext ctx) throws Throwable {
       LogFactory.pushNDC(cacheName, trace);
       try {
          stateConsumer.applyState(getOrigin(), topologyId, stateChunks, version);
-         return null;
+         return stateConsumer.getStateTransferCredits();
       } finally {
          LogFactory.popNDC(trace);
       }
@@ -102,7 +102,7 @@ public Object perform(InvocationContext ctx) throws Throwable {
 
    @Override
    public boolean isReturnValueExpected() {
-      return false;
+      return true;
    }
 
    @Override
@@ -25,6 +25,7 @@
 import org.infinispan.stats.container.ConcurrentGlobalContainer;
 import org.infinispan.stats.container.StatisticsSnapshot;
 import org.infinispan.stats.container.TransactionStatistics;
+import org.infinispan.stats.percentiles.LogHistogram;
 import org.infinispan.stats.percentiles.PercentileStats;
 import org.infinispan.stats.percentiles.PercentileStatsFactory;
 import org.infinispan.util.logging.Log;
@@ -109,19 +110,40 @@ public final void addRemoteValue(ExposedStatistic stat, double value) {
       globalContainer.add(stat, (long) value, false);
    }
 
-   public final double getPercentile(ExposedStatistic param, int percentile) throws NoIspnStatException {
+   public final StatisticsSnapshot getSnapshot() {
+      return globalContainer.getSnapshot();
+   }
+
+   public final double getPercentile(ExposedStatistic param, double percentile) throws NoIspnStatException {
       if (log.isTraceEnabled()) {
          log.tracef("Get percentile %s from %s", percentile, param);
       }
+      return getPercentileStats(param).getPercentile(percentile);
+   }
+
+   /**
+    * adds the samples of the percentile {@code param} to {@code histogram}
+    *
+    * @param param     the percentile statistic
+    * @param histogram the histogram where the samples are added
+    */
+   public final void mergePercentile(ExposedStatistic param, LogHistogram histogram) throws NoIspnStatException {
+      final PercentileStats stats = getPercentileStats(param);
+      if (stats instanceof LogHistogram) {
+         histogram.merge((LogHistogram) stats);
+      }
+   }
+
+   private PercentileStats getPercentileStats(ExposedStatistic param) throws NoIspnStatException {
       switch (param) {
          case RO_LOCAL_PERCENTILE:
-            return localTransactionRoExecutionTime.getKPercentile(percentile);
+            return localTransactionRoExecutionTime;
          case WR_LOCAL_PERCENTILE:
-            return localTransactionWrExecutionTime.getKPercentile(percentile);
+            return localTransactionWrExecutionTime;
          case RO_REMOTE_PERCENTILE:
-            return remoteTransactionRoExecutionTime.getKPercentile(percentile);
+            return remoteTransactionRoExecutionTime;
          case WR_REMOTE_PERCENTILE:
-            return remoteTransactionWrExecutionTime.getKPercentile(percentile);
+            return remoteTransactionWrExecutionTime;
          default:
             throw new NoIspnStatException("Invalid percentile " + param);
       }
@@ -240,7 +262,7 @@ public final Object getAttribute(ExposedStatistic param) throws NoIspnStatExcept
                long remoteLocal = snapshot.getRemote(LOCK_CONTENTION_TO_LOCAL);
                long remoteRemote = snapshot.getRemote(LOCK_CONTENTION_TO_REMOTE);
                long totalCont = localLocal + localRemote + remoteLocal + remoteRemote;
-               return new Double(totalCont / totalPuts);
+               return new Double(totalCont * 1.0 / totalPuts);
             }
             return new Double(0);
          }
@@ -26,7 +26,9 @@
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.stats.container.LocalTransactionStatistics;
 import org.infinispan.stats.container.RemoteTransactionStatistics;
+import org.infinispan.stats.container.StatisticsSnapshot;
 import org.infinispan.stats.container.TransactionStatistics;
+import org.infinispan.stats.percentiles.LogHistogram;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
@@ -187,12 +189,20 @@ public static Object getAttribute(ExposedStatistic param, String transactionClas
       return ret;
    }
 
-   public static Object getPercentile(ExposedStatistic param, int percentile, String className) {
+   /**
+    * @param className the transaction class or null for all the transaction classes
+    * @return the percentile of the transaction class or null if it does not exist
+    */
+   public static Object getPercentile(ExposedStatistic param, double percentile, String className) {
       if (configuration == null) {
          return null;
       }
       if (className == null) {
-         return transactionalClassesStatsMap.get(DEFAULT_ISPN_CLASS).getPercentile(param, percentile);
+         final LogHistogram histogram = new LogHistogram();
+         for (NodeScopeStatisticCollector collector : transactionalClassesStatsMap.values()) {
+            collector.mergePercentile(param, histogram);
+         }
+         return histogram.getPercentile(percentile);
       } else {
          if (transactionalClassesStatsMap.get(className) != null)
             return transactionalClassesStatsMap.get(className).getPercentile(param, percentile);
@@ -201,6 +211,19 @@ public static Object getPercentile(ExposedStatistic param, int percentile, Strin
       }
    }
 
+   /**
+    * @param className the transaction class or null for the default class
+    * @return the raw statistics of the transaction class or null if it does not exist
+    */
+   public static StatisticsSnapshot getSnapshot(String className) {
+      if (configuration == null) {
+         return null;
+      }
+      final NodeScopeStatisticCollector collector =
+            transactionalClassesStatsMap.get(className == null ? DEFAULT_ISPN_CLASS : className);
+      return collector == null ? null : collector.getSnapshot();
+   }
+
    public static void flushPendingRemoteLocksIfNeeded(GlobalTransaction id) {
       if (!active) {
          return;
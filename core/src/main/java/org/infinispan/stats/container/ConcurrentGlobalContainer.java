@@ -2,16 +2,22 @@
 
 import org.infinispan.stats.ExposedStatistic;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static org.infinispan.stats.ExposedStatistic.*;
 
 /**
  * Thread safe cache statistics that allows multiple writers and reader at the same time.
+ * <p/>
+ * Each writer thread owns a cell with its own values, so adding or merging statistics never locks, never allocates
+ * and never contends with other writers. The cells are summed when a snapshot is requested.
+ * <p/>
+ * The reset is epoch based: it only increments the epoch and each writer clears its own cell the next time it writes.
+ * The cells tagged with an older epoch are ignored by the snapshots. An update that races with a reset may be lost.
  *
  * @author Pedro Ruivo
  * @since 5.2
@@ -23,21 +29,30 @@ public final class ConcurrentGlobalContainer {
    private static final int LOCAL_SIZE = getLocalStatsSize();
    private static final int REMOTE_SIZE = getRemoteStatsSize();
    private static final int TOTAL_SIZE = 1 + LOCAL_SIZE + REMOTE_SIZE;
-   private final AtomicBoolean flushing;
-   private final BlockingQueue<Mergeable> queue;
-   private volatile long[] values;
-   private volatile boolean reset;
+   private final Queue<Cell> cells;
+   private final ThreadLocal<Cell> threadCell;
+   //the values of the cells whose thread has died in the current epoch. guarded by this
+   private final long[] retired;
+   private volatile int epoch;
+   private volatile long resetTime;
 
    public ConcurrentGlobalContainer() {
-      flushing = new AtomicBoolean(false);
-      queue = new LinkedBlockingQueue<Mergeable>();
-      values = create();
-      values[0] = System.nanoTime();
+      cells = new ConcurrentLinkedQueue<Cell>();
+      threadCell = new ThreadLocal<Cell>() {
+         @Override
+         protected Cell initialValue() {
+            Cell cell = new Cell(Thread.currentThread(), epoch);
+            cells.add(cell);
+            return cell;
+         }
+      };
+      retired = create();
+      resetTime = System.nanoTime();
    }
 
    public final void add(ExposedStatistic stat, long value, boolean local) {
-      queue.add(new SingleOperation(local ? getLocalIndex(stat) : getRemoteIndex(stat), value));
-      tryFlush();
+      final int index = local ? getLocalIndex(stat) : getRemoteIndex(stat);
+      cell().add(index, value);
    }
 
    public final void merge(long[] toMerge, boolean local) {
@@ -48,18 +63,40 @@ public final void merge(long[] toMerge, boolean local) {
          throw new IllegalArgumentException("Size mismatch to merge transaction statistic");
       }
 
-      queue.add(new Transaction(toMerge, offset));
-      tryFlush();
+      final Cell cell = cell();
+      for (int i = 0; i < toMerge.length; ++i) {
+         if (toMerge[i] != 0) {
+            cell.add(offset + i, toMerge[i]);
+         }
+      }
    }
 
-   public final StatisticsSnapshot getSnapshot() {
-      tryFlush();
-      return new StatisticsSnapshot(values);
+   public final synchronized StatisticsSnapshot getSnapshot() {
+      final int current = epoch;
+      final long[] snapshot = create();
+      System.arraycopy(retired, 0, snapshot, 0, snapshot.length);
+      for (Iterator<Cell> iterator = cells.iterator(); iterator.hasNext(); ) {
+         Cell cell = iterator.next();
+         //the writes of a dead thread happen-before isAlive() returns false
+         final boolean dead = !cell.owner.isAlive();
+         if (cell.epoch == current) {
+            cell.sumTo(snapshot);
+            if (dead) {
+               cell.sumTo(retired);
+            }
+         }
+         if (dead) {
+            iterator.remove();
+         }
+      }
+      snapshot[0] = resetTime;
+      return new StatisticsSnapshot(snapshot);
    }
 
-   public final void reset() {
-      reset = true;
-      tryFlush();
+   public final synchronized void reset() {
+      Arrays.fill(retired, 0);
+      resetTime = System.nanoTime();
+      epoch++;
    }
 
    public static int getLocalIndex(ExposedStatistic stat) {
@@ -81,93 +118,51 @@ public static int getRemoteIndex(ExposedStatistic stat) {
    /**
     * @return TEST ONLY!!
     */
-   public final BlockingQueue<?> queue() {
-      return queue;
+   public final int cells() {
+      return cells.size();
    }
 
-   /**
-    * @return TEST ONLY!!
-    */
-   public final AtomicBoolean flushing() {
-      return flushing;
-   }
-
-   /**
-    * @return TEST ONLY!!
-    */
-   public final boolean isReset() {
-      return reset;
-   }
-
-   private void tryFlush() {
-      if (flushing.compareAndSet(false, true)) {
-         flush();
+   private Cell cell() {
+      final Cell cell = threadCell.get();
+      final int current = epoch;
+      if (cell.epoch != current) {
+         cell.clear();
+         cell.epoch = current;
       }
+      return cell;
    }
 
-   private void flush() {
-      if (reset) {
-         values = create();
-         queue.clear();
-         reset = false;
-         values[0] = System.nanoTime();
-         flushing.set(false);
-         return;
-      }
-      final long[] copy = create();
-      System.arraycopy(values, 0, copy, 0, copy.length);
-      List<Mergeable> drain = new ArrayList<Mergeable>();
-      queue.drainTo(drain);
-      for (Mergeable mergeable : drain) {
-         try {
-            mergeable.mergeTo(copy);
-         } catch (Throwable throwable) {
-            //ignore
-         }
-      }
-      values = copy;
-      flushing.set(false);
-   }
-
-   private long[] create() {
+   private static long[] create() {
       return new long[TOTAL_SIZE];
    }
 
-   private interface Mergeable {
-      void mergeTo(long[] values);
-   }
-
-   private class Transaction implements Mergeable {
+   private static class Cell {
 
-      private final long[] toMerge;
-      private final int offset;
+      private final Thread owner;
+      //only the owner writes the values, so a lazy set is enough to publish them
+      private final AtomicLongArray values;
+      private volatile int epoch;
 
-      private Transaction(long[] toMerge, int offset) {
-         this.toMerge = toMerge;
-         this.offset = offset;
+      private Cell(Thread owner, int epoch) {
+         this.owner = owner;
+         this.values = new AtomicLongArray(TOTAL_SIZE);
+         this.epoch = epoch;
       }
 
-      @Override
-      public void mergeTo(long[] values) {
-         for (int i = 0; i < values.length; ++i) {
-            values[offset + i] += toMerge[i];
-         }
+      private void add(int index, long value) {
+         values.lazySet(index, values.get(index) + value);
       }
-   }
-
-   private class SingleOperation implements Mergeable {
 
-      private final int index;
-      private final long value;
-
-      private SingleOperation(int index, long value) {
-         this.value = value;
-         this.index = index;
+      private void clear() {
+         for (int i = 0; i < TOTAL_SIZE; ++i) {
+            values.lazySet(i, 0);
+         }
       }
 
-      @Override
-      public void mergeTo(long[] values) {
-         values[index] += value;
+      private void sumTo(long[] sum) {
+         for (int i = 1; i < TOTAL_SIZE; ++i) {
+            sum[i] += values.get(i);
+         }
       }
    }
 }
@@ -0,0 +1,210 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.stats.percentiles;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram, in the spirit of the HdrHistogram, with bounded relative error.
+ * <p/>
+ * The values below {@code 2^precision} are counted exactly. Each power of two above is split in {@code 2^precision}
+ * buckets of the same width, so the percentiles are reported with a relative error below {@code 2^-precision}. With
+ * the default precision of 7, the error is below 1% and the histogram uses {@code 57 * 128} counters.
+ * <p/>
+ * Inserting a sample is a single atomic increment, so it never blocks. The percentiles are computed over the counters
+ * as they are when read. Histograms with the same precision can be merged, which is how the percentiles of all the
+ * transaction classes are aggregated.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class LogHistogram implements PercentileStats {
+
+   public static final int DEFAULT_PRECISION = 7;
+   private final int precision;
+   private final int subBuckets;
+   private final AtomicLongArray counts;
+   //the counts returned by the last interval snapshot. guarded by this
+   private long[] lastInterval;
+
+   public LogHistogram() {
+      this(DEFAULT_PRECISION);
+   }
+
+   public LogHistogram(int precision) {
+      if (precision < 1 || precision > 10) {
+         throw new IllegalArgumentException("Precision must be between 1 and 10 but it is " + precision);
+      }
+      this.precision = precision;
+      this.subBuckets = 1 << precision;
+      this.counts = new AtomicLongArray((64 - precision) * subBuckets);
+   }
+
+   @Override
+   public final void insertSample(double value) {
+      counts.incrementAndGet(bucketIndex(value <= 0 ? 0 : (long) value));
+   }
+
+   @Override
+   public final double getKPercentile(int percentile) {
+      return getPercentile(percentile);
+   }
+
+   @Override
+   public final double getPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+         throw new IllegalArgumentException("Wrong percentile " + percentile);
+      }
+      final long[] snapshot = toArray();
+      long total = 0;
+      for (long count : snapshot) {
+         total += count;
+      }
+      if (total == 0) {
+         return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(percentile * total / 100));
+      long accumulated = 0;
+      for (int i = 0; i < snapshot.length; ++i) {
+         accumulated += snapshot[i];
+         if (accumulated >= rank) {
+            return bucketValue(i);
+         }
+      }
+      return bucketValue(snapshot.length - 1);
+   }
+
+   @Override
+   public final void reset() {
+      for (int i = 0; i < counts.length(); ++i) {
+         counts.set(i, 0);
+      }
+      synchronized (this) {
+         lastInterval = null;
+      }
+   }
+
+   /**
+    * @return the number of samples inserted
+    */
+   public final long getCount() {
+      long total = 0;
+      for (int i = 0; i < counts.length(); ++i) {
+         total += counts.get(i);
+      }
+      return total;
+   }
+
+   /**
+    * adds all the samples of {@code other} to this histogram
+    *
+    * @param other the histogram to merge. it must have the same precision
+    */
+   public final void merge(LogHistogram other) {
+      if (other.precision != precision) {
+         throw new IllegalArgumentException("Precision mismatch. Expected " + precision + " but it is " +
+                                                  other.precision);
+      }
+      for (int i = 0; i < counts.length(); ++i) {
+         final long count = other.counts.get(i);
+         if (count != 0) {
+            counts.addAndGet(i, count);
+         }
+      }
+   }
+
+   /**
+    * @return a copy of this histogram
+    */
+   public final LogHistogram snapshot() {
+      return fromArray(precision, toArray());
+   }
+
+   /**
+    * @return an histogram with the samples inserted since the previous invocation of this method (or since the last
+    *         reset)
+    */
+   public final LogHistogram intervalSnapshot() {
+      final long[] current = toArray();
+      final long[] interval = new long[current.length];
+      synchronized (this) {
+         for (int i = 0; i < current.length; ++i) {
+            interval[i] = lastInterval == null ? current[i] : Math.max(0, current[i] - lastInterval[i]);
+         }
+         lastInterval = current;
+      }
+      return fromArray(precision, interval);
+   }
+
+   public final int getPrecision() {
+      return precision;
+   }
+
+   @Override
+   public String toString() {
+      return "LogHistogram{" +
+            "precision=" + precision +
+            ", count=" + getCount() +
+            '}';
+   }
+
+   final int bucketIndex(long value) {
+      if (value < subBuckets) {
+         return (int) value;
+      }
+      final int exponent = 63 - Long.numberOfLeadingZeros(value);
+      final int shift = exponent - precision;
+      final int mantissa = (int) (value >>> shift);
+      return (shift + 1) * subBuckets + (mantissa - subBuckets);
+   }
+
+   /**
+    * @return the middle of the bucket, or the value itself if the bucket only has one value
+    */
+   final double bucketValue(int index) {
+      if (index < subBuckets) {
+         return index;
+      }
+      final int shift = index / subBuckets - 1;
+      final long lowest = ((long) (index % subBuckets + subBuckets)) << shift;
+      return lowest + ((1L << shift) - 1) / 2.0;
+   }
+
+   private long[] toArray() {
+      final long[] array = new long[counts.length()];
+      for (int i = 0; i < array.length; ++i) {
+         array[i] = counts.get(i);
+      }
+      return array;
+   }
+
+   private static LogHistogram fromArray(int precision, long[] array) {
+      final LogHistogram histogram = new LogHistogram(precision);
+      for (int i = 0; i < array.length; ++i) {
+         if (array[i] != 0) {
+            histogram.counts.set(i, array[i]);
+         }
+      }
+      return histogram;
+   }
+}
@@ -31,6 +31,13 @@
 public interface PercentileStats {
 
    double getKPercentile(int percentile);
+
+   /**
+    * @param percentile the percentile, between 0 and 100, e.g. 99.9
+    * @return the value below which the {@code percentile} percent of the samples fall
+    */
+   double getPercentile(double percentile);
+
    void insertSample(double value);
    void reset();
 }
@@ -31,6 +31,6 @@
 public final class PercentileStatsFactory {
 
    public static PercentileStats createNewPercentileStats(){
-      return new ReservoirSampling();
+      return new LogHistogram();
    }
 }
@@ -24,7 +24,6 @@
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Based on the <i>Space-Saving</i> algorithm and the <i>Stream-Summary</i> data structure as described in: <i>Efficient
@@ -38,6 +37,10 @@
  *    <li>Removed ITopK interface</li>
  *    <li>Make methods final</li>
  *    <li>Reformat code to Infinispan indentation</li>
+ *    <li>No allocation when the element is already tracked</li>
+ *    <li>The minimum element is only looked up when it is replaced, instead of after every offer. A single thread
+ *    replaces it at a time: a new element offered while another thread is replacing the minimum is dropped, so no
+ *    thread ever waits</li>
  * </ul>
  *
  * @param <T> type of data in the stream to be summarized
@@ -45,17 +48,15 @@
  */
 public class ConcurrentStreamSummary<T> {
    private final ConcurrentHashMap<T, ScoredItem<T>> itemMap;
-   private final AtomicReference<ScoredItem<T>> minVal;
    private final AtomicLong size;
-   private final AtomicBoolean reachCapacity;
+   private final AtomicBoolean replacing;
    private final int capacity;
 
    public ConcurrentStreamSummary(final int capacity) {
       this.capacity = capacity;
-      this.minVal = new AtomicReference<ScoredItem<T>>();
       this.size = new AtomicLong(0);
       this.itemMap = new ConcurrentHashMap<T, ScoredItem<T>>(capacity);
-      this.reachCapacity = new AtomicBoolean(false);
+      this.replacing = new AtomicBoolean(false);
    }
 
    public final boolean offer(final T element) {
@@ -63,30 +64,32 @@ public final boolean offer(final T element) {
    }
 
    public final boolean offer(final T element, final int incrementCount) {
-      long val = incrementCount;
-      ScoredItem<T> value = new ScoredItem<T>(element, incrementCount);
-      ScoredItem oldVal = itemMap.putIfAbsent(element, value);
+      ScoredItem<T> oldVal = itemMap.get(element);
       if (oldVal != null) {
-         val = oldVal.addAndGetCount(incrementCount);
-      } else if (reachCapacity.get() || size.incrementAndGet() > capacity) {
-         reachCapacity.set(true);
-
-         ScoredItem<T> oldMinVal = minVal.getAndSet(value);
-         itemMap.remove(oldMinVal.getItem());
+         //already tracked: lock and allocation free
+         oldVal.addAndGetCount(incrementCount);
+         return true;
+      }
 
-         while (oldMinVal.isNewItem()) {
-            // Wait for the oldMinVal so its error and value are completely up to date.
-            // no thread.sleep here due to the overhead of calling it - the waiting time will be microseconds.
+      if (size.get() < capacity) {
+         ScoredItem<T> value = new ScoredItem<T>(element, incrementCount);
+         value.setNewItem(false);
+         oldVal = itemMap.putIfAbsent(element, value);
+         if (oldVal != null) {
+            oldVal.addAndGetCount(incrementCount);
+            return true;
          }
-         long count = oldMinVal.getCount();
-
-         value.addAndGetCount(count);
-         value.setError(count);
+         if (size.incrementAndGet() <= capacity) {
+            return false;
+         }
+         //too many concurrent insertions. replace the minimum as it would be done if the summary was full
+         size.decrementAndGet();
+         if (itemMap.remove(element, value)) {
+            return replaceMinimum(element, value.getCount());
+         }
+         return true;
       }
-      value.setNewItem(false);
-      minVal.set(getMinValue());
-
-      return val != incrementCount;
+      return replaceMinimum(element, incrementCount);
    }
 
    public final int getCapacity() {
@@ -162,13 +165,47 @@ public final Map<String, Long> topKeyAsKeyString(final int k) {
       return topKeyMap;
    }
 
+   /**
+    * replaces the element with the minimum count by {@code element}. The new element inherits the count of the removed
+    * element as error. If another thread is replacing the minimum, the element is dropped
+    */
+   private boolean replaceMinimum(final T element, final long incrementCount) {
+      if (!replacing.compareAndSet(false, true)) {
+         ScoredItem<T> oldVal = itemMap.get(element);
+         if (oldVal != null) {
+            oldVal.addAndGetCount(incrementCount);
+            return true;
+         }
+         return false;
+      }
+      try {
+         ScoredItem<T> oldVal = itemMap.get(element);
+         if (oldVal != null) {
+            //inserted concurrently
+            oldVal.addAndGetCount(incrementCount);
+            return true;
+         }
+         ScoredItem<T> min = getMinValue();
+         long error = 0;
+         if (min != null && itemMap.remove(min.getItem(), min)) {
+            error = min.getCount();
+         }
+         ScoredItem<T> value = new ScoredItem<T>(element, error + incrementCount, error);
+         value.setNewItem(false);
+         itemMap.put(element, value);
+         return false;
+      } finally {
+         replacing.set(false);
+      }
+   }
+
    private ScoredItem<T> getMinValue() {
-      ScoredItem<T> minVal = null;
+      ScoredItem<T> min = null;
       for (ScoredItem<T> entry : itemMap.values()) {
-         if (minVal == null || (!entry.isNewItem() && entry.getCount() < minVal.getCount())) {
-            minVal = entry;
+         if (min == null || entry.getCount() < min.getCount()) {
+            min = entry;
          }
       }
-      return minVal;
+      return min;
    }
 }
@@ -29,18 +29,24 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
-import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This contains all the stream lib top keys. Stream lib is a space efficient technique to obtains the top-most
  * counters.
+ * <p/>
+ * The accesses are buffered per thread in a single producer ring (one per statistic), without locks or allocations.
+ * The rings are merged in the stream summary when the top keys are requested, periodically by {@link #tryFlushAll()}
+ * and when they are full. A thread never blocks to record an access: if its ring is full and another thread is merging
+ * the rings of the same statistic, the access is dropped. The top keys are a sample of the accesses.
  *
  * @author Pedro Ruivo
  * @since 5.2
@@ -48,23 +54,38 @@
 public class StreamLibContainer {
 
    public static final int MAX_CAPACITY = 100000;
+   //number of accesses buffered per thread and statistic before merging them. must be a power of two
+   private static final int BUFFER_SIZE = 256;
+   private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
    private static final Log log = LogFactory.getLog(StreamLibContainer.class);
+   private static final Stat[] STATS = Stat.values();
    private final String cacheName;
    private final String address;
-   private final AtomicBoolean flushing;
+   private final ReentrantLock flushLock;
    private final EnumMap<Stat, TopKeyWrapper> topKeyWrapper;
+   private final TopKeyWrapper[] topKeyWrapperArray;
+   private final ThreadLocal<OfferBuffer[]> threadBuffers;
+   private volatile long lastFlush;
    private volatile int capacity = 1000;
    private volatile boolean active = false;
-   private volatile boolean reset = false;
 
    public StreamLibContainer(String cacheName, String address) {
       this.cacheName = cacheName;
       this.address = address;
       topKeyWrapper = new EnumMap<Stat, TopKeyWrapper>(Stat.class);
-      for (Stat stat : Stat.values()) {
-         topKeyWrapper.put(stat, new TopKeyWrapper());
+      topKeyWrapperArray = new TopKeyWrapper[STATS.length];
+      for (Stat stat : STATS) {
+         TopKeyWrapper wrapper = new TopKeyWrapper();
+         topKeyWrapper.put(stat, wrapper);
+         topKeyWrapperArray[stat.ordinal()] = wrapper;
       }
-      flushing = new AtomicBoolean(false);
+      flushLock = new ReentrantLock();
+      threadBuffers = new ThreadLocal<OfferBuffer[]>() {
+         @Override
+         protected OfferBuffer[] initialValue() {
+            return new OfferBuffer[STATS.length];
+         }
+      };
    }
 
    public static StreamLibContainer getOrCreateStreamLibContainer(Cache cache) {
@@ -108,7 +129,6 @@ public void addGet(Object key, boolean remote) {
          return;
       }
       syncOffer(remote ? Stat.REMOTE_GET : Stat.LOCAL_GET, key);
-      tryFlushAll();
    }
 
    public void addPut(Object key, boolean remote) {
@@ -117,7 +137,6 @@ public void addPut(Object key, boolean remote) {
       }
 
       syncOffer(remote ? Stat.REMOTE_PUT : Stat.LOCAL_PUT, key);
-      tryFlushAll();
    }
 
    public void addLockInformation(Object key, boolean contention, boolean abort) {
@@ -133,12 +152,10 @@ public void addLockInformation(Object key, boolean contention, boolean abort) {
       if (abort) {
          syncOffer(Stat.MOST_FAILED_KEYS, key);
       }
-      tryFlushAll();
    }
 
    public void addWriteSkewFailed(Object key) {
       syncOffer(Stat.MOST_WRITE_SKEW_FAILED_KEYS, key);
-      tryFlushAll();
    }
 
    public Map<Object, Long> getTopKFrom(Stat stat) {
@@ -146,7 +163,7 @@ public Map<Object, Long> getTopKFrom(Stat stat) {
    }
 
    public Map<Object, Long> getTopKFrom(Stat stat, int topK) {
-      tryFlushAll();
+      flushAll();
       return topKeyWrapper.get(stat).topK(topK);
    }
 
@@ -155,7 +172,7 @@ public Map<String, Long> getTopKFromAsKeyString(Stat stat) {
    }
 
    public Map<String, Long> getTopKFromAsKeyString(Stat stat, int topK) {
-      tryFlushAll();
+      flushAll();
       return topKeyWrapper.get(stat).topKAsString(topK);
    }
 
@@ -185,25 +202,55 @@ public String toString() {
             '}';
    }
 
+   /**
+    * merges the buffered accesses in the stream summaries if no other thread is doing it and if the last merge was
+    * done more than 100 milliseconds ago. It never blocks.
+    */
    public final void tryFlushAll() {
-      if (flushing.compareAndSet(false, true)) {
-         if (reset) {
-            for (Stat stat : Stat.values()) {
-               topKeyWrapper.get(stat).reset(createNewStreamSummary(capacity));
-            }
-            reset = false;
-         } else {
-            for (Stat stat : Stat.values()) {
-               topKeyWrapper.get(stat).flush();
-            }
+      if (System.nanoTime() - lastFlush < FLUSH_INTERVAL) {
+         return;
+      }
+      if (flushLock.tryLock()) {
+         try {
+            doFlushAll();
+         } finally {
+            flushLock.unlock();
          }
-         flushing.set(false);
       }
    }
 
+   /**
+    * discards all the top keys and the buffered accesses. It waits for the merge in progress, if any.
+    */
    public final void resetAll() {
-      reset = true;
-      tryFlushAll();
+      flushLock.lock();
+      try {
+         for (TopKeyWrapper wrapper : topKeyWrapperArray) {
+            wrapper.reset(createNewStreamSummary(capacity));
+         }
+         lastFlush = System.nanoTime();
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   /**
+    * merges all the buffered accesses in the stream summaries. It waits for the merge in progress, if any.
+    */
+   private void flushAll() {
+      flushLock.lock();
+      try {
+         doFlushAll();
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   private void doFlushAll() {
+      for (TopKeyWrapper wrapper : topKeyWrapperArray) {
+         wrapper.flush();
+      }
+      lastFlush = System.nanoTime();
    }
 
    private StreamSummary<Object> createNewStreamSummary(int customCapacity) {
@@ -214,7 +261,20 @@ private void syncOffer(final Stat stat, Object key) {
       if (log.isTraceEnabled()) {
          log.tracef("Offer key=%s to stat=%s in %s", key, stat, this);
       }
-      topKeyWrapper.get(stat).offer(key);
+      OfferBuffer[] buffers = threadBuffers.get();
+      OfferBuffer buffer = buffers[stat.ordinal()];
+      if (buffer == null) {
+         buffer = topKeyWrapperArray[stat.ordinal()].register();
+         buffers[stat.ordinal()] = buffer;
+      }
+      if (buffer.offer(key)) {
+         return;
+      }
+      //the buffer is full. merge it (and the other threads' buffers) in the stream summary, unless another thread is
+      //already doing it. in that case, the access is dropped instead of waiting
+      if ((!topKeyWrapperArray[stat.ordinal()].tryFlush() || !buffer.offer(key)) && log.isTraceEnabled()) {
+         log.tracef("Dropped key=%s from stat=%s in %s", key, stat, this);
+      }
    }
 
    public static enum Stat {
@@ -229,38 +289,134 @@ public static enum Stat {
       MOST_WRITE_SKEW_FAILED_KEYS
    }
 
+   /**
+    * a ring buffer with a single producer (the owner thread) and a single consumer (the thread merging it, while
+    * holding the {@link TopKeyWrapper} lock)
+    */
+   private static class OfferBuffer {
+      private static final AtomicLongFieldUpdater<OfferBuffer> HEAD_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(OfferBuffer.class, "head");
+      private static final AtomicLongFieldUpdater<OfferBuffer> TAIL_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(OfferBuffer.class, "tail");
+      private final Object[] elements;
+      private final Thread owner;
+      private volatile long head;
+      private volatile long tail;
+
+      private OfferBuffer(Thread owner) {
+         this.owner = owner;
+         this.elements = new Object[BUFFER_SIZE];
+      }
+
+      /**
+       * invoked only by the owner thread
+       *
+       * @return false if the buffer is full
+       */
+      private boolean offer(Object element) {
+         long currentTail = tail;
+         if (currentTail - head >= BUFFER_SIZE) {
+            return false;
+         }
+         elements[(int) currentTail & (BUFFER_SIZE - 1)] = element;
+         TAIL_UPDATER.lazySet(this, currentTail + 1);
+         return true;
+      }
+
+      /**
+       * invoked only while holding the {@link TopKeyWrapper} lock
+       */
+      private void drainTo(StreamSummary<Object> streamSummary) {
+         long currentHead = head;
+         long currentTail = tail;
+         if (currentHead == currentTail) {
+            return;
+         }
+         for (; currentHead < currentTail; ++currentHead) {
+            int index = (int) currentHead & (BUFFER_SIZE - 1);
+            if (streamSummary != null) {
+               streamSummary.offer(elements[index]);
+            }
+            elements[index] = null;
+         }
+         HEAD_UPDATER.lazySet(this, currentHead);
+      }
+
+      private boolean isEmpty() {
+         return head == tail;
+      }
+   }
+
    private class TopKeyWrapper {
-      private final BlockingQueue<Object> pendingOffers;
+      private final ConcurrentLinkedQueue<OfferBuffer> buffers;
+      private final ReentrantLock lock;
       private volatile StreamSummary<Object> streamSummary;
 
       public TopKeyWrapper() {
-         pendingOffers = new LinkedBlockingQueue<Object>();
+         buffers = new ConcurrentLinkedQueue<OfferBuffer>();
+         lock = new ReentrantLock();
          streamSummary = createNewStreamSummary(capacity);
       }
 
-      private void offer(final Object element) {
-         pendingOffers.add(element);
+      private OfferBuffer register() {
+         OfferBuffer buffer = new OfferBuffer(Thread.currentThread());
+         buffers.add(buffer);
+         return buffer;
       }
 
       private void reset(StreamSummary<Object> streamSummary) {
-         pendingOffers.clear();
-         this.streamSummary = streamSummary;
+         lock.lock();
+         try {
+            for (OfferBuffer buffer : buffers) {
+               buffer.drainTo(null);
+            }
+            this.streamSummary = streamSummary;
+         } finally {
+            lock.unlock();
+         }
       }
 
       private void flush() {
-         List<Object> keys = new ArrayList<Object>();
-         pendingOffers.drainTo(keys);
-         synchronized (this) {
-            for (Object k : keys) {
-               streamSummary.offer(k);
+         lock.lock();
+         try {
+            doFlush();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      /**
+       * @return false if another thread is merging the buffers
+       */
+      private boolean tryFlush() {
+         if (!lock.tryLock()) {
+            return false;
+         }
+         try {
+            doFlush();
+         } finally {
+            lock.unlock();
+         }
+         return true;
+      }
+
+      private void doFlush() {
+         for (Iterator<OfferBuffer> iterator = buffers.iterator(); iterator.hasNext(); ) {
+            OfferBuffer buffer = iterator.next();
+            buffer.drainTo(streamSummary);
+            if (!buffer.owner.isAlive() && buffer.isEmpty()) {
+               iterator.remove();
             }
          }
       }
 
       private Map<Object, Long> topK(int k) {
          List<Counter<Object>> counterList;
-         synchronized (this) {
+         lock.lock();
+         try {
             counterList = streamSummary.topK(k);
+         } finally {
+            lock.unlock();
          }
          Map<Object, Long> map = new LinkedHashMap<Object, Long>();
          for (Counter<Object> counter : counterList) {
@@ -271,8 +427,11 @@ private Map<Object, Long> topK(int k) {
 
       private Map<String, Long> topKAsString(int k) {
          List<Counter<Object>> counterList;
-         synchronized (this) {
+         lock.lock();
+         try {
             counterList = streamSummary.topK(k);
+         } finally {
+            lock.unlock();
          }
          Map<String, Long> map = new LinkedHashMap<String, Long>();
          for (Counter<Object> counter : counterList) {
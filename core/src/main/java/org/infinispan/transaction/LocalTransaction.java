@@ -70,6 +70,8 @@ public abstract class LocalTransaction extends AbstractCacheTransaction {
 
    private volatile ShadowTransactionInfo shadowTransactionInfo;
 
+   private volatile boolean declaredReadOnly;
+
    private boolean prepareSent;
    private boolean commitOrRollbackSent;
    private boolean alreadyReadOnThisNode;
@@ -184,6 +186,7 @@ public String toString() {
             ", backupKeyLocks=" + backupKeyLocks +
             ", topologyId=" + topologyId +
             ", isFromStateTransfer=" + isFromStateTransfer +
+            ", declaredReadOnly=" + declaredReadOnly +
             "} " + super.toString();
    }
 
@@ -221,6 +224,22 @@ public void setFromRemoteSite(boolean fromRemoteSite) {
       isFromRemoteSite = fromRemoteSite;
    }
 
+   /**
+    * Marks this transaction as read-only, as declared by the application with
+    * {@link org.infinispan.context.Flag#READ_ONLY_TRANSACTION}.
+    */
+   public void markDeclaredReadOnly() {
+      declaredReadOnly = true;
+   }
+
+   /**
+    * @return true if the application declared this transaction as read-only
+    * @see #markDeclaredReadOnly()
+    */
+   public boolean isDeclaredReadOnly() {
+      return declaredReadOnly;
+   }
+
    /**
     * Calculates the list of nodes to which a commit/rollback needs to be sent based on the nodes to which prepare
     * was sent. If the commit/rollback is to be sent in the same topologyId, then the 'recipients' param is returned back.
@@ -37,6 +37,8 @@
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.reconfigurableprotocol.ProtocolTable;
 import org.infinispan.reconfigurableprotocol.manager.ReconfigurableReplicationManager;
+import org.infinispan.stats.TransactionsStatisticsRegistry;
+import org.infinispan.stats.container.TransactionStatistics;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.concurrent.IsolationLevel;
 import org.infinispan.util.logging.Log;
@@ -68,6 +70,7 @@ public class TransactionCoordinator {
    private Configuration configuration;
    private CommandCreator commandCreator;
    private volatile boolean shuttingDown = false;
+   private boolean readOnlyFastPath;
 
    boolean trace;
 
@@ -101,6 +104,9 @@ private void setStopStatus() {
 
    @Start
    public void start() {
+      //the GMU commit stores the values loaded from the cache loader, so it cannot be skipped when loaders are used
+      readOnlyFastPath = configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE &&
+            !configuration.loaders().usingCacheLoaders();
       if (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE) {
          commandCreator = new CommandCreator() {
             @Override
@@ -148,6 +154,11 @@ public final int prepare(LocalTransaction localTransaction) throws XAException {
    public final int prepare(LocalTransaction localTransaction, boolean replayEntryWrapping) throws XAException {
       validateNotMarkedForRollback(localTransaction);
 
+      if (isReadOnlyFastPath(localTransaction)) {
+         completeDeclaredReadOnly(localTransaction);
+         return XA_RDONLY;
+      }
+
       GlobalTransaction globalTransaction = localTransaction.getGlobalTransaction();
       Transaction transaction = localTransaction.getTransaction();
       List<WriteCommand> modificationsList = localTransaction.getModifications();
@@ -197,6 +208,10 @@ public final int prepare(LocalTransaction localTransaction, boolean replayEntryW
 
    public void commit(LocalTransaction localTransaction, boolean isOnePhase) throws XAException {
       if (trace) log.tracef("Committing transaction %s", localTransaction.getGlobalTransaction());
+      if (isReadOnlyFastPath(localTransaction)) {
+         completeDeclaredReadOnly(localTransaction);
+         return;
+      }
       LocalTxInvocationContext ctx = icc.createTxInvocationContext();
       ctx.setLocalTransaction(localTransaction);
 
@@ -299,6 +314,37 @@ private void rollbackInternal(LocalTransaction localTransaction) throws Throwabl
       txTable.removeLocalTransaction(localTransaction);
    }
 
+   /**
+    * A declared read-only transaction in GMU never aborts: there is nothing to validate in the prepare and nothing to
+    * apply in the commit. Only the completion is skipped: the transaction was registered and its entries were wrapped
+    * as in any other transaction.
+    */
+   private boolean isReadOnlyFastPath(LocalTransaction localTransaction) {
+      return readOnlyFastPath && localTransaction.isDeclaredReadOnly() &&
+            localTransaction.getAllModifications().isEmpty();
+   }
+
+   /**
+    * releases the resources held by a declared read-only transaction without invoking the prepare and commit commands
+    * in the interceptor chain. It can be invoked more than once, since some transaction managers invoke the commit
+    * after a prepare that returned {@link javax.transaction.xa.XAResource#XA_RDONLY}.
+    */
+   private void completeDeclaredReadOnly(LocalTransaction localTransaction) {
+      if (trace) log.tracef("Completing declared read-only transaction %s", localTransaction.getGlobalTransaction());
+      try {
+         if (txTable.containsLocalTx(localTransaction.getTransaction())) {
+            txTable.removeLocalTransaction(localTransaction);
+            TransactionStatistics transactionStatistics = TransactionsStatisticsRegistry.getTransactionStatistics();
+            if (transactionStatistics != null) {
+               transactionStatistics.setTransactionOutcome(true);
+               TransactionsStatisticsRegistry.terminateTransaction(transactionStatistics);
+            }
+         }
+      } finally {
+         protocolTable.remove(localTransaction.getTransaction());
+      }
+   }
+
    private void validateNotMarkedForRollback(LocalTransaction localTransaction) throws XAException {
       if (localTransaction.isMarkedForRollback()) {
          if (trace) log.tracef("Transaction already marked for rollback. Forcing rollback for %s", localTransaction);
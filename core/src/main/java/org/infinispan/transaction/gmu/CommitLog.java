@@ -31,12 +31,14 @@
 import org.infinispan.container.versioning.VersionGenerator;
 import org.infinispan.container.versioning.gmu.GMUReadVersion;
 import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionAccumulator;
 import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.transaction.LocalTransaction;
 import org.infinispan.transaction.gmu.manager.CommittedTransaction;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorBacklog;
 import org.infinispan.util.Util;
 import org.infinispan.util.concurrent.IsolationLevel;
 import org.infinispan.util.logging.Log;
@@ -48,13 +50,26 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import static org.infinispan.container.versioning.InequalVersionComparisonResult.*;
 import static org.infinispan.container.versioning.gmu.GMUVersion.NON_EXISTING;
 
 /**
+ * The log of the committed versions in this node.
+ * <p/>
+ * The versions are kept in a linked list, from the most recent to the oldest, and they are indexed by this node
+ * version value in a skip list, so the lookups by version value do not need to walk the log from the most recent
+ * version. The versions are inserted by increasing order of this node version value (the commit queue ensures it) and
+ * the index always points to the most recent version with a given value.
+ * <p/>
+ * The new versions are indexed before the {@code currentVersion} is updated, so the index can contain versions not
+ * yet visible. The lookups in the index are bounded by the {@code currentVersion}: any version value equal or higher
+ * is resolved starting from the {@code currentVersion}.
+ *
  * @author Pedro Ruivo
  * @author Sebastiano Peluso
  * @since 5.2
@@ -62,11 +77,20 @@
 public class CommitLog {
 
    private static final Log log = LogFactory.getLog(CommitLog.class);
+   private final ConcurrentNavigableMap<Long, VersionEntry> versionIndex;
+   private final Object insertLock;
    private volatile GMUVersion mostRecentVersion;
    private volatile VersionEntry currentVersion;
+   //the most recent entry whose modified keys were added to the garbage collector backlog. only used by the GC thread
+   private VersionEntry lastCollectedEntry;
    private GMUVersionGenerator versionGenerator;
    private boolean enabled = false;
 
+   public CommitLog() {
+      versionIndex = new ConcurrentSkipListMap<Long, VersionEntry>();
+      insertLock = new Object();
+   }
+
    @Inject
    public void inject(VersionGenerator versionGenerator, Configuration configuration) {
       if (configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE) {
@@ -82,6 +106,8 @@ public void start() {
          return;
       }
       currentVersion = new VersionEntry((GMUVersion) versionGenerator.generateNew(), Collections.emptySet(), 0, 0L);
+      lastCollectedEntry = null;
+      versionIndex.put(currentVersion.getVersion().getThisNodeVersionValue(), currentVersion);
       mostRecentVersion = (GMUVersion) versionGenerator.generateNew();
    }
 
@@ -113,7 +139,9 @@ public final GMUVersion getCurrentVersion() {
    }
 
    public final EntryVersion getOldestVersion() {
-      VersionEntry iterator = currentVersion;
+      Map.Entry<Long, VersionEntry> oldest = versionIndex.firstEntry();
+      //only the versions with the same version value are traversed
+      VersionEntry iterator = oldest == null ? currentVersion : oldest.getValue();
       while (iterator.getPrevious() != null) {
          iterator = iterator.getPrevious();
       }
@@ -121,13 +149,10 @@ public final EntryVersion getOldestVersion() {
    }
 
    public final EntryVersion getEntry(EntryVersion entryVersion) {
-      GMUVersion gmuEntryVersion = (GMUVersion) entryVersion;
-      VersionEntry versionEntry = currentVersion;
-      while (versionEntry != null) {
-         if (versionEntry.getVersion().getThisNodeVersionValue() == gmuEntryVersion.getThisNodeVersionValue()) {
-            return versionEntry.getVersion();
-         }
-         versionEntry = versionEntry.getPrevious();
+      final long versionValue = ((GMUVersion) entryVersion).getThisNodeVersionValue();
+      VersionEntry versionEntry = floorEntry(versionValue);
+      if (versionEntry != null && versionEntry.getVersion().getThisNodeVersionValue() == versionValue) {
+         return versionEntry.getVersion();
       }
       return getOldestVersion();
    }
@@ -144,7 +169,7 @@ public final GMUVersion getAvailableVersionLessThan(EntryVersion other) {
          return gmuVersion;
       }
 
-      LinkedList<GMUVersion> possibleVersion = new LinkedList<GMUVersion>();
+      GMUVersionAccumulator possibleVersion = GMUVersionAccumulator.acquire();
 
       VersionEntry firstFoundPossible = null; //These are used to optimize the search
       long concurrentClockNumber = 0L;
@@ -157,26 +182,30 @@ public final GMUVersion getAvailableVersionLessThan(EntryVersion other) {
 
       VersionEntry iterator = currentVersion;
 
-      while (iterator != null &&
-            (firstFoundPossible == null ||
-                   concurrentClockNumber < iterator.getVersion().getThisNodeVersionValue())) {
-         if (isLessOrEquals(iterator.getVersion(), gmuVersion)) {
-            possibleVersion.add(iterator.getVersion());
+      try {
+         while (iterator != null &&
+               (firstFoundPossible == null ||
+                      concurrentClockNumber < iterator.getVersion().getThisNodeVersionValue())) {
+            if (isLessOrEquals(iterator.getVersion(), gmuVersion)) {
+               possibleVersion.add(iterator.getVersion());
 
-            if (firstFoundPossible == null) {
-               firstFoundPossible = iterator;
-               concurrentClockNumber = iterator.getConcurrentClockNumber();
-            }
+               if (firstFoundPossible == null) {
+                  firstFoundPossible = iterator;
+                  concurrentClockNumber = iterator.getConcurrentClockNumber();
+               }
 
-         }
-         if (firstFoundPossible != null && concurrentClockNumber > iterator.getConcurrentClockNumber()) {
-            //We move the bound before.
-            concurrentClockNumber = iterator.getConcurrentClockNumber();
+            }
+            if (firstFoundPossible != null && concurrentClockNumber > iterator.getConcurrentClockNumber()) {
+               //We move the bound before.
+               concurrentClockNumber = iterator.getConcurrentClockNumber();
 
+            }
+            iterator = iterator.getPrevious();
          }
-         iterator = iterator.getPrevious();
+         return versionGenerator.mergeAndMax(possibleVersion);
+      } finally {
+         possibleVersion.release();
       }
-      return versionGenerator.mergeAndMax(possibleVersion.toArray(new GMUVersion[possibleVersion.size()]));
    }
 
    public final GMUReadVersion getReadVersion(EntryVersion other) {
@@ -195,8 +224,8 @@ public final GMUReadVersion getReadVersion(EntryVersion other) {
       * of the last committed vector clock's N-th entry at the time A was "prepared" on this node.
        */
 
-
-      VersionEntry iterator = currentVersion;
+      //the versions with a higher version value are ignored. skip them
+      VersionEntry iterator = floorEntry(gmuReadVersion.getThisNodeVersionValue());
 
       while (iterator != null &&
             (firstFoundPossible == null ||
@@ -229,30 +258,46 @@ public final GMUReadVersion getReadVersion(EntryVersion other) {
          }
          iterator = iterator.getPrevious();
       }
+      gmuReadVersion.sortNotVisibleSubVersions();
       return gmuReadVersion;
    }
 
-   public final synchronized void insertNewCommittedVersions(Collection<CommittedTransaction> transactions) {
+   public final void insertNewCommittedVersions(Collection<CommittedTransaction> transactions) {
       assertEnabled();
-      VersionEntry oldCurrentVersion = currentVersion;
-      GMUVersion oldMostRecentVersion = mostRecentVersion;
+      //the affected keys are collected without holding any lock
+      VersionEntry[] newEntries = new VersionEntry[transactions.size()];
+      int index = 0;
       for (CommittedTransaction transaction : transactions) {
          if (log.isTraceEnabled()) {
             log.tracef("insertNewCommittedVersions(...) ==> add %s", transaction.getCommitVersion());
          }
-         VersionEntry current = new VersionEntry((GMUVersion) transaction.getCommitVersion(),
-                                                 getAffectedKeys(transaction.getModifications()),
-                                                 transaction.getSubVersion(), transaction.getConcurrentClockNumber());
-         current.setPrevious(oldCurrentVersion);
-         oldCurrentVersion = current;
-         oldMostRecentVersion = versionGenerator.mergeAndMax(oldMostRecentVersion, oldCurrentVersion.getVersion());
-      }
-      currentVersion = oldCurrentVersion;
-      mostRecentVersion = oldMostRecentVersion;
+         newEntries[index++] = new VersionEntry((GMUVersion) transaction.getCommitVersion(),
+                                                getAffectedKeys(transaction.getModifications()),
+                                                transaction.getSubVersion(), transaction.getConcurrentClockNumber());
+      }
+      if (index == 0) {
+         return;
+      }
+      VersionEntry oldCurrentVersion;
+      synchronized (insertLock) {
+         oldCurrentVersion = currentVersion;
+         GMUVersion oldMostRecentVersion = mostRecentVersion;
+         for (VersionEntry current : newEntries) {
+            current.setPrevious(oldCurrentVersion);
+            oldCurrentVersion = current;
+            oldMostRecentVersion = versionGenerator.mergeAndMax(oldMostRecentVersion, oldCurrentVersion.getVersion());
+            //the readers ignore the indexed versions not covered by the currentVersion. see floorEntry()
+            versionIndex.put(current.getVersion().getThisNodeVersionValue(), current);
+         }
+         currentVersion = oldCurrentVersion;
+         mostRecentVersion = oldMostRecentVersion;
+      }
       if (log.isTraceEnabled()) {
          log.tracef("insertNewCommittedVersions(...) ==> %s", oldCurrentVersion.getVersion());
       }
-      notifyAll();
+      synchronized (this) {
+         notifyAll();
+      }
    }
 
    public final void updateMostRecentVersion(EntryVersion newVersion) {
@@ -328,6 +373,19 @@ public final boolean dumpTo(String filePath) {
     * @return the minimum usable version (to remove entries in data container)
     */
    public final GMUVersion gcOlderVersions(GMUVersion minVersion) {
+      return gcOlderVersions(minVersion, null);
+   }
+
+   /**
+    * same as {@link #gcOlderVersions(GMUVersion)} but it also adds to the {@code backlog} the keys modified by the
+    * versions lower or equals than the minimum usable version that were not reported in previous invocations. Only
+    * the version chains of those keys can have versions to remove in the data container.
+    *
+    * @param minVersion the minimum visible version
+    * @param backlog    the garbage collector backlog. it can be {@code null}
+    * @return the minimum usable version (to remove entries in data container)
+    */
+   public final GMUVersion gcOlderVersions(GMUVersion minVersion, GarbageCollectorBacklog backlog) {
       VersionEntry iterator = currentVersion;
       VersionEntry removeFromHere = null;
       GMUVersion minimumVisibleVersion = null;
@@ -345,6 +403,20 @@ public final GMUVersion gcOlderVersions(GMUVersion minVersion) {
          iterator = iterator.getPrevious();
       }
 
+      if (removeFromHere != null && backlog != null) {
+         VersionEntry collectIterator = removeFromHere;
+         while (collectIterator != null && collectIterator != lastCollectedEntry) {
+            backlog.addKeys(collectIterator.keysModified);
+            collectIterator = collectIterator.getPrevious();
+         }
+         lastCollectedEntry = removeFromHere;
+      }
+
+      if (removeFromHere != null) {
+         //the older versions are removed from the index first, so the readers do not find them anymore
+         versionIndex.headMap(removeFromHere.getVersion().getThisNodeVersionValue(), false).clear();
+      }
+
       while (removeFromHere != null) {
          VersionEntry previous = removeFromHere.getPrevious();
          removeFromHere.setPrevious(null);
@@ -364,10 +436,26 @@ public final int calculateMinimumViewId() {
       iterator = iterator.getPrevious();
       while (iterator != null) {
          minimumViewId = Math.min(minimumViewId, iterator.getVersion().getViewId());
+         iterator = iterator.getPrevious();
       }
       return minimumViewId;
    }
 
+   /**
+    * @return the most recent visible version entry with version value less or equals than {@param versionValue} or
+    *         {@code null} if it does not exist.
+    */
+   private VersionEntry floorEntry(long versionValue) {
+      final VersionEntry current = currentVersion;
+      if (versionValue >= current.getVersion().getThisNodeVersionValue()) {
+         //the index may already have versions being inserted, with a version value equal or higher
+         return current;
+      }
+      //all the versions with a lower version value are visible
+      Map.Entry<Long, VersionEntry> entry = versionIndex.floorEntry(versionValue);
+      return entry == null ? null : entry.getValue();
+   }
+
    private Set<Object> getAffectedKeys(Collection<WriteCommand> modifications) {
       Set<Object> keys = new HashSet<Object>();
       for (WriteCommand writeCommand : modifications) {
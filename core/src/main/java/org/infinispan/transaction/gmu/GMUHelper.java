@@ -30,6 +30,7 @@
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.container.versioning.InequalVersionComparisonResult;
 import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionAccumulator;
 import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.SingleKeyNonTxInvocationContext;
@@ -109,30 +110,34 @@ public static void joinAndSetTransactionVersion(Collection<Response> responses,
          }
          return;
       }
-      List<EntryVersion> allPreparedVersions = new LinkedList<EntryVersion>();
-      allPreparedVersions.add(ctx.getTransactionVersion());
+      GMUVersionAccumulator allPreparedVersions = GMUVersionAccumulator.acquire();
       GlobalTransaction gtx = ctx.getGlobalTransaction();
+      EntryVersion commitVersion;
+      try {
+         allPreparedVersions.add(ctx.getTransactionVersion());
 
-      //process all responses
-      for (Response r : responses) {
-         if (r == null) {
-            throw new IllegalStateException("Non-null response with new version is expected");
-         } else if (r instanceof SuccessfulResponse) {
-            EntryVersion version = (EntryVersion) ((SuccessfulResponse) r).getResponseValue();
-            allPreparedVersions.add(version);
-         } else if (r instanceof ExceptionResponse) {
-            throw new ValidationException(((ExceptionResponse) r).getException());
-         } else if (!r.isSuccessful()) {
-            throw new CacheException("Unsuccessful response received... aborting transaction " + gtx.globalId());
+         //process all responses
+         for (Response r : responses) {
+            if (r == null) {
+               throw new IllegalStateException("Non-null response with new version is expected");
+            } else if (r instanceof SuccessfulResponse) {
+               EntryVersion version = (EntryVersion) ((SuccessfulResponse) r).getResponseValue();
+               allPreparedVersions.add(version);
+            } else if (r instanceof ExceptionResponse) {
+               throw new ValidationException(((ExceptionResponse) r).getException());
+            } else if (!r.isSuccessful()) {
+               throw new CacheException("Unsuccessful response received... aborting transaction " + gtx.globalId());
+            }
          }
-      }
 
-      EntryVersion[] preparedVersionsArray = new EntryVersion[allPreparedVersions.size()];
-      EntryVersion commitVersion = versionGenerator.mergeAndMax(allPreparedVersions.toArray(preparedVersionsArray));
+         commitVersion = versionGenerator.mergeAndMax(allPreparedVersions);
 
-      if (log.isTraceEnabled()) {
-         log.tracef("Merging transaction [%s] prepare versions %s ==> %s", gtx.globalId(), allPreparedVersions,
-                    commitVersion);
+         if (log.isTraceEnabled()) {
+            log.tracef("Merging transaction [%s] prepare versions %s ==> %s", gtx.globalId(), allPreparedVersions,
+                       commitVersion);
+         }
+      } finally {
+         allPreparedVersions.release();
       }
 
       ctx.setTransactionVersion(commitVersion);
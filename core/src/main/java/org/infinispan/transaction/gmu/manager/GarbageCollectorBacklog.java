@@ -0,0 +1,135 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu.manager;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The keys whose version chains may contain versions that are no longer visible. The keys are collected from the
+ * commit log entries removed in each garbage collection round, and from the writes that do not create a commit log
+ * entry (state transfer, non-transactional writes), and consumed by the version garbage collector, so only the chains
+ * written since the last round are visited.
+ * <p/>
+ * The number of pending keys is bounded. When the bound is exceeded, the pending keys are discarded and all the chains
+ * are visited instead.
+ * <p/>
+ * It is not thread safe: it is only used by the version garbage collector thread.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class GarbageCollectorBacklog {
+
+   private final Set<Object> pendingKeys;
+   private final int maxKeys;
+   private boolean allKeys;
+
+   public GarbageCollectorBacklog(int maxKeys) {
+      if (maxKeys <= 0) {
+         throw new IllegalArgumentException("Max keys should be higher than zero");
+      }
+      this.pendingKeys = new LinkedHashSet<Object>();
+      this.maxKeys = maxKeys;
+   }
+
+   /**
+    * adds the keys modified by a committed transaction
+    *
+    * @param keys the keys modified or {@code null} if the transaction has modified all the keys (i.e. clear)
+    */
+   public final void addKeys(Object[] keys) {
+      if (allKeys) {
+         return;
+      } else if (keys == null) {
+         addAllKeys();
+         return;
+      }
+      Collections.addAll(pendingKeys, keys);
+      checkOverflow();
+   }
+
+   /**
+    * adds a single key whose version chain has a new version
+    *
+    * @param key the key
+    */
+   public final void addKey(Object key) {
+      if (allKeys) {
+         return;
+      }
+      pendingKeys.add(key);
+      checkOverflow();
+   }
+
+   /**
+    * all the chains must be visited. the pending keys are discarded.
+    */
+   public final void addAllKeys() {
+      allKeys = true;
+      pendingKeys.clear();
+   }
+
+   /**
+    * @return {@code true} if all the chains must be visited and resets the flag.
+    */
+   public final boolean pollAllKeys() {
+      boolean result = allKeys;
+      allKeys = false;
+      return result;
+   }
+
+   /**
+    * @return the next pending key (it is removed) or {@code null} if no keys are pending
+    */
+   public final Object pollKey() {
+      Iterator<Object> iterator = pendingKeys.iterator();
+      if (!iterator.hasNext()) {
+         return null;
+      }
+      Object key = iterator.next();
+      iterator.remove();
+      return key;
+   }
+
+   public final int size() {
+      return pendingKeys.size();
+   }
+
+   public final boolean isEmpty() {
+      return !allKeys && pendingKeys.isEmpty();
+   }
+
+   public final void clear() {
+      allKeys = false;
+      pendingKeys.clear();
+   }
+
+   private void checkOverflow() {
+      if (pendingKeys.size() > maxKeys) {
+         addAllKeys();
+      }
+   }
+}
@@ -27,6 +27,7 @@
 import org.infinispan.commands.remote.GarbageCollectorControlCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.gmu.GMUDataContainer;
 import org.infinispan.container.gmu.L1GMUContainer;
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.container.versioning.VersionGenerator;
@@ -35,11 +36,15 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifier;
 import org.infinispan.notifications.cachemanagerlistener.annotation.Merged;
 import org.infinispan.notifications.cachemanagerlistener.annotation.ViewChanged;
 import org.infinispan.notifications.cachemanagerlistener.event.Event;
+import org.infinispan.remoting.responses.GMUSuccessfulResponse;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.rpc.ResponseMode;
@@ -53,23 +58,43 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.infinispan.commands.remote.GarbageCollectorControlCommand.Type.*;
 
 /**
- * // TODO: Document this
+ * Manages the garbage collection of the old versions in the commit log, in the data container, in the L1 and of the
+ * old cache topologies.
+ * <p/>
+ * The version garbage collection is incremental: each round only visits the version chains of the keys written since
+ * the last round (collected from the commit log and from {@link #notifyKeyWritten(Object)}) and the visit is done in
+ * time slices of {@link #getVersionGCTimeSlice()} milliseconds, with a pause of the same length between them. If more
+ * than {@code versionGCMaxBacklog} keys are pending, the next round visits all the keys.
+ * <p/>
+ * The minimum visible version of each node is piggy-backed in the responses of the GMU commands (prepare, commit and
+ * remote gets). When all the members have sent a recent value, the version garbage collection uses it and does not
+ * need the {@link GarbageCollectorControlCommand} round to collect them.
  *
  * @author Pedro Ruivo
  * @since 5.2
  */
 @Listener
+@MBean(objectName = "GarbageCollectorManager", description = "Garbage collection of old versions in GMU")
 public class GarbageCollectorManager {
    private static final Log log = LogFactory.getLog(GarbageCollectorManager.class);
+   private static final int DEFAULT_TIME_SLICE = 10; //milliseconds
+   private static final int KEYS_BETWEEN_TIME_CHECKS = 32;
+   private static final int PIGGY_BACK_REFRESH_INTERVAL = 5; //milliseconds
    private CommitLog commitLog;
    private CommandsFactory commandsFactory;
    private RpcManager rpcManager;
@@ -84,6 +109,23 @@ public class GarbageCollectorManager {
    private L1GarbageCollectorThread l1GarbageCollectorThread;
    private ViewGarbageCollectorThread viewGarbageCollectorThread;
    private CacheManagerNotifier cacheManagerNotifier;
+   private volatile int versionGCTimeSlice = DEFAULT_TIME_SLICE;
+   private volatile int versionGCBacklog;
+   private volatile boolean versionGCFullScan;
+   private volatile long versionGCLastRoundMaxPause;
+   private volatile long versionGCLastRoundDuration;
+   private volatile int versionGCLastRoundVersionsRemoved;
+   private volatile long versionGCTotalVersionsRemoved;
+   private volatile long versionGCRounds;
+   private volatile long versionGCGossipRounds;
+   private final MinimumVisibleVersionGossip minimumVisibleVersionGossip = new MinimumVisibleVersionGossip();
+   private volatile PiggyBackVersion piggyBackVersion;
+   //the keys written without a commit log entry (state transfer, non-transactional writes). drained by the GC thread
+   private final Queue<Object> writtenKeys = new ConcurrentLinkedQueue<Object>();
+   private final AtomicInteger writtenKeysSize = new AtomicInteger(0);
+   private volatile boolean writtenKeysOverflow;
+   private boolean incremental;
+   private int maxBacklog;
 
    @Inject
    public void inject(CommitLog commitLog, CommandsFactory commandsFactory, RpcManager rpcManager,
@@ -111,8 +153,11 @@ public void start() {
             configuration.locking().isolationLevel() == IsolationLevel.SERIALIZABLE;
 
       if (enabled) {
+         incremental = dataContainer instanceof GMUDataContainer;
+         maxBacklog = configuration.garbageCollector().versionGCMaxBacklog();
          versionGarbageCollectorThread = new VersionGarbageCollectorThread(configuration.garbageCollector().transactionThreshold(),
-                                                                           configuration.garbageCollector().versionGCMaxIdle());
+                                                                           configuration.garbageCollector().versionGCMaxIdle(),
+                                                                           maxBacklog);
          l1GarbageCollectorThread = new L1GarbageCollectorThread(configuration.garbageCollector().l1GCInterval());
          viewGarbageCollectorThread = new ViewGarbageCollectorThread(configuration.garbageCollector().viewGCBackOff());
 
@@ -130,6 +175,9 @@ public void stop() {
          l1GarbageCollectorThread.interrupt();
          viewGarbageCollectorThread.interrupt();
          cacheManagerNotifier.removeListener(this);
+         minimumVisibleVersionGossip.clear();
+         writtenKeys.clear();
+         writtenKeysSize.set(0);
       }
    }
 
@@ -202,6 +250,54 @@ public final GMUVersion handleGetMinimumVisibleVersion() {
       return minimumVisibleVersion;
    }
 
+   /**
+    * @return the minimum visible version to piggy-back in the responses of the GMU commands, or {@code null} if the
+    *         garbage collection is disabled. It is recomputed at most every {@link #PIGGY_BACK_REFRESH_INTERVAL}
+    *         milliseconds since an older value is still a lower bound of the versions visible by the local
+    *         transactions.
+    */
+   public final EntryVersion getMinimumVisibleVersionToPiggyBack() {
+      if (!enabled) {
+         return null;
+      }
+      final long now = System.currentTimeMillis();
+      PiggyBackVersion cached = piggyBackVersion;
+      if (cached == null || now - cached.timestamp > PIGGY_BACK_REFRESH_INTERVAL) {
+         //the current version is read first: the transactions that start after it read a newer version
+         List<EntryVersion> versions = new ArrayList<EntryVersion>();
+         versions.add(commitLog.getCurrentVersion());
+         for (LocalTransaction localTransaction : transactionTable.getLocalTransactions()) {
+            EntryVersion version = localTransaction.getTransactionVersion();
+            if (version != null) {
+               versions.add(version);
+            }
+         }
+         cached = new PiggyBackVersion(versionGenerator.mergeAndMin(versions.toArray(new EntryVersion[versions.size()])),
+                                       now);
+         piggyBackVersion = cached;
+      }
+      return cached.version;
+   }
+
+   /**
+    * updates the minimum visible versions of the remote nodes with the values piggy-backed in the responses
+    *
+    * @param responseMap the responses received
+    */
+   public final void handleResponses(Map<Address, Response> responseMap) {
+      if (!enabled || responseMap == null || responseMap.isEmpty()) {
+         return;
+      }
+      final long now = System.currentTimeMillis();
+      for (Map.Entry<Address, Response> entry : responseMap.entrySet()) {
+         Response response = entry.getValue();
+         if (response instanceof GMUSuccessfulResponse) {
+            minimumVisibleVersionGossip.update(entry.getKey(),
+                                               ((GMUSuccessfulResponse) response).getMinimumVisibleVersion(), now);
+         }
+      }
+   }
+
    public final int handleGetMinimumVisibleViewId() {
       int minimumVisibleViewId = commitLog.calculateMinimumViewId();
       if (log.isTraceEnabled()) {
@@ -225,6 +321,85 @@ public final void notifyCommittedTransactions(int size) {
       versionGarbageCollectorThread.addCommittedTx(size);
    }
 
+   /**
+    * registers a key that has a new version in the data container without a commit log entry (state transfer,
+    * non-transactional writes), so the incremental version garbage collection visits its chain. If too many keys are
+    * pending, the key is discarded and the next round visits all the keys.
+    *
+    * @param key the key written
+    */
+   public final void notifyKeyWritten(Object key) {
+      if (!enabled || !incremental || writtenKeysOverflow) {
+         return;
+      }
+      if (writtenKeysSize.incrementAndGet() > maxBacklog) {
+         writtenKeysSize.decrementAndGet();
+         writtenKeysOverflow = true;
+         return;
+      }
+      writtenKeys.add(key);
+   }
+
+   @ManagedAttribute(description = "Duration of each slice of the version garbage collection",
+                     displayName = "Version GC time slice", units = Units.MILLISECONDS, writable = true)
+   public final int getVersionGCTimeSlice() {
+      return versionGCTimeSlice;
+   }
+
+   public final void setVersionGCTimeSlice(int versionGCTimeSlice) {
+      if (versionGCTimeSlice <= 0) {
+         throw new IllegalArgumentException("Time slice must be positive. Value=" + versionGCTimeSlice);
+      }
+      this.versionGCTimeSlice = versionGCTimeSlice;
+   }
+
+   @ManagedAttribute(description = "Number of keys waiting for the version garbage collection",
+                     displayName = "Version GC backlog")
+   public final int getVersionGCBacklog() {
+      return versionGCBacklog;
+   }
+
+   @ManagedAttribute(description = "True if the version garbage collection is visiting all the keys (after a clear)",
+                     displayName = "Version GC full scan")
+   public final boolean isVersionGCFullScan() {
+      return versionGCFullScan;
+   }
+
+   @ManagedAttribute(description = "Longest time slice of the last version garbage collection round",
+                     displayName = "Version GC last round max pause", units = Units.MILLISECONDS)
+   public final long getVersionGCLastRoundMaxPause() {
+      return versionGCLastRoundMaxPause;
+   }
+
+   @ManagedAttribute(description = "Duration of the last version garbage collection round, including the pauses " +
+         "between time slices", displayName = "Version GC last round duration", units = Units.MILLISECONDS)
+   public final long getVersionGCLastRoundDuration() {
+      return versionGCLastRoundDuration;
+   }
+
+   @ManagedAttribute(description = "Number of versions removed from the data container in the last round",
+                     displayName = "Version GC last round versions removed")
+   public final int getVersionGCLastRoundVersionsRemoved() {
+      return versionGCLastRoundVersionsRemoved;
+   }
+
+   @ManagedAttribute(description = "Number of versions removed from the data container",
+                     displayName = "Version GC versions removed")
+   public final long getVersionGCTotalVersionsRemoved() {
+      return versionGCTotalVersionsRemoved;
+   }
+
+   @ManagedAttribute(description = "Number of version garbage collection rounds", displayName = "Version GC rounds")
+   public final long getVersionGCRounds() {
+      return versionGCRounds;
+   }
+
+   @ManagedAttribute(description = "Number of version garbage collection rounds that used the piggy-backed minimum " +
+         "visible versions instead of a remote call", displayName = "Version GC gossip rounds")
+   public final long getVersionGCGossipRounds() {
+      return versionGCGossipRounds;
+   }
+
    @ViewChanged
    @Merged
    public final void handle(Event event) {
@@ -251,13 +426,17 @@ private class VersionGarbageCollectorThread extends Thread {
 
       private final int transactionThreshold;
       private final int maxIdleTime;
+      private final GarbageCollectorBacklog backlog;
       private int txCommittedSinceLastReset;
       private volatile boolean running;
+      private GMUVersion lastMinimumLocalVersion;
+      private Iterator<Object> fullScanIterator;
 
-      private VersionGarbageCollectorThread(int transactionThreshold, int maxIdleTime) {
+      private VersionGarbageCollectorThread(int transactionThreshold, int maxIdleTime, int maxBacklog) {
          super("Version-GC-Thread");
          this.transactionThreshold = transactionThreshold;
          this.maxIdleTime = maxIdleTime;
+         this.backlog = new GarbageCollectorBacklog(maxBacklog);
       }
 
       @Override
@@ -305,16 +484,21 @@ private void gc() {
                log.tracef("Starting Garbage Collection for old versions");
             }
             //step 1
-            GarbageCollectorControlCommand cmd = commandsFactory.buildGarbageCollectorControlCommand(GET_VERSION, -1);
-            Map<Address, Response> responseMap = rpcManager.invokeRemotely(null, cmd,
-                                                                           ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS,
-                                                                           getTimeout(), true, false);
-            Map<Address, EntryVersion> minVersionValues = convert(responseMap, EntryVersion.class);
-            commandsFactory.initializeReplicableCommand(cmd, false);
-            minVersionValues.put(rpcManager.getAddress(), (EntryVersion) cmd.perform(null));
-
-            EntryVersion[] array = new EntryVersion[minVersionValues.values().size()];
-            array = minVersionValues.values().toArray(array);
+            EntryVersion[] array = collectFromGossip();
+            if (array == null) {
+               GarbageCollectorControlCommand cmd = commandsFactory.buildGarbageCollectorControlCommand(GET_VERSION, -1);
+               Map<Address, Response> responseMap = rpcManager.invokeRemotely(null, cmd,
+                                                                              ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS,
+                                                                              getTimeout(), true, false);
+               Map<Address, EntryVersion> minVersionValues = convert(responseMap, EntryVersion.class);
+               commandsFactory.initializeReplicableCommand(cmd, false);
+               minVersionValues.put(rpcManager.getAddress(), (EntryVersion) cmd.perform(null));
+
+               array = new EntryVersion[minVersionValues.values().size()];
+               array = minVersionValues.values().toArray(array);
+            } else {
+               versionGCGossipRounds++;
+            }
 
             //step 2
             GMUVersion globalMinimumVersion = versionGenerator.mergeAndMin(array);
@@ -325,19 +509,133 @@ private void gc() {
             }
 
             //step 3
-            GMUVersion minimumLocalVersion = commitLog.gcOlderVersions(globalMinimumVersion);
+            GMUVersion minimumLocalVersion = commitLog.gcOlderVersions(globalMinimumVersion,
+                                                                       incremental ? backlog : null);
 
             if (log.isTraceEnabled()) {
                log.tracef("Minimum local visible version is %s", minimumLocalVersion);
             }
 
             //step 4
-            dataContainer.gc(minimumLocalVersion);
+            if (!incremental) {
+               dataContainer.gc(minimumLocalVersion);
+               return;
+            }
+            if (minimumLocalVersion != null) {
+               lastMinimumLocalVersion = minimumLocalVersion;
+            }
+            if (lastMinimumLocalVersion != null) {
+               //the versions not visible with an older minimum version are still not visible
+               incrementalGc((GMUDataContainer) dataContainer, lastMinimumLocalVersion);
+            }
+         } catch (InterruptedException e) {
+            //stopping
+            Thread.currentThread().interrupt();
          } catch (Throwable throwable) {
             log.warnf("Exception caught while garbage collecting oldest versions: " + throwable.getLocalizedMessage());
          }
       }
 
+      /**
+       * @return the minimum visible versions of all the members (including the local node) if all the remote members
+       *         have piggy-backed a recent value, or {@code null} otherwise
+       */
+      private EntryVersion[] collectFromGossip() {
+         List<Address> members = rpcManager.getMembers();
+         if (members == null) {
+            return null;
+         }
+         Collection<Address> remoteMembers = new ArrayList<Address>(members);
+         remoteMembers.remove(rpcManager.getAddress());
+         EntryVersion[] remoteVersions = minimumVisibleVersionGossip.collect(remoteMembers, System.currentTimeMillis(),
+                                                                             maxIdleTime * 1000L);
+         if (remoteVersions == null) {
+            return null;
+         }
+         EntryVersion[] array = new EntryVersion[remoteVersions.length + 1];
+         System.arraycopy(remoteVersions, 0, array, 0, remoteVersions.length);
+         array[remoteVersions.length] = handleGetMinimumVisibleVersion();
+         if (log.isTraceEnabled()) {
+            log.tracef("Using the piggy-backed minimum visible versions of %s", remoteMembers);
+         }
+         return array;
+      }
+
+      /**
+       * visits the version chains in the backlog, in time slices. Between slices, it sleeps the same amount of time
+       * to avoid long pauses and to let the application threads use the CPU caches.
+       */
+      private void incrementalGc(GMUDataContainer container, GMUVersion minimumVersion) throws InterruptedException {
+         drainWrittenKeys();
+         if (backlog.pollAllKeys()) {
+            fullScanIterator = container.chainKeyIterator();
+         }
+         final long roundStart = System.nanoTime();
+         long maxPause = 0;
+         int versionsRemoved = 0;
+         boolean finished = false;
+         while (running && !finished) {
+            final long timeSlice = versionGCTimeSlice;
+            final long sliceStart = System.nanoTime();
+            final long sliceEnd = sliceStart + TimeUnit.MILLISECONDS.toNanos(timeSlice);
+            int keysVisited = 0;
+            while (true) {
+               Object key = nextKey();
+               if (key == null) {
+                  finished = true;
+                  break;
+               }
+               versionsRemoved += container.gc(minimumVersion, key);
+               if (++keysVisited % KEYS_BETWEEN_TIME_CHECKS == 0 && System.nanoTime() >= sliceEnd) {
+                  break;
+               }
+            }
+            maxPause = Math.max(maxPause, System.nanoTime() - sliceStart);
+            updateBacklogStats();
+            if (!finished) {
+               Thread.sleep(timeSlice);
+            }
+         }
+         versionGCLastRoundMaxPause = TimeUnit.NANOSECONDS.toMillis(maxPause);
+         versionGCLastRoundDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStart);
+         versionGCLastRoundVersionsRemoved = versionsRemoved;
+         versionGCTotalVersionsRemoved += versionsRemoved;
+         versionGCRounds++;
+         if (log.isTraceEnabled()) {
+            log.tracef("Version garbage collection round finished. %s versions removed", versionsRemoved);
+         }
+      }
+
+      /**
+       * moves the keys written without a commit log entry to the backlog
+       */
+      private void drainWrittenKeys() {
+         if (writtenKeysOverflow) {
+            writtenKeysOverflow = false;
+            backlog.addAllKeys();
+         }
+         Object key;
+         while ((key = writtenKeys.poll()) != null) {
+            writtenKeysSize.decrementAndGet();
+            backlog.addKey(key);
+         }
+      }
+
+      private Object nextKey() {
+         if (fullScanIterator != null) {
+            if (fullScanIterator.hasNext()) {
+               return fullScanIterator.next();
+            }
+            fullScanIterator = null;
+         }
+         return backlog.pollKey();
+      }
+
+      private void updateBacklogStats() {
+         versionGCBacklog = backlog.size();
+         versionGCFullScan = fullScanIterator != null;
+      }
+
       private synchronized void block() {
          txCommittedSinceLastReset = 0;
          try {
@@ -532,4 +830,13 @@ private synchronized void block() {
       }
    }
 
+   private static class PiggyBackVersion {
+      private final EntryVersion version;
+      private final long timestamp;
+
+      private PiggyBackVersion(EntryVersion version, long timestamp) {
+         this.version = version;
+         this.timestamp = timestamp;
+      }
+   }
 }
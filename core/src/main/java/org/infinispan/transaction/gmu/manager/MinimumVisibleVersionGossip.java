@@ -0,0 +1,111 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu.manager;
+
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the last minimum visible version received from each member, piggy-backed in the responses of the GMU
+ * commands.
+ * <p/>
+ * The minimum visible version of a member is a lower bound of the versions that can be read by its running
+ * transactions. An old value is still a lower bound (the transactions that started after it was computed read newer
+ * versions) so it is safe to use it. However, the values older than the maximum age are discarded to avoid blocking
+ * the garbage collection when a member is not involved in any transaction.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+public class MinimumVisibleVersionGossip {
+
+   private final ConcurrentMap<Address, Entry> versions;
+
+   public MinimumVisibleVersionGossip() {
+      versions = new ConcurrentHashMap<Address, Entry>();
+   }
+
+   /**
+    * updates the minimum visible version of the member
+    *
+    * @param member  the sender
+    * @param version its minimum visible version
+    * @param now     the current time, in milliseconds
+    */
+   public final void update(Address member, EntryVersion version, long now) {
+      if (member == null || version == null) {
+         return;
+      }
+      versions.put(member, new Entry(version, now));
+   }
+
+   /**
+    * returns the minimum visible versions of all the members, or {@code null} if some member does not have a version
+    * received less than {@code maxAge} milliseconds ago. The versions of the nodes that are not members are removed.
+    *
+    * @param members the current members (excluding the local node)
+    * @param now     the current time, in milliseconds
+    * @param maxAge  the maximum age of the versions, in milliseconds
+    * @return the minimum visible versions or {@code null}
+    */
+   public final EntryVersion[] collect(Collection<Address> members, long now, long maxAge) {
+      for (Iterator<Address> iterator = versions.keySet().iterator(); iterator.hasNext(); ) {
+         if (!members.contains(iterator.next())) {
+            iterator.remove();
+         }
+      }
+      EntryVersion[] array = new EntryVersion[members.size()];
+      int index = 0;
+      for (Address member : members) {
+         Entry entry = versions.get(member);
+         if (entry == null || now - entry.timestamp > maxAge) {
+            return null;
+         }
+         array[index++] = entry.version;
+      }
+      return array;
+   }
+
+   public final int size() {
+      return versions.size();
+   }
+
+   public final void clear() {
+      versions.clear();
+   }
+
+   private static class Entry {
+      private final EntryVersion version;
+      private final long timestamp;
+
+      private Entry(EntryVersion version, long timestamp) {
+         this.version = version;
+         this.timestamp = timestamp;
+      }
+   }
+}
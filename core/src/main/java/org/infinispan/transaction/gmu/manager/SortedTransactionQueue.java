@@ -31,13 +31,24 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * The queue with the prepared transactions, sorted by the version value of this node.
+ * <p/>
+ * The queue is a {@link ConcurrentSkipListMap} keyed by (version value, prepare sequence number) and it does not use
+ * any monitor. When a transaction receives the commit version, the entry is re-inserted with the new key before the
+ * old key is removed and only after that it is marked as commit received, so the head of the queue never shows a
+ * transaction in a wrong position. Every state change is followed by a check of the head of the queue, that marks
+ * the ready transactions. The threads waiting for an entry are parked in {@link CountDownLatch}es.
+ *
  * @author Pedro Ruivo
  * @since 5.2
  */
@@ -45,77 +56,27 @@ public class SortedTransactionQueue {
 
    private static final Log log = LogFactory.getLog(SortedTransactionQueue.class);
    private final ConcurrentHashMap<GlobalTransaction, TransactionEntryImpl> concurrentHashMap;
-   private final Node firstEntry;
-   private final Node lastEntry;
+   private final ConcurrentSkipListMap<QueueKey, TransactionEntryImpl> queue;
+   private final AtomicLong sequenceNumber;
 
    public SortedTransactionQueue() {
       this.concurrentHashMap = new ConcurrentHashMap<GlobalTransaction, TransactionEntryImpl>();
-
-      this.firstEntry = new AbstractBoundaryNode() {
-         private Node first;
-
-         @Override
-         public final Node getNext() {
-            return first;
-         }
-
-         @Override
-         public final void setNext(Node next) {
-            this.first = next;
-            synchronized (SortedTransactionQueue.this) {
-               SortedTransactionQueue.this.notifyAll();
-            }
-         }
-
-         @Override
-         public final int compareTo(Node o) {
-            //the first node is always lower
-            return -1;
-         }
-
-         @Override
-         public final String toString() {
-            return "FIRST_ENTRY";
-         }
-      };
-
-      this.lastEntry = new AbstractBoundaryNode() {
-         private Node last;
-
-         @Override
-         public final Node getPrevious() {
-            return last;
-         }
-
-         @Override
-         public final void setPrevious(Node previous) {
-            this.last = previous;
-         }
-
-         @Override
-         public final int compareTo(Node o) {
-            //the last node is always higher
-            return 1;
-         }
-
-         @Override
-         public final String toString() {
-            return "LAST_ENTRY";
-         }
-      };
-
-      firstEntry.setNext(lastEntry);
-      lastEntry.setPrevious(firstEntry);
+      this.queue = new ConcurrentSkipListMap<QueueKey, TransactionEntryImpl>();
+      this.sequenceNumber = new AtomicLong(0);
    }
 
    public final void prepare(CacheTransaction cacheTransaction, long concurrentClockNumber) {
       GlobalTransaction globalTransaction = cacheTransaction.getGlobalTransaction();
-      if (concurrentHashMap.containsKey(globalTransaction)) {
+      TransactionEntryImpl entry = new TransactionEntryImpl(cacheTransaction, concurrentClockNumber,
+                                                            sequenceNumber.incrementAndGet());
+      TransactionEntryImpl previous = concurrentHashMap.put(globalTransaction, entry);
+      if (previous != null) {
          log.warnf("Duplicated prepare for %s", globalTransaction);
       }
-      TransactionEntryImpl entry = new TransactionEntryImpl(cacheTransaction, concurrentClockNumber);
-      concurrentHashMap.put(globalTransaction, entry);
-      insertNew(entry);
+      if (log.isTraceEnabled()) {
+         log.tracef("Add new entry: %s", entry);
+      }
+      queue.put(entry.getKey(), entry);
    }
 
    public final void rollback(CacheTransaction cacheTransaction) {
@@ -124,7 +85,7 @@ public final void rollback(CacheTransaction cacheTransaction) {
 
    //return true if it is a read-write transaction
    public final TransactionEntry commit(GlobalTransaction globalTransaction, GMUVersion commitVersion) {
-      Node entry = concurrentHashMap.get(globalTransaction);
+      TransactionEntryImpl entry = concurrentHashMap.get(globalTransaction);
       if (entry == null) {
          if (log.isDebugEnabled()) {
             log.debugf("Cannot commit transaction %s. Maybe it is a read-only on this node",
@@ -136,9 +97,10 @@ public final TransactionEntry commit(GlobalTransaction globalTransaction, GMUVer
       return entry;
    }
 
-   public final synchronized void populateToCommit(List<TransactionEntry> transactionEntryList) {
-      Node entry = firstEntry.getNext();
-      if (entry == lastEntry || !entry.isReadyToCommit()) {
+   public final void populateToCommit(List<TransactionEntry> transactionEntryList) {
+      Iterator<TransactionEntryImpl> iterator = queue.values().iterator();
+      TransactionEntryImpl entry = iterator.hasNext() ? iterator.next() : null;
+      if (entry == null || !entry.isReadyToCommit()) {
          if (log.isTraceEnabled()) {
             log.tracef("populateToCommit() == false. First is not ready! %s", entry);
          }
@@ -147,41 +109,32 @@ public final synchronized void populateToCommit(List<TransactionEntry> transacti
 
       do {
          transactionEntryList.add(entry);
-         entry = entry.getNext();
-      } while (entry != lastEntry && entry.isReadyToCommit());
+         entry = iterator.hasNext() ? iterator.next() : null;
+      } while (entry != null && entry.isReadyToCommit());
    }
 
    public final void notifyTransactionsCommitted() {
-      Collection<Node> toRemove;
-      synchronized (this) {
-         toRemove = internalRemoveCommitted();
-         internalCheckTransactionsReady();
-      }
-      for (Node node : toRemove) {
-         concurrentHashMap.remove(node.getGlobalTransaction());
-         node.markReadyToCommit();
+      Iterator<Map.Entry<QueueKey, TransactionEntryImpl>> iterator = queue.entrySet().iterator();
+      while (iterator.hasNext()) {
+         Map.Entry<QueueKey, TransactionEntryImpl> mapEntry = iterator.next();
+         TransactionEntryImpl entry = mapEntry.getValue();
+         if (!entry.isCommitted()) {
+            break;
+         }
+         if (queue.remove(mapEntry.getKey(), entry)) {
+            concurrentHashMap.remove(entry.getGlobalTransaction(), entry);
+            entry.markReadyToCommit();
+         }
       }
+      checkTransactionsReady();
    }
 
    public final TransactionEntry getTransactionEntry(GlobalTransaction globalTransaction) {
       return concurrentHashMap.get(globalTransaction);
    }
 
-   public final synchronized String queueToString() {
-      Node node = firstEntry.getNext();
-      if (node == lastEntry) {
-         return "[]";
-      }
-      StringBuilder builder = new StringBuilder("[");
-      builder.append(node);
-
-      node = node.getNext();
-      while (node != lastEntry) {
-         builder.append(",").append(node);
-         node.getNext();
-      }
-      builder.append("]");
-      return builder.toString();
+   public final String queueToString() {
+      return queue.values().toString();
    }
 
    public final int size() {
@@ -190,84 +143,50 @@ public final int size() {
 
    public final List<String> printQueue() {
       List<String> result = new ArrayList<String>(concurrentHashMap.size());
-      for (Node node : concurrentHashMap.values()) {
-         result.add(node.toString());
+      for (TransactionEntryImpl entry : concurrentHashMap.values()) {
+         result.add(entry.toString());
       }
       return result;
    }
 
-   private void checkWaitingTime(Node entry) {
-      Node iterator = entry.getPrevious();
-      boolean waiting = iterator != firstEntry;
+   private void checkWaitingTime(TransactionEntryImpl entry) {
+      boolean waiting = false;
       boolean pendingFound = false;
-      while (iterator != firstEntry) {
-         if (!iterator.hasReceiveCommitCommand()) {
+      for (TransactionEntryImpl before : queue.headMap(entry.getKey(), false).values()) {
+         waiting = true;
+         if (!before.hasReceiveCommitCommand()) {
             pendingFound = true;
             break;
          }
-         iterator = iterator.getPrevious();
       }
       entry.setWaitingType(pendingFound);
       entry.setWaiting(waiting);
-      firstEntry.getNext().notifyFirstInQueue();
-   }
-
-   private Collection<Node> internalRemoveCommitted() {
-      Node node = firstEntry.getNext();
-      if (node == lastEntry || !node.isCommitted()) {
-         return Collections.emptyList();
-      }
-      List<Node> list = new ArrayList<Node>(4);
-      while (node != lastEntry) {
-         if (node.isCommitted()) {
-            list.add(node);
-            node = node.getNext();
-         } else {
-            break;
-         }
+      Map.Entry<QueueKey, TransactionEntryImpl> first = queue.firstEntry();
+      if (first != null) {
+         first.getValue().notifyFirstInQueue();
       }
-      Node newFirst = node;
-      firstEntry.setNext(newFirst);
-      newFirst.setPrevious(firstEntry);
-      return list;
    }
 
-   private synchronized void update(Node entry, GMUVersion commitVersion) {
+   private void update(TransactionEntryImpl entry, GMUVersion commitVersion) {
       if (log.isTraceEnabled()) {
          log.tracef("Update %s with %s", entry, commitVersion);
       }
 
-      entry.commitVersion(commitVersion);
-      if (entry.compareTo(entry.getNext()) > 0) {
-         Node insertBefore = entry.getNext().getNext();
-         internalRemove(entry);
-         while (entry.compareTo(insertBefore) > 0) {
-            insertBefore = insertBefore.getNext();
-         }
-         internalInsertBefore(insertBefore, entry);
+      QueueKey oldKey = entry.getKey();
+      QueueKey newKey = entry.commitVersion(commitVersion);
+      if (newKey != oldKey) {
+         //insert before remove: the entry never disappears from the queue
+         queue.put(newKey, entry);
+         queue.remove(oldKey, entry);
       }
+      entry.markCommitReceived();
       if (TransactionsStatisticsRegistry.isGmuWaitingActive()) {
          checkWaitingTime(entry);
       }
-      internalCheckTransactionsReady();
-   }
-
-   private synchronized void insertNew(Node entry) {
-      if (log.isTraceEnabled()) {
-         log.tracef("Add new entry: %s", entry);
-      }
-      Node insertAfter = lastEntry.getPrevious();
-
-      while (insertAfter != firstEntry) {
-         if (insertAfter.compareTo(entry) <= 0) {
-            break;
-         }
-         insertAfter = insertAfter.getPrevious();
-      }
-      internalInsertAfter(insertAfter, entry);
+      checkTransactionsReady();
    }
 
-   private void remove(Node entry) {
+   private void remove(TransactionEntryImpl entry) {
       if (entry == null) {
          return;
       }
@@ -276,85 +195,65 @@ private void remove(Node entry) {
          log.tracef("remove entry: %s", entry);
       }
 
-      synchronized (this) {
-         internalRemove(entry);
-         internalCheckTransactionsReady();
-      }
-
-      if (log.isTraceEnabled()) {
-         log.tracef("After remove, first entry is %s", firstEntry.getNext());
-      }
-   }
-
-   private void internalRemove(Node entry) {
-      Node previous = entry.getPrevious();
-      Node next = entry.getNext();
-
-      previous.setNext(next);
-      next.setPrevious(previous);
-   }
-
-   private void internalInsertAfter(Node insertAfter, Node entry) {
-      entry.setNext(insertAfter.getNext());
-      insertAfter.getNext().setPrevious(entry);
-
-      entry.setPrevious(insertAfter);
-      insertAfter.setNext(entry);
-
-      if (log.isTraceEnabled()) {
-         log.tracef("add after: %s --> [%s] --> %s", entry.getPrevious(), entry, entry.getNext());
-      }
-   }
-
-   private void internalInsertBefore(Node insertBefore, Node entry) {
-      entry.setPrevious(insertBefore.getPrevious());
-      insertBefore.getPrevious().setNext(entry);
-
-      entry.setNext(insertBefore);
-      insertBefore.setPrevious(entry);
+      queue.remove(entry.getKey(), entry);
+      checkTransactionsReady();
 
       if (log.isTraceEnabled()) {
-         log.tracef("add before: %s --> [%s] --> %s", entry.getPrevious(), entry, insertBefore);
+         log.tracef("After remove, first entry is %s", queue.firstEntry());
       }
    }
 
-   private void internalCheckTransactionsReady() {
-      Node firstTransaction = firstEntry.getNext();
-      //same code as populateToCommit...
-      if (firstTransaction == lastEntry || !firstTransaction.hasReceiveCommitCommand() ||
+   /**
+    * marks the transactions in the head of the queue ready to commit, if the first transaction and all the
+    * transactions with the same version have received the commit command. It is idempotent, so it can be invoked
+    * concurrently by all the threads that change the state of the queue.
+    */
+   private void checkTransactionsReady() {
+      Iterator<TransactionEntryImpl> iterator = queue.values().iterator();
+      TransactionEntryImpl firstTransaction = iterator.hasNext() ? iterator.next() : null;
+      if (firstTransaction == null || !firstTransaction.hasReceiveCommitCommand() ||
             firstTransaction.isReadyToCommit()) {
          //or the transaction hasn't received the commit yet or it was already notified...
          if (log.isTraceEnabled()) {
-            log.tracef("internalCheckTransactionsReady() == false. %s", firstTransaction);
+            log.tracef("checkTransactionsReady() == false. %s", firstTransaction);
          }
          return;
       }
       firstTransaction.notifyFirstInQueue();
 
-      Node transactionToCheck = firstTransaction.getNext();
-
-      while (transactionToCheck != lastEntry) {
-         if (transactionToCheck.compareTo(firstTransaction) != 0) {
+      final long version = firstTransaction.getKey().version;
+      List<TransactionEntryImpl> sameVersion = null;
+      while (iterator.hasNext()) {
+         TransactionEntryImpl transactionToCheck = iterator.next();
+         if (transactionToCheck.getKey().version != version) {
             break;
          } else if (!transactionToCheck.hasReceiveCommitCommand()) {
             if (log.isTraceEnabled()) {
-               log.tracef("internalCheckTransactionsReady() == false. %s is waiting for %s", firstTransaction,
+               log.tracef("checkTransactionsReady() == false. %s is waiting for %s", firstTransaction,
                           transactionToCheck);
             }
             return;
          }
-         transactionToCheck = transactionToCheck.getNext();
+         if (sameVersion == null) {
+            sameVersion = new ArrayList<TransactionEntryImpl>(4);
+         }
+         sameVersion.add(transactionToCheck);
       }
       if (log.isTraceEnabled()) {
-         log.tracef("internalCheckTransactionsReady() == true. %s", firstTransaction);
+         log.tracef("checkTransactionsReady() == true. %s", firstTransaction);
       }
-      transactionToCheck = transactionToCheck.getPrevious();
-      while (transactionToCheck != firstEntry) {
-         transactionToCheck.markReadyToCommit();
-         if (log.isTraceEnabled()) {
-            log.tracef("Mark ready to commit: %s", transactionToCheck);
+      if (sameVersion != null) {
+         for (int i = sameVersion.size() - 1; i >= 0; --i) {
+            markReadyToCommit(sameVersion.get(i));
          }
-         transactionToCheck = transactionToCheck.getPrevious();
+      }
+      markReadyToCommit(firstTransaction);
+   }
+
+   private void markReadyToCommit(TransactionEntryImpl entry) {
+      entry.markReadyToCommit();
+      if (log.isTraceEnabled()) {
+         log.tracef("Mark ready to commit: %s", entry);
       }
    }
 
@@ -365,21 +264,21 @@ private static enum TxState {
       COMMITTED(1 << 3),
       WAITED(1 << 4),
       PENDING_TX_BEFORE(1 << 5),;
-      private final byte mask;
+      private final int mask;
 
       private TxState(int mask) {
-         this.mask = (byte) mask;
+         this.mask = mask;
       }
 
-      public final byte set(byte state) {
-         return (byte) (state | mask);
+      public final int set(int state) {
+         return state | mask;
       }
 
-      public final boolean isSet(byte state) {
+      public final boolean isSet(int state) {
          return (state & mask) != 0;
       }
 
-      public static String stateToString(byte state) {
+      public static String stateToString(int state) {
          if (state == 0) {
             return "[]";
          }
@@ -395,43 +294,46 @@ public static String stateToString(byte state) {
       }
    }
 
-   private interface Node extends TransactionEntry, Comparable<Node> {
-      /**
-       * adds the commit entry
-       *
-       * @param commitCommand commit command
-       */
-      void commitVersion(GMUVersion commitCommand);
-
-      /**
-       * @return the current version
-       */
-      GMUVersion getVersion();
-
-      /**
-       * @return {@code true} if the transaction has already received the commit command
-       */
-      boolean hasReceiveCommitCommand();
-
-      /**
-       * marks the transaction ready to commit. This means that {@link #hasReceiveCommitCommand()} is true and it is the
-       * first entry in the queue
-       */
-      void markReadyToCommit();
-
-      Node getPrevious();
+   /**
+    * the immutable key of the queue. the sequence number breaks the ties between transactions with the same version.
+    */
+   private static class QueueKey implements Comparable<QueueKey> {
+      private final long version;
+      private final long sequence;
 
-      void setPrevious(Node previous);
+      private QueueKey(long version, long sequence) {
+         this.version = version;
+         this.sequence = sequence;
+      }
 
-      Node getNext();
+      @Override
+      public final int compareTo(QueueKey other) {
+         if (version != other.version) {
+            return version < other.version ? -1 : 1;
+         }
+         return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+      }
 
-      void setNext(Node next);
+      @Override
+      public final boolean equals(Object o) {
+         if (this == o) return true;
+         if (o == null || getClass() != o.getClass()) return false;
 
-      void notifyFirstInQueue();
+         QueueKey queueKey = (QueueKey) o;
+         return sequence == queueKey.sequence && version == queueKey.version;
+      }
 
-      void setWaitingType(boolean pendingFound);
+      @Override
+      public final int hashCode() {
+         int result = (int) (version ^ (version >>> 32));
+         result = 31 * result + (int) (sequence ^ (sequence >>> 32));
+         return result;
+      }
 
-      void setWaiting(boolean waiting);
+      @Override
+      public final String toString() {
+         return "(" + version + "," + sequence + ")";
+      }
    }
 
    public static interface TransactionEntry {
@@ -485,114 +387,126 @@ public static interface TransactionEntry {
       void setNewVersionInDataContainer(GMUCacheEntryVersion version);
    }
 
-   private class TransactionEntryImpl implements Node {
+   private static class TransactionEntryImpl implements TransactionEntry {
 
+      private static final AtomicIntegerFieldUpdater<TransactionEntryImpl> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(TransactionEntryImpl.class, "state");
       private final CacheTransaction cacheTransaction;
       private final CountDownLatch readyToCommit;
-      private volatile byte state;
+      private final CountDownLatch committed;
+      private final long sequence;
+      private final long concurrentClockNumber; //This is the value of the last committed vector clock's n-th entry on this node n at the time this object was created.
+      private volatile int state;
       private volatile GMUVersion entryVersion;
-      private long concurrentClockNumber; //This is the value of the last committed vector clock's n-th entry on this node n at the time this object was created.
+      private volatile QueueKey key;
       private volatile long commitReceivedTimestamp = -1;
       private volatile long firstInQueueTimestamp = -1;
       private volatile long readyToCommitTimestamp = -1;
-      private GMUCacheEntryVersion newVersionInDataContainer;
-      private Node previous;
-      private Node next;
+      private volatile GMUCacheEntryVersion newVersionInDataContainer;
 
-      private TransactionEntryImpl(CacheTransaction cacheTransaction, long concurrentClockNumber) {
+      private TransactionEntryImpl(CacheTransaction cacheTransaction, long concurrentClockNumber, long sequence) {
          this.state = 0;
          this.cacheTransaction = cacheTransaction;
          this.entryVersion = (GMUVersion) cacheTransaction.getTransactionVersion();
          this.readyToCommit = new CountDownLatch(1);
+         this.committed = new CountDownLatch(1);
          this.concurrentClockNumber = concurrentClockNumber;
+         this.sequence = sequence;
+         this.key = new QueueKey(entryVersion.getThisNodeVersionValue(), sequence);
       }
 
-      public synchronized void commitVersion(GMUVersion commitVersion) {
+      /**
+       * sets the commit version.
+       *
+       * @return the new key in the queue, or the current key if the version value of this node has not changed.
+       */
+      public final QueueKey commitVersion(GMUVersion commitVersion) {
          this.entryVersion = commitVersion;
-         this.state = TxState.COMMIT_RECEIVED.set(state);
+         if (commitVersion.getThisNodeVersionValue() != key.version) {
+            key = new QueueKey(commitVersion.getThisNodeVersionValue(), sequence);
+         }
          if (log.isTraceEnabled()) {
             log.tracef("Set transaction commit version: %s", this);
          }
          if (TransactionsStatisticsRegistry.isActive()) {
             commitReceivedTimestamp = System.nanoTime();
          }
+         return key;
       }
 
-      @Override
-      public final synchronized void setWaitingType(boolean pendingFound) {
+      public final void markCommitReceived() {
+         setState(TxState.COMMIT_RECEIVED);
+      }
+
+      public final QueueKey getKey() {
+         return key;
+      }
+
+      public final void setWaitingType(boolean pendingFound) {
          if (pendingFound) {
-            this.state = TxState.PENDING_TX_BEFORE.set(state);
+            setState(TxState.PENDING_TX_BEFORE);
          }
       }
 
-      @Override
       public final void notifyFirstInQueue() {
          if (firstInQueueTimestamp == -1 && TransactionsStatisticsRegistry.isActive()) {
             firstInQueueTimestamp = System.nanoTime();
          }
       }
 
-      @Override
-      public final synchronized void setWaiting(boolean waiting) {
+      public final void setWaiting(boolean waiting) {
          if (waiting) {
-            this.state = TxState.WAITED.set(state);
+            setState(TxState.WAITED);
          }
       }
 
-      public final synchronized GMUVersion getVersion() {
+      public final GMUVersion getVersion() {
          return entryVersion;
       }
 
-      public final synchronized long getConcurrentClockNumber() {
+      @Override
+      public final long getConcurrentClockNumber() {
          return concurrentClockNumber;
       }
 
-      public final CacheTransaction getCacheTransaction() {
-         return cacheTransaction;
-      }
-
-      public final synchronized boolean hasReceiveCommitCommand() {
+      public final boolean hasReceiveCommitCommand() {
          return TxState.COMMIT_RECEIVED.isSet(state);
       }
 
-      @Override
-      public final synchronized void markReadyToCommit() {
-         this.state = TxState.READY_TO_COMMIT.set(state);
+      public final void markReadyToCommit() {
+         if (setState(TxState.READY_TO_COMMIT)) {
+            readyToCommitTimestamp = System.nanoTime();
+         }
          readyToCommit.countDown();
-         readyToCommitTimestamp = System.nanoTime();
       }
 
       @Override
-      public final synchronized boolean isCommitted() {
+      public final boolean isCommitted() {
          return TxState.COMMITTED.isSet(state);
       }
 
+      @Override
       public final GlobalTransaction getGlobalTransaction() {
          return cacheTransaction.getGlobalTransaction();
       }
 
       @Override
-      public final synchronized void awaitUntilCommitted() throws InterruptedException {
-         while (!isCommitted()) {
-            wait();
-         }
+      public final void awaitUntilCommitted() throws InterruptedException {
+         committed.await();
       }
 
       @Override
-      public final synchronized boolean committing() {
-         if (TxState.COMMITTING.isSet(state)) {
-            return false;
-         }
-         this.state = TxState.COMMITTING.set(state);
-         return true;
+      public final boolean committing() {
+         return setState(TxState.COMMITTING);
       }
 
-      public final synchronized void committed() {
+      @Override
+      public final void committed() {
          if (log.isTraceEnabled()) {
             log.tracef("Mark transaction committed: %s", this);
          }
-         this.state = TxState.COMMITTED.set(state);
-         notifyAll();
+         setState(TxState.COMMITTED);
+         committed.countDown();
       }
 
       @Override
@@ -601,7 +515,7 @@ public final void awaitUntilIsReadyToCommit() throws InterruptedException {
       }
 
       @Override
-      public final synchronized boolean isReadyToCommit() {
+      public final boolean isReadyToCommit() {
          return TxState.READY_TO_COMMIT.isSet(state);
       }
 
@@ -611,11 +525,13 @@ public final CacheTransaction getCacheTransactionForCommit() {
          return cacheTransaction;
       }
 
-      public synchronized GMUCacheEntryVersion getNewVersionInDataContainer() {
+      @Override
+      public final GMUCacheEntryVersion getNewVersionInDataContainer() {
          return this.newVersionInDataContainer;
       }
 
-      public synchronized void setNewVersionInDataContainer(GMUCacheEntryVersion version) {
+      @Override
+      public final void setNewVersionInDataContainer(GMUCacheEntryVersion version) {
          this.newVersionInDataContainer = version;
       }
 
@@ -628,55 +544,13 @@ public final String toString() {
                '}';
       }
 
-      @Override
-      public final int compareTo(Node otherNode) {
-         if (otherNode == null) {
-            return -1;
-         } else if (otherNode == firstEntry) {
-            return 1;
-         } else if (otherNode == lastEntry) {
-            return -1;
-         }
-
-         Long my = getVersion().getThisNodeVersionValue();
-         Long other = otherNode.getVersion().getThisNodeVersionValue();
-         int compareResult = my.compareTo(other);
-
-         if (log.isTraceEnabled()) {
-            log.tracef("Comparing this[%s] with other[%s]. compare(%s,%s) ==> %s", this, otherNode, my, other,
-                       compareResult);
-         }
-
-         return compareResult;
-      }
-
-      @Override
-      public final Node getPrevious() {
-         return previous;
-      }
-
-      @Override
-      public final void setPrevious(Node previous) {
-         this.previous = previous;
-      }
-
-      @Override
-      public final Node getNext() {
-         return next;
-      }
-
-      @Override
-      public final void setNext(Node next) {
-         this.next = next;
-      }
-
       @Override
       public final long getCommitReceivedTimestamp() {
          return commitReceivedTimestamp;
       }
 
       @Override
-      public final synchronized boolean isWaitBecauseOfPendingTx() {
+      public final boolean isWaitBecauseOfPendingTx() {
          return TxState.PENDING_TX_BEFORE.isSet(state);
       }
 
@@ -694,132 +568,19 @@ public final long getFirstInQueueTimestamp() {
       public final boolean hasWaited() {
          return TxState.WAITED.isSet(state);
       }
-   }
-
-   private abstract class AbstractBoundaryNode implements Node {
-
-      @Override
-      public final void commitVersion(GMUVersion commitCommand) {/*no-op*/}
-
-      @Override
-      public final GMUVersion getVersion() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final boolean committing() {
-         return false;
-      }
-
-      @Override
-      public final boolean hasReceiveCommitCommand() {
-         return false;
-      }
-
-      @Override
-      public final void markReadyToCommit() {/*no-op*/}
-
-      @Override
-      public final GlobalTransaction getGlobalTransaction() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public Node getPrevious() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public void setPrevious(Node previous) {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public Node getNext() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public void setNext(Node next) {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final void awaitUntilIsReadyToCommit() throws InterruptedException {/*no-op*/}
-
-      @Override
-      public final boolean isReadyToCommit() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final CacheTransaction getCacheTransactionForCommit() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final void committed() {/*no-op*/}
-
-      @Override
-      public final boolean isCommitted() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final void awaitUntilCommitted() throws InterruptedException {/*no-op*/}
-
-      @Override
-      public final long getConcurrentClockNumber() {
-         throw new UnsupportedOperationException();
-      }
-
-      @Override
-      public final void notifyFirstInQueue() {
-         //no-op, stats methods
-      }
-
-      @Override
-      public final void setWaitingType(boolean pendingFound) {
-         //no-op, stats methods
-      }
-
-      @Override
-      public final long getCommitReceivedTimestamp() {
-         return -1;
-      }
-
-      @Override
-      public final boolean isWaitBecauseOfPendingTx() {
-         return false;
-      }
-
-      @Override
-      public final long getReadyToCommitTimestamp() {
-         return -1;
-      }
-
-      @Override
-      public final long getFirstInQueueTimestamp() {
-         return -1;
-      }
 
-      @Override
-      public final void setWaiting(boolean waiting) {
-         //no-op
-      }
-
-      @Override
-      public final boolean hasWaited() {
-         return false;
-      }
-
-      @Override
-      public GMUCacheEntryVersion getNewVersionInDataContainer() {
-         throw new UnsupportedOperationException();
-      }
-
-      public void setNewVersionInDataContainer(GMUCacheEntryVersion version) {
-         /*no-op*/
+      /**
+       * @return {@code true} if this invocation has set the state
+       */
+      private boolean setState(TxState txState) {
+         while (true) {
+            int current = state;
+            if (txState.isSet(current)) {
+               return false;
+            } else if (STATE_UPDATER.compareAndSet(this, current, txState.set(current))) {
+               return true;
+            }
+         }
       }
    }
 }
@@ -90,6 +90,16 @@ public void rollbackTransaction(CacheTransaction cacheTransaction) {
       sortedTransactionQueue.rollback(cacheTransaction);
    }
 
+   /**
+    * sets the commit version of the transaction. It is synchronized with {@link #prepareTransaction(CacheTransaction,
+    * boolean)}, so a new prepared transaction is always ordered after the commit versions already received. The
+    * commit of the ready transactions ({@link #getTransactionsToCommit()} and {@link #transactionCommitted(Collection,
+    * Collection)}) does not acquire this lock.
+    *
+    * @param globalTransaction the transaction
+    * @param version           the commit version
+    * @return the entry in the queue or {@code null} if the transaction is read-only in this node
+    */
    public synchronized TransactionEntry commitTransaction(GlobalTransaction globalTransaction, EntryVersion version) {
       final GMUVersion commitVersion = (GMUVersion) version;
       lastPreparedVersion = Math.max(commitVersion.getThisNodeVersionValue(), lastPreparedVersion);
@@ -25,6 +25,7 @@
 import org.infinispan.transaction.TotalOrderRemoteTransactionState;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -68,14 +69,14 @@ public void inject(@ComponentName(KnownComponentNames.TOTAL_ORDER_EXECUTOR) Bloc
    }
 
    /**
-    * It ensures the validation order for the transaction corresponding to the prepare command. This allow the prepare
-    * command to be moved to a thread pool.
+    * It ensures the validation order for the transaction corresponding to the prepare command and sends the prepare
+    * command to the thread pool.
     *
     * @param state the total order prepare state
     */
    @Override
-   public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keysWriteAndRead)
-         throws InterruptedException {
+   public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keysWriteAndRead,
+                                 DependencyAwareRunnable prepareTask) throws InterruptedException {
       //the retries due to state transfer re-uses the same state. we need that the keys previous locked to be release
       //in order to insert it again in the keys locked.
       //NOTE: this method does not need to be synchronized because it is invoked by a one thread at the time, namely
@@ -118,6 +119,7 @@ public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][]
                     state.getConflictingTransactionBlocks(), state.getLockedKeys() == null ? "[ClearCommand]" :
                state.getLockedKeys());
       }
+      totalOrderExecutor.execute(prepareTask);
    }
 
    /**
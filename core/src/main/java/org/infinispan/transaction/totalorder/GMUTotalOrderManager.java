@@ -22,19 +22,28 @@
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.transaction.TotalOrderRemoteTransactionState;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -44,6 +53,14 @@
  * Main functions: <ul> <li> ensure an order between prepares before sending them to the thread pool, i.e.
  * non-conflicting prepares can be processed concurrently; </li> <li> ensure that the state transfer waits for the
  * previous delivered prepares; </li> <li> ensure that the prepare waits for state transfer in progress. </li> </ul>
+ * <p/>
+ * The keys are partitioned by hash in admission lanes (see
+ * {@link org.infinispan.configuration.cache.TransactionConfiguration#totalOrderAdmissionLanes()}). Each lane owns the
+ * locks of its keys and is a serial queue drained by the total order executor, so the lanes acquire the locks of
+ * different transactions in parallel. The thread delivering the messages in total order only splits the keys by lane
+ * and enqueues the transaction in all the lanes that it touches, in delivery order. Since each lane processes its queue
+ * in order, two conflicting transactions are always ordered by delivery order. A transaction touching multiple lanes is
+ * sent to the thread pool by the last lane that processes it.
  *
  * @author Pedro Ruivo
  * @since 5.3
@@ -51,17 +68,20 @@
 public class GMUTotalOrderManager implements TotalOrderManager {
 
    private static final Log log = LogFactory.getLog(GMUTotalOrderManager.class);
-   /**
-    * this map is used to keep track of concurrent transactions.
-    */
-   private final ConcurrentMap<Object, TotalOrderLock> keysLocked;
-   private final AtomicReference<TotalOrderLatch> clear;
+   private final Lane[] lanes;
    private final AtomicReference<TotalOrderLatch> stateTransferInProgress;
    private BlockingTaskAwareExecutorService totalOrderExecutor;
+   private volatile boolean stopped;
 
-   public GMUTotalOrderManager() {
-      keysLocked = ConcurrentMapFactory.makeConcurrentMap();
-      clear = new AtomicReference<TotalOrderLatch>(null);
+   /**
+    * @param numberOfLanes number of lanes used to acquire the keys locks in parallel. 1 or less acquires them in the
+    *                      thread delivering the messages in total order
+    */
+   public GMUTotalOrderManager(int numberOfLanes) {
+      lanes = new Lane[Math.max(1, numberOfLanes)];
+      for (int i = 0; i < lanes.length; ++i) {
+         lanes[i] = new Lane();
+      }
       stateTransferInProgress = new AtomicReference<TotalOrderLatch>(null);
    }
 
@@ -70,14 +90,32 @@ public void inject(@ComponentName(KnownComponentNames.TOTAL_ORDER_EXECUTOR) Bloc
       this.totalOrderExecutor = totalOrderExecutor;
    }
 
+   @Start
+   public void start() {
+      stopped = false;
+   }
+
    /**
-    * It ensures the validation order for the transaction corresponding to the prepare command. This allow the prepare
-    * command to be moved to a thread pool.
+    * the transactions still queued in the lanes are not admitted. They are failed, unblocking their latches, so the
+    * tasks depending on them are not blocked forever.
+    */
+   @Stop
+   public void stop() {
+      stopped = true;
+      for (Lane lane : lanes) {
+         lane.failPending();
+      }
+   }
+
+   /**
+    * It ensures the validation order for the transaction corresponding to the prepare command and sends the prepare
+    * command to the thread pool. The prepare command may be sent after this method returns.
     *
     * @param state the total order prepare state
     */
    @Override
-   public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keyWriteAndRead) throws InterruptedException {
+   public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keyWriteAndRead,
+                                 DependencyAwareRunnable prepareTask) throws InterruptedException {
       //the retries due to state transfer re-uses the same state. we need that the keys previous locked to be release
       //in order to insert it again in the keys locked.
       //NOTE: this method does not need to be synchronized because it is invoked by a one thread at the time, namely
@@ -86,55 +124,64 @@ public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[][]
       TotalOrderLatch transactionSynchronizedBlock = new TotalOrderLatchImpl(state.getGlobalTransaction().globalId());
       state.setTransactionSynchronizedBlock(transactionSynchronizedBlock);
       if (keyWriteAndRead == null) { //clear state
-         TotalOrderLatch oldClear = clear.get();
-         if (oldClear != null) {
-            state.addSynchronizedBlock(oldClear);
-            clear.set(transactionSynchronizedBlock);
-         }
-         //add all other "locks"
-         for (TotalOrderLock lock : keysLocked.values()) {
-            state.addAllSynchronizedBlocks(lock.acquireForClear());
-         }
-         keysLocked.clear();
          state.addKeysLockedForClear();
-      } else {
-         TotalOrderLatch clearTx = clear.get();
-         if (clearTx != null) {
-            state.addSynchronizedBlock(clearTx);
+      }
+
+      if (lanes.length == 1) {
+         Admission admission = new Admission(state, transactionSynchronizedBlock, prepareTask, 1);
+         if (keyWriteAndRead == null) {
+            lanes[0].acquireForClear(admission);
+         } else {
+            lanes[0].acquireLocks(admission, Arrays.asList(keyWriteAndRead[0]), Arrays.asList(keyWriteAndRead[1]));
          }
-         Set<Object> acquiredLocks = new HashSet<Object>();
-         Object[] writeSet = keyWriteAndRead[0];
-         Object[] readSet = keyWriteAndRead[1];
-         //this will collect all the count down latch corresponding to the previous transactions in the queue
-         for (Object key : writeSet) {
-            if (acquiredLocks.contains(key)) {
-               //safety... should never happen
-               continue;
-            }
-            acquireLock(state, transactionSynchronizedBlock, key, true);
-            acquiredLocks.add(key);
+         admission.laneFinished();
+         return;
+      }
+
+      if (keyWriteAndRead == null) {
+         Admission admission = new Admission(state, transactionSynchronizedBlock, prepareTask, lanes.length);
+         for (Lane lane : lanes) {
+            lane.execute(new LaneTask(lane, admission, null, null));
          }
-         for (Object key : readSet) {
-            if (acquiredLocks.contains(key)) {
-               //safety... should never happen
-               continue;
-            }
-            acquireLock(state, transactionSynchronizedBlock, key, false);
-            acquiredLocks.add(key);
+         return;
+      }
+
+      //split the keys by lane. the set of lanes touched is only known at the end
+      LaneTask[] tasks = new LaneTask[lanes.length];
+      int touched = 0;
+      for (Object key : keyWriteAndRead[0]) {
+         int index = laneIndex(key);
+         if (tasks[index] == null) {
+            tasks[index] = new LaneTask(lanes[index], null, new ArrayList<Object>(), new ArrayList<Object>());
+            touched++;
+         }
+         tasks[index].writeSet.add(key);
+      }
+      for (Object key : keyWriteAndRead[1]) {
+         int index = laneIndex(key);
+         if (tasks[index] == null) {
+            tasks[index] = new LaneTask(lanes[index], null, new ArrayList<Object>(), new ArrayList<Object>());
+            touched++;
          }
-         //no longer needed
-         acquiredLocks.clear();
+         tasks[index].readSet.add(key);
       }
 
-      TotalOrderLatch stateTransfer = stateTransferInProgress.get();
-      if (stateTransfer != null) {
-         state.addSynchronizedBlock(stateTransfer);
+      if (touched == 0) {
+         //no keys. it only waits for the clear and state transfer in progress.
+         Admission admission = new Admission(state, transactionSynchronizedBlock, prepareTask, lanes.length);
+         for (Lane lane : lanes) {
+            lane.execute(new LaneTask(lane, admission, Collections.<Object>emptyList(),
+                                      Collections.<Object>emptyList()));
+         }
+         return;
       }
 
-      if (log.isTraceEnabled()) {
-         log.tracef("Transaction [%s] will wait for %s and locked %s", state.getGlobalTransaction().globalId(),
-                    state.getConflictingTransactionBlocks(), state.getLockedKeys() == null ? "[ClearCommand]" :
-               state.getLockedKeys());
+      Admission admission = new Admission(state, transactionSynchronizedBlock, prepareTask, touched);
+      for (LaneTask task : tasks) {
+         if (task != null) {
+            task.admission = admission;
+            task.lane.execute(task);
+         }
       }
    }
 
@@ -153,11 +200,15 @@ public final void release(TotalOrderRemoteTransactionState state) {
       Collection<Object> lockedKeys = state.getLockedKeys();
       synchronizedBlock.unBlock();
       if (lockedKeys == null) {
-         clear.compareAndSet(synchronizedBlock, null);
+         for (Lane lane : lanes) {
+            lane.clear.compareAndSet(synchronizedBlock, null);
+         }
       } else {
          for (Object key : lockedKeys) {
+            ConcurrentMap<Object, TotalOrderLock> keysLocked = lanes[laneIndex(key)].keysLocked;
             TotalOrderLock lock = keysLocked.get(key);
-            if (lock.releaseLock(synchronizedBlock)) {
+            //the lock is removed by a clear delivered after this transaction
+            if (lock != null && lock.releaseLock(synchronizedBlock)) {
                keysLocked.remove(key, lock);
             }
          }
@@ -171,20 +222,24 @@ public final void release(TotalOrderRemoteTransactionState state) {
    }
 
    /**
-    * It notifies that a state transfer is about to start.
+    * It notifies that a state transfer is about to start. It waits until the lanes have processed all the transactions
+    * delivered before.
     *
     * @param topologyId the new topology ID
     * @return the current pending prepares
     */
    @Override
-   public final Collection<TotalOrderLatch> notifyStateTransferStart(int topologyId) {
-      List<TotalOrderLatch> preparingTransactions = new ArrayList<TotalOrderLatch>(keysLocked.size());
-      for (TotalOrderLock lock : keysLocked.values()) {
-         preparingTransactions.addAll(lock.stateTransfer());
-      }
-      TotalOrderLatch clearBlock = clear.get();
-      if (clearBlock != null) {
-         preparingTransactions.add(clearBlock);
+   public final Collection<TotalOrderLatch> notifyStateTransferStart(int topologyId) throws InterruptedException {
+      awaitLanes();
+      List<TotalOrderLatch> preparingTransactions = new ArrayList<TotalOrderLatch>();
+      for (Lane lane : lanes) {
+         for (TotalOrderLock lock : lane.keysLocked.values()) {
+            preparingTransactions.addAll(lock.stateTransfer());
+         }
+         TotalOrderLatch clearBlock = lane.clear.get();
+         if (clearBlock != null && !preparingTransactions.contains(clearBlock)) {
+            preparingTransactions.add(clearBlock);
+         }
       }
       if (stateTransferInProgress.get() == null) {
          stateTransferInProgress.set(new TotalOrderLatchImpl("StateTransfer-" + topologyId));
@@ -212,27 +267,246 @@ public final void notifyStateTransferEnd() {
 
    @Override
    public final boolean hasAnyLockAcquired() {
-      return !keysLocked.isEmpty() || clear.get() != null;
+      for (Lane lane : lanes) {
+         if (!lane.keysLocked.isEmpty() || lane.clear.get() != null) {
+            return true;
+         }
+      }
+      return false;
    }
 
-   private void acquireLock(TotalOrderRemoteTransactionState state, TotalOrderLatch latch, Object key, boolean write) {
-      state.addLockedKey(key);
-      TotalOrderLock lock = new TotalOrderLock();
-      TotalOrderLock existing = keysLocked.putIfAbsent(key, lock);
-      Collection<TotalOrderLatch> dependencies;
-      if (existing != null) {
-         dependencies = write ? existing.writeLock(latch) : existing.readLock(latch);
-         if (dependencies == null) {
-            keysLocked.put(key, lock);
+   /**
+    * @return TEST ONLY!!
+    */
+   public final int getNumberOfLanes() {
+      return lanes.length;
+   }
+
+   private int laneIndex(Object key) {
+      if (lanes.length == 1) {
+         return 0;
+      }
+      int hash = key.hashCode();
+      hash ^= hash >>> 16;
+      return (hash & Integer.MAX_VALUE) % lanes.length;
+   }
+
+   private void awaitLanes() throws InterruptedException {
+      if (lanes.length == 1) {
+         return;
+      }
+      final CountDownLatch latch = new CountDownLatch(lanes.length);
+      for (Lane lane : lanes) {
+         lane.execute(new LaneTask(lane, null, null, null) {
+            @Override
+            public void run() {
+               latch.countDown();
+            }
+
+            @Override
+            void fail() {
+               latch.countDown();
+            }
+         });
+      }
+      latch.await();
+   }
+
+   /**
+    * the admission of a transaction in the lanes that it touches. The last lane sends it to the thread pool
+    */
+   private class Admission {
+      private final TotalOrderRemoteTransactionState state;
+      private final TotalOrderLatch latch;
+      private final DependencyAwareRunnable prepareTask;
+      private final AtomicInteger pendingLanes;
+
+      private Admission(TotalOrderRemoteTransactionState state, TotalOrderLatch latch,
+                        DependencyAwareRunnable prepareTask, int lanes) {
+         this.state = state;
+         this.latch = latch;
+         this.prepareTask = prepareTask;
+         this.pendingLanes = new AtomicInteger(lanes);
+      }
+
+      private void laneFinished() {
+         if (pendingLanes.decrementAndGet() != 0) {
+            return;
+         }
+         TotalOrderLatch stateTransfer = stateTransferInProgress.get();
+         if (stateTransfer != null) {
+            state.addSynchronizedBlock(stateTransfer);
+         }
+
+         if (log.isTraceEnabled()) {
+            log.tracef("Transaction [%s] will wait for %s and locked %s", state.getGlobalTransaction().globalId(),
+                       state.getConflictingTransactionBlocks(), state.getLockedKeys() == null ? "[ClearCommand]" :
+                  state.getLockedKeys());
+         }
+         totalOrderExecutor.execute(prepareTask);
+      }
+   }
+
+   /**
+    * the keys locks of a partition of the keys. Only the task draining the lane queue (or the delivering thread)
+    * acquires them. At most one task drains the queue at the time.
+    */
+   private class Lane implements Runnable {
+      /**
+       * this map is used to keep track of concurrent transactions.
+       */
+      private final ConcurrentMap<Object, TotalOrderLock> keysLocked;
+      private final AtomicReference<TotalOrderLatch> clear;
+      private final ConcurrentLinkedQueue<LaneTask> queue;
+      private final AtomicBoolean scheduled;
+
+      private Lane() {
+         keysLocked = ConcurrentMapFactory.makeConcurrentMap();
+         clear = new AtomicReference<TotalOrderLatch>(null);
+         queue = new ConcurrentLinkedQueue<LaneTask>();
+         scheduled = new AtomicBoolean(false);
+      }
+
+      private void execute(LaneTask task) {
+         queue.add(task);
+         schedule();
+      }
+
+      /**
+       * drains the queue in order. It is only executed by one thread at the time.
+       */
+      @Override
+      public void run() {
+         try {
+            LaneTask task;
+            while (!stopped && (task = queue.poll()) != null) {
+               task.run();
+            }
+         } finally {
+            scheduled.set(false);
+         }
+         //a task may be enqueued after the last poll() and before resetting the flag
+         if (!queue.isEmpty()) {
+            schedule();
+         }
+      }
+
+      private void schedule() {
+         if (stopped) {
+            failPending();
+            return;
+         }
+         if (!scheduled.compareAndSet(false, true)) {
+            return;
+         }
+         try {
+            totalOrderExecutor.execute(this);
+         } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            failPending();
+         }
+      }
+
+      private void failPending() {
+         LaneTask task;
+         while ((task = queue.poll()) != null) {
+            task.fail();
+         }
+      }
+
+      private void acquireForClear(Admission admission) {
+         TotalOrderLatch oldClear = clear.getAndSet(admission.latch);
+         if (oldClear != null) {
+            admission.state.addSynchronizedBlock(oldClear);
+         }
+         //add all other "locks"
+         for (TotalOrderLock lock : keysLocked.values()) {
+            admission.state.addAllSynchronizedBlocks(lock.acquireForClear());
+         }
+         keysLocked.clear();
+      }
+
+      private void acquireLocks(Admission admission, Collection<Object> writeSet, Collection<Object> readSet) {
+         TotalOrderLatch clearTx = clear.get();
+         if (clearTx != null) {
+            admission.state.addSynchronizedBlock(clearTx);
+         }
+         Set<Object> acquiredLocks = writeSet.size() + readSet.size() > 1 ? new HashSet<Object>() : null;
+         //this will collect all the count down latch corresponding to the previous transactions in the queue
+         for (Object key : writeSet) {
+            if (acquiredLocks != null && !acquiredLocks.add(key)) {
+               //safety... should never happen
+               continue;
+            }
+            acquireLock(admission.state, admission.latch, key, true);
+         }
+         for (Object key : readSet) {
+            if (acquiredLocks != null && !acquiredLocks.add(key)) {
+               //safety... should never happen
+               continue;
+            }
+            acquireLock(admission.state, admission.latch, key, false);
+         }
+      }
+
+      private void acquireLock(TotalOrderRemoteTransactionState state, TotalOrderLatch latch, Object key,
+                               boolean write) {
+         state.addLockedKey(key);
+         TotalOrderLock lock = new TotalOrderLock();
+         TotalOrderLock existing = keysLocked.putIfAbsent(key, lock);
+         Collection<TotalOrderLatch> dependencies;
+         if (existing != null) {
+            dependencies = write ? existing.writeLock(latch) : existing.readLock(latch);
+            if (dependencies == null) {
+               keysLocked.put(key, lock);
+               dependencies = write ? lock.writeLock(latch) : lock.readLock(latch);
+            }
+         } else {
             dependencies = write ? lock.writeLock(latch) : lock.readLock(latch);
          }
-      } else {
-         dependencies = write ? lock.writeLock(latch) : lock.readLock(latch);
+         if (dependencies == null) {
+            throw new IllegalStateException("Dependencies are null. This is not possible. Possible concurrent put/remove");
+         }
+         state.addAllSynchronizedBlocks(dependencies);
+      }
+   }
+
+   private static class LaneTask implements Runnable {
+      private final Lane lane;
+      private final List<Object> writeSet;
+      private final List<Object> readSet;
+      private Admission admission;
+
+      private LaneTask(Lane lane, Admission admission, List<Object> writeSet, List<Object> readSet) {
+         this.lane = lane;
+         this.admission = admission;
+         this.writeSet = writeSet;
+         this.readSet = readSet;
       }
-      if (dependencies == null) {
-         throw new IllegalStateException("Dependencies are null. This is not possible. Possible concurrent put/remove");
+
+      @Override
+      public void run() {
+         try {
+            if (writeSet == null) {
+               lane.acquireForClear(admission);
+            } else {
+               lane.acquireLocks(admission, writeSet, readSet);
+            }
+         } catch (Throwable throwable) {
+            log.errorf(throwable, "Error ordering transaction [%s]", admission.state.getGlobalTransaction().globalId());
+         } finally {
+            admission.laneFinished();
+         }
+      }
+
+      /**
+       * the transaction is not admitted. Its latch is unblocked so the transactions depending on it can proceed.
+       */
+      void fail() {
+         log.warnf("Transaction [%s] not admitted. The total order manager is stopped",
+                   admission.state.getGlobalTransaction().globalId());
+         admission.latch.unBlock();
       }
-      state.addAllSynchronizedBlocks(dependencies);
    }
 
    private class TotalOrderLock {
@@ -19,16 +19,20 @@
 
 package org.infinispan.transaction.totalorder;
 
+import org.infinispan.util.concurrent.TaskDependency;
+
 /**
  * Behaves as a latch between {@code org.infinispan.commands.tx.PrepareCommand} delivered in total order to coordinate
  * conflicting transactions and between {@code org.infinispan.commands.tx.PrepareCommand} and state transfer (blocking
  * the prepare until the state transfer is finished and blocking the state transfer until all the prepared transactions
  * has finished)
+ * <p/>
+ * As a {@code TaskDependency}, it notifies the runnables waiting for it when it is unblocked.
  *
  * @author Pedro Ruivo
  * @since 5.3
  */
-public interface TotalOrderLatch {
+public interface TotalOrderLatch extends TaskDependency {
 
    /**
     * @return true if this synchronization block is blocked
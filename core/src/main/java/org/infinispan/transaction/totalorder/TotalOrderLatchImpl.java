@@ -19,6 +19,10 @@
 
 package org.infinispan.transaction.totalorder;
 
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
+
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -31,6 +35,8 @@ public class TotalOrderLatchImpl implements TotalOrderLatch {
 
    private final String name;
    private final CountDownLatch latch;
+   //guarded by this. null after unblocked
+   private List<DependencyAwareRunnable> dependents;
 
    public TotalOrderLatchImpl(String name) {
       if (name == null) {
@@ -38,6 +44,7 @@ public TotalOrderLatchImpl(String name) {
       }
       this.name = name;
       this.latch = new CountDownLatch(1);
+      this.dependents = new LinkedList<DependencyAwareRunnable>();
    }
 
    @Override
@@ -47,7 +54,27 @@ public boolean isBlocked() {
 
    @Override
    public void unBlock() {
-      latch.countDown();
+      List<DependencyAwareRunnable> toNotify;
+      synchronized (this) {
+         latch.countDown();
+         if (dependents == null) {
+            return;
+         }
+         toNotify = dependents;
+         dependents = null;
+      }
+      for (DependencyAwareRunnable runnable : toNotify) {
+         runnable.dependencyReleased();
+      }
+   }
+
+   @Override
+   public synchronized boolean addDependent(DependencyAwareRunnable runnable) {
+      if (dependents == null) {
+         return false;
+      }
+      dependents.add(runnable);
+      return true;
    }
 
    @Override
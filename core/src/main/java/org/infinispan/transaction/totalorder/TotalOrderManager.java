@@ -1,6 +1,7 @@
 package org.infinispan.transaction.totalorder;
 
 import org.infinispan.transaction.TotalOrderRemoteTransactionState;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
 
 import java.util.Collection;
 
@@ -9,11 +10,12 @@
  * @since 5.3
  */
 public interface TotalOrderManager {
-   void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keysWriteAndRead) throws InterruptedException;
+   void ensureOrder(TotalOrderRemoteTransactionState state, Object[][] keysWriteAndRead,
+                    DependencyAwareRunnable prepareTask) throws InterruptedException;
 
    void release(TotalOrderRemoteTransactionState state);
 
-   Collection<TotalOrderLatch> notifyStateTransferStart(int topologyId);
+   Collection<TotalOrderLatch> notifyStateTransferStart(int topologyId) throws InterruptedException;
 
    void notifyStateTransferEnd();
 
@@ -23,9 +23,11 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -37,6 +39,11 @@
  * A special executor service that accepts a {@code BlockingRunnable}. This special runnable gives hints about the code
  * to be running in order to avoiding put a runnable that will block the thread. In this way, only when the runnable
  * says that is ready, it is sent to the real executor service
+ * <p/>
+ * A {@code DependencyAwareRunnable} is not kept in the blocked tasks queue. It is notified by its dependencies when
+ * they are released and it is sent to the real executor service when the last one is released. The blocked tasks queue
+ * only keeps the other runnables (and the ones rejected by the real executor service), so {@link #checkForReadyTasks()}
+ * is cheap when all the blocked runnables are dependency aware.
  *
  * @author Pedro Ruivo
  * @since 5.3
@@ -45,11 +52,13 @@ public class BlockingTaskAwareExecutorServiceImpl extends AbstractExecutorServic
 
    private static final Log log = LogFactory.getLog(BlockingTaskAwareExecutorServiceImpl.class);
    private final BlockingQueue<BlockingRunnable> blockedTasks;
+   private final Set<DependencyAwareRunnable> waitingTasks;
    private final ExecutorService executorService;
    private volatile boolean shutdown;
 
    public BlockingTaskAwareExecutorServiceImpl(ExecutorService executorService) {
       this.blockedTasks = new LinkedBlockingQueue<BlockingRunnable>();
+      this.waitingTasks = Collections.newSetFromMap(ConcurrentMapFactory.<DependencyAwareRunnable, Boolean>makeConcurrentMap());
       this.executorService = executorService;
       this.shutdown = false;
    }
@@ -59,7 +68,9 @@ public final void execute(BlockingRunnable runnable) {
       if (shutdown) {
          throw new RejectedExecutionException("Executor Service is already shutdown");
       }
-      if (runnable.isReady()) {
+      if (runnable instanceof DependencyAwareRunnable) {
+         executeWhenReleased((DependencyAwareRunnable) runnable);
+      } else if (runnable.isReady()) {
          doExecute(runnable);
          if (log.isTraceEnabled()) {
             log.tracef("Added directy to the thread pool a new task: %s task(s) are waiting", blockedTasks.size());
@@ -83,6 +94,7 @@ public List<Runnable> shutdownNow() {
       List<Runnable> runnableList = new LinkedList<Runnable>();
       runnableList.addAll(executorService.shutdownNow());
       runnableList.addAll(blockedTasks);
+      runnableList.addAll(waitingTasks);
       return runnableList;
    }
 
@@ -93,7 +105,7 @@ public boolean isShutdown() {
 
    @Override
    public boolean isTerminated() {
-      return shutdown && blockedTasks.isEmpty() && executorService.isTerminated();
+      return shutdown && blockedTasks.isEmpty() && waitingTasks.isEmpty() && executorService.isTerminated();
    }
 
    @Override
@@ -110,6 +122,9 @@ public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedE
 
    @Override
    public final void checkForReadyTasks() {
+      if (blockedTasks.isEmpty()) {
+         return;
+      }
       List<BlockingRunnable> runnableReadyList = new ArrayList<BlockingRunnable>(blockedTasks.size());
       synchronized (blockedTasks) {
          for (Iterator<BlockingRunnable> iterator = blockedTasks.iterator(); iterator.hasNext(); ) {
@@ -133,15 +148,18 @@ public final void checkForReadyTasks() {
 
    @Override
    public int size() {
-      return blockedTasks.size();
+      return blockedTasks.size() + waitingTasks.size();
    }
 
    @Override
    public List<String> printQueue() {
-      List<String> queue = new ArrayList<String>(blockedTasks.size());
+      List<String> queue = new ArrayList<String>(size());
       for (BlockingRunnable runnable : blockedTasks) {
          queue.add(runnable.toString());
       }
+      for (DependencyAwareRunnable runnable : waitingTasks) {
+         queue.add(runnable.toString());
+      }
       return queue;
    }
 
@@ -153,6 +171,29 @@ public void execute(Runnable command) {
       executorService.execute(command);
    }
 
+   /**
+    * invoked by the {@code DependencyAwareRunnable} when its last dependency is released
+    */
+   final void dependenciesReleased(DependencyAwareRunnable runnable) {
+      if (waitingTasks.remove(runnable)) {
+         doExecute(runnable);
+         if (log.isTraceEnabled()) {
+            log.tracef("Dependencies released. Added to the thread pool a task: %s task(s) are waiting", size());
+         }
+      }
+   }
+
+   private void executeWhenReleased(DependencyAwareRunnable runnable) {
+      //added before registering, because the last dependency can be released concurrently
+      waitingTasks.add(runnable);
+      if (runnable.registerDependencies(this)) {
+         dependenciesReleased(runnable);
+      } else if (log.isTraceEnabled()) {
+         log.tracef("Enqueued a new task waiting for %s dependencies: %s task(s) are waiting",
+                    runnable.getPendingDependencies(), size());
+      }
+   }
+
    private void doExecute(BlockingRunnable runnable) {
       try {
          executorService.execute(runnable);
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301, USA.
+ */
+
+package org.infinispan.util.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@code BlockingRunnable} that knows the dependencies that it waits for.
+ * <p/>
+ * When executed by the {@code BlockingTaskAwareExecutorServiceImpl}, it registers itself in each dependency and counts
+ * the ones not yet released. Each release decrements the counter and the runnable is sent to the thread pool when it
+ * reaches zero. So, the executor does not need to check all the waiting runnables when something changes.
+ *
+ * @author Pedro Ruivo
+ * @since 5.3
+ */
+public abstract class DependencyAwareRunnable implements BlockingRunnable {
+
+   //starts with one to avoid being executed while the dependencies are being registered
+   private final AtomicInteger pendingDependencies = new AtomicInteger(1);
+   private volatile BlockingTaskAwareExecutorServiceImpl executor;
+   private volatile boolean waited;
+
+   /**
+    * @return the dependencies that must be released before executing this runnable
+    */
+   protected abstract Collection<? extends TaskDependency> getDependencies();
+
+   @Override
+   public final boolean isReady() {
+      return pendingDependencies.get() == 0;
+   }
+
+   /**
+    * Notifies that one of its dependencies was released. It sends this runnable to the thread pool if it was the last
+    * one.
+    */
+   public final void dependencyReleased() {
+      if (pendingDependencies.decrementAndGet() == 0) {
+         executor.dependenciesReleased(this);
+      }
+   }
+
+   /**
+    * @return {@code true} if some dependency was not released when this runnable was submitted to the executor
+    */
+   public final boolean hasWaited() {
+      return waited;
+   }
+
+   /**
+    * @return the number of dependencies not yet released
+    */
+   public final int getPendingDependencies() {
+      return pendingDependencies.get();
+   }
+
+   /**
+    * Registers this runnable in all its dependencies.
+    *
+    * @param executor the executor to notify when all the dependencies are released
+    * @return {@code true} if all the dependencies are already released and this runnable can be executed
+    */
+   final boolean registerDependencies(BlockingTaskAwareExecutorServiceImpl executor) {
+      this.executor = executor;
+      boolean pending = false;
+      for (TaskDependency dependency : getDependencies()) {
+         pendingDependencies.incrementAndGet();
+         if (dependency.addDependent(this)) {
+            pending = true;
+         } else {
+            pendingDependencies.decrementAndGet();
+         }
+      }
+      //set before the last decrement: after it, the runnable may be executed by the thread releasing the dependency
+      waited = pending;
+      return pendingDependencies.decrementAndGet() == 0;
+   }
+}
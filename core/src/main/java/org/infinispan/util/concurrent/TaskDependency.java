@@ -0,0 +1,42 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301, USA.
+ */
+
+package org.infinispan.util.concurrent;
+
+/**
+ * Something that a {@link DependencyAwareRunnable} must wait for before being executed, e.g. the previous conflicting
+ * transaction in Total Order.
+ * <p/>
+ * The dependency keeps track of its dependents and notifies them, and only them, when it is released.
+ *
+ * @author Pedro Ruivo
+ * @since 5.3
+ */
+public interface TaskDependency {
+
+   /**
+    * Registers the runnable to be notified when this dependency is released, by invoking {@link
+    * DependencyAwareRunnable#dependencyReleased()}.
+    *
+    * @param runnable the dependent runnable
+    * @return {@code false} if this dependency is already released. In this case, the runnable is not registered.
+    */
+   boolean addDependent(DependencyAwareRunnable runnable);
+
+}
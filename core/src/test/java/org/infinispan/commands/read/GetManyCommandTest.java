@@ -0,0 +1,83 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "commands.read.GetManyCommandTest")
+public class GetManyCommandTest extends AbstractInfinispanTest {
+
+   public void testOnlyExistingEntriesReturned() throws Throwable {
+      InvocationContext ctx = mock(InvocationContext.class);
+      CacheEntry existing = entry("v1", false, false);
+      CacheEntry nullEntry = entry(null, true, false);
+      CacheEntry removed = entry("v3", false, true);
+      when(ctx.lookupEntry("k1")).thenReturn(existing);
+      when(ctx.lookupEntry("k2")).thenReturn(nullEntry);
+      when(ctx.lookupEntry("k3")).thenReturn(removed);
+
+      GetManyCommand command = new GetManyCommand(new HashSet<Object>(Arrays.asList("k1", "k2", "k3", "k4")), null);
+      Map<?, ?> result = (Map<?, ?>) command.perform(ctx);
+
+      assert result.size() == 1 : "Wrong result " + result;
+      assert "v1".equals(result.get("k1")) : "Wrong result " + result;
+   }
+
+   public void testRemoteCommandParameters() {
+      Object[] keys = new Object[]{"k1", "k2", "k3"};
+      BitSet readFrom = new BitSet();
+      readFrom.set(1);
+      GMUClusteredGetManyCommand command = new GMUClusteredGetManyCommand(keys, "cache", null, null, readFrom);
+
+      GMUClusteredGetManyCommand copy = new GMUClusteredGetManyCommand("cache");
+      copy.setParameters(GMUClusteredGetManyCommand.COMMAND_ID, command.getParameters());
+
+      assert Arrays.equals(keys, copy.getKeys()) : "Wrong keys " + Arrays.toString(copy.getKeys());
+      assert command.equals(copy);
+      assert Arrays.equals(command.getParameters(), copy.getParameters());
+   }
+
+   private static CacheEntry entry(Object value, boolean isNull, boolean removed) {
+      CacheEntry entry = mock(CacheEntry.class);
+      when(entry.getValue()).thenReturn(value);
+      when(entry.isNull()).thenReturn(isNull);
+      when(entry.isRemoved()).thenReturn(removed);
+      return entry;
+   }
+}
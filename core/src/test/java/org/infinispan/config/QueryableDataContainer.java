@@ -25,6 +25,7 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.distribution.ch.ConsistentHash;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -152,6 +153,30 @@ public void gc(EntryVersion minimumVersion) {
       delegate.gc(minimumVersion);
    }
 
+   @Override
+   public void partition(ConsistentHash consistentHash) {
+      loggedOperations.add("partition(" + consistentHash + ")");
+      delegate.partition(consistentHash);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> segmentIterator(Set<Integer> segments) {
+      loggedOperations.add("segmentIterator(" + segments + ")");
+      return delegate.segmentIterator(segments);
+   }
+
+   @Override
+   public int segmentSize(int segment) {
+      loggedOperations.add("segmentSize(" + segment + ")");
+      return delegate.segmentSize(segment);
+   }
+
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      loggedOperations.add("removeSegments(" + segments + ")");
+      delegate.removeSegments(segments);
+   }
+
    public Collection<String> getLoggedOperations() {
 	   return loggedOperations;
    }
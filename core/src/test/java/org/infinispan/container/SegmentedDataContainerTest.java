@@ -0,0 +1,181 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Tests the per segment operations of the {@link DataContainer}, with and without the entries partitioned by segment.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends AbstractInfinispanTest {
+
+   private static final int NUM_SEGMENTS = 20;
+   private static final int NUM_KEYS = 1000;
+   private DefaultConsistentHash consistentHash;
+
+   @BeforeMethod
+   public void setUp() {
+      consistentHash = new DefaultConsistentHashFactory().create(new MurmurHash3(), 2, NUM_SEGMENTS,
+                                                                 Arrays.<Address>asList(new TestAddress(0),
+                                                                                        new TestAddress(1)));
+   }
+
+   public void testPartitionKeepsEntries() {
+      DataContainer dataContainer = unbounded();
+      populate(dataContainer);
+      dataContainer.partition(consistentHash);
+      //the same number of segments does not partition again
+      dataContainer.partition(consistentHash);
+
+      assert dataContainer.size(null) == NUM_KEYS;
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         assert ("v" + i).equals(dataContainer.get("k" + i, null).getValue());
+      }
+      assertSegments(dataContainer);
+   }
+
+   public void testWritesAfterPartition() {
+      DataContainer dataContainer = unbounded();
+      dataContainer.partition(consistentHash);
+      populate(dataContainer);
+
+      assert dataContainer.size(null) == NUM_KEYS;
+      assertSegments(dataContainer);
+
+      int removed = 0;
+      for (int i = 0; i < NUM_KEYS; i += 2) {
+         assert dataContainer.remove("k" + i, null) != null;
+         removed++;
+      }
+      assert dataContainer.size(null) == NUM_KEYS - removed;
+      assertSegments(dataContainer);
+   }
+
+   public void testRemoveSegments() {
+      assertRemoveSegments(unbounded(), true);
+   }
+
+   public void testRemoveSegmentsInBoundedContainer() {
+      assertRemoveSegments(bounded(), true);
+   }
+
+   public void testBoundedContainer() {
+      DataContainer dataContainer = bounded();
+      populate(dataContainer);
+      dataContainer.partition(consistentHash);
+      assert dataContainer.size(null) == NUM_KEYS;
+      assertSegments(dataContainer);
+   }
+
+   public void testNotPartitionedReturnsAllEntries() {
+      DataContainer dataContainer = unbounded();
+      populate(dataContainer);
+      int count = 0;
+      for (Iterator<InternalCacheEntry> iterator = dataContainer.segmentIterator(Collections.singleton(0));
+           iterator.hasNext(); iterator.next()) {
+         count++;
+      }
+      assert count == NUM_KEYS;
+   }
+
+   private void assertRemoveSegments(DataContainer dataContainer, boolean partitionFirst) {
+      if (partitionFirst) {
+         dataContainer.partition(consistentHash);
+      }
+      populate(dataContainer);
+      Set<Integer> toRemove = new HashSet<Integer>();
+      int expectedRemoved = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment += 3) {
+         toRemove.add(segment);
+         expectedRemoved += dataContainer.segmentSize(segment);
+      }
+      assert expectedRemoved > 0;
+      dataContainer.removeSegments(toRemove);
+
+      assert dataContainer.size(null) == NUM_KEYS - expectedRemoved;
+      for (int segment : toRemove) {
+         assert dataContainer.segmentSize(segment) == 0;
+      }
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         Object key = "k" + i;
+         assert dataContainer.containsKey(key, null) != toRemove.contains(consistentHash.getSegment(key));
+      }
+      assertSegments(dataContainer);
+   }
+
+   private void assertSegments(DataContainer dataContainer) {
+      int total = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; ++segment) {
+         int size = dataContainer.segmentSize(segment);
+         int count = 0;
+         for (Iterator<InternalCacheEntry> iterator = dataContainer.segmentIterator(Collections.singleton(segment));
+              iterator.hasNext(); ) {
+            InternalCacheEntry entry = iterator.next();
+            assert consistentHash.getSegment(entry.getKey()) == segment : "Wrong segment for " + entry.getKey();
+            count++;
+         }
+         assert count == size : "Wrong size for segment " + segment + ": " + count + " != " + size;
+         total += size;
+      }
+      assert total == dataContainer.size(null);
+   }
+
+   private void populate(DataContainer dataContainer) {
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         dataContainer.put("k" + i, "v" + i, null, -1, -1);
+      }
+   }
+
+   private DataContainer unbounded() {
+      DefaultDataContainer dataContainer = new DefaultDataContainer(16);
+      dataContainer.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      return dataContainer;
+   }
+
+   private DataContainer bounded() {
+      DefaultDataContainer dataContainer = (DefaultDataContainer) DefaultDataContainer.boundedDataContainer(
+            16, NUM_KEYS * 10, EvictionStrategy.LRU, EvictionThreadPolicy.DEFAULT);
+      dataContainer.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      return dataContainer;
+   }
+}
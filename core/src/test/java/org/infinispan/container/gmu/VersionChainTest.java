@@ -0,0 +1,330 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.gmu;
+
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.SimpleClusteredVersion;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the lock-free {@link VersionChain}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.gmu.VersionChainTest")
+public class VersionChainTest extends AbstractInfinispanTest {
+
+   private static final int NUMBER_OF_THREADS = 16;
+   private static final int VERSIONS_PER_THREAD = 500;
+
+   public void testOrderedInsertion() {
+      TestVersionChain chain = new TestVersionChain();
+      chain.add(value(1));
+      chain.add(value(3));
+      chain.add(value(2));
+
+      assert chain.numberOfVersion() == 3;
+      assertOrdered(chain, 3);
+
+      VersionEntry<Value> entry = chain.get(version(2));
+      assert entry.isFound();
+      assert entry.getEntry().version == 2;
+      assert entry.getNextEntry().version == 3;
+      assert !entry.isMostRecent();
+
+      entry = chain.get(null);
+      assert entry.getEntry().version == 3;
+      assert entry.isMostRecent();
+
+      entry = chain.get(version(0));
+      assert !entry.isFound();
+   }
+
+   public void testDuplicatedVersion() {
+      TestVersionChain chain = new TestVersionChain();
+      chain.add(value(1));
+      chain.add(value(2));
+      assert chain.add(value(2)) == null;
+      assert chain.add(value(1)) == null;
+      assert chain.numberOfVersion() == 2;
+   }
+
+   public void testGarbageCollection() {
+      TestVersionChain chain = new TestVersionChain();
+      for (int i = 1; i <= 10; ++i) {
+         chain.add(value(i));
+      }
+      assert chain.gc(version(5)) == 4;
+      assert chain.numberOfVersion() == 6;
+      assert chain.get(version(5)).getEntry().version == 5;
+      assert !chain.get(version(4)).isFound();
+      assert chain.gc(version(5)) == 0;
+      assert chain.gc(version(0)) == 0;
+      assert chain.numberOfVersion() == 6;
+   }
+
+   public void testConcurrentInsertion() throws Exception {
+      final TestVersionChain chain = new TestVersionChain();
+      final CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 1);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(NUMBER_OF_THREADS);
+         for (int i = 0; i < NUMBER_OF_THREADS; ++i) {
+            final int threadId = i;
+            futures.add(executorService.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  start.await();
+                  for (int j = 0; j < VERSIONS_PER_THREAD; ++j) {
+                     chain.add(value(j * NUMBER_OF_THREADS + threadId + 1));
+                  }
+                  return null;
+               }
+            }));
+         }
+         Future<Void> reader = executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               start.await();
+               for (int j = 0; j < VERSIONS_PER_THREAD; ++j) {
+                  VersionEntry<Value> entry = chain.get(version(j));
+                  assert !entry.isFound() || entry.getEntry().version <= j;
+               }
+               return null;
+            }
+         });
+         start.countDown();
+         for (Future<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+         }
+         reader.get(30, TimeUnit.SECONDS);
+      } finally {
+         executorService.shutdownNow();
+      }
+
+      int expected = NUMBER_OF_THREADS * VERSIONS_PER_THREAD;
+      assert chain.numberOfVersion() == expected : "Wrong number of versions: " + chain.numberOfVersion();
+      assertOrdered(chain, expected);
+   }
+
+   public void testConcurrentGarbageCollection() throws Exception {
+      final TestVersionChain chain = new TestVersionChain();
+      final long minVersion = NUMBER_OF_THREADS * VERSIONS_PER_THREAD / 2;
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicBoolean running = new AtomicBoolean(true);
+      ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 1);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(NUMBER_OF_THREADS);
+         for (int i = 0; i < NUMBER_OF_THREADS; ++i) {
+            final int threadId = i;
+            futures.add(executorService.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  start.await();
+                  //newest first, so the older versions are inserted after the garbage collection point
+                  for (int j = VERSIONS_PER_THREAD - 1; j >= 0; --j) {
+                     chain.add(value(j * NUMBER_OF_THREADS + threadId + 1));
+                  }
+                  return null;
+               }
+            }));
+         }
+         Future<Void> collector = executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               start.await();
+               while (running.get()) {
+                  chain.gc(version(minVersion));
+               }
+               return null;
+            }
+         });
+         start.countDown();
+         for (Future<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+         }
+         running.set(false);
+         collector.get(30, TimeUnit.SECONDS);
+      } finally {
+         executorService.shutdownNow();
+      }
+      chain.gc(version(minVersion));
+
+      int total = NUMBER_OF_THREADS * VERSIONS_PER_THREAD;
+      //each version is either in the chain or it was removed exactly once
+      assert chain.numberOfVersion() + chain.removed.get() == total :
+            "Versions lost: " + chain.numberOfVersion() + " in the chain and " + chain.removed.get() + " removed";
+      assert chain.numberOfVersion() == total - minVersion + 1 : "Wrong number of versions: " + chain.numberOfVersion();
+      for (long version = minVersion; version <= total; ++version) {
+         VersionEntry<Value> entry = chain.get(version(version));
+         assert entry.isFound() && entry.getEntry().version == version : "Visible version " + version + " lost";
+      }
+   }
+
+   public void testAddInRemovedVersion() {
+      final TestVersionChain chain = new TestVersionChain();
+      Value oldest = value(3);
+      chain.add(oldest);
+      for (int i = 1; i <= 4; ++i) {
+         chain.add(value(i * 10));
+      }
+      //the garbage collection removes versions 10 and 3 while version 5 is being inserted after version 10
+      oldest.onCompare = new Runnable() {
+         @Override
+         public void run() {
+            assert chain.gc(version(20)) == 2;
+         }
+      };
+      chain.add(value(5));
+
+      assert chain.numberOfVersion() == 3 : "Wrong number of versions: " + chain.numberOfVersion();
+      assert chain.removed.get() == 3 : "Version inserted in a removed version was not removed";
+      assert chain.get(version(20)).getEntry().version == 20;
+      assert !chain.get(version(19)).isFound();
+   }
+
+   private static void assertOrdered(TestVersionChain chain, long mostRecent) {
+      long expected = mostRecent;
+      for (long version = mostRecent; version > 0; --version) {
+         VersionEntry<Value> entry = chain.get(version(version));
+         assert entry.isFound();
+         assert entry.getEntry().version == expected : "Expected " + expected + " but got " + entry.getEntry();
+         expected--;
+      }
+   }
+
+   private static SimpleClusteredVersion version(long version) {
+      return new SimpleClusteredVersion(0, version);
+   }
+
+   private static Value value(long version) {
+      return new Value(version);
+   }
+
+   private static class Value {
+      private final long version;
+      private final SimpleClusteredVersion entryVersion;
+      //invoked once, when an older version is compared with this version
+      private volatile Runnable onCompare;
+
+      private Value(long version) {
+         this.version = version;
+         this.entryVersion = version(version);
+      }
+
+      @Override
+      public String toString() {
+         return "Value{version=" + version + '}';
+      }
+   }
+
+   private static class TestVersionBody extends VersionBody<Value> {
+
+      private final AtomicInteger removed;
+
+      private TestVersionBody(Value value, AtomicInteger removed) {
+         super(value);
+         this.removed = removed;
+      }
+
+      @Override
+      public EntryVersion getVersion() {
+         return getValue().entryVersion;
+      }
+
+      @Override
+      public boolean isOlder(VersionBody<Value> otherBody) {
+         Runnable onCompare = getValue().onCompare;
+         if (onCompare != null) {
+            getValue().onCompare = null;
+            onCompare.run();
+         }
+         return isOlder(getVersion(), otherBody.getVersion());
+      }
+
+      @Override
+      public boolean isEqual(VersionBody<Value> otherBody) {
+         return isEqual(getVersion(), otherBody.getVersion());
+      }
+
+      @Override
+      public boolean isOlderOrEquals(EntryVersion entryVersion) {
+         return isOlderOrEquals(getVersion(), entryVersion);
+      }
+
+      @Override
+      public boolean isRemove() {
+         return false;
+      }
+
+      @Override
+      public void reincarnate(VersionBody<Value> other) {
+         //no-op
+      }
+
+      @Override
+      public boolean isGarbageCollectionPoint(EntryVersion minVersion) {
+         return isOlderOrEquals(minVersion);
+      }
+
+      @Override
+      protected void onRemove() {
+         removed.incrementAndGet();
+      }
+
+      @Override
+      protected boolean isExpired(long now) {
+         return false;
+      }
+   }
+
+   private static class TestVersionChain extends VersionChain<Value> {
+
+      private final AtomicInteger removed = new AtomicInteger(0);
+
+      @Override
+      protected VersionBody<Value> newValue(Value value) {
+         return new TestVersionBody(value, removed);
+      }
+
+      @Override
+      protected void writeValue(BufferedWriter writer, Value value) throws IOException {
+         writer.write(String.valueOf(value));
+      }
+   }
+}
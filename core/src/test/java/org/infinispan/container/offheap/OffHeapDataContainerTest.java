@@ -0,0 +1,121 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the {@link OffHeapDataContainer} releases the off-heap memory of the values replaced, removed or expired.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.offheap.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends AbstractInfinispanTest {
+
+   private static final int SLAB_SIZE = 1024;
+   private OffHeapDataContainer container;
+   private OffHeapMemory memory;
+
+   @BeforeMethod
+   public void setUp() {
+      InternalEntryFactory entryFactory = new InternalEntryFactoryImpl();
+      container = new OffHeapDataContainer(16, SLAB_SIZE);
+      container.initialize(null, null, entryFactory, null, null);
+      container.injectOffHeapDependencies(new TestObjectStreamMarshaller(), entryFactory);
+      memory = container.getOffHeapMemory();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      container.stop();
+   }
+
+   public void testPutAndGet() {
+      container.put("k", "v1", null, -1, -1);
+      assert memory.getUsedMemory() > 0;
+
+      InternalCacheEntry entry = container.get("k", null);
+      assert "v1".equals(entry.getValue());
+      //the entry returned is an on-heap copy
+      entry.setValue("v2");
+      assert "v1".equals(container.get("k", null).getValue());
+      assert "v1".equals(container.peek("k", null).getValue());
+   }
+
+   public void testReplaceReleasesPreviousValue() {
+      container.put("k", "v1", null, -1, -1);
+      long usedByValue = memory.getUsedMemory();
+
+      for (int i = 2; i < 10; ++i) {
+         container.put("k", "v" + i, null, -1, -1);
+         assert memory.getUsedMemory() == usedByValue : "Previous value not released. " + memory;
+      }
+      assert "v9".equals(container.get("k", null).getValue());
+   }
+
+   public void testRemoveReleasesValue() {
+      container.put("k1", "v1", null, -1, -1);
+      container.put("k2", "v2", null, -1, -1);
+
+      assert "v1".equals(container.remove("k1", null).getValue());
+      assert container.get("k1", null) == null;
+      assert "v2".equals(container.remove("k2", null).getValue());
+      assert memory.getUsedMemory() == 0 : "Removed values not released. " + memory;
+   }
+
+   public void testExpiredValueReleasedOnRead() throws InterruptedException {
+      container.put("k", "v", null, 1, -1);
+      Thread.sleep(10);
+
+      assert container.get("k", null) == null;
+      assert memory.getUsedMemory() == 0 : "Expired value not released. " + memory;
+   }
+
+   public void testExpiredValueReleasedOnPurge() throws InterruptedException {
+      container.put("k1", "v1", null, 1, -1);
+      container.put("k2", "v2", null, -1, -1);
+      long usedByValue = memory.getUsedMemory() / 2;
+      Thread.sleep(10);
+
+      container.purgeExpired();
+      assert container.size(null) == 1;
+      assert memory.getUsedMemory() == usedByValue : "Expired value not released. " + memory;
+   }
+
+   public void testClearReleasesValues() {
+      for (int i = 0; i < 100; ++i) {
+         container.put("k" + i, "v" + i, null, -1, -1);
+      }
+      container.clear();
+      assert container.size(null) == 0;
+      assert memory.getUsedMemory() == 0 : "Cleared values not released. " + memory;
+   }
+}
@@ -0,0 +1,157 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.VersionedInternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.gmu.GMUCacheEntryVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
+import org.infinispan.dataplacement.ClusterSnapshot;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the {@link OffHeapGMUDataContainer} releases the off-heap memory of the versions garbage collected or
+ * removed, and that a read racing with the garbage collection still finds a version.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.offheap.OffHeapGMUDataContainerTest")
+public class OffHeapGMUDataContainerTest extends AbstractInfinispanTest {
+
+   private static final int SLAB_SIZE = 1024;
+   private GMUVersionGenerator versionGenerator;
+   private OffHeapGMUDataContainer container;
+   private OffHeapMemory memory;
+
+   @BeforeMethod
+   public void setUp() {
+      ClusterSnapshot clusterSnapshot = new ClusterSnapshot(Collections.<Address>singleton(new TestAddress(0)),
+                                                            new MurmurHash3());
+      versionGenerator = mock(GMUVersionGenerator.class);
+      when(versionGenerator.getClusterSnapshot(1)).thenReturn(clusterSnapshot);
+
+      InternalEntryFactory entryFactory = new VersionedInternalEntryFactoryImpl();
+      container = new OffHeapGMUDataContainer(16, SLAB_SIZE);
+      container.initialize(null, null, entryFactory, null, null);
+      container.injectOffHeapDependencies(new TestObjectStreamMarshaller(), entryFactory);
+      memory = container.getOffHeapMemory();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      container.stop();
+   }
+
+   public void testGarbageCollectionReleasesVersions() {
+      container.put("k", "v1", version(1), -1, -1);
+      long usedByVersion = memory.getUsedMemory();
+      for (int i = 2; i <= 10; ++i) {
+         container.put("k", "v" + i, version(i), -1, -1);
+      }
+      assert memory.getUsedMemory() == 10 * usedByVersion : memory;
+
+      assert container.gc(version(5), "k") == 4;
+      assert memory.getUsedMemory() == 6 * usedByVersion : "Collected versions not released. " + memory;
+
+      container.gc(version(10));
+      assert container.getVersionChain("k").numberOfVersion() == 1;
+      assert memory.getUsedMemory() == usedByVersion : "Collected versions not released. " + memory;
+      assert "v10".equals(container.iterator().next().getValue());
+   }
+
+   public void testDuplicatedVersionReleased() {
+      container.put("k", "v1", version(1), -1, -1);
+      long usedByVersion = memory.getUsedMemory();
+
+      container.put("k", "v1", version(1), -1, -1);
+      assert container.getVersionChain("k").numberOfVersion() == 1;
+      assert memory.getUsedMemory() == usedByVersion : "Duplicated version not released. " + memory;
+   }
+
+   public void testRemoveAllReleasesVersions() {
+      for (int i = 0; i < 10; ++i) {
+         for (int j = 1; j <= 5; ++j) {
+            container.put("k" + i, "v" + j, version(j), -1, -1);
+         }
+      }
+      assert memory.getUsedMemory() > 0;
+
+      container.clear();
+      assert !container.chainKeyIterator().hasNext();
+      assert memory.getUsedMemory() == 0 : "Removed versions not released. " + memory;
+   }
+
+   public void testReadConcurrentWithGarbageCollection() throws Exception {
+      final int versions = 10000;
+      container.put("k", "v1", version(1), -1, -1);
+      final AtomicBoolean running = new AtomicBoolean(true);
+      Future<Integer> reader = fork(new Callable<Integer>() {
+         @Override
+         public Integer call() throws Exception {
+            int reads = 0;
+            while (running.get()) {
+               //the key has always one version and it is found even if the version read is collected concurrently
+               Iterator<InternalCacheEntry> iterator = container.iterator();
+               assert iterator.hasNext() : "Version not found after " + reads + " reads";
+               assert iterator.next().getValue() != null;
+               reads++;
+            }
+            return reads;
+         }
+      });
+
+      try {
+         for (int i = 2; i <= versions; ++i) {
+            container.put("k", "v" + i, version(i), -1, -1);
+            container.gc(version(i), "k");
+         }
+      } finally {
+         running.set(false);
+      }
+      assert reader.get() > 0;
+      assert container.getVersionChain("k").numberOfVersion() == 1;
+      assert ("v" + versions).equals(container.iterator().next().getValue());
+   }
+
+   private GMUCacheEntryVersion version(long version) {
+      return new GMUCacheEntryVersion("cache", 1, versionGenerator, version, 0);
+   }
+}
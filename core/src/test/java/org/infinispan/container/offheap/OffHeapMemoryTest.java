@@ -0,0 +1,119 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests the allocation, the reuse and the reference counting of the off-heap memory.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.offheap.OffHeapMemoryTest")
+public class OffHeapMemoryTest {
+
+   private static final int SLAB_SIZE = 1024;
+
+   public void testReadWrite() {
+      OffHeapMemory memory = new OffHeapMemory(SLAB_SIZE);
+      byte[] first = bytes(100, (byte) 1);
+      byte[] second = bytes(7, (byte) 2);
+      long firstAddress = memory.allocate(first.length);
+      long secondAddress = memory.allocate(second.length);
+      memory.write(firstAddress, first, 0, first.length);
+      memory.write(secondAddress, second, 0, second.length);
+
+      byte[] read = new byte[first.length];
+      memory.read(firstAddress, read, 0, read.length);
+      assert Arrays.equals(first, read);
+      read = new byte[second.length];
+      memory.read(secondAddress, read, 0, read.length);
+      assert Arrays.equals(second, read);
+      assert memory.getUsedMemory() == 128 + OffHeapMemory.MIN_BLOCK_SIZE : memory.getUsedMemory();
+      assert memory.getAllocatedMemory() == SLAB_SIZE : memory.getAllocatedMemory();
+   }
+
+   public void testReleasedBlocksAreReused() {
+      OffHeapMemory memory = new OffHeapMemory(SLAB_SIZE);
+      long address = memory.allocate(60);
+      memory.free(address, 60);
+      assert memory.getUsedMemory() == 0;
+      assert memory.allocate(33) == address : "a block with the same size should be reused";
+      assert memory.allocate(60) != address;
+   }
+
+   public void testNewSlabIsAllocated() {
+      OffHeapMemory memory = new OffHeapMemory(SLAB_SIZE);
+      memory.allocate(SLAB_SIZE / 2);
+      memory.allocate(SLAB_SIZE / 4);
+      memory.allocate(SLAB_SIZE / 2);
+      assert memory.getAllocatedMemory() == 2 * SLAB_SIZE : memory.getAllocatedMemory();
+      //the remaining of the first slab is reused
+      memory.allocate(SLAB_SIZE / 4);
+      assert memory.getAllocatedMemory() == 2 * SLAB_SIZE : memory.getAllocatedMemory();
+   }
+
+   public void testLargeBlock() {
+      OffHeapMemory memory = new OffHeapMemory(SLAB_SIZE);
+      byte[] large = bytes(SLAB_SIZE * 3, (byte) 3);
+      long address = memory.allocate(large.length);
+      memory.write(address, large, 0, large.length);
+      byte[] read = new byte[large.length];
+      memory.read(address, read, 0, read.length);
+      assert Arrays.equals(large, read);
+      assert memory.getAllocatedMemory() == large.length;
+
+      memory.free(address, large.length);
+      assert memory.getAllocatedMemory() == 0;
+      assert memory.getUsedMemory() == 0;
+   }
+
+   public void testDisposedValue() {
+      OffHeapMemory memory = new OffHeapMemory(SLAB_SIZE);
+      byte[] bytes = bytes(50, (byte) 4);
+      OffHeapValue value = new OffHeapValue(memory, bytes, 0, bytes.length);
+      assert Arrays.equals(bytes, value.read());
+      assert memory.getUsedMemory() == 64;
+
+      value.dispose();
+      value.dispose();
+      assert value.isDisposed();
+      assert value.read() == null;
+      assert memory.getUsedMemory() == 0 : "the block should be freed only once";
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidSlabSize() {
+      new OffHeapMemory(1000);
+   }
+
+   private static byte[] bytes(int length, byte value) {
+      byte[] bytes = new byte[length];
+      Arrays.fill(bytes, value);
+      bytes[length - 1] = (byte) length;
+      return bytes;
+   }
+}
@@ -0,0 +1,151 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.versioning.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.InequalVersionComparisonResult;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.topology.CacheTopology;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the {@link GMUVersionAccumulator} and the version arithmetic in {@link DistGMUVersionGenerator}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.versioning.gmu.DistGMUVersionGeneratorTest")
+public class DistGMUVersionGeneratorTest extends AbstractInfinispanTest {
+
+   private static final int CLUSTER_SIZE = 8;
+   private static final String CACHE_NAME = "gmu-cache";
+   private DistGMUVersionGenerator versionGenerator;
+
+   @BeforeMethod
+   public void setUp() {
+      List<Address> members = new ArrayList<Address>(CLUSTER_SIZE);
+      for (int i = 0; i < CLUSTER_SIZE; ++i) {
+         members.add(new TestAddress(i));
+      }
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getAddress()).thenReturn(members.get(0));
+      Cache cache = mock(Cache.class);
+      when(cache.getName()).thenReturn(CACHE_NAME);
+      ConsistentHash consistentHash = mock(ConsistentHash.class);
+      when(consistentHash.getMembers()).thenReturn(members);
+
+      versionGenerator = new DistGMUVersionGenerator();
+      versionGenerator.init(rpcManager, cache);
+      versionGenerator.setEmptyViewId();
+      versionGenerator.addCacheTopology(new CacheTopology(1, consistentHash, null));
+   }
+
+   public void testMergeAndMaxWithAccumulator() {
+      Random random = new Random(42);
+      EntryVersion[] versions = new EntryVersion[10];
+      for (int i = 0; i < versions.length; ++i) {
+         versions[i] = newVersion(random);
+      }
+
+      GMUVersion expected = versionGenerator.mergeAndMax(versions);
+      GMUVersionAccumulator accumulator = GMUVersionAccumulator.acquire();
+      GMUVersion merged;
+      try {
+         for (EntryVersion version : versions) {
+            accumulator.add(version);
+         }
+         merged = versionGenerator.mergeAndMax(accumulator);
+      } finally {
+         accumulator.release();
+      }
+
+      assert merged.compareTo(expected) == InequalVersionComparisonResult.EQUAL;
+      for (int i = 0; i < CLUSTER_SIZE; ++i) {
+         long max = GMUVersion.NON_EXISTING;
+         for (EntryVersion version : versions) {
+            max = Math.max(max, ((GMUVersion) version).getVersionValue(i));
+         }
+         assert merged.getVersionValue(i) == max : "Wrong value in position " + i;
+      }
+   }
+
+   public void testMergedVersionIsNotShared() {
+      Random random = new Random(7);
+      GMUVersion first = versionGenerator.mergeAndMax(newVersion(random), newVersion(random));
+      long[] values = new long[CLUSTER_SIZE];
+      for (int i = 0; i < CLUSTER_SIZE; ++i) {
+         values[i] = first.getVersionValue(i);
+      }
+      //the accumulator buffer is reused. the first version cannot change
+      versionGenerator.mergeAndMax(newVersion(random), newVersion(random));
+      for (int i = 0; i < CLUSTER_SIZE; ++i) {
+         assert first.getVersionValue(i) == values[i];
+      }
+   }
+
+   public void testUpdatedVersionInSameView() {
+      GMUVersion version = newVersion(new Random(13));
+      assert versionGenerator.updatedVersion(version) == version;
+   }
+
+   public void testNestedAcquire() {
+      GMUVersionAccumulator outer = GMUVersionAccumulator.acquire();
+      try {
+         GMUVersionAccumulator inner = GMUVersionAccumulator.acquire();
+         assert inner != outer;
+         inner.release();
+         outer.add(newVersion(new Random(3)));
+         assert outer.size() == 1;
+      } finally {
+         outer.release();
+      }
+      assert outer.isEmpty();
+      GMUVersionAccumulator again = GMUVersionAccumulator.acquire();
+      try {
+         assert again == outer;
+      } finally {
+         again.release();
+      }
+   }
+
+   private GMUVersion newVersion(Random random) {
+      long[] values = new long[CLUSTER_SIZE];
+      for (int i = 0; i < CLUSTER_SIZE; ++i) {
+         values[i] = random.nextInt(100);
+      }
+      return new GMUDistributedVersion(CACHE_NAME, 1, versionGenerator, values);
+   }
+}
@@ -0,0 +1,121 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.versioning.gmu;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.dataplacement.ClusterSnapshot;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.infinispan.container.versioning.InequalVersionComparisonResult.AFTER;
+import static org.infinispan.container.versioning.InequalVersionComparisonResult.BEFORE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the not visible set of the {@link GMUReadVersion}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.versioning.gmu.GMUReadVersionTest")
+public class GMUReadVersionTest extends AbstractInfinispanTest {
+
+   private GMUVersionGenerator versionGenerator;
+
+   @BeforeMethod
+   public void setUp() {
+      ClusterSnapshot clusterSnapshot = new ClusterSnapshot(Collections.<Address>singleton(new TestAddress(0)),
+                                                            new MurmurHash3());
+      versionGenerator = mock(GMUVersionGenerator.class);
+      when(versionGenerator.getClusterSnapshot(1)).thenReturn(clusterSnapshot);
+   }
+
+   public void testEmptyNotVisibleSet() {
+      GMUReadVersion readVersion = new GMUReadVersion("cache", 1, versionGenerator, 10);
+      assert !readVersion.contains(5, 0);
+      assert readVersion.notVisibleSize() == 0;
+   }
+
+   public void testDescendingInsertion() {
+      GMUReadVersion readVersion = new GMUReadVersion("cache", 1, versionGenerator, 100);
+      for (long version = 100; version > 0; version -= 2) {
+         readVersion.addNotVisibleSubversion(version, 1);
+         readVersion.addNotVisibleSubversion(version, 0);
+      }
+      readVersion.sortNotVisibleSubVersions();
+      for (long version = 100; version > 0; --version) {
+         boolean notVisible = version % 2 == 0;
+         assert readVersion.contains(version, 0) == notVisible : "Wrong result for " + version;
+         assert readVersion.contains(version, 1) == notVisible : "Wrong result for " + version;
+         assert !readVersion.contains(version, 2);
+      }
+   }
+
+   public void testRandomInsertion() {
+      Random random = new Random(17);
+      List<long[]> pairs = new ArrayList<long[]>();
+      for (int i = 0; i < 200; ++i) {
+         pairs.add(new long[]{random.nextInt(1000), random.nextInt(4)});
+      }
+      Collections.shuffle(pairs, random);
+      GMUReadVersion readVersion = new GMUReadVersion("cache", 1, versionGenerator, 1000);
+      for (long[] pair : pairs) {
+         readVersion.addNotVisibleSubversion(pair[0], (int) pair[1]);
+      }
+      for (long[] pair : pairs) {
+         assert readVersion.contains(pair[0], (int) pair[1]) : "Pair not found " + pair[0] + "," + pair[1];
+      }
+      for (int i = 0; i < 1000; ++i) {
+         long version = random.nextInt(1000);
+         int subVersion = random.nextInt(4);
+         boolean expected = false;
+         for (long[] pair : pairs) {
+            if (pair[0] == version && pair[1] == subVersion) {
+               expected = true;
+               break;
+            }
+         }
+         assert readVersion.contains(version, subVersion) == expected;
+      }
+   }
+
+   public void testCompareWithCacheEntryVersion() {
+      GMUReadVersion readVersion = new GMUReadVersion("cache", 1, versionGenerator, 10);
+      readVersion.addNotVisibleSubversion(8, 1);
+      readVersion.sortNotVisibleSubVersions();
+      GMUCacheEntryVersion visible = new GMUCacheEntryVersion("cache", 1, versionGenerator, 8, 0);
+      GMUCacheEntryVersion notVisible = new GMUCacheEntryVersion("cache", 1, versionGenerator, 8, 1);
+      assert readVersion.compareTo(visible) == AFTER;
+      assert readVersion.compareTo(notVisible) == BEFORE;
+      assert notVisible.compareTo(readVersion) == AFTER;
+   }
+}
@@ -30,6 +30,7 @@
 import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.stats.topK.StreamLibContainer;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 import org.testng.annotations.Test;
@@ -37,11 +38,15 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.infinispan.dataplacement.AccessesManager.*;
@@ -256,6 +261,79 @@ public void testNotEnoughRemoteAccesses() {
       Assert.assertTrue(newOwners.isEmpty());
    }
 
+   public void testMovedKeysAging() {
+      ClusterSnapshot clusterSnapshot = createClusterSnapshot(4);
+      ConsistentHash consistentHash = createDefaultConsistentHash(clusterSnapshot.getMembers(), 2);
+      ObjectPlacementManager manager = new ObjectPlacementManager(null, 1);
+      manager.resetState(clusterSnapshot, consistentHash);
+
+      List<Address> key1Owners = new ArrayList<Address>(2);
+      List<Address> key2Owners = new ArrayList<Address>(2);
+      Object key1 = createKey(consistentHash, null, key1Owners);
+      createKey(consistentHash, key1Owners, key2Owners);
+
+      for (Address address : clusterSnapshot.getMembers()) {
+         Map<Object, Long> request = new HashMap<Object, Long>();
+         if (key2Owners.contains(address)) {
+            request.put(key1, 1L);
+         }
+         manager.aggregateRequest(address, new ObjectRequest(request, null));
+      }
+
+      Assert.assertEquals(1, manager.calculateObjectsToMove().size());
+      Assert.assertEquals(Collections.singletonList(key1), manager.getKeysToMove());
+
+      //first round without requests: the key is kept
+      calculateWithoutRequests(manager, clusterSnapshot, consistentHash);
+      Assert.assertEquals(Collections.singletonList(key1), manager.getKeysToMove());
+      Assert.assertEquals(0, manager.getLastRoundAgedKeys());
+
+      //second round without requests: the key is too old
+      Assert.assertTrue(calculateWithoutRequests(manager, clusterSnapshot, consistentHash).isEmpty());
+      Assert.assertTrue(manager.getKeysToMove().isEmpty());
+      Assert.assertEquals(1, manager.getLastRoundAgedKeys());
+   }
+
+   public void testParallelCalculation() {
+      ClusterSnapshot clusterSnapshot = createClusterSnapshot(8);
+      ConsistentHash consistentHash = createDefaultConsistentHash(clusterSnapshot.getMembers(), 2);
+      ObjectPlacementManager sequential = new ObjectPlacementManager(null, 1);
+      ObjectPlacementManager parallel = new ObjectPlacementManager(new ForkJoinPool(4), 1);
+      sequential.resetState(clusterSnapshot, consistentHash);
+      parallel.resetState(clusterSnapshot, consistentHash);
+
+      Random random = new Random(42);
+      List<Object> keys = new ArrayList<Object>(2048);
+      for (int i = 0; i < 2048; ++i) {
+         keys.add(createRandomKey());
+      }
+
+      for (Address address : clusterSnapshot.getMembers()) {
+         Map<Object, Long> remote = new HashMap<Object, Long>();
+         Map<Object, Long> local = new HashMap<Object, Long>();
+         for (Object key : keys) {
+            if (random.nextBoolean()) {
+               long accesses = random.nextInt(100);
+               if (consistentHash.locateOwners(key).contains(address)) {
+                  local.put(key, accesses);
+               } else {
+                  remote.put(key, accesses);
+               }
+            }
+         }
+         sequential.aggregateRequest(address, new ObjectRequest(new HashMap<Object, Long>(remote),
+                                                                new HashMap<Object, Long>(local)));
+         parallel.aggregateRequest(address, new ObjectRequest(remote, local));
+      }
+
+      Map<Object, Set<Integer>> expected = toOwnersMap(sequential.calculateObjectsToMove());
+      Map<Object, Set<Integer>> actual = toOwnersMap(parallel.calculateObjectsToMove());
+
+      Assert.assertFalse(expected.isEmpty());
+      Assert.assertEquals(expected, actual);
+      Assert.assertTrue(parallel.getLastRoundFootprint() > 0);
+   }
+
    public void testRemoteAccesses() {
       ClusterSnapshot clusterSnapshot = createClusterSnapshot(4);
       ConsistentHash consistentHash = createDefaultConsistentHash(clusterSnapshot.getMembers(), 2);
@@ -527,6 +605,32 @@ private void addKey(Object key, boolean remote, int count, StreamLibContainer co
       }
    }
 
+   private Collection<SegmentMapping> calculateWithoutRequests(ObjectPlacementManager manager,
+                                                               ClusterSnapshot clusterSnapshot,
+                                                               ConsistentHash consistentHash) {
+      manager.resetState(clusterSnapshot, consistentHash);
+      for (Address address : clusterSnapshot.getMembers()) {
+         manager.aggregateRequest(address, new ObjectRequest(null, null));
+      }
+      return manager.calculateObjectsToMove();
+   }
+
+   private Map<Object, Set<Integer>> toOwnersMap(Collection<SegmentMapping> segmentMappings) {
+      Map<Object, Set<Integer>> map = new HashMap<Object, Set<Integer>>();
+      for (SegmentMapping segmentMapping : segmentMappings) {
+         Iterator<SegmentMapping.KeyOwners> iterator = segmentMapping.iterator();
+         while (iterator.hasNext()) {
+            SegmentMapping.KeyOwners keyOwners = iterator.next();
+            Set<Integer> owners = new TreeSet<Integer>();
+            for (int owner : keyOwners.getOwnerIndexes()) {
+               owners.add(owner);
+            }
+            map.put(keyOwners.getKey(), owners);
+         }
+      }
+      return map;
+   }
+
    private void assertOwner(SegmentMapping.KeyOwners keyOwners, int... expected) {
       Assert.assertNotNull(keyOwners);
       int[] actual = keyOwners.getOwnerIndexes();
@@ -128,6 +128,36 @@ public void testSerializable() throws IOException, ClassNotFoundException {
       }
    }
 
+   public void testFalsePositiveRate() {
+      List<Object> keys = new ArrayList<Object>(NUMBER_OF_KEYS * 10);
+      for (int i = 0; i < NUMBER_OF_KEYS * 10; ++i) {
+         keys.add(getKey(i));
+      }
+      BloomFilter bloomFilter = new BloomFilter(keys, PROB);
+
+      int falsePositives = 0;
+      int queries = NUMBER_OF_KEYS * 100;
+      for (int i = 0; i < queries; ++i) {
+         if (bloomFilter.contains("OTHER_" + i)) {
+            falsePositives++;
+         }
+      }
+      log.infof("False positive rate is %s (expected %s)", (double) falsePositives / queries, PROB);
+      //the blocked filter can exceed the requested rate, but not by much
+      Assert.assertTrue("Too many false positives: " + falsePositives, falsePositives < queries * PROB * 2);
+   }
+
+   public void testSameHashCode() {
+      //"Aa" and "BB" have the same hash code
+      Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+      List<Object> keys = new ArrayList<Object>();
+      keys.add("Aa");
+      BloomFilter bloomFilter = new BloomFilter(keys, PROB);
+
+      Assert.assertTrue(bloomFilter.contains("Aa"));
+      Assert.assertFalse(bloomFilter.contains("BB"));
+   }
+
    private String getKey(int index) {
       return "KEY_" + index + "_" + (index * 2) + "_" + (index * 3);
    }
@@ -25,14 +25,18 @@
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.dataplacement.c50.C50MLObjectLookupFactory;
+import org.infinispan.dataplacement.c50.keyfeature.Feature;
+import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
 import org.infinispan.dataplacement.lookup.ObjectLookup;
 import org.infinispan.test.AbstractCacheTest;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
@@ -62,6 +66,36 @@ public void setup() {
       objectLookupFactory.setConfiguration(configurationBuilder.build());
    }
 
+   @AfterClass(alwaysRun = true)
+   public void tearDown() {
+      objectLookupFactory.stop();
+   }
+
+   public void testKeysWithoutFeatures() {
+      ConfigurationBuilder configurationBuilder = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, true);
+      configurationBuilder.dataPlacement()
+            .addProperty(C50MLObjectLookupFactory.KEY_FEATURE_MANAGER, NoFeaturesKeyFeatureManager.class.getName())
+            .addProperty(C50MLObjectLookupFactory.BF_FALSE_POSITIVE, BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY);
+      C50MLObjectLookupFactory factory = new C50MLObjectLookupFactory();
+      factory.setConfiguration(configurationBuilder.build());
+      try {
+         SegmentMapping segmentMapping = new SegmentMapping(1);
+         for (int i = 0; i < 100; ++i) {
+            OwnersInfo ownersInfo = new OwnersInfo(1);
+            ownersInfo.add(i % 2, 0);
+            //half of the keys do not have features
+            segmentMapping.add(i % 4 < 2 ? i : DummyKeyFeatureManager.getKey(i), ownersInfo);
+         }
+         ObjectLookup objectLookup = factory.createObjectLookup(segmentMapping, 1);
+         assert objectLookup != null;
+         for (int i = 0; i < 100; ++i) {
+            assert objectLookup.query(i % 4 < 2 ? i : DummyKeyFeatureManager.getKey(i)).size() == 1;
+         }
+      } finally {
+         factory.stop();
+      }
+   }
+
    public void testMachineLearner() {
       if (SKIP_ML_RUNNING) {
          return;
@@ -128,4 +162,14 @@ private SegmentMapping createRandomMovements(int numberOfKeys, int replicationDe
 
       return segmentMapping;
    }
+
+   /**
+    * a key feature manager without features for the non-string keys
+    */
+   public static class NoFeaturesKeyFeatureManager extends DummyKeyFeatureManager {
+      @Override
+      public Map<Feature, FeatureValue> getFeatures(Object key) {
+         return key instanceof String ? super.getFeatures(key) : null;
+      }
+   }
 }
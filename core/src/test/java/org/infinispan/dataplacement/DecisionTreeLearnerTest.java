@@ -0,0 +1,138 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement;
+
+import org.infinispan.dataplacement.c50.keyfeature.Feature;
+import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
+import org.infinispan.dataplacement.c50.keyfeature.NameListFeature;
+import org.infinispan.dataplacement.c50.keyfeature.NumericFeature;
+import org.infinispan.dataplacement.c50.tree.DecisionTree;
+import org.infinispan.dataplacement.c50.tree.DecisionTreeLearner;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process decision tree learner test
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "dataplacement.DecisionTreeLearnerTest")
+public class DecisionTreeLearnerTest {
+
+   private static final String[] NAMES = new String[]{"warehouse", "district", "customer"};
+   private final NumericFeature number = new NumericFeature("number");
+   private final NameListFeature name = new NameListFeature("name", NAMES);
+   private final Feature[] features = new Feature[]{number, name};
+
+   public void testNumericFeature() {
+      FeatureValue[][] samples = new FeatureValue[1000][];
+      int[] classes = new int[samples.length];
+      for (int i = 0; i < samples.length; ++i) {
+         samples[i] = sample(i, null);
+         classes[i] = i < 300 ? 2 : (i < 700 ? 5 : 1);
+      }
+
+      DecisionTree tree = learn(null, samples, classes)[0];
+
+      assertAllClassified(tree, samples, classes);
+      assert tree.getDeep() == 2 : "Wrong tree deep " + tree.getDeep();
+   }
+
+   public void testDiscreteAndNotAvailableFeatures() {
+      FeatureValue[][] samples = new FeatureValue[900][];
+      int[] classes = new int[samples.length];
+      for (int i = 0; i < samples.length; ++i) {
+         if (i % 10 == 0) {
+            //without name: the owner depends on the number
+            samples[i] = sample(i, null);
+            classes[i] = i < 450 ? 7 : 8;
+         } else {
+            samples[i] = sample(i, NAMES[i % NAMES.length]);
+            classes[i] = i % NAMES.length;
+         }
+      }
+
+      DecisionTree tree = learn(null, samples, classes)[0];
+
+      assertAllClassified(tree, samples, classes);
+   }
+
+   public void testParallelLearning() {
+      FeatureValue[][] samples = new FeatureValue[10000][];
+      int[][] classes = new int[3][samples.length];
+      for (int i = 0; i < samples.length; ++i) {
+         samples[i] = sample(i, NAMES[i % NAMES.length]);
+         classes[0][i] = i / 1000;
+         classes[1][i] = (i / 1000 + 1) % 10;
+         //the last tree only has the keys with two owners
+         classes[2][i] = i % 2 == 0 ? i % NAMES.length : -1;
+      }
+
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         DecisionTree[] trees = learn(pool, samples, classes);
+
+         assert trees.length == 3;
+         assertAllClassified(trees[0], samples, classes[0]);
+         assertAllClassified(trees[1], samples, classes[1]);
+         assertAllClassified(trees[2], samples, classes[2]);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   public void testNoSamples() {
+      DecisionTree tree = learn(null, new FeatureValue[0][], new int[0])[0];
+
+      assert tree.query(new HashMap<Feature, FeatureValue>()) == DecisionTreeLearner.NO_OWNER;
+   }
+
+   private DecisionTree[] learn(ForkJoinPool pool, FeatureValue[][] samples, int[]... classes) {
+      return new DecisionTreeLearner(features, 2, pool).learn(samples, classes);
+   }
+
+   private FeatureValue[] sample(int numberValue, String nameValue) {
+      return new FeatureValue[]{number.createFeatureValue(numberValue),
+                                nameValue == null ? null : name.createFeatureValue(nameValue)};
+   }
+
+   private void assertAllClassified(DecisionTree tree, FeatureValue[][] samples, int[] classes) {
+      for (int i = 0; i < samples.length; ++i) {
+         if (classes[i] < 0) {
+            continue;
+         }
+         Map<Feature, FeatureValue> keyFeatures = new HashMap<Feature, FeatureValue>();
+         for (int j = 0; j < features.length; ++j) {
+            if (samples[i][j] != null) {
+               keyFeatures.put(features[j], samples[i][j]);
+            }
+         }
+         int owner = tree.query(keyFeatures);
+         assert owner == classes[i] : "Wrong owner for sample " + i + ". Expected " + classes[i] + " but was " + owner;
+      }
+   }
+}
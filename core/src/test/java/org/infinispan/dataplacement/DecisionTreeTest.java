@@ -26,6 +26,7 @@
 import org.infinispan.dataplacement.c50.keyfeature.FeatureValue;
 import org.infinispan.dataplacement.c50.keyfeature.NameListFeature;
 import org.infinispan.dataplacement.c50.keyfeature.NumericFeature;
+import org.infinispan.dataplacement.c50.tree.CompiledDecisionTree;
 import org.infinispan.dataplacement.c50.tree.DecisionTree;
 import org.infinispan.dataplacement.c50.tree.DecisionTreeBuilder;
 import org.infinispan.dataplacement.c50.tree.DecisionTreeParser;
@@ -249,6 +250,58 @@ public void testSerializable() throws Exception {
       assertDecisionInBig(readTree, keyIndex, threadIndex);
    }
 
+   public void testCompiledDecision() throws Exception {
+      Map<String, Feature> featureMap = new HashMap<String, Feature>();
+      Feature name = new NameListFeature("name", "peter", "per", "por", "par\\,", "pir \\\"na");
+      featureMap.put(name.getName(), name);
+      DecisionTree tree = DecisionTreeBuilder.build(DecisionTreeParser.parse("ex1"), featureMap);
+      CompiledDecisionTree compiledTree = tree.compile(new Feature[]{name});
+
+      assertCompiledDecision(tree, compiledTree, new Feature[]{name}, new FeatureValue[]{null});
+      for (String value : name.getMachineLearnerClasses()) {
+         assertCompiledDecision(tree, compiledTree, new Feature[]{name},
+                                new FeatureValue[]{name.createFeatureValue(value)});
+      }
+
+      featureMap = new HashMap<String, Feature>();
+      Feature keyIndex = new NumericFeature("key_index");
+      Feature threadIndex = new NumericFeature("thread_index");
+      featureMap.put(keyIndex.getName(), keyIndex);
+      featureMap.put(threadIndex.getName(), threadIndex);
+      tree = DecisionTreeBuilder.build(DecisionTreeParser.parse("big"), featureMap);
+      Feature[] features = new Feature[]{threadIndex, keyIndex};
+      compiledTree = tree.compile(features);
+
+      assert compiledTree.size() > 1;
+      assertCompiledDecision(tree, compiledTree, features, new FeatureValue[]{null, null});
+      for (int thread = 0; thread < 10; ++thread) {
+         FeatureValue threadValue = threadIndex.createFeatureValue(thread);
+         assertCompiledDecision(tree, compiledTree, features, new FeatureValue[]{threadValue, null});
+         for (int key = 0; key < 2500; ++key) {
+            FeatureValue keyValue = keyIndex.createFeatureValue(key);
+            assertCompiledDecision(tree, compiledTree, features, new FeatureValue[]{threadValue, keyValue});
+            assertCompiledDecision(tree, compiledTree, features, new FeatureValue[]{null, keyValue});
+         }
+      }
+
+      //the compiled tree ignores the features not used in the tree
+      compiledTree = tree.compile(new Feature[]{new NumericFeature("other"), threadIndex});
+      assert compiledTree.query(new FeatureValue[]{keyIndex.createFeatureValue(3), threadIndex.createFeatureValue(7)}) == 3;
+   }
+
+   private void assertCompiledDecision(DecisionTree tree, CompiledDecisionTree compiledTree, Feature[] features,
+                                       FeatureValue[] keyFeatures) {
+      Map<Feature, FeatureValue> keyFeatureMap = new HashMap<Feature, FeatureValue>();
+      for (int i = 0; i < features.length; ++i) {
+         if (keyFeatures[i] != null) {
+            keyFeatureMap.put(features[i], keyFeatures[i]);
+         }
+      }
+      int expected = tree.query(keyFeatureMap);
+      int actual = compiledTree.query(keyFeatures);
+      assert expected == actual : "Wrong decision for " + keyFeatureMap + ". Expected " + expected + " but was " + actual;
+   }
+
    private DecisionTree serializeAndClone(DecisionTree tree, String where) throws IOException, ClassNotFoundException {
       ByteArrayOutputStream arrayOutputStream = new ByteArrayOutputStream();
       ObjectOutputStream oos = new ObjectOutputStream(arrayOutputStream);
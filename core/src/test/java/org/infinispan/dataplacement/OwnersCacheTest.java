@@ -0,0 +1,131 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.dataplacement.ch.DataPlacementConsistentHash;
+import org.infinispan.dataplacement.ch.OwnersCache;
+import org.infinispan.dataplacement.hm.HashMapObjectLookup;
+import org.infinispan.dataplacement.lookup.ObjectLookup;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests the owners cache of the {@link DataPlacementConsistentHash}
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "dataplacement.OwnersCacheTest")
+public class OwnersCacheTest {
+
+   private static final String MOVED_KEY = "moved";
+   private static final String NOT_MOVED_KEY = "not-moved";
+   private final Address a = new TestAddress(1, "A");
+   private final Address b = new TestAddress(2, "B");
+   private final Address c = new TestAddress(3, "C");
+   private final Address d = new TestAddress(4, "D");
+   private final List<Address> members = Arrays.asList(a, b, c, d);
+
+   public void testCachedOwners() {
+      DataPlacementConsistentHash<DefaultConsistentHash> consistentHash = createConsistentHash();
+      OwnersCache ownersCache = consistentHash.getOwnersCache();
+
+      assert ownersCache != null;
+
+      List<Address> owners = consistentHash.locateOwners(MOVED_KEY);
+      assert new HashSet<Address>(owners).equals(new HashSet<Address>(Arrays.asList(c, d))) : "Wrong owners " + owners;
+      assert ownersCache.getMisses() == 1;
+      assert ownersCache.getHits() == 0;
+
+      assert consistentHash.locateOwners(MOVED_KEY) == owners;
+      assert owners.contains(consistentHash.locatePrimaryOwner(MOVED_KEY));
+      assert consistentHash.isKeyLocalToNode(c, MOVED_KEY);
+      assert !consistentHash.isKeyLocalToNode(a, MOVED_KEY);
+      assert ownersCache.getMisses() == 1;
+      assert ownersCache.getHits() == 4;
+
+      assert consistentHash.locateOwners(NOT_MOVED_KEY).equals(Arrays.asList(a, b));
+      assert consistentHash.locatePrimaryOwner(NOT_MOVED_KEY).equals(a);
+      assert ownersCache.getMisses() == 2;
+      assert ownersCache.getHits() == 5;
+      assert ownersCache.size() == 2;
+      assert ownersCache.getHitRatio() == 5.0 / 7;
+
+      try {
+         owners.add(a);
+         assert false : "The cached owners should not be modifiable";
+      } catch (UnsupportedOperationException e) {
+         //expected
+      }
+   }
+
+   public void testNewConsistentHashDiscardsCache() {
+      DataPlacementConsistentHash<DefaultConsistentHash> consistentHash = createConsistentHash();
+      consistentHash.locateOwners(MOVED_KEY);
+      consistentHash.locateOwners(MOVED_KEY);
+      assert consistentHash.getOwnersCache().getHits() == 1;
+
+      //new topology without the new owners of the moved key
+      DefaultConsistentHash defaultConsistentHash = defaultConsistentHash(Arrays.asList(a, b));
+      DataPlacementConsistentHash<DefaultConsistentHash> newConsistentHash =
+            new DataPlacementConsistentHash<DefaultConsistentHash>(consistentHash, defaultConsistentHash);
+
+      assert newConsistentHash.getOwnersCache() != consistentHash.getOwnersCache();
+      assert newConsistentHash.locateOwners(MOVED_KEY).equals(Arrays.asList(a, b));
+      assert newConsistentHash.getOwnersCache().getHits() == 0;
+      assert newConsistentHash.getOwnersCache().getMisses() == 1;
+   }
+
+   public void testNoObjectLookup() {
+      DataPlacementConsistentHash<DefaultConsistentHash> consistentHash =
+            new DataPlacementConsistentHash<DefaultConsistentHash>(defaultConsistentHash(members));
+
+      assert consistentHash.getOwnersCache() == null;
+      assert consistentHash.locateOwners(MOVED_KEY).equals(Arrays.asList(a, b));
+   }
+
+   private DataPlacementConsistentHash<DefaultConsistentHash> createConsistentHash() {
+      MurmurHash3 hash = new MurmurHash3();
+      ClusterSnapshot clusterSnapshot = new ClusterSnapshot(members, hash);
+      OwnersInfo ownersInfo = new OwnersInfo(2);
+      ownersInfo.add(clusterSnapshot.indexOf(c), 10);
+      ownersInfo.add(clusterSnapshot.indexOf(d), 5);
+      SegmentMapping segmentMapping = new SegmentMapping(0);
+      segmentMapping.add(MOVED_KEY, ownersInfo);
+      ClusterObjectLookup clusterObjectLookup = new ClusterObjectLookup(
+            new ObjectLookup[]{new HashMapObjectLookup(segmentMapping.iterator())}, clusterSnapshot);
+      return new DataPlacementConsistentHash<DefaultConsistentHash>(defaultConsistentHash(members), clusterObjectLookup);
+   }
+
+   @SuppressWarnings("unchecked")
+   private DefaultConsistentHash defaultConsistentHash(List<Address> members) {
+      return new DefaultConsistentHash(new MurmurHash3(), 2, 1, members, new List[]{Arrays.asList(a, b)});
+   }
+}
@@ -0,0 +1,148 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.dataplacement;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.dataplacement.lookup.ObjectLookup;
+import org.infinispan.dataplacement.stats.IncrementableLong;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the publication and the merge of the segment mappings that changed
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "dataplacement.SegmentMappingDeltaTest")
+public class SegmentMappingDeltaTest {
+
+   private static final int NUMBER_OF_SEGMENTS = 4;
+
+   public void testOnlyChangedSegmentsArePublished() {
+      PublishedSegmentMappings published = new PublishedSegmentMappings();
+      ClusterSnapshot clusterSnapshot = createClusterSnapshot(0, 1, 2);
+
+      Map<Integer, SegmentMapping> changed = published.update(clusterSnapshot,
+                                                              Arrays.asList(segmentMapping(0, "a", 1, 2),
+                                                                            segmentMapping(1, "b", 0, 2)));
+      assert changed.size() == 2;
+      assert changed.get(0) != null && changed.get(1) != null;
+
+      //same mappings (new instances) in the same cluster snapshot: nothing to publish
+      changed = published.update(createClusterSnapshot(0, 1, 2),
+                                 Arrays.asList(segmentMapping(0, "a", 1, 2), segmentMapping(1, "b", 0, 2)));
+      assert changed.isEmpty();
+
+      //segment 0 changes its owners and segment 1 does not have keys anymore
+      changed = published.update(clusterSnapshot, Collections.singletonList(segmentMapping(0, "a", 0, 1)));
+      assert changed.size() == 2;
+      assert changed.get(0).getSegmentId() == 0;
+      assert changed.containsKey(1) && changed.get(1) == null;
+   }
+
+   public void testAllSegmentsArePublishedAfterMembershipChange() {
+      PublishedSegmentMappings published = new PublishedSegmentMappings();
+      List<SegmentMapping> mappings = Arrays.asList(segmentMapping(0, "a", 1, 2), segmentMapping(1, "b", 0, 2));
+
+      published.update(createClusterSnapshot(0, 1, 2), mappings);
+      Map<Integer, SegmentMapping> changed = published.update(createClusterSnapshot(0, 1, 2, 3), mappings);
+
+      assert changed.size() == 2;
+   }
+
+   public void testMerge() {
+      ClusterSnapshot clusterSnapshot = createClusterSnapshot(0, 1, 2);
+      ObjectLookup lookup0 = new FixedObjectLookup(1, 2);
+      ObjectLookup lookup1 = new FixedObjectLookup(0, 2);
+      ObjectLookup lookup2 = new FixedObjectLookup(0, 1);
+
+      Map<Integer, ObjectLookup> delta = new HashMap<Integer, ObjectLookup>();
+      delta.put(0, lookup0);
+      delta.put(1, lookup1);
+      ClusterObjectLookup base = ClusterObjectLookup.merge(null, delta, clusterSnapshot, NUMBER_OF_SEGMENTS);
+
+      //segment 1 is removed and segment 2 is added. segment 0 is kept
+      delta = new HashMap<Integer, ObjectLookup>();
+      delta.put(1, null);
+      delta.put(2, lookup2);
+      ClusterObjectLookup merged = ClusterObjectLookup.merge(base, delta, createClusterSnapshot(0, 1, 2),
+                                                             NUMBER_OF_SEGMENTS);
+
+      assert merged.equals(new ClusterObjectLookup(new ObjectLookup[]{lookup0, null, lookup2, null}, clusterSnapshot));
+
+      //a different cluster snapshot discards the base
+      merged = ClusterObjectLookup.merge(base, delta, createClusterSnapshot(0, 1), NUMBER_OF_SEGMENTS);
+      assert merged.equals(new ClusterObjectLookup(new ObjectLookup[]{null, null, lookup2, null},
+                                                   createClusterSnapshot(0, 1)));
+   }
+
+   private static ClusterSnapshot createClusterSnapshot(int... addresses) {
+      Address[] members = new Address[addresses.length];
+      for (int i = 0; i < addresses.length; ++i) {
+         members[i] = new TestAddress(addresses[i]);
+      }
+      return new ClusterSnapshot(members, new MurmurHash3());
+   }
+
+   private static SegmentMapping segmentMapping(int segmentId, Object key, int... owners) {
+      OwnersInfo ownersInfo = new OwnersInfo(owners.length);
+      for (int owner : owners) {
+         ownersInfo.add(owner, 1);
+      }
+      SegmentMapping segmentMapping = new SegmentMapping(segmentId);
+      segmentMapping.add(key, ownersInfo);
+      return segmentMapping;
+   }
+
+   private static class FixedObjectLookup implements ObjectLookup {
+
+      private final int[] owners;
+
+      private FixedObjectLookup(int... owners) {
+         this.owners = owners;
+      }
+
+      @Override
+      public List<Integer> query(Object key) {
+         return null;
+      }
+
+      @Override
+      public int[] queryOwners(Object key) {
+         return owners;
+      }
+
+      @Override
+      public List<Integer> queryWithProfiling(Object key, IncrementableLong[] phaseDurations) {
+         return null;
+      }
+   }
+}
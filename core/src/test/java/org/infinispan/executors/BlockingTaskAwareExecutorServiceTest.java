@@ -19,11 +19,17 @@
 package org.infinispan.executors;
 
 import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.totalorder.TotalOrderLatch;
+import org.infinispan.transaction.totalorder.TotalOrderLatchImpl;
 import org.infinispan.util.concurrent.BlockingRunnable;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorServiceImpl;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
+import org.infinispan.util.concurrent.TaskDependency;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -104,6 +110,103 @@ public boolean isSatisfied() throws Exception {
       }
    }
 
+   public void testDependencyAwareExecution() throws Exception {
+      BlockingTaskAwareExecutorServiceImpl executorService = createExecutorService();
+      try {
+         TotalOrderLatch first = new TotalOrderLatchImpl("first");
+         TotalOrderLatch second = new TotalOrderLatchImpl("second");
+         final DoSomethingAfter doSomething = new DoSomethingAfter(null, first, second);
+         executorService.execute(doSomething);
+
+         assert !doSomething.isReady();
+         assert doSomething.hasWaited();
+         assert executorService.size() == 1;
+
+         first.unBlock();
+         Thread.sleep(100);
+
+         assert !doSomething.isReady();
+         assert !doSomething.isExecuted();
+
+         //no checkForReadyTasks() needed
+         second.unBlock();
+
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return doSomething.isExecuted();
+            }
+         });
+         assert executorService.size() == 0;
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
+   public void testDependencyAlreadyReleased() throws Exception {
+      BlockingTaskAwareExecutorServiceImpl executorService = createExecutorService();
+      try {
+         TotalOrderLatch latch = new TotalOrderLatchImpl("latch");
+         latch.unBlock();
+         final DoSomethingAfter doSomething = new DoSomethingAfter(null, latch);
+         executorService.execute(doSomething);
+
+         assert doSomething.isReady();
+         assert !doSomething.hasWaited();
+
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return doSomething.isExecuted();
+            }
+         });
+         assert executorService.size() == 0;
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
+   public void testDependencyChain() throws Exception {
+      BlockingTaskAwareExecutorServiceImpl executorService = createExecutorService();
+      try {
+         TotalOrderLatch start = new TotalOrderLatchImpl("start");
+         List<DoSomethingAfter> tasks = new LinkedList<DoSomethingAfter>();
+         TotalOrderLatch previous = start;
+
+         for (int i = 0; i < 30; ++i) {
+            TotalOrderLatch latch = new TotalOrderLatchImpl("task-" + i);
+            tasks.add(new DoSomethingAfter(latch, previous));
+            previous = latch;
+         }
+
+         for (DoSomethingAfter doSomething : tasks) {
+            executorService.execute(doSomething);
+         }
+
+         assert executorService.size() == 30;
+         for (DoSomethingAfter doSomething : tasks) {
+            assert !doSomething.isExecuted();
+         }
+
+         start.unBlock();
+
+         final DoSomethingAfter last = tasks.get(tasks.size() - 1);
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return last.isExecuted();
+            }
+         });
+         for (DoSomethingAfter doSomething : tasks) {
+            assert doSomething.isExecuted();
+            assert doSomething.hasWaitedWhenExecuted();
+         }
+         assert executorService.size() == 0;
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
    private BlockingTaskAwareExecutorServiceImpl createExecutorService() {
       return new BlockingTaskAwareExecutorServiceImpl(new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1000), new DummyThreadFactory()));
    }
@@ -116,6 +219,41 @@ public Thread newThread(Runnable runnable) {
       }
    }
 
+   public static class DoSomethingAfter extends DependencyAwareRunnable {
+
+      private final TotalOrderLatch toRelease;
+      private final List<TotalOrderLatch> dependencies;
+      private volatile boolean executed = false;
+      private volatile boolean waitedWhenExecuted = false;
+
+      public DoSomethingAfter(TotalOrderLatch toRelease, TotalOrderLatch... dependencies) {
+         this.toRelease = toRelease;
+         this.dependencies = Arrays.asList(dependencies);
+      }
+
+      @Override
+      protected Collection<? extends TaskDependency> getDependencies() {
+         return dependencies;
+      }
+
+      @Override
+      public void run() {
+         waitedWhenExecuted = hasWaited();
+         executed = true;
+         if (toRelease != null) {
+            toRelease.unBlock();
+         }
+      }
+
+      public boolean isExecuted() {
+         return executed;
+      }
+
+      public boolean hasWaitedWhenExecuted() {
+         return waitedWhenExecuted;
+      }
+   }
+
    public static class DoSomething implements BlockingRunnable {
 
       private volatile boolean ready = false;
@@ -0,0 +1,236 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.reconfigurableprotocol.selector;
+
+import org.infinispan.reconfigurableprotocol.protocol.PassiveReplicationCommitProtocol;
+import org.infinispan.reconfigurableprotocol.protocol.TotalOrderCommitProtocol;
+import org.infinispan.reconfigurableprotocol.protocol.TwoPhaseCommitProtocol;
+import org.infinispan.stats.ExposedStatistic;
+import org.infinispan.stats.container.ConcurrentGlobalContainer;
+import org.infinispan.stats.container.StatisticsSnapshot;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "reconfigurableprotocol.selector.AutonomicProtocolSelectorTest")
+public class AutonomicProtocolSelectorTest {
+
+   private static final String TWO_PC = TwoPhaseCommitProtocol.UID;
+   private static final String TO = TotalOrderCommitProtocol.UID;
+   private static final String PB = PassiveReplicationCommitProtocol.UID;
+   private static final Collection<String> PROTOCOLS = Arrays.asList(TWO_PC, TO, PB);
+
+   public void testAnalyticalPolicy() {
+      AnalyticalSelectionPolicy policy = new AnalyticalSelectionPolicy();
+
+      //read heavy and low contention
+      assert best(policy.predictThroughput(workload(0.1, 0.01, 4), TWO_PC, PROTOCOLS)).equals(TWO_PC);
+      //write heavy and high contention
+      assert best(policy.predictThroughput(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS)).equals(TO);
+      //update transactions only and very high contention in a small cluster
+      assert best(policy.predictThroughput(workload(0.9, 0.45, 2), TWO_PC, PROTOCOLS)).equals(PB);
+
+      //the prediction for the current protocol is the observed throughput
+      Map<String, Double> predictions = policy.predictThroughput(workload(0.5, 0.3, 4), TO, PROTOCOLS);
+      assert Math.abs(predictions.get(TO) - 1000) < 1E-9;
+      assert predictions.size() == 3;
+
+      //the conflicts are derived from the aborts observed with the current protocol
+      WorkloadStatistics statistics = new WorkloadStatistics(0.5, 0, 0.1, 1000, 2000, 1000, 4, 1000);
+      assert policy.conflictProbability(TWO_PC, statistics) == 0.1;
+      assert policy.conflictProbability(TO, statistics) == 0.2;
+
+      assert policy.predictThroughput(workload(0.5, 0.3, 4), "unknown", PROTOCOLS).isEmpty();
+      assert !policy.predictThroughput(workload(0.5, 0.3, 4), TO, Arrays.asList(TO, "unknown")).containsKey("unknown");
+   }
+
+   public void testHysteresis() {
+      AutonomicProtocolSelector selector = new AutonomicProtocolSelector();
+      FixedPolicy policy = new FixedPolicy();
+      selector.setPolicy(policy);
+      selector.setStableRounds(3);
+      selector.setImprovementThreshold(0.2);
+
+      //TO is better, but not enough
+      policy.set(1000, 1100, 500);
+      for (int i = 0; i < 5; ++i) {
+         assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, i) == null;
+      }
+
+      //TO is better, it must be the best for 3 rounds
+      policy.set(1000, 1500, 500);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 10) == null;
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 11) == null;
+      //a different protocol is now the best. it starts again
+      policy.set(1000, 1500, 2000);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 12) == null;
+      policy.set(1000, 1500, 500);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 13) == null;
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 14) == null;
+      //the current protocol is the best for one round
+      policy.set(1000, 900, 500);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 15) == null;
+      policy.set(1000, 1500, 500);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 16) == null;
+      assert selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 17) == null;
+      assert TO.equals(selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 18));
+      assert selector.getLastPredictions().get(TO) == 1500;
+
+      //idle windows are ignored
+      assert selector.evaluate(new WorkloadStatistics(0.5, 0.3, 0, 1000, 2000, 1, 4, 10), TWO_PC, PROTOCOLS, 19) == null;
+   }
+
+   public void testCoolDown() {
+      AutonomicProtocolSelector selector = new AutonomicProtocolSelector();
+      FixedPolicy policy = new FixedPolicy();
+      selector.setPolicy(policy);
+      selector.setStableRounds(1);
+      selector.setCoolDownTime(1000);
+
+      policy.set(1000, 1500, 500);
+      assert TO.equals(selector.evaluate(workload(0.5, 0.3, 4), TWO_PC, PROTOCOLS, 0));
+      selector.switched(0);
+
+      //2PC is now much better than TO, but it is still cooling down
+      policy.set(3000, 1000, 500);
+      assert selector.evaluate(workload(0.5, 0.3, 4), TO, PROTOCOLS, 500) == null;
+      assert selector.evaluate(workload(0.5, 0.3, 4), TO, PROTOCOLS, 999) == null;
+      assert TWO_PC.equals(selector.evaluate(workload(0.5, 0.3, 4), TO, PROTOCOLS, 1000));
+   }
+
+   public void testWorkloadBetweenSnapshots() {
+      ConcurrentGlobalContainer container = new ConcurrentGlobalContainer();
+      add(container, 100, 10, 60, 30);
+      StatisticsSnapshot first = container.getSnapshot();
+      add(container, 20, 0, 70, 10);
+      StatisticsSnapshot second = container.getSnapshot();
+
+      WorkloadStatistics statistics = WorkloadStatistics.between(first, second, 1000000000L, 4);
+      assert statistics.getNumberOfTransactions() == 100;
+      assert statistics.getWriteRatio() == 0.8;
+      assert statistics.getAbortRate() == 0.1;
+      assert statistics.getThroughput() == 90;
+      assert statistics.getContentionProbability() == 0.5;
+      assert statistics.getPrepareRtt() == 2;
+      assert statistics.getWriteTransactionDuration() == 10;
+      assert statistics.getNumberOfNodes() == 4;
+
+      //without previous snapshot, or after a reset, it uses all the values
+      statistics = WorkloadStatistics.between(null, second, 1000000000L, 4);
+      assert statistics.getNumberOfTransactions() == 300;
+      container.reset();
+      add(container, 10, 0, 0, 0);
+      statistics = WorkloadStatistics.between(second, container.getSnapshot(), 1000000000L, 4);
+      assert statistics.getNumberOfTransactions() == 10;
+      assert statistics.getWriteRatio() == 0;
+      assert statistics.getThroughput() == 10;
+   }
+
+   public void testWorkloadOfSeveralMembers() {
+      ConcurrentGlobalContainer coordinator = new ConcurrentGlobalContainer();
+      ConcurrentGlobalContainer member = new ConcurrentGlobalContainer();
+      add(member, 100, 0, 0, 0);
+      long[] coordinatorFirst = WorkloadStatistics.sample(coordinator.getSnapshot());
+      long[] memberFirst = WorkloadStatistics.sample(member.getSnapshot());
+      //the coordinator does not execute transactions, the member only executes update transactions
+      add(member, 0, 0, 90, 10);
+
+      long[] counters = WorkloadStatistics.newCounters();
+      WorkloadStatistics.addWindow(counters, coordinatorFirst, WorkloadStatistics.sample(coordinator.getSnapshot()));
+      WorkloadStatistics.addWindow(counters, memberFirst, WorkloadStatistics.sample(member.getSnapshot()));
+      WorkloadStatistics statistics = WorkloadStatistics.fromCounters(counters, 1000000000L, 2);
+      assert statistics.getNumberOfTransactions() == 100;
+      assert statistics.getWriteRatio() == 1;
+      assert statistics.getAbortRate() == 0.1;
+      assert statistics.getThroughput() == 90;
+      assert statistics.getNumberOfNodes() == 2;
+
+      //a second member with the same workload doubles the transactions, but not the ratios
+      ConcurrentGlobalContainer other = new ConcurrentGlobalContainer();
+      add(other, 0, 0, 90, 10);
+      WorkloadStatistics.addWindow(counters, null, WorkloadStatistics.sample(other.getSnapshot()));
+      statistics = WorkloadStatistics.fromCounters(counters, 1000000000L, 3);
+      assert statistics.getNumberOfTransactions() == 200;
+      assert statistics.getAbortRate() == 0.1;
+      assert statistics.getThroughput() == 180;
+      assert statistics.getPrepareRtt() == 2;
+   }
+
+   /**
+    * adds read only and update transactions with 2 puts each, half of them contended, a prepare rtt of 2 microseconds
+    * and a duration of 10 microseconds
+    */
+   private static void add(ConcurrentGlobalContainer container, long readOnly, long abortedReadOnly, long write,
+                           long abortedWrite) {
+      container.add(ExposedStatistic.NUM_READ_ONLY_TX_COMMIT, readOnly, true);
+      container.add(ExposedStatistic.NUM_ABORTED_RO_TX, abortedReadOnly, true);
+      container.add(ExposedStatistic.NUM_COMMITTED_WR_TX, write, true);
+      container.add(ExposedStatistic.NUM_ABORTED_WR_TX, abortedWrite, true);
+      container.add(ExposedStatistic.NUM_PUT, write, true);
+      container.add(ExposedStatistic.NUM_PUT, write, false);
+      container.add(ExposedStatistic.LOCK_CONTENTION_TO_LOCAL, write, true);
+      container.add(ExposedStatistic.NUM_RTTS_PREPARE, write, true);
+      container.add(ExposedStatistic.RTT_PREPARE, write * 2000, true);
+      container.add(ExposedStatistic.WR_TX_SUCCESSFUL_EXECUTION_TIME, write * 10000, true);
+   }
+
+   private static WorkloadStatistics workload(double writeRatio, double contentionProbability, int numberOfNodes) {
+      return new WorkloadStatistics(writeRatio, contentionProbability, 0, 1000, 2000, 1000, numberOfNodes, 1000);
+   }
+
+   private static String best(Map<String, Double> predictions) {
+      String best = null;
+      for (Map.Entry<String, Double> entry : predictions.entrySet()) {
+         if (best == null || entry.getValue() > predictions.get(best)) {
+            best = entry.getKey();
+         }
+      }
+      return best;
+   }
+
+   private static class FixedPolicy implements ProtocolSelectionPolicy {
+
+      private Map<String, Double> predictions = Collections.emptyMap();
+
+      public void set(double twoPhaseCommit, double totalOrder, double passiveReplication) {
+         predictions = new HashMap<String, Double>();
+         predictions.put(TWO_PC, twoPhaseCommit);
+         predictions.put(TO, totalOrder);
+         predictions.put(PB, passiveReplication);
+      }
+
+      @Override
+      public Map<String, Double> predictThroughput(WorkloadStatistics statistics, String currentProtocolId,
+                                                   Collection<String> protocolIds) {
+         return predictions;
+      }
+   }
+}
@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.ResponseFuture;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the pipelining of the chunks sent by the OutboundTransferTask.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "statetransfer.OutboundTransferTaskTest")
+public class OutboundTransferTaskTest {
+
+   private static final TestAddress A = new TestAddress(0, "A");
+   private static final TestAddress B = new TestAddress(1, "B");
+   private static final int CHUNKS_IN_FLIGHT = 4;
+
+   public void testChunksArePipelined() throws Exception {
+      final int numberOfChunks = CHUNKS_IN_FLIGHT;
+      ChunkRecorder recorder = new ChunkRecorder(CHUNKS_IN_FLIGHT, false);
+      OutboundTransferTask task = createTask(recorder, numberOfChunks + 1);
+
+      task.run();
+
+      assert recorder.maxInFlight == numberOfChunks : "All the chunks should be in flight: " + recorder.maxInFlight;
+      assert recorder.inFlight == 0 : "The last chunk was sent before the acknowledge of all the chunks";
+      assert recorder.sentEntries == numberOfChunks + 1 : "Wrong number of entries sent: " + recorder.sentEntries;
+      assert recorder.lastChunks == 1;
+   }
+
+   public void testCreditsLimitChunksInFlight() throws Exception {
+      final int numberOfChunks = CHUNKS_IN_FLIGHT * 3;
+      ChunkRecorder recorder = new ChunkRecorder(1, false);
+      OutboundTransferTask task = createTask(recorder, numberOfChunks + 1);
+
+      task.run();
+
+      assert recorder.maxInFlightAfterAcknowledge == 1 : "Only one chunk should be in flight after the first acknowledge: " +
+            recorder.maxInFlightAfterAcknowledge;
+      assert recorder.inFlight == 0;
+      assert recorder.sentEntries == numberOfChunks + 1 : "Wrong number of entries sent: " + recorder.sentEntries;
+      assert recorder.lastChunks == 1;
+   }
+
+   public void testAcknowledgedChunksAreCollected() throws Exception {
+      final int numberOfChunks = CHUNKS_IN_FLIGHT * 2;
+      ChunkRecorder recorder = new ChunkRecorder(CHUNKS_IN_FLIGHT, true);
+      OutboundTransferTask task = createTask(recorder, numberOfChunks + 1);
+
+      task.run();
+
+      assert recorder.maxInFlight == 1 : "The acknowledged chunks should be collected before sending: " + recorder.maxInFlight;
+      assert recorder.sentEntries == numberOfChunks + 1 : "Wrong number of entries sent: " + recorder.sentEntries;
+   }
+
+   /**
+    * Creates a task that sends {@code numberOfEntries} entries of a single segment to node B, one entry per chunk.
+    */
+   private OutboundTransferTask createTask(final ChunkRecorder recorder, int numberOfEntries) throws Exception {
+      DefaultConsistentHash ch = new DefaultConsistentHashFactory().create(new MurmurHash3(), 1, 4, Arrays.<Address>asList(A, B));
+      final List<InternalCacheEntry> cacheEntries = new ArrayList<InternalCacheEntry>();
+      for (int i = 0; i < numberOfEntries; ++i) {
+         cacheEntries.add(new ImmortalCacheEntry(new TestKey("key" + i, 0, ch), "value" + i));
+      }
+
+      DataContainer dataContainer = mock(DataContainer.class);
+      when(dataContainer.segmentIterator(any(Set.class))).thenAnswer(new Answer<Iterator<InternalCacheEntry>>() {
+         @Override
+         public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
+            return cacheEntries.iterator();
+         }
+      });
+
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      when(commandsFactory.buildStateResponseCommand(any(Address.class), anyInt(), any(Collection.class))).thenAnswer(new Answer<StateResponseCommand>() {
+         @Override
+         public StateResponseCommand answer(InvocationOnMock invocation) {
+            recorder.chunks = (Collection<StateChunk>) invocation.getArguments()[2];
+            return new StateResponseCommand("testCache", (Address) invocation.getArguments()[0],
+                                            ((Integer) invocation.getArguments()[1]).intValue(), recorder.chunks);
+         }
+      });
+
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getAddress()).thenReturn(A);
+      when(rpcManager.invokeRemotelyWithFuture(any(Collection.class), any(ReplicableCommand.class), anyBoolean(), anyBoolean()))
+            .thenAnswer(new Answer<ResponseFuture>() {
+               @Override
+               public ResponseFuture answer(InvocationOnMock invocation) throws Throwable {
+                  return recorder.send();
+               }
+            });
+      when(rpcManager.invokeRemotely(any(Collection.class), any(ReplicableCommand.class), any(ResponseMode.class), anyLong(), anyBoolean(), anyBoolean()))
+            .thenAnswer(new Answer<Map<Address, Response>>() {
+               @Override
+               public Map<Address, Response> answer(InvocationOnMock invocation) {
+                  recorder.sendLast();
+                  return Collections.emptyMap();
+               }
+            });
+
+      return new OutboundTransferTask(B, Collections.singleton(0), 1, CHUNKS_IN_FLIGHT, 1, ch, mock(StateProviderImpl.class), ch,
+                                      dataContainer, mock(CacheLoaderManager.class), rpcManager, commandsFactory,
+                                      10000, "testCache", null);
+   }
+
+   /**
+    * Keeps track of the chunks in flight. Each acknowledge grants a fixed number of credits. The chunks of the last
+    * command built are kept to be checked when it is sent.
+    */
+   private static class ChunkRecorder {
+      private final int credits;
+      private final boolean acknowledgeImmediately;
+      private int inFlight;
+      private int maxInFlight;
+      private int maxInFlightAfterAcknowledge;
+      private boolean acknowledged;
+      private int sentEntries;
+      private int lastChunks;
+      private Collection<StateChunk> chunks;
+
+      private ChunkRecorder(int credits, boolean acknowledgeImmediately) {
+         this.credits = credits;
+         this.acknowledgeImmediately = acknowledgeImmediately;
+      }
+
+      private ResponseFuture send() throws Exception {
+         for (StateChunk chunk : chunks) {
+            assert !chunk.isLastChunk();
+            sentEntries += chunk.getCacheEntries().size();
+         }
+         inFlight++;
+         maxInFlight = Math.max(maxInFlight, inFlight);
+         if (acknowledged) {
+            maxInFlightAfterAcknowledge = Math.max(maxInFlightAfterAcknowledge, inFlight);
+         }
+         ResponseFuture future = mock(ResponseFuture.class);
+         when(future.isDone()).thenReturn(acknowledgeImmediately);
+         when(future.get(anyLong(), any(TimeUnit.class))).thenAnswer(new Answer<Map<Address, Response>>() {
+            @Override
+            public Map<Address, Response> answer(InvocationOnMock invocation) {
+               inFlight--;
+               acknowledged = true;
+               return Collections.<Address, Response>singletonMap(B, SuccessfulResponse.create(credits));
+            }
+         });
+         return future;
+      }
+
+      private void sendLast() {
+         assert inFlight == 0 : "The last chunk was sent with chunks in flight";
+         for (StateChunk chunk : chunks) {
+            assert chunk.isLastChunk();
+            sentEntries += chunk.getCacheEntries().size();
+         }
+         lastChunks++;
+      }
+   }
+}
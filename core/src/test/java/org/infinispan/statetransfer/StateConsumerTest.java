@@ -25,6 +25,7 @@
 
 import org.infinispan.Cache;
 import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commons.hash.MurmurHash3;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
@@ -35,6 +36,7 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.distribution.TestAddress;
 import org.infinispan.distribution.ch.DefaultConsistentHash;
@@ -77,6 +79,7 @@
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -215,6 +218,12 @@ public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
             return cacheEntries.iterator();
          }
       });
+      when(dataContainer.segmentIterator(any(Set.class))).thenAnswer(new Answer<Iterator<InternalCacheEntry>>() {
+         @Override
+         public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
+            return cacheEntries.iterator();
+         }
+      });
       when(transactionTable.getLocalTransactions()).thenReturn(Collections.<LocalTransaction>emptyList());
       when(transactionTable.getRemoteTransactions()).thenReturn(Collections.<RemoteTransaction>emptyList());
 
@@ -264,4 +273,124 @@ public Object call() throws Exception {
       stateConsumer.stop();
       assertFalse(stateConsumer.hasActiveTransfers());
    }
+
+   public void testOutOfOrderChunks() throws Exception {
+      ConfigurationBuilder cb = new ConfigurationBuilder();
+      cb.clustering().cacheMode(CacheMode.DIST_SYNC)
+            .clustering().stateTransfer().timeout(10000).chunksInFlight(4)
+            .jmxStatistics().enable();
+      Configuration configuration = cb.build();
+
+      Address[] addresses = new Address[3];
+      for (int i = 0; i < 3; i++) {
+         addresses[i] = new TestAddress(i);
+      }
+      DefaultConsistentHashFactory chf = new DefaultConsistentHashFactory();
+      DefaultConsistentHash ch1 = chf.create(new MurmurHash3(), 1, 10, Arrays.asList(addresses[1], addresses[2]));
+      DefaultConsistentHash ch2 = chf.rebalance(chf.updateMembers(ch1, Arrays.asList(addresses)), null);
+
+      Cache cache = mock(Cache.class);
+      when(cache.getName()).thenReturn("testCache");
+      ExecutorService pooledExecutorService = new ThreadPoolExecutor(10, 20, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingDeque<Runnable>(), new ThreadPoolExecutor.CallerRunsPolicy());
+      BlockingTaskAwareExecutorService blockingservice = new BlockingTaskAwareExecutorServiceImpl(new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1000), new BlockingTaskAwareExecutorServiceTest.DummyThreadFactory()));
+
+      RpcManager rpcManager = mock(RpcManager.class);
+      Transport transport = mock(Transport.class);
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      InvocationContextContainer icc = mock(InvocationContextContainer.class);
+      when(icc.createSingleKeyNonTxInvocationContext()).thenReturn(mock(InvocationContext.class));
+      when(transport.getViewId()).thenReturn(1);
+      when(rpcManager.getAddress()).thenReturn(addresses[0]);
+      when(rpcManager.getTransport()).thenReturn(transport);
+      when(commandsFactory.buildStateRequestCommand(any(StateRequestCommand.Type.class), any(Address.class), anyInt(), any(Set.class))).thenAnswer(new Answer<StateRequestCommand>() {
+         @Override
+         public StateRequestCommand answer(InvocationOnMock invocation) {
+            return new StateRequestCommand("testCache", (StateRequestCommand.Type) invocation.getArguments()[0], (Address) invocation.getArguments()[1], (Integer) invocation.getArguments()[2], (Set) invocation.getArguments()[3]);
+         }
+      });
+
+      final Map<Integer, Address> sourceBySegment = ConcurrentMapFactory.makeConcurrentMap();
+      when(rpcManager.invokeRemotely(any(Collection.class), any(StateRequestCommand.class), any(ResponseMode.class), anyLong(), anyBoolean())).thenAnswer(new Answer<Map<Address, Response>>() {
+         @Override
+         public Map<Address, Response> answer(InvocationOnMock invocation) {
+            Address recipient = ((Collection<Address>) invocation.getArguments()[0]).iterator().next();
+            StateRequestCommand cmd = (StateRequestCommand) invocation.getArguments()[1];
+            if (cmd.getType().equals(StateRequestCommand.Type.START_STATE_TRANSFER)) {
+               for (Integer segment : (Set<Integer>) cmd.getParameters()[3]) {
+                  sourceBySegment.put(segment, recipient);
+               }
+            }
+            return Collections.<Address, Response>singletonMap(recipient, SuccessfulResponse.create(new ArrayList<TransactionInfo>()));
+         }
+      });
+
+      // each chunk has a single entry and it blocks until all the chunks are being applied
+      final int numberOfChunks = 3;
+      final CountDownLatch applying = new CountDownLatch(numberOfChunks);
+      final CountDownLatch release = new CountDownLatch(1);
+      final List<Object> appliedKeys = Collections.synchronizedList(new ArrayList<Object>());
+      when(commandsFactory.buildPutKeyValueCommand(any(), any(), anyLong(), anyLong(), any(Set.class))).thenAnswer(new Answer<PutKeyValueCommand>() {
+         @Override
+         public PutKeyValueCommand answer(InvocationOnMock invocation) throws Throwable {
+            appliedKeys.add(invocation.getArguments()[0]);
+            applying.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+         }
+      });
+
+      final StateConsumerImpl stateConsumer = new StateConsumerImpl();
+      stateConsumer.init(cache, pooledExecutorService, mock(StateTransferManager.class), mock(InterceptorChain.class), icc,
+            configuration, rpcManager, null, commandsFactory, mock(CacheLoaderManager.class), mock(DataContainer.class),
+            mock(TransactionTable.class), mock(StateTransferLock.class), mock(CacheNotifier.class),
+            mock(TotalOrderManager.class), null, blockingservice);
+      stateConsumer.start();
+
+      stateConsumer.onTopologyUpdate(new CacheTopology(1, ch1, null), false);
+      stateConsumer.onTopologyUpdate(new CacheTopology(2, ch1, ch2), true);
+      assertTrue(stateConsumer.hasActiveTransfers());
+      assertFalse(sourceBySegment.isEmpty());
+
+      // the chunks of the same segment are applied concurrently, in the reverse order they were sent
+      final int segment = sourceBySegment.keySet().iterator().next();
+      final Address source = sourceBySegment.get(segment);
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int i = numberOfChunks - 1; i >= 0; i--) {
+         final StateChunk chunk = new StateChunk(segment, Collections.<InternalCacheEntry>singletonList(
+               new ImmortalCacheEntry(new TestKey("key" + i, segment, ch2), "value" + i)), false);
+         futures.add(fork(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+               stateConsumer.applyState(source, 2, Collections.singletonList(chunk), null);
+               return null;
+            }
+         }));
+      }
+      assertTrue(applying.await(10, TimeUnit.SECONDS));
+      assertEquals(stateConsumer.getApplyingChunks(), numberOfChunks);
+      assertEquals(stateConsumer.getStateTransferCredits(), 1);
+
+      release.countDown();
+      for (Future<Object> future : futures) {
+         future.get(10, TimeUnit.SECONDS);
+      }
+      assertEquals(stateConsumer.getApplyingChunks(), 0);
+      assertEquals(stateConsumer.getStateTransferCredits(), 4);
+      assertEquals(appliedKeys.size(), numberOfChunks);
+      assertEquals(stateConsumer.getReceivedEntries(), numberOfChunks);
+      assertTrue(stateConsumer.hasActiveTransfers());
+
+      // the last chunks complete the transfer
+      for (Map.Entry<Integer, Address> entry : sourceBySegment.entrySet()) {
+         stateConsumer.applyState(entry.getValue(), 2, Collections.singletonList(
+               new StateChunk(entry.getKey(), InfinispanCollections.<InternalCacheEntry>emptyList(), true)), null);
+      }
+      assertFalse(stateConsumer.hasActiveTransfers());
+      assertEquals(stateConsumer.getReceivedEntries(), numberOfChunks);
+
+      stateConsumer.stop();
+      pooledExecutorService.shutdownNow();
+      blockingservice.shutdownNow();
+   }
 }
@@ -188,6 +188,12 @@ public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
             return cacheEntries.iterator();
          }
       });
+      when(dataContainer.segmentIterator(any(Set.class))).thenAnswer(new Answer<Iterator<InternalCacheEntry>>() {
+         @Override
+         public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
+            return cacheEntries.iterator();
+         }
+      });
       when(transactionTable.getLocalTransactions()).thenReturn(Collections.<LocalTransaction>emptyList());
       when(transactionTable.getRemoteTransactions()).thenReturn(Collections.<RemoteTransaction>emptyList());
 
@@ -291,6 +297,12 @@ public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
             return cacheEntries.iterator();
          }
       });
+      when(dataContainer.segmentIterator(any(Set.class))).thenAnswer(new Answer<Iterator<InternalCacheEntry>>() {
+         @Override
+         public Iterator<InternalCacheEntry> answer(InvocationOnMock invocation) {
+            return cacheEntries.iterator();
+         }
+      });
       when(transactionTable.getLocalTransactions()).thenReturn(Collections.<LocalTransaction>emptyList());
       when(transactionTable.getRemoteTransactions()).thenReturn(Collections.<RemoteTransaction>emptyList());
 
@@ -12,6 +12,9 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Pedro Ruivo
@@ -79,8 +82,6 @@ public void testIsolationWithTransactionMerge() {
             remoteIndex++;
          }
       }
-
-      assertFinalState(globalContainer);
    }
 
    public void testIsolationWithSingleActionMerge() {
@@ -129,8 +130,6 @@ public void testIsolationWithSingleActionMerge() {
 
       assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 10L), localStat, true);
       assertSnapshotValues(snapshots, Arrays.asList(0L, 0L, 20L), remoteStat, false);
-
-      assertFinalState(globalContainer);
    }
 
    public void testIsolationWithReset() {
@@ -207,8 +206,6 @@ public void testIsolationWithReset() {
             remoteIndex++;
          }
       }
-
-      assertFinalState(globalContainer);
    }
 
    public void testIsolationWithResetMerge() {
@@ -244,73 +241,51 @@ public void testIsolationWithResetMerge() {
 
       assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 0L, 10L), localStat, true);
       assertSnapshotValues(snapshots, Arrays.asList(0L, 20L, 0L, 20L), remoteStat, false);
-
-      assertFinalState(globalContainer);
    }
 
-   public void testIsolationWithEnqueueAndResetTransaction() {
+   public void testMergeFromMultipleThreads() throws InterruptedException {
       final ConcurrentGlobalContainer globalContainer = new ConcurrentGlobalContainer();
       final List<StatisticsSnapshot> snapshots = new ArrayList<StatisticsSnapshot>(4);
-
       snapshots.add(globalContainer.getSnapshot());
-      int localIndex;
-      int remoteIndex;
-
-      LocalTransactionStatistics localTransactionStatistics = new LocalTransactionStatistics(DEFAULT);
-      RemoteTransactionStatistics remoteTransactionStatistics = new RemoteTransactionStatistics(DEFAULT);
-
-      localIndex = 0;
-      remoteIndex = 0;
-      for (ExposedStatistic stats : ExposedStatistic.values()) {
-         if (stats.isLocal()) {
-            localTransactionStatistics.addValue(stats, localIndex++);
-         }
-         if (stats.isRemote()) {
-            remoteTransactionStatistics.addValue(stats, remoteIndex++);
-         }
+      final int numberOfThreads = 4;
+      final int numberOfFlushes = 1000;
+
+      final LocalTransactionStatistics localTransactionStatistics = new LocalTransactionStatistics(DEFAULT);
+      final RemoteTransactionStatistics remoteTransactionStatistics = new RemoteTransactionStatistics(DEFAULT);
+      fillTransactionStatistics(localTransactionStatistics, remoteTransactionStatistics);
+
+      Thread[] threads = new Thread[numberOfThreads];
+      for (int i = 0; i < threads.length; ++i) {
+         threads[i] = new Thread("merge-" + i) {
+            @Override
+            public void run() {
+               for (int j = 0; j < numberOfFlushes; ++j) {
+                  localTransactionStatistics.flush(globalContainer);
+                  remoteTransactionStatistics.flush(globalContainer);
+               }
+            }
+         };
+         threads[i].start();
       }
-
-      //all the stuff is enqueued
-      globalContainer.flushing().set(true);
-
-      localTransactionStatistics.flush(globalContainer);
-      remoteTransactionStatistics.flush(globalContainer);
-      localTransactionStatistics.flush(globalContainer);
-      remoteTransactionStatistics.flush(globalContainer);
-      localTransactionStatistics.flush(globalContainer);
-      remoteTransactionStatistics.flush(globalContainer);
-
-      Assert.assertEquals(globalContainer.queue().size(), 6);
-
-      snapshots.add(globalContainer.getSnapshot());
-
-      localIndex = 0;
-      remoteIndex = 0;
-      for (ExposedStatistic stats : ExposedStatistic.values()) {
-         if (stats.isLocal()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L), stats, true);
-            localIndex++;
-         }
-         if (stats.isRemote()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L), stats, false);
-            remoteIndex++;
-         }
+      for (Thread thread : threads) {
+         thread.join();
       }
 
-      globalContainer.flushing().set(false);
-
-      //this should flush pending statistics
+      //the threads are dead, so their cells are retired by the snapshot
+      snapshots.add(globalContainer.getSnapshot());
+      Assert.assertEquals(globalContainer.cells(), 0);
       snapshots.add(globalContainer.getSnapshot());
 
-      localIndex = 0;
-      remoteIndex = 0;
+      final long total = numberOfThreads * numberOfFlushes;
+      int localIndex = 0;
+      int remoteIndex = 0;
       for (ExposedStatistic stats : ExposedStatistic.values()) {
          if (stats.isLocal()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L, 3L * localIndex), stats, true);
+            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, total * localIndex, total * localIndex), stats, true);
             localIndex++;
          }
          if (stats.isRemote()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L, 3L * remoteIndex), stats, false);
+            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, total * remoteIndex, total * remoteIndex), stats, false);
             remoteIndex++;
          }
       }
@@ -319,70 +294,17 @@ public void testIsolationWithEnqueueAndResetTransaction() {
       snapshots.clear();
       snapshots.add(globalContainer.getSnapshot());
 
-      localIndex = 0;
-      remoteIndex = 0;
       for (ExposedStatistic stats : ExposedStatistic.values()) {
          if (stats.isLocal()) {
             assertSnapshotValues(snapshots, Arrays.<Long>asList(0L), stats, true);
-            localIndex++;
          }
          if (stats.isRemote()) {
             assertSnapshotValues(snapshots, Arrays.<Long>asList(0L), stats, false);
-            remoteIndex++;
          }
       }
-
-      globalContainer.flushing().set(true);
-
-      localTransactionStatistics.flush(globalContainer);
-      remoteTransactionStatistics.flush(globalContainer);
-      localTransactionStatistics.flush(globalContainer);
-      remoteTransactionStatistics.flush(globalContainer);
-      localTransactionStatistics.flush(globalContainer);
-
-      globalContainer.reset();
-
-      remoteTransactionStatistics.flush(globalContainer);
-
-      snapshots.add(globalContainer.getSnapshot());
-
-      Assert.assertTrue(globalContainer.isReset());
-      Assert.assertEquals(globalContainer.queue().size(), 6);
-
-      localIndex = 0;
-      remoteIndex = 0;
-      for (ExposedStatistic stats : ExposedStatistic.values()) {
-         if (stats.isLocal()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L), stats, true);
-            localIndex++;
-         }
-         if (stats.isRemote()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L), stats, false);
-            remoteIndex++;
-         }
-      }
-
-      globalContainer.flushing().set(false);
-      snapshots.add(globalContainer.getSnapshot());
-      Assert.assertFalse(globalContainer.isReset());
-
-      localIndex = 0;
-      remoteIndex = 0;
-      for (ExposedStatistic stats : ExposedStatistic.values()) {
-         if (stats.isLocal()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L, 0L), stats, true);
-            localIndex++;
-         }
-         if (stats.isRemote()) {
-            assertSnapshotValues(snapshots, Arrays.<Long>asList(0L, 0L, 0L), stats, false);
-            remoteIndex++;
-         }
-      }
-
-      assertFinalState(globalContainer);
    }
 
-   public void testIsolationWithEnqueueAndResetSingleAction() {
+   public void testResetWithWriterInOtherThread() throws Exception {
       final ConcurrentGlobalContainer globalContainer = new ConcurrentGlobalContainer();
       final List<StatisticsSnapshot> snapshots = new ArrayList<StatisticsSnapshot>(4);
       snapshots.add(globalContainer.getSnapshot());
@@ -391,57 +313,76 @@ public void testIsolationWithEnqueueAndResetSingleAction() {
       final ExposedStatistic localStat = ExposedStatistic.PREPARE_COMMAND_SIZE;
       final ExposedStatistic remoteStat = ExposedStatistic.TX_COMPLETE_NOTIFY_EXECUTION_TIME;
 
-      Assert.assertTrue(localStat.isLocal());
-      Assert.assertTrue(remoteStat.isRemote());
-
-      globalContainer.flushing().set(true);
-
-      globalContainer.add(localStat, 10, true);
-      globalContainer.add(remoteStat, 20, false);
-
-      snapshots.add(globalContainer.getSnapshot());
-
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L), localStat, true);
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L), remoteStat, false);
-
-      Assert.assertEquals(globalContainer.queue().size(), 2);
-      globalContainer.flushing().set(false);
-
-      snapshots.add(globalContainer.getSnapshot());
-
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L, 10L), localStat, true);
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L, 20L), remoteStat, false);
+      ExecutorService writer = Executors.newSingleThreadExecutor();
+      final Thread writerThread;
+      try {
+         writerThread = writer.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+               return Thread.currentThread();
+            }
+         }).get();
+         final Runnable add = new Runnable() {
+            @Override
+            public void run() {
+               globalContainer.add(localStat, 10, true);
+               globalContainer.add(remoteStat, 20, false);
+            }
+         };
+         writer.submit(add).get();
+
+         snapshots.add(globalContainer.getSnapshot());
+         Assert.assertEquals(globalContainer.cells(), 1);
+
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 10L), localStat, true);
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 20L), remoteStat, false);
+
+         //the writer cell is cleared lazily, but the snapshot must ignore it
+         final long resetTime = snapshots.get(1).getLastResetTime();
+         globalContainer.reset();
+         snapshots.add(globalContainer.getSnapshot());
+         Assert.assertTrue(snapshots.get(2).getLastResetTime() > resetTime);
+
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 0L), localStat, true);
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 20L, 0L), remoteStat, false);
+
+         writer.submit(add).get();
+         snapshots.add(globalContainer.getSnapshot());
+
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 0L, 10L), localStat, true);
+         assertSnapshotValues(snapshots, Arrays.asList(0L, 20L, 0L, 20L), remoteStat, false);
+      } finally {
+         writer.shutdownNow();
+      }
 
-      globalContainer.reset();
-      snapshots.clear();
+      writerThread.join(10000);
+      Assert.assertFalse(writerThread.isAlive());
       snapshots.add(globalContainer.getSnapshot());
+      Assert.assertEquals(globalContainer.cells(), 0);
 
-      assertSnapshotValues(snapshots, Arrays.asList(0L), localStat, true);
-      assertSnapshotValues(snapshots, Arrays.asList(0L), remoteStat, false);
+      assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 0L, 10L, 10L), localStat, true);
+      assertSnapshotValues(snapshots, Arrays.asList(0L, 20L, 0L, 20L, 20L), remoteStat, false);
 
-      globalContainer.flushing().set(true);
-
-      globalContainer.add(localStat, 10, true);
-      globalContainer.add(remoteStat, 20, false);
+      //the values of the dead threads are also discarded
       globalContainer.reset();
-
       snapshots.add(globalContainer.getSnapshot());
-      Assert.assertTrue(globalContainer.isReset());
-      Assert.assertEquals(globalContainer.queue().size(), 2);
 
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L), localStat, true);
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L), remoteStat, false);
-
-      globalContainer.flushing().set(false);
-
-      snapshots.add(globalContainer.getSnapshot());
-      Assert.assertFalse(globalContainer.isReset());
-      Assert.assertTrue(globalContainer.queue().isEmpty());
-
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L, 0L), localStat, true);
-      assertSnapshotValues(snapshots, Arrays.asList(0L, 0L, 0L), remoteStat, false);
+      assertSnapshotValues(snapshots, Arrays.asList(0L, 10L, 0L, 10L, 10L, 0L), localStat, true);
+      assertSnapshotValues(snapshots, Arrays.asList(0L, 20L, 0L, 20L, 20L, 0L), remoteStat, false);
+   }
 
-      assertFinalState(globalContainer);
+   private void fillTransactionStatistics(LocalTransactionStatistics localTransactionStatistics,
+                                          RemoteTransactionStatistics remoteTransactionStatistics) {
+      int localIndex = 0;
+      int remoteIndex = 0;
+      for (ExposedStatistic stats : ExposedStatistic.values()) {
+         if (stats.isLocal()) {
+            localTransactionStatistics.addValue(stats, localIndex++);
+         }
+         if (stats.isRemote()) {
+            remoteTransactionStatistics.addValue(stats, remoteIndex++);
+         }
+      }
    }
 
    private void assertSnapshotValues(List<StatisticsSnapshot> snapshots, List<Long> expected, ExposedStatistic stat, boolean local) {
@@ -454,10 +395,4 @@ private void assertSnapshotValues(List<StatisticsSnapshot> snapshots, List<Long>
          }
       }
    }
-
-   private void assertFinalState(ConcurrentGlobalContainer globalContainer) {
-      Assert.assertTrue(globalContainer.queue().isEmpty());
-      Assert.assertFalse(globalContainer.isReset());
-      Assert.assertFalse(globalContainer.flushing().get());
-   }
 }
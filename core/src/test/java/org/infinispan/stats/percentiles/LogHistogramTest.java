@@ -0,0 +1,142 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.stats.percentiles;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "stats.percentiles.LogHistogramTest")
+public class LogHistogramTest {
+
+   public void testBucketBoundaries() {
+      LogHistogram histogram = new LogHistogram();
+      int lastIndex = -1;
+      for (long value = 0; value < (1 << 20); ++value) {
+         final int index = histogram.bucketIndex(value);
+         assert index == lastIndex || index == lastIndex + 1 : "Gap in bucket for value " + value;
+         final double bucketValue = histogram.bucketValue(index);
+         assert Math.abs(bucketValue - value) <= value / 128.0 : "Wrong bucket value for " + value + ": " + bucketValue;
+         lastIndex = index;
+      }
+      histogram.insertSample(Long.MAX_VALUE);
+      histogram.insertSample(-1);
+      assert histogram.getCount() == 2;
+      assert histogram.getPercentile(100) > Long.MAX_VALUE * 0.99;
+      assert histogram.getPercentile(50) == 0;
+   }
+
+   public void testRelativeError() {
+      LogHistogram histogram = new LogHistogram();
+      Random random = new Random(1);
+      double[] samples = new double[100000];
+      for (int i = 0; i < samples.length; ++i) {
+         //exponential distribution with a long tail
+         samples[i] = Math.floor(-Math.log(1 - random.nextDouble()) * 1000000);
+         histogram.insertSample(samples[i]);
+      }
+      Arrays.sort(samples);
+      for (double percentile : new double[]{1, 50, 90, 95, 99, 99.9, 99.99, 100}) {
+         final double expected = samples[(int) Math.ceil(percentile * samples.length / 100) - 1];
+         final double actual = histogram.getPercentile(percentile);
+         assert Math.abs(actual - expected) <= expected * 0.01 : "Wrong p" + percentile + ". Expected " + expected +
+               " but it is " + actual;
+      }
+      assert histogram.getKPercentile(99) == histogram.getPercentile(99);
+      histogram.reset();
+      assert histogram.getCount() == 0;
+      assert histogram.getPercentile(99) == 0;
+   }
+
+   public void testConcurrentInserts() throws InterruptedException {
+      final LogHistogram histogram = new LogHistogram();
+      final int numberOfThreads = 4;
+      final int samplesPerThread = 100000;
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread[] threads = new Thread[numberOfThreads];
+      for (int i = 0; i < threads.length; ++i) {
+         threads[i] = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+               } catch (InterruptedException e) {
+                  return;
+               }
+               for (int j = 0; j < samplesPerThread; ++j) {
+                  histogram.insertSample(j % 100);
+               }
+            }
+         };
+         threads[i].start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+         thread.join();
+      }
+      assert histogram.getCount() == numberOfThreads * samplesPerThread;
+      assert histogram.getPercentile(50) == 49;
+      assert histogram.getPercentile(100) == 99;
+   }
+
+   public void testMergeAndSnapshots() throws Exception {
+      LogHistogram histogram = new LogHistogram();
+      LogHistogram other = new LogHistogram();
+      for (int i = 1; i <= 100; ++i) {
+         histogram.insertSample(i);
+         other.insertSample(1000 + i);
+      }
+
+      LogHistogram interval = histogram.intervalSnapshot();
+      assert interval.getCount() == 100;
+      assert interval.getPercentile(100) == 100;
+
+      histogram.merge(other);
+      assert histogram.getCount() == 200;
+      assert other.getCount() == 100;
+      assert histogram.getPercentile(50) == 100;
+      assert Math.abs(histogram.getPercentile(100) - 1100) <= 11;
+
+      //only the merged samples were added after the previous interval
+      interval = histogram.intervalSnapshot();
+      assert interval.getCount() == 100;
+      assert Math.abs(interval.getPercentile(1) - 1001) <= 11;
+      assert histogram.intervalSnapshot().getCount() == 0;
+
+      LogHistogram snapshot = histogram.snapshot();
+      histogram.insertSample(5);
+      assert snapshot.getCount() == 200;
+      assert histogram.getCount() == 201;
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testMergeWithDifferentPrecision() {
+      new LogHistogram(7).merge(new LogHistogram(5));
+   }
+}
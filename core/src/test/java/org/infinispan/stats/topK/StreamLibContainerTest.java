@@ -0,0 +1,161 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.stats.topK;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests the top keys collected by the {@link StreamLibContainer} and the {@link ConcurrentStreamSummary}
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "stats.topK.StreamLibContainerTest")
+public class StreamLibContainerTest {
+
+   private static final int NUMBER_OF_THREADS = 4;
+   private static final int ACCESSES_PER_THREAD = 10000;
+
+   public void testConcurrentAccesses() throws Exception {
+      final StreamLibContainer container = createContainer();
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread[] threads = new Thread[NUMBER_OF_THREADS];
+      for (int i = 0; i < threads.length; ++i) {
+         final int threadId = i;
+         threads[i] = new Thread("StreamLibContainerTest-" + i) {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+               } catch (InterruptedException e) {
+                  return;
+               }
+               for (int j = 0; j < ACCESSES_PER_THREAD; ++j) {
+                  container.addGet("hot", false);
+                  if (j % 10 == 0) {
+                     container.addGet("warm-" + threadId, false);
+                  }
+               }
+            }
+         };
+         threads[i].start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      //the accesses are sampled: a full buffer drops the access if another thread is merging the buffers
+      Map<Object, Long> topK = container.getTopKFrom(StreamLibContainer.Stat.LOCAL_GET, 1 + NUMBER_OF_THREADS);
+      assert topK.get("hot") <= NUMBER_OF_THREADS * ACCESSES_PER_THREAD : "Wrong count " + topK;
+      for (int i = 0; i < NUMBER_OF_THREADS; ++i) {
+         assert topK.get("warm-" + i) <= ACCESSES_PER_THREAD / 10 : "Wrong count " + topK;
+      }
+      assert topK.keySet().iterator().next().equals("hot");
+   }
+
+   public void testBufferedAccessesFromOtherThread() throws Exception {
+      final StreamLibContainer container = createContainer();
+      Thread thread = new Thread("StreamLibContainerTest-writer") {
+         @Override
+         public void run() {
+            for (int i = 0; i < 10; ++i) {
+               container.addPut("key", true);
+            }
+         }
+      };
+      thread.start();
+      thread.join();
+
+      //the accesses are less than the buffer size. they must be visible anyway
+      Map<Object, Long> topK = container.getTopKFrom(StreamLibContainer.Stat.REMOTE_PUT);
+      assert topK.size() == 1 && topK.get("key") == 10 : "Wrong top keys " + topK;
+      assert container.getTopKFrom(StreamLibContainer.Stat.LOCAL_PUT).isEmpty();
+   }
+
+   public void testSingleThreadAccessesAreNotDropped() {
+      StreamLibContainer container = createContainer();
+      for (int i = 0; i < ACCESSES_PER_THREAD; ++i) {
+         container.addGet("key", true);
+      }
+      assert container.getTopKFrom(StreamLibContainer.Stat.REMOTE_GET).get("key") == ACCESSES_PER_THREAD;
+   }
+
+   public void testReset() {
+      StreamLibContainer container = createContainer();
+      for (int i = 0; i < 1000; ++i) {
+         container.addLockInformation("key", true, false);
+      }
+      assert container.getTopKFrom(StreamLibContainer.Stat.MOST_CONTENDED_KEYS).get("key") == 1000;
+      container.resetAll();
+      assert container.getTopKFrom(StreamLibContainer.Stat.MOST_LOCKED_KEYS).isEmpty();
+      assert container.getTopKFrom(StreamLibContainer.Stat.MOST_CONTENDED_KEYS).isEmpty();
+   }
+
+   public void testConcurrentStreamSummaryReplacement() {
+      ConcurrentStreamSummary<String> summary = new ConcurrentStreamSummary<String>(2);
+      assert !summary.offer("a", 5);
+      assert !summary.offer("b", 2);
+      assert summary.offer("a");
+      //replaces "b" (count 2): "c" has count 3 and error 2
+      assert !summary.offer("c");
+
+      Map<String, Long> topK = summary.topKey(2);
+      assert topK.size() == 2 : "Wrong top keys " + topK;
+      assert topK.get("a") == 6;
+      assert topK.get("c") == 3;
+      assert summary.peekWithScores(2).get(1).getError() == 2;
+   }
+
+   public void testConcurrentStreamSummaryConcurrentOffers() throws Exception {
+      final ConcurrentStreamSummary<String> summary = new ConcurrentStreamSummary<String>(100);
+      Thread[] threads = new Thread[NUMBER_OF_THREADS];
+      for (int i = 0; i < threads.length; ++i) {
+         threads[i] = new Thread("ConcurrentStreamSummary-" + i) {
+            @Override
+            public void run() {
+               for (int j = 0; j < ACCESSES_PER_THREAD; ++j) {
+                  summary.offer("hot");
+                  summary.offer("key-" + (j % 50));
+               }
+            }
+         };
+         threads[i].start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+      Map<String, Long> topK = summary.topKey(1);
+      assert topK.get("hot") == NUMBER_OF_THREADS * ACCESSES_PER_THREAD : "Wrong top keys " + topK;
+   }
+
+   private static StreamLibContainer createContainer() {
+      StreamLibContainer container = new StreamLibContainer("cache", "address");
+      container.setCapacity(100);
+      container.setActive(true);
+      return container;
+   }
+}
@@ -0,0 +1,206 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.VersioningScheme;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.gmu.GMUReadVersion;
+import org.infinispan.container.versioning.gmu.GMUReplicatedVersion;
+import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.ReplGMUVersionGenerator;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.transaction.gmu.manager.CommittedTransaction;
+import org.infinispan.transaction.gmu.manager.GarbageCollectorBacklog;
+import org.infinispan.transaction.xa.CacheTransaction;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the lookups of the {@link CommitLog} in its version index.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "transaction.gmu.CommitLogTest")
+public class CommitLogTest {
+
+   private static final String CACHE_NAME = "commitLogTest";
+   private ReplGMUVersionGenerator versionGenerator;
+   private CommitLog commitLog;
+
+   @BeforeMethod
+   public void setUp() {
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getAddress()).thenReturn(new TestAddress(0, "A"));
+      Cache cache = mock(Cache.class);
+      when(cache.getName()).thenReturn(CACHE_NAME);
+      versionGenerator = new ReplGMUVersionGenerator();
+      versionGenerator.init(rpcManager, cache);
+      versionGenerator.setEmptyViewId();
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.locking().isolationLevel(IsolationLevel.SERIALIZABLE);
+      builder.versioning().enable().scheme(VersioningScheme.GMU);
+      commitLog = new CommitLog();
+      commitLog.inject(versionGenerator, builder.build());
+      commitLog.start();
+   }
+
+   public void testGetEntry() {
+      commit(1, 10);
+
+      for (long value = 1; value <= 10; ++value) {
+         assert version(commitLog.getEntry(version(value))) == value;
+      }
+      //not committed yet
+      assert version(commitLog.getEntry(version(11))) == 0;
+      assert version(commitLog.getOldestVersion()) == 0;
+   }
+
+   public void testGetReadVersion() {
+      commit(1, 10);
+
+      GMUReadVersion readVersion = commitLog.getReadVersion(version(5));
+      assert readVersion.getThisNodeVersionValue() == 5;
+      assert readVersion.notVisibleSize() == 0;
+      readVersion = commitLog.getReadVersion(version(20));
+      assert readVersion.getThisNodeVersionValue() == 20;
+      assert readVersion.notVisibleSize() == 0;
+   }
+
+   public void testVersionsBeingInsertedAreNotVisible() {
+      commit(1, 10);
+      final List<Long> found = new ArrayList<Long>();
+      //invoked while inserting version 12, after version 11 was indexed but before the current version is updated
+      HookVersion hookVersion = new HookVersion(12) {
+         @Override
+         protected void onAccess() {
+            found.add(version(commitLog.getEntry(version(11))));
+            found.add(version(commitLog.getEntry(version(10))));
+            found.add(version(commitLog.getAvailableVersionLessThan(null)));
+         }
+      };
+      commitLog.insertNewCommittedVersions(Arrays.asList(transaction(version(11), "k11"),
+                                                         transaction(hookVersion, "k12")));
+
+      assert found.equals(Arrays.asList(0L, 10L, 10L)) : "Versions not committed were found: " + found;
+      assert version(commitLog.getEntry(version(11))) == 11;
+      assert version(commitLog.getEntry(version(12))) == 12;
+   }
+
+   public void testGarbageCollection() {
+      commit(1, 10);
+      GarbageCollectorBacklog backlog = new GarbageCollectorBacklog(100);
+
+      assert version(commitLog.gcOlderVersions(version(5), backlog)) == 5;
+
+      //the older versions are removed from the index
+      assert version(commitLog.getOldestVersion()) == 5;
+      assert version(commitLog.getEntry(version(3))) == 5;
+      assert version(commitLog.getEntry(version(5))) == 5;
+      assert version(commitLog.getEntry(version(7))) == 7;
+      GMUReadVersion readVersion = commitLog.getReadVersion(version(3));
+      assert readVersion.getThisNodeVersionValue() == 3;
+      assert readVersion.notVisibleSize() == 0;
+
+      //only the keys of the removed versions are collected
+      Set<Object> keys = new HashSet<Object>();
+      for (Object key = backlog.pollKey(); key != null; key = backlog.pollKey()) {
+         keys.add(key);
+      }
+      assert keys.equals(new HashSet<Object>(Arrays.asList("k1", "k2", "k3", "k4", "k5"))) : "Wrong keys " + keys;
+
+      commit(11, 15);
+      assert version(commitLog.gcOlderVersions(version(12), backlog)) == 12;
+      assert version(commitLog.getOldestVersion()) == 12;
+      keys.clear();
+      for (Object key = backlog.pollKey(); key != null; key = backlog.pollKey()) {
+         keys.add(key);
+      }
+      assert keys.equals(new HashSet<Object>(Arrays.asList("k6", "k7", "k8", "k9", "k10", "k11", "k12"))) :
+            "Wrong keys " + keys;
+   }
+
+   private void commit(long from, long to) {
+      List<CommittedTransaction> transactions = new ArrayList<CommittedTransaction>();
+      for (long value = from; value <= to; ++value) {
+         transactions.add(transaction(version(value), "k" + value));
+      }
+      commitLog.insertNewCommittedVersions(transactions);
+   }
+
+   private GMUVersion version(long value) {
+      return new GMUReplicatedVersion(CACHE_NAME, -1, versionGenerator, value);
+   }
+
+   private static long version(EntryVersion version) {
+      return ((GMUVersion) version).getThisNodeVersionValue();
+   }
+
+   private static CommittedTransaction transaction(GMUVersion version, Object key) {
+      WriteCommand command = mock(WriteCommand.class);
+      when(command.getAffectedKeys()).thenReturn(Collections.singleton(key));
+      CacheTransaction cacheTransaction = mock(CacheTransaction.class);
+      when(cacheTransaction.getTransactionVersion()).thenReturn(version);
+      when(cacheTransaction.getModifications()).thenReturn(Collections.singletonList(command));
+      return new CommittedTransaction(cacheTransaction, 0, 0);
+   }
+
+   /**
+    * invokes {@link #onAccess()} in the first access to its version value
+    */
+   private abstract class HookVersion extends GMUReplicatedVersion {
+
+      private boolean invoked;
+
+      private HookVersion(long version) {
+         super(CACHE_NAME, -1, versionGenerator, version);
+      }
+
+      @Override
+      public long getThisNodeVersionValue() {
+         if (!invoked) {
+            invoked = true;
+            onAccess();
+         }
+         return super.getThisNodeVersionValue();
+      }
+
+      protected abstract void onAccess();
+   }
+}
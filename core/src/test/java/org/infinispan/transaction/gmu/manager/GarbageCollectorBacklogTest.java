@@ -0,0 +1,77 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu.manager;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link GarbageCollectorBacklog}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "transaction.gmu.manager.GarbageCollectorBacklogTest")
+public class GarbageCollectorBacklogTest extends AbstractInfinispanTest {
+
+   public void testKeysAreDeduplicated() {
+      GarbageCollectorBacklog backlog = new GarbageCollectorBacklog(10);
+      backlog.addKeys(new Object[]{"k1", "k2"});
+      backlog.addKeys(new Object[]{"k2", "k3"});
+      assert backlog.size() == 3;
+      assert "k1".equals(backlog.pollKey());
+      assert "k2".equals(backlog.pollKey());
+      assert "k3".equals(backlog.pollKey());
+      assert backlog.pollKey() == null;
+      assert backlog.isEmpty();
+   }
+
+   public void testAllKeys() {
+      GarbageCollectorBacklog backlog = new GarbageCollectorBacklog(10);
+      backlog.addKeys(new Object[]{"k1"});
+      backlog.addKeys(null);
+      backlog.addKeys(new Object[]{"k2"});
+      assert !backlog.isEmpty();
+      assert backlog.size() == 0;
+      assert backlog.pollAllKeys();
+      assert !backlog.pollAllKeys();
+      assert backlog.isEmpty();
+   }
+
+   public void testOverflow() {
+      GarbageCollectorBacklog backlog = new GarbageCollectorBacklog(3);
+      backlog.addKeys(new Object[]{"k1", "k2"});
+      backlog.addKey("k3");
+      assert backlog.size() == 3;
+      assert !backlog.pollAllKeys();
+      backlog.addKey("k4");
+      assert backlog.size() == 0;
+      backlog.addKeys(new Object[]{"k5"});
+      assert backlog.size() == 0;
+      assert backlog.pollAllKeys();
+      assert backlog.isEmpty();
+      backlog.addKeys(new Object[]{"k1", "k2", "k3", "k4"});
+      assert backlog.size() == 0;
+      assert backlog.pollAllKeys();
+   }
+}
@@ -0,0 +1,88 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu.manager;
+
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the {@link MinimumVisibleVersionGossip}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "transaction.gmu.manager.MinimumVisibleVersionGossipTest")
+public class MinimumVisibleVersionGossipTest extends AbstractInfinispanTest {
+
+   private static final Address NODE_1 = new TestAddress(1);
+   private static final Address NODE_2 = new TestAddress(2);
+
+   public void testAllMembersKnown() {
+      MinimumVisibleVersionGossip gossip = new MinimumVisibleVersionGossip();
+      EntryVersion v1 = mock(EntryVersion.class);
+      EntryVersion v2 = mock(EntryVersion.class);
+      gossip.update(NODE_1, v1, 0);
+      gossip.update(NODE_2, v2, 0);
+      EntryVersion[] versions = gossip.collect(Arrays.asList(NODE_1, NODE_2), 10, 100);
+      assert versions != null;
+      assert versions.length == 2;
+      assert versions[0] == v1;
+      assert versions[1] == v2;
+   }
+
+   public void testMissingMember() {
+      MinimumVisibleVersionGossip gossip = new MinimumVisibleVersionGossip();
+      gossip.update(NODE_1, mock(EntryVersion.class), 0);
+      gossip.update(NODE_2, null, 0);
+      assert gossip.collect(Arrays.asList(NODE_1, NODE_2), 10, 100) == null;
+   }
+
+   public void testStaleVersion() {
+      MinimumVisibleVersionGossip gossip = new MinimumVisibleVersionGossip();
+      EntryVersion v1 = mock(EntryVersion.class);
+      gossip.update(NODE_1, mock(EntryVersion.class), 0);
+      assert gossip.collect(Collections.singleton(NODE_1), 101, 100) == null;
+      gossip.update(NODE_1, v1, 100);
+      EntryVersion[] versions = gossip.collect(Collections.singleton(NODE_1), 101, 100);
+      assert versions != null && versions[0] == v1;
+   }
+
+   public void testLeaversAreRemoved() {
+      MinimumVisibleVersionGossip gossip = new MinimumVisibleVersionGossip();
+      gossip.update(NODE_1, mock(EntryVersion.class), 0);
+      gossip.update(NODE_2, mock(EntryVersion.class), 0);
+      assert gossip.size() == 2;
+      assert gossip.collect(Collections.singleton(NODE_1), 0, 100) != null;
+      assert gossip.size() == 1;
+      assert gossip.collect(Collections.<Address>emptySet(), 0, 100).length == 0;
+      assert gossip.size() == 0;
+   }
+}
@@ -0,0 +1,242 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.gmu.manager;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.versioning.gmu.GMUReplicatedVersion;
+import org.infinispan.container.versioning.gmu.GMUVersion;
+import org.infinispan.container.versioning.gmu.GMUVersionGenerator;
+import org.infinispan.dataplacement.ClusterSnapshot;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.xa.CacheTransaction;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.infinispan.transaction.gmu.manager.SortedTransactionQueue.TransactionEntry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the ordering and the ready to commit detection of the {@link SortedTransactionQueue}.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "transaction.gmu.manager.SortedTransactionQueueTest")
+public class SortedTransactionQueueTest extends AbstractInfinispanTest {
+
+   private static final Address ADDRESS = new TestAddress(0);
+   private GMUVersionGenerator versionGenerator;
+   private SortedTransactionQueue queue;
+   private ConcurrentMap<GlobalTransaction, GMUVersion> prepareVersions;
+   private ConcurrentMap<GlobalTransaction, Long> commitVersions;
+
+   @BeforeMethod
+   public void setUp() {
+      ClusterSnapshot clusterSnapshot = new ClusterSnapshot(Collections.singleton(ADDRESS), new MurmurHash3());
+      versionGenerator = mock(GMUVersionGenerator.class);
+      when(versionGenerator.getClusterSnapshot(1)).thenReturn(clusterSnapshot);
+      queue = new SortedTransactionQueue();
+      prepareVersions = new ConcurrentHashMap<GlobalTransaction, GMUVersion>();
+      commitVersions = new ConcurrentHashMap<GlobalTransaction, Long>();
+   }
+
+   public void testCommitOrder() {
+      CacheTransaction tx1 = prepare(1);
+      CacheTransaction tx2 = prepare(2);
+      CacheTransaction tx3 = prepare(3);
+
+      TransactionEntry entry2 = queue.commit(tx2.getGlobalTransaction(), version(5));
+      assert !entry2.isReadyToCommit() : "tx1 and tx3 are pending";
+      TransactionEntry entry1 = queue.commit(tx1.getGlobalTransaction(), version(2));
+      assert entry1.isReadyToCommit();
+      assert !entry2.isReadyToCommit() : "tx3 is pending";
+
+      assertToCommit(entry1);
+      entry1.committed();
+      queue.notifyTransactionsCommitted();
+      assert queue.size() == 2;
+
+      TransactionEntry entry3 = queue.commit(tx3.getGlobalTransaction(), version(5));
+      assert entry2.isReadyToCommit();
+      assert entry3.isReadyToCommit();
+      assertToCommit(entry2, entry3);
+   }
+
+   public void testRollbackUnblocksQueue() {
+      CacheTransaction tx1 = prepare(1);
+      CacheTransaction tx2 = prepare(2);
+
+      TransactionEntry entry2 = queue.commit(tx2.getGlobalTransaction(), version(2));
+      assert !entry2.isReadyToCommit();
+      queue.rollback(tx1);
+      assert entry2.isReadyToCommit();
+      assert queue.size() == 1;
+   }
+
+   public void testCommitOfUnknownTransaction() {
+      CacheTransaction tx = cacheTransaction();
+      assert queue.commit(tx.getGlobalTransaction(), version(1)) == null;
+   }
+
+   public void testConcurrentPrepareAndCommit() throws Exception {
+      final int numberOfThreads = 8;
+      final int transactionsPerThread = 500;
+      final Object versionLock = new Object();
+      final long[] lastVersion = {0};
+      final List<Long> committedVersions = Collections.synchronizedList(new ArrayList<Long>());
+      final AtomicInteger committedCount = new AtomicInteger(0);
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<Thread>(numberOfThreads);
+
+      final CacheTransaction[][] transactions = new CacheTransaction[numberOfThreads][transactionsPerThread];
+      for (int i = 0; i < numberOfThreads; ++i) {
+         for (int j = 0; j < transactionsPerThread; ++j) {
+            transactions[i][j] = cacheTransaction();
+         }
+      }
+
+      for (int i = 0; i < numberOfThreads; ++i) {
+         final CacheTransaction[] threadTransactions = transactions[i];
+         Thread thread = new Thread("Worker-" + i) {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+                  for (int j = 0; j < transactionsPerThread; ++j) {
+                     CacheTransaction tx = threadTransactions[j];
+                     //same as the TransactionCommitManager: the prepare and commit versions are assigned atomically
+                     synchronized (versionLock) {
+                        prepare(tx, ++lastVersion[0]);
+                     }
+                     TransactionEntry entry;
+                     synchronized (versionLock) {
+                        long commitVersion = lastVersion[0] = lastVersion[0] + (j % 3);
+                        commitVersions.put(tx.getGlobalTransaction(), commitVersion);
+                        entry = queue.commit(tx.getGlobalTransaction(), version(commitVersion));
+                     }
+                     entry.awaitUntilIsReadyToCommit();
+                     commitReadyTransactions(committedVersions, committedCount);
+                     entry.awaitUntilCommitted();
+                  }
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         };
+         threads.add(thread);
+         thread.start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+         thread.join(60000);
+         assert !thread.isAlive() : "Thread " + thread.getName() + " is blocked";
+      }
+
+      assert committedCount.get() == numberOfThreads * transactionsPerThread;
+      assert queue.size() == 0;
+      long last = 0;
+      for (long committedVersion : committedVersions) {
+         assert committedVersion >= last : "Out of order commit: " + committedVersion + " after " + last;
+         last = committedVersion;
+      }
+   }
+
+   private void commitReadyTransactions(List<Long> committedVersions, AtomicInteger committedCount) {
+      List<TransactionEntry> toCommit = new ArrayList<TransactionEntry>();
+      queue.populateToCommit(toCommit);
+      List<TransactionEntry> committed = new ArrayList<TransactionEntry>(toCommit.size());
+      for (TransactionEntry entry : toCommit) {
+         if (entry.committing()) {
+            committed.add(entry);
+         } else {
+            try {
+               entry.awaitUntilCommitted();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+         }
+      }
+      synchronized (committedVersions) {
+         for (TransactionEntry entry : committed) {
+            committedVersions.add(commitVersions.get(entry.getGlobalTransaction()));
+         }
+      }
+      committedCount.addAndGet(committed.size());
+      for (TransactionEntry entry : committed) {
+         entry.committed();
+      }
+      queue.notifyTransactionsCommitted();
+   }
+
+   private void assertToCommit(TransactionEntry... expected) {
+      List<TransactionEntry> toCommit = new ArrayList<TransactionEntry>();
+      queue.populateToCommit(toCommit);
+      assert toCommit.size() == expected.length : "Expected " + expected.length + " entries but was " + toCommit;
+      for (int i = 0; i < expected.length; ++i) {
+         assert toCommit.get(i) == expected[i] : "Wrong entry in position " + i + ": " + toCommit;
+      }
+   }
+
+   private CacheTransaction prepare(long version) {
+      return prepare(cacheTransaction(), version);
+   }
+
+   private CacheTransaction prepare(CacheTransaction cacheTransaction, long version) {
+      prepareVersions.put(cacheTransaction.getGlobalTransaction(), version(version));
+      queue.prepare(cacheTransaction, 0);
+      return cacheTransaction;
+   }
+
+   //the mocks are created in the test thread. the prepare version is set later
+   private CacheTransaction cacheTransaction() {
+      final GlobalTransaction globalTransaction = new GlobalTransaction(ADDRESS, false) {};
+      final CacheTransaction cacheTransaction = mock(CacheTransaction.class);
+      when(cacheTransaction.getGlobalTransaction()).thenReturn(globalTransaction);
+      when(cacheTransaction.getTransactionVersion()).thenAnswer(new Answer<Object>() {
+         @Override
+         public Object answer(InvocationOnMock invocation) {
+            return prepareVersions.get(globalTransaction);
+         }
+      });
+      return cacheTransaction;
+   }
+
+   private GMUVersion version(long value) {
+      return new GMUReplicatedVersion("cache", 1, versionGenerator, value);
+   }
+}
@@ -0,0 +1,208 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.transaction.totalorder;
+
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.executors.BlockingTaskAwareExecutorServiceTest;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.TotalOrderRemoteTransactionState;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorServiceImpl;
+import org.infinispan.util.concurrent.DependencyAwareRunnable;
+import org.infinispan.util.concurrent.TaskDependency;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the ordering of the conflicting transactions in the {@link GMUTotalOrderManager} admission lanes.
+ *
+ * @author Pedro Ruivo
+ * @since 5.3
+ */
+@Test(groups = "unit", testName = "transaction.totalorder.GMUTotalOrderManagerTest")
+public class GMUTotalOrderManagerTest extends AbstractInfinispanTest {
+
+   private static final TestAddress ADDRESS = new TestAddress(1);
+   private BlockingTaskAwareExecutorServiceImpl executorService;
+   private GMUTotalOrderManager totalOrderManager;
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      if (totalOrderManager != null) {
+         totalOrderManager.stop();
+      }
+      if (executorService != null) {
+         executorService.shutdownNow();
+      }
+   }
+
+   public void testConflictingTransactionsWithLanes() throws Exception {
+      createTotalOrderManager(4);
+      assertConflictingTransactionsOrdered();
+   }
+
+   public void testConflictingTransactionsWithoutLanes() throws Exception {
+      createTotalOrderManager(1);
+      assertConflictingTransactionsOrdered();
+   }
+
+   public void testClearWaitsInAllLanes() throws Exception {
+      createTotalOrderManager(4);
+      final Prepare first = prepare(keys("a", "b", "c", "d"), keys());
+      final Prepare clear = prepare(null);
+      final Prepare afterClear = prepare(keys("e"), keys());
+
+      awaitExecuted(first);
+      Thread.sleep(100);
+      assert !clear.executed;
+      assert !afterClear.executed;
+
+      totalOrderManager.release(first.state);
+      awaitExecuted(clear);
+      Thread.sleep(100);
+      assert !afterClear.executed;
+
+      totalOrderManager.release(clear.state);
+      awaitExecuted(afterClear);
+      totalOrderManager.release(afterClear.state);
+      assert !totalOrderManager.hasAnyLockAcquired();
+   }
+
+   public void testStateTransferWaitsForDeliveredTransactions() throws Exception {
+      createTotalOrderManager(4);
+      final Prepare first = prepare(keys("a", "b", "c", "d"), keys("e"));
+
+      Collection<TotalOrderLatch> pending = totalOrderManager.notifyStateTransferStart(1);
+      assert pending.contains(first.state.getTransactionSynchronizedBlock()) : "Wrong pending transactions " + pending;
+
+      final Prepare duringStateTransfer = prepare(keys("f"), keys());
+      Thread.sleep(100);
+      assert !duringStateTransfer.executed;
+
+      totalOrderManager.notifyStateTransferEnd();
+      awaitExecuted(duringStateTransfer);
+      totalOrderManager.release(first.state);
+      totalOrderManager.release(duringStateTransfer.state);
+      assert !totalOrderManager.hasAnyLockAcquired();
+   }
+
+   public void testStopFailsPendingAdmissions() throws Exception {
+      createTotalOrderManager(4);
+      totalOrderManager.stop();
+      final Prepare notAdmitted = prepare(keys("a", "b", "c", "d"), keys());
+
+      //the lanes are drained, it does not block
+      totalOrderManager.notifyStateTransferStart(1);
+      totalOrderManager.notifyStateTransferEnd();
+      Thread.sleep(100);
+      assert !notAdmitted.executed;
+      assert !notAdmitted.state.getTransactionSynchronizedBlock().isBlocked();
+   }
+
+   private void assertConflictingTransactionsOrdered() throws Exception {
+      final Prepare first = prepare(keys("a", "b", "c", "d", "e", "f", "g", "h"), keys());
+      final Prepare writeAfterFirst = prepare(keys("d"), keys());
+      final Prepare readAfterFirst = prepare(keys(), keys("f"));
+      final Prepare readAfterWrite = prepare(keys("x"), keys("d"));
+      final Prepare nonConflicting = prepare(keys("y", "z"), keys("w"));
+
+      awaitExecuted(first);
+      awaitExecuted(nonConflicting);
+      Thread.sleep(100);
+      assert !writeAfterFirst.executed;
+      assert !readAfterFirst.executed;
+      assert !readAfterWrite.executed;
+
+      totalOrderManager.release(first.state);
+      awaitExecuted(writeAfterFirst);
+      awaitExecuted(readAfterFirst);
+      Thread.sleep(100);
+      assert !readAfterWrite.executed;
+
+      totalOrderManager.release(writeAfterFirst.state);
+      awaitExecuted(readAfterWrite);
+
+      totalOrderManager.release(readAfterFirst.state);
+      totalOrderManager.release(readAfterWrite.state);
+      totalOrderManager.release(nonConflicting.state);
+      assert !totalOrderManager.hasAnyLockAcquired();
+   }
+
+   private void createTotalOrderManager(int lanes) {
+      executorService = new BlockingTaskAwareExecutorServiceImpl(new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS,
+                                                                                        new LinkedBlockingQueue<Runnable>(),
+                                                                                        new BlockingTaskAwareExecutorServiceTest.DummyThreadFactory()));
+      totalOrderManager = new GMUTotalOrderManager(lanes);
+      totalOrderManager.inject(executorService);
+      totalOrderManager.start();
+      assert totalOrderManager.getNumberOfLanes() == lanes;
+   }
+
+   private Prepare prepare(Object[] writeSet, Object[] readSet) throws InterruptedException {
+      return prepare(new Object[][]{writeSet, readSet});
+   }
+
+   private Prepare prepare(Object[][] keys) throws InterruptedException {
+      Prepare prepare = new Prepare(new TotalOrderRemoteTransactionState(new GlobalTransaction(ADDRESS, true) {}));
+      totalOrderManager.ensureOrder(prepare.state, keys, prepare);
+      return prepare;
+   }
+
+   private void awaitExecuted(final Prepare prepare) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return prepare.executed;
+         }
+      });
+   }
+
+   private static Object[] keys(Object... keys) {
+      return keys;
+   }
+
+   private static class Prepare extends DependencyAwareRunnable {
+
+      private final TotalOrderRemoteTransactionState state;
+      private volatile boolean executed;
+
+      private Prepare(TotalOrderRemoteTransactionState state) {
+         this.state = state;
+      }
+
+      @Override
+      protected Collection<? extends TaskDependency> getDependencies() {
+         return state.getConflictingTransactionBlocks();
+      }
+
+      @Override
+      public void run() {
+         executed = true;
+      }
+   }
+}
@@ -0,0 +1,213 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.tx.gmu;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.VersioningScheme;
+import org.infinispan.context.Flag;
+import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.interceptors.base.BaseCustomInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.transaction.TransactionTable;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.transaction.Transaction;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "tx.gmu.DeclaredReadOnlyTest")
+public class DeclaredReadOnlyTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 10;
+   private static final Object[] KEYS = new Object[NUM_KEYS];
+   private static final Object[] VALUES = new Object[NUM_KEYS];
+
+   static {
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         KEYS[i] = "KEY_" + i;
+         VALUES[i] = "VALUE_" + i;
+      }
+   }
+
+   public DeclaredReadOnlyTest() {
+      this.cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   public final void testPrepareSkipped() throws Exception {
+      populate();
+      PrepareCounterInterceptor counter = injectInCache(cache(0));
+
+      tm(0).begin();
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         Assert.assertEquals(advancedCache(0).withFlags(Flag.READ_ONLY_TRANSACTION).get(KEYS[i]), VALUES[i]);
+      }
+      tm(0).commit();
+
+      Assert.assertEquals(counter.prepares.get(), 0, "Declared read-only transaction should not prepare.");
+      assertNoLocalTransactions();
+
+      tm(0).begin();
+      cache(0).get(KEYS[0]);
+      tm(0).commit();
+
+      Assert.assertEquals(counter.prepares.get(), 1, "Not declared read-only transaction should prepare.");
+   }
+
+   public final void testConsistentSnapshot() throws Exception {
+      populate();
+
+      tm(0).begin();
+      Assert.assertEquals(advancedCache(0).withFlags(Flag.READ_ONLY_TRANSACTION).get(KEYS[0]), VALUES[0]);
+      final Transaction readOnly = tm(0).suspend();
+
+      tm(0).begin();
+      cache(0).put(KEYS[0], VALUES[1]);
+      cache(0).put(KEYS[1], VALUES[2]);
+      tm(0).commit();
+
+      tm(0).resume(readOnly);
+      Assert.assertEquals(cache(0).get(KEYS[0]), VALUES[0]);
+      Assert.assertEquals(cache(0).get(KEYS[1]), VALUES[1]);
+      tm(0).commit();
+
+      assertNoLocalTransactions();
+   }
+
+   public final void testTransactionTablesStayEmpty() throws Exception {
+      populate();
+
+      tm(0).begin();
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         Assert.assertEquals(advancedCache(0).withFlags(Flag.READ_ONLY_TRANSACTION).get(KEYS[i]), VALUES[i]);
+      }
+      //registered while it runs, so the garbage collector keeps its snapshot
+      Assert.assertEquals(TestingUtil.extractComponent(cache(0), TransactionTable.class).getLocalTxCount(), 1);
+      assertNoRemoteTransactions();
+      tm(0).commit();
+
+      assertNoLocalTransactions();
+      assertNoRemoteTransactions();
+   }
+
+   public final void testWriteNotAllowed() throws Exception {
+      populate();
+
+      tm(0).begin();
+      advancedCache(0).withFlags(Flag.READ_ONLY_TRANSACTION).get(KEYS[0]);
+      try {
+         cache(0).put(KEYS[0], VALUES[1]);
+         Assert.fail("Write should fail in a declared read-only transaction");
+      } catch (IllegalStateException e) {
+         //expected
+      } finally {
+         tm(0).rollback();
+      }
+
+      tm(0).begin();
+      cache(0).put(KEYS[0], VALUES[1]);
+      try {
+         advancedCache(0).withFlags(Flag.READ_ONLY_TRANSACTION).get(KEYS[0]);
+         Assert.fail("A transaction that already wrote cannot be declared read-only");
+      } catch (IllegalStateException e) {
+         //expected
+      } finally {
+         tm(0).rollback();
+      }
+
+      assertNoLocalTransactions();
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      builder.locking().isolationLevel(IsolationLevel.SERIALIZABLE);
+      builder.versioning().enable().scheme(VersioningScheme.GMU);
+      builder.clustering().stateTransfer().fetchInMemoryState(false);
+      builder.clustering().hash().numOwners(1).numSegments(25);
+      createClusteredCaches(3, builder);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   private void removeInterceptor() {
+      for (Cache cache : caches()) {
+         InterceptorChain chain = TestingUtil.extractComponent(cache, InterceptorChain.class);
+         chain.removeInterceptor(PrepareCounterInterceptor.class);
+      }
+   }
+
+   private PrepareCounterInterceptor injectInCache(Cache cache) {
+      InterceptorChain chain = TestingUtil.extractComponent(cache, InterceptorChain.class);
+      List<CommandInterceptor> interceptors = chain.getInterceptorsWithClass(PrepareCounterInterceptor.class);
+      if (interceptors.isEmpty()) {
+         PrepareCounterInterceptor interceptor = new PrepareCounterInterceptor();
+         chain.addInterceptor(interceptor, 0);
+         return interceptor;
+      }
+      return (PrepareCounterInterceptor) interceptors.get(0);
+   }
+
+   private void populate() throws Exception {
+      tm(0).begin();
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         cache(0).put(KEYS[i], VALUES[i]);
+      }
+      tm(0).commit();
+   }
+
+   private void assertNoLocalTransactions() {
+      Assert.assertEquals(TestingUtil.extractComponent(cache(0), TransactionTable.class).getLocalTxCount(), 0);
+   }
+
+   private void assertNoRemoteTransactions() {
+      for (Cache cache : caches()) {
+         Assert.assertEquals(TestingUtil.extractComponent(cache, TransactionTable.class).getRemoteTxCount(), 0,
+                             "No transaction should be registered in " + address(cache));
+      }
+   }
+
+   private class PrepareCounterInterceptor extends BaseCustomInterceptor {
+
+      private final AtomicInteger prepares = new AtomicInteger(0);
+
+      @Override
+      public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand command) throws Throwable {
+         if (ctx.isOriginLocal()) {
+            prepares.incrementAndGet();
+         }
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * INESC-ID, Instituto de Engenharia de Sistemas e Computadores Investigação e Desevolvimento em Lisboa
+ * Copyright 2013 INESC-ID and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3.0 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.tx.gmu;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.CountingRpcManager;
+import org.testng.annotations.Test;
+
+import javax.transaction.Transaction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the multi-key remote reads: the keys are fetched with a single {@link GMUClusteredGetManyCommand} per owner
+ * and all of them are read from the transaction snapshot.
+ *
+ * @author Pedro Ruivo
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "tx.gmu.DistGetAllTest")
+public class DistGetAllTest extends AbstractGMUTest {
+
+   public void testKeysGroupedByOwner() throws Exception {
+      final Object key1 = newKey(1);
+      final Object key2 = newKey(1);
+      final Object key3 = newKey(2);
+      final Object local = newKey(0);
+      txPut(1, key1, VALUE_1, null);
+      txPut(1, key2, VALUE_1, null);
+      txPut(1, key3, VALUE_1, null);
+      txPut(1, local, VALUE_1, null);
+
+      final GetManyRpcManager rpcManager = replaceRpcManager();
+      try {
+         tm(0).begin();
+         Map<Object, Object> values = cache(0).getAdvancedCache().getAll(new HashSet<Object>(Arrays.asList(key1, key2,
+                                                                                                            key3, local)));
+         tm(0).commit();
+
+         assertEquals(values.size(), 4, "Wrong values " + values);
+         for (Object key : Arrays.asList(key1, key2, key3, local)) {
+            assertEquals(values.get(key), VALUE_1, "Wrong value for " + key);
+         }
+         assertEquals(rpcManager.clusterGet, 0, "The keys should be fetched in batch");
+         assertEquals(rpcManager.batches.size(), 2, "Wrong batches " + rpcManager.batches);
+         for (List<Object> batch : rpcManager.batches) {
+            if (batch.size() == 2) {
+               assert batch.containsAll(Arrays.asList(key1, key2)) : "Wrong batch " + batch;
+            } else {
+               assertEquals(batch, Collections.singletonList(key3), "Wrong batch");
+            }
+         }
+      } finally {
+         TestingUtil.replaceComponent(cache(0), RpcManager.class, rpcManager.actual, true);
+      }
+      assertNoTransactions();
+   }
+
+   public void testConsistentSnapshot() throws Exception {
+      final Object key1 = newKey(1);
+      final Object key2 = newKey(2);
+      final Object local = newKey(0);
+      txPut(1, key1, VALUE_1, null);
+      txPut(1, key2, VALUE_1, null);
+      txPut(1, local, VALUE_1, null);
+
+      tm(0).begin();
+      assertEquals(cache(0).get(local), VALUE_1);
+      final Transaction transaction = tm(0).suspend();
+
+      tm(1).begin();
+      cache(1).put(key1, VALUE_2);
+      cache(1).put(key2, VALUE_2);
+      cache(1).put(local, VALUE_2);
+      tm(1).commit();
+
+      tm(0).resume(transaction);
+      Map<Object, Object> values = cache(0).getAdvancedCache().getAll(new HashSet<Object>(Arrays.asList(key1, key2)));
+      tm(0).commit();
+      assertEquals(values.get(key1), VALUE_1, "Wrong value for " + key1);
+      assertEquals(values.get(key2), VALUE_1, "Wrong value for " + key2);
+
+      tm(0).begin();
+      values = cache(0).getAdvancedCache().getAll(new HashSet<Object>(Arrays.asList(key1, key2, local)));
+      tm(0).commit();
+      assertEquals(values.get(key1), VALUE_2, "Wrong value for " + key1);
+      assertEquals(values.get(key2), VALUE_2, "Wrong value for " + key2);
+      assertEquals(values.get(local), VALUE_2, "Wrong value for " + local);
+
+      assertNoTransactions();
+   }
+
+   @Override
+   protected void decorate(ConfigurationBuilder builder) {
+      builder.clustering().hash().numOwners(1);
+   }
+
+   @Override
+   protected int initialClusterSize() {
+      return 3;
+   }
+
+   @Override
+   protected boolean syncCommitPhase() {
+      return true;
+   }
+
+   @Override
+   protected CacheMode cacheMode() {
+      return CacheMode.DIST_SYNC;
+   }
+
+   private GetManyRpcManager replaceRpcManager() {
+      RpcManager actual = TestingUtil.extractComponent(cache(0), RpcManager.class);
+      GetManyRpcManager rpcManager = new GetManyRpcManager(actual);
+      TestingUtil.replaceComponent(cache(0), RpcManager.class, rpcManager, true);
+      return rpcManager;
+   }
+
+   private static class GetManyRpcManager extends CountingRpcManager {
+
+      private final List<List<Object>> batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+      private final RpcManager actual;
+
+      private GetManyRpcManager(RpcManager realOne) {
+         super(realOne);
+         this.actual = realOne;
+      }
+
+      @Override
+      protected void aboutToInvokeRpc(ReplicableCommand rpcCommand) {
+         if (rpcCommand instanceof GMUClusteredGetManyCommand) {
+            batches.add(Arrays.asList(((GMUClusteredGetManyCommand) rpcCommand).getKeys()));
+         } else if (rpcCommand instanceof ClusteredGetCommand) {
+            clusterGet++;
+         }
+      }
+   }
+}
@@ -32,6 +32,7 @@
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.GetManyCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
@@ -40,6 +41,7 @@
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
 import org.infinispan.commands.remote.GMUClusteredGetCommand;
+import org.infinispan.commands.remote.GMUClusteredGetManyCommand;
 import org.infinispan.commands.remote.GarbageCollectorControlCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.ReconfigurableProtocolCommand;
@@ -195,6 +197,11 @@ public GetCacheEntryCommand buildGetCacheEntryCommand(Object key, Set<Flag> flag
       return actual.buildGetCacheEntryCommand(key, flags);
    }
 
+   @Override
+   public GetManyCommand buildGetManyCommand(Set<Object> keys, Set<Flag> flags) {
+      return actual.buildGetManyCommand(keys, flags);
+   }
+
    @Override
    public KeySetCommand buildKeySetCommand() {
       return actual.buildKeySetCommand();
@@ -370,6 +377,11 @@ public GMUClusteredGetCommand buildGMUClusteredGetCommand(Object key, Set<Flag>
       return actual.buildGMUClusteredGetCommand(key, flags, acquireRemoteLock, gtx, txVersion, alreadyReadFromMask);
    }
 
+   @Override
+   public GMUClusteredGetManyCommand buildGMUClusteredGetManyCommand(Object[] keys, Set<Flag> flags, GMUVersion txVersion, BitSet alreadyReadFromMask) {
+      return actual.buildGMUClusteredGetManyCommand(keys, flags, txVersion, alreadyReadFromMask);
+   }
+
    @Override
    public GarbageCollectorControlCommand buildGarbageCollectorControlCommand(GarbageCollectorControlCommand.Type type, int minimumVisibleViewId) {
       return actual.buildGarbageCollectorControlCommand(type, minimumVisibleViewId);